@@ -0,0 +1,304 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JnrTestCommandLineTestJnrTest extends JnrTest { // NOSONAR
+
+	public JnrTestCommandLineTestJnrTest() {
+		super("JnrTestCommandLineTest in JnrTest");
+	}
+
+	protected @Override void specify() {
+		beforeEach("call setUpStreams", () -> {
+			outContent = new ByteArrayOutputStream();
+			errContent = new ByteArrayOutputStream();
+			System.setOut(new PrintStream(outContent));
+			System.setErr(new PrintStream(errContent));
+			executed.clear();
+		});
+		afterEach("call restoreStreams", () -> {
+			System.setOut(originalOut);
+			System.setErr(originalErr);
+		});
+		test("should have defaults", () -> {
+			var commandLine = JnrTestCommandLine.parse();
+			assertThat(commandLine.getMode()).isEqualTo(JnrTestExecutionMode.SEQUENTIAL);
+			assertThat(commandLine.getThreads()).isZero();
+			assertThat(commandLine.getShardIndex()).isZero();
+			assertThat(commandLine.getShardTotal()).isEqualTo(1);
+			assertThat(commandLine.getClassFilter()).isNull();
+			assertThat(commandLine.getSpecificationFilter()).isNull();
+			assertThat(commandLine.isOnlySummaries()).isFalse();
+			assertThat(commandLine.isProgress()).isFalse();
+			assertThat(commandLine.isVerbose()).isFalse();
+			assertThat(commandLine.getXmlReport()).isNull();
+			assertThat(commandLine.isResourceUsage()).isFalse();
+			assertThat(commandLine.isJfrEvents()).isFalse();
+			assertThat(commandLine.getMetricsFile()).isNull();
+			assertThat(commandLine.isMetricsJmx()).isFalse();
+			assertThat(commandLine.isHelp()).isFalse();
+		});
+		test("should parse all the options", () -> {
+			var commandLine = JnrTestCommandLine.parse("--parallel", "--threads", "4", "--shard", "1/3",
+					"--class-filter", "Class.*", "--spec-filter", ".*spec", "--only-summaries", "--progress",
+					"--verbose", "--xml-report",
+					"target/report.xml", "--resource-usage", "--jfr-events", "--metrics-file", "target/metrics.prom",
+					"--metrics-jmx", "--help");
+			assertThat(commandLine.getMode()).isEqualTo(JnrTestExecutionMode.PARALLEL);
+			assertThat(commandLine.getThreads()).isEqualTo(4);
+			assertThat(commandLine.getShardIndex()).isEqualTo(1);
+			assertThat(commandLine.getShardTotal()).isEqualTo(3);
+			assertThat(commandLine.getClassFilter()).isEqualTo("Class.*");
+			assertThat(commandLine.getSpecificationFilter()).isEqualTo(".*spec");
+			assertThat(commandLine.isOnlySummaries()).isTrue();
+			assertThat(commandLine.isProgress()).isTrue();
+			assertThat(commandLine.isVerbose()).isTrue();
+			assertThat(commandLine.getXmlReport()).isEqualTo(Path.of("target/report.xml"));
+			assertThat(commandLine.isResourceUsage()).isTrue();
+			assertThat(commandLine.isJfrEvents()).isTrue();
+			assertThat(commandLine.getMetricsFile()).isEqualTo(Path.of("target/metrics.prom"));
+			assertThat(commandLine.isMetricsJmx()).isTrue();
+			assertThat(commandLine.isHelp()).isTrue();
+		});
+		test("should parse the execution modes", () -> {
+			assertThat(JnrTestCommandLine.parse("--virtual-threads").getMode())
+					.isEqualTo(JnrTestExecutionMode.VIRTUAL_THREADS);
+			assertThat(JnrTestCommandLine.parse("--parallel", "--sequential").getMode())
+					.isEqualTo(JnrTestExecutionMode.SEQUENTIAL);
+		});
+		test("should reject invalid options", () -> {
+			assertThatThrownBy(() -> JnrTestCommandLine.parse("--foo")).isInstanceOf(IllegalArgumentException.class)
+					.hasMessageStartingWith("Unknown option: --foo").hasMessageContaining("--shard <index>/<total>");
+			assertThatThrownBy(() -> JnrTestCommandLine.parse("--threads")).isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Missing value for --threads");
+			assertThatThrownBy(() -> JnrTestCommandLine.parse("--threads", "many"))
+					.isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid value for --threads: many");
+			assertThatThrownBy(() -> JnrTestCommandLine.parse("--shard", "1"))
+					.isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid value for --shard: 1");
+			assertThatThrownBy(() -> JnrTestCommandLine.parse("--shard", "1/a"))
+					.isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid value for --shard: a");
+		});
+		test("should create executors for the execution modes", () -> {
+			assertThat(JnrTestCommandLine.parse().createExecutor(this::fillTestRunner))
+					.isNotInstanceOf(JnrTestConsoleParallelExecutor.class)
+					.satisfies(e -> assertThat(e.getRecorder()).isInstanceOf(JnrTestRecorder.class))
+					.satisfies(e -> assertThat(e.getUsageRecorder()).isNull());
+			assertThat(JnrTestCommandLine.parse("--parallel").createExecutor(this::fillTestRunner))
+					.isInstanceOf(JnrTestConsoleParallelExecutor.class);
+			assertThat(JnrTestCommandLine.parse("--virtual-threads").createExecutor(this::fillTestRunner))
+					.isInstanceOf(JnrTestConsoleParallelExecutor.class);
+		});
+		test("should execute sequentially", () -> {
+			var success = JnrTestCommandLine.parse().executeWithoutThrowing(this::fillTestRunner);
+			assertThat(success).isFalse();
+			assertThat(executed).containsExactlyInAnyOrder("class 0 first", "class 0 second", "class 1 first",
+					"class 1 second", "class 2 first", "class 2 second", "class 3 first", "class 3 second");
+			assertThat(outContent.toString()).contains("[SUCCESS] first").contains("Results:")
+					.doesNotContain("XML report").doesNotContain("Top allocations:");
+		});
+		test("should emit Java Flight Recorder events", () -> {
+			var file = Path.of("target", "command-line-test", "events.jfr");
+			Files.createDirectories(file.getParent());
+			try (var recording = new Recording()) {
+				recording.enable(JnrTestFlightRecorderListener.TEST_CLASS);
+				recording.start();
+				JnrTestCommandLine.parse().executeWithoutThrowing(this::fillTestRunner);
+				JnrTestCommandLine.parse("--jfr-events").executeWithoutThrowing(this::fillTestRunner);
+				recording.stop();
+				recording.dump(file);
+			}
+			// only the second execution emits events
+			assertThat(RecordingFile.readAllEvents(file))
+					.filteredOn(e -> e.getEventType().getName().equals(JnrTestFlightRecorderListener.TEST_CLASS))
+					.extracting(e -> e.getString("testClass"))
+					.containsExactly("class 0", "class 1", "class 2", "class 3");
+		});
+		test("should write the metrics file", () -> {
+			var file = Path.of("target", "command-line-test", "metrics.prom");
+			Files.deleteIfExists(file);
+			JnrTestCommandLine.parse("--metrics-file", file.toString()).executeWithoutThrowing(this::fillTestRunner);
+			assertThat(Files.readString(file)).contains("jnrtest_tests_started_total 8\n")
+					.contains("jnrtest_tests_failed_total 4\n").contains("jnrtest_tests_in_flight 0\n");
+		});
+		test("should fail when the metrics file cannot be written", () -> {
+			var directory = Path.of("target", "command-line-test", "metrics-directory");
+			Files.createDirectories(directory.resolve("child"));
+			var commandLine = JnrTestCommandLine.parse("--metrics-file", directory.toString());
+			assertThatThrownBy(() -> commandLine.executeWithoutThrowing(this::fillTestRunner))
+					.isInstanceOf(UncheckedIOException.class);
+			assertThat(executed).isEmpty();
+		});
+		test("should export the metrics as an MBean while tests run", () -> {
+			var name = new ObjectName(JnrTestJmxExporter.DEFAULT_OBJECT_NAME);
+			var server = ManagementFactory.getPlatformMBeanServer();
+			var startedTests = new ArrayList<Object>();
+			var file = Path.of("target", "command-line-test", "jmx-metrics.prom");
+			for (var args : List.of(List.of(), List.of("--metrics-jmx"),
+					List.of("--metrics-jmx", "--metrics-file", file.toString()))) {
+				var success = JnrTestCommandLine.parse(args.toArray(String[]::new))
+						.executeWithoutThrowing(runner -> runner.add(new JnrTest("a test class") {
+							@Override
+							protected void specify() {
+								test("a test",
+										() -> startedTests.add(server.isRegistered(name)
+												? server.getAttribute(name, "jnrtest_tests_started_total")
+												: "not registered"));
+							}
+						}));
+				assertThat(success).isTrue();
+				assertThat(server.isRegistered(name)).isFalse();
+			}
+			assertThat(startedTests).containsExactly("not registered", 1.0, 1.0);
+			assertThat(Files.readString(file)).contains("jnrtest_tests_succeeded_total 1\n");
+			// the MBean is unregistered also when the file cannot be written
+			var directory = Path.of("target", "command-line-test", "metrics-directory");
+			Files.createDirectories(directory.resolve("child"));
+			var commandLine = JnrTestCommandLine.parse("--metrics-jmx", "--metrics-file", directory.toString());
+			assertThatThrownBy(() -> commandLine.executeWithoutThrowing(this::fillTestRunner))
+					.isInstanceOf(UncheckedIOException.class);
+			assertThat(server.isRegistered(name)).isFalse();
+		});
+		test("should report the resource usage", () -> {
+			var commandLine = JnrTestCommandLine.parse("--resource-usage");
+			var executor = commandLine.createExecutor(this::fillTestRunner);
+			assertThat(executor.getUsageRecorder()).isNotNull();
+			executor.executeWithoutThrowing();
+			assertThat(executor.getUsageRecorder().getUsages()).containsOnlyKeys("class 0", "class 1", "class 2",
+					"class 3");
+			assertThat(outContent.toString()).contains("Top allocations:").contains("[       TEST] first - Allocated: ")
+					.contains("Tests run: 8, Succeeded: 4, Failures: 4, Errors: 0").contains(" - Allocated: ")
+					.contains(", GC: ");
+		});
+		test("should execute in parallel with the given threads", () -> {
+			Set<Thread> threads = ConcurrentHashMap.newKeySet();
+			var success = JnrTestCommandLine.parse("--parallel", "--threads", "2", "--spec-filter", "first")
+					.executeWithoutThrowing(runner -> {
+						for (int i = 0; i < 4; i++) {
+							runner.add(new JnrTest("class " + i) {
+								@Override
+								protected void specify() {
+									test("first", () -> threads.add(Thread.currentThread()));
+									test("second", () -> {
+										throw new AssertionError("failure");
+									});
+								}
+							});
+						}
+					});
+			assertThat(success).isTrue();
+			assertThat(threads).isNotEmpty().allSatisfy(t -> assertThat(t.getName()).startsWith("ForkJoinPool-"));
+		});
+		test("should execute with virtual threads", () -> {
+			var success = JnrTestCommandLine.parse("--virtual-threads", "--class-filter", "class [12]")
+					.executeWithoutThrowing(this::fillTestRunner);
+			assertThat(success).isFalse();
+			assertThat(executed).containsExactlyInAnyOrder("class 1 first", "class 1 second", "class 2 first",
+					"class 2 second");
+		});
+		test("should execute shards with filters and only summaries", () -> {
+			var success = JnrTestCommandLine.parse("--shard", "1/2", "--spec-filter", "first", "--only-summaries")
+					.executeWithoutThrowing(this::fillTestRunner);
+			assertThat(success).isTrue();
+			assertThat(executed).containsExactlyInAnyOrder("class 1 first", "class 3 first");
+			assertThat(outContent.toString()).doesNotContain("[SUCCESS] first")
+					.contains("Tests run: 1, Succeeded: 1, Failures: 0, Errors: 0");
+		});
+		test("should only report failures with progress", () -> {
+			var commandLine = JnrTestCommandLine.parse("--progress");
+			assertThat(commandLine.createExecutor(this::fillTestRunner).getReporter())
+					.isInstanceOf(JnrTestProgressReporter.class);
+			var success = commandLine.executeWithoutThrowing(this::fillTestRunner);
+			assertThat(success).isFalse();
+			assertThat(executed).hasSize(8);
+			assertThat(outContent.toString()).doesNotContain("[SUCCESS] first")
+					.contains("[  START] class 3", "[ FAILED] second", "java.lang.AssertionError: failure")
+					.contains("Tests run: 8, Succeeded: 4, Failures: 4, Errors: 0").contains("Results:");
+		});
+		test("should report all the tests with progress in verbose mode", () -> {
+			var commandLine = JnrTestCommandLine.parse("--parallel", "--progress", "--verbose");
+			assertThat(commandLine.createExecutor(this::fillTestRunner).getReporter())
+					.isInstanceOf(JnrTestProgressReporter.class);
+			var success = commandLine.executeWithoutThrowing(this::fillTestRunner);
+			assertThat(success).isFalse();
+			assertThat(outContent.toString()).contains("[SUCCESS] first", "[ FAILED] second")
+					.contains("Tests run: 2, Succeeded: 1, Failures: 1, Errors: 0")
+					.contains("Tests run: 8, Succeeded: 4, Failures: 4, Errors: 0");
+		});
+		test("should reject invalid shards when executing", () -> {
+			var commandLine = JnrTestCommandLine.parse("--shard", "2/2");
+			assertThatThrownBy(() -> commandLine.createExecutor(this::fillTestRunner))
+					.isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid shard: 2/2");
+		});
+		test("should write the XML report", () -> {
+			var file = Path.of("target", "command-line-test", "report.xml");
+			Files.deleteIfExists(file);
+			JnrTestCommandLine.parse("--xml-report", file.toString()).executeWithoutThrowing(this::fillTestRunner);
+			assertThat(file).content().contains("<testsuites tests=\"8\" failures=\"4\" errors=\"0\">");
+			assertThat(outContent.toString()).contains("XML report: " + file);
+		});
+		test("should fail when the XML report cannot be written", () -> {
+			var directory = Path.of("target", "command-line-test", "a-directory");
+			Files.createDirectories(directory);
+			var commandLine = JnrTestCommandLine.parse("--xml-report", directory.toString());
+			assertThatThrownBy(() -> commandLine.executeWithoutThrowing(this::fillTestRunner))
+					.isInstanceOf(UncheckedIOException.class);
+		});
+		test("execute should throw when there are failures", () -> {
+			String[] args = {};
+			assertThatThrownBy(() -> JnrTestCommandLine.execute(args, this::fillTestRunner))
+					.isInstanceOf(RuntimeException.class).hasMessage("There are test failures");
+			assertThat(executed).hasSize(8);
+		});
+		test("execute should not throw when all tests pass", () -> {
+			JnrTestCommandLine.execute(new String[] { "--spec-filter", "first" }, this::fillTestRunner);
+			assertThat(executed).hasSize(4);
+			assertThat(outContent.toString()).contains("Results:");
+		});
+		test("execute should only print the usage with --help", () -> {
+			JnrTestCommandLine.execute(new String[] { "--help" }, this::fillTestRunner);
+			assertThat(executed).isEmpty();
+			assertThat(outContent.toString()).contains(JnrTestCommandLine.USAGE).doesNotContain("Results:");
+		});
+	}
+
+	private ByteArrayOutputStream outContent;
+	private ByteArrayOutputStream errContent;
+	private final PrintStream originalOut = System.out;
+	private final PrintStream originalErr = System.err;
+
+	private final Set<String> executed = ConcurrentHashMap.newKeySet();
+
+	private void fillTestRunner(JnrTestRunner runner) {
+		for (var description : List.of("class 0", "class 1", "class 2", "class 3")) {
+			runner.add(new JnrTest(description) {
+				@Override
+				protected void specify() {
+					test("first", () -> executed.add(description + " first"));
+					test("second", () -> {
+						executed.add(description + " second");
+						throw new AssertionError("failure");
+					});
+				}
+			});
+		}
+	}
+
+}
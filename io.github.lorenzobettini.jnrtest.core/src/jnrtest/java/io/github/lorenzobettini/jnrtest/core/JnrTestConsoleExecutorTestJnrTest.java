@@ -400,6 +400,52 @@ public class JnrTestConsoleExecutorTestJnrTest extends JnrTest { // NOSONAR
 			final var result = executor.specificationFilter(spec -> true);
 			assertThat(result).isSameAs(executor);
 		});
+		test("withResourceUsage should record the resources only once", () -> {
+			final var executor = new JnrTestConsoleExecutor();
+			assertThat(executor.getUsageRecorder()).isNull();
+			final var result = executor.withResourceUsage();
+			assertThat(result).isSameAs(executor);
+			final var resourceRecorder = executor.getUsageRecorder();
+			assertThat(executor.withResourceUsage().getUsageRecorder()).isSameAs(resourceRecorder);
+			executor.add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					test("a test", () -> {
+						// Test passes
+					});
+				}
+			});
+			executor.execute();
+			// a single listener records a single usage
+			assertThat(resourceRecorder.getUsages().get("a test class")).hasSize(1);
+			assertThat(outContent.toString()).contains("Top allocations:").contains("TEST] a test - Allocated: ");
+		});
+		test("withMetrics should register the same listener with all the registries", () -> {
+			final var executor = new JnrTestConsoleExecutor();
+			assertThat(executor.getMetricsListener()).isNull();
+			final var first = new JnrTestPrometheusExporter();
+			final var second = new JnrTestPrometheusExporter();
+			assertThat(executor.withMetrics(first)).isSameAs(executor);
+			final var metricsListener = executor.getMetricsListener();
+			assertThat(metricsListener).isNotNull();
+			assertThat(executor.withMetrics(second).getMetricsListener()).isSameAs(metricsListener);
+			executor.add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					test("a test", () -> {
+						// Test passes
+					});
+				}
+			});
+			executor.execute();
+			// a single listener counts a single test
+			assertThat(first.scrape()).contains("jnrtest_tests_succeeded_total 1\n").isEqualTo(second.scrape());
+		});
+		test("testFilter should return this for chaining", () -> {
+			final var executor = new JnrTestConsoleExecutor();
+			final var result = executor.testFilter((testClass, spec) -> true);
+			assertThat(result).isSameAs(executor);
+		});
 	}
 
 	private ByteArrayOutputStream outContent;
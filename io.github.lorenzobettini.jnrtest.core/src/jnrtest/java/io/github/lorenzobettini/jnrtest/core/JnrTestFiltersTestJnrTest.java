@@ -234,6 +234,27 @@ public class JnrTestFiltersTestJnrTest extends JnrTest { // NOSONAR
 			// Both: true AND true = TRUE
 			assertTrue(filters.getSpecificationFilter().test(new JnrTestRunnableSpecification("abcd", EMPTY_RUNNABLE)));
 		});
+		test("testTestFilterDependsOnTheTestClass", () -> {
+			// Given a JnrTestFilters instance
+			JnrTestFilters filters = new JnrTestFilters();
+			assertNull(filters.getTestFilter());
+			assertNull(filters.getSpecificationFilter(calculatorTest));
+
+			// When we add test filters and a specification filter
+			filters.testFilter((testClass, spec) -> testClass.getDescription().equals("Calculator")
+					|| spec.description().equals("Addition"));
+			filters.testFilter((testClass, spec) -> !spec.description().equals("Subtraction"));
+			filters.bySpecificationDescription(".*tion");
+
+			// Then the filters are combined for each test class
+			assertTrue(filters.getTestFilter().test(stringTest, additionSpec));
+			assertTrue(filters.getSpecificationFilter(calculatorTest).test(additionSpec));
+			assertFalse(filters.getSpecificationFilter(calculatorTest).test(subtractionSpec));
+			assertFalse(filters.getSpecificationFilter(stringTest).test(
+					new JnrTestRunnableSpecification("Multiplication", EMPTY_RUNNABLE)));
+			assertFalse(filters.getSpecificationFilter(calculatorTest).test(
+					new JnrTestRunnableSpecification("Division by zero", EMPTY_RUNNABLE)));
+		});
 	}
 
 	// Simple fake test class implementation
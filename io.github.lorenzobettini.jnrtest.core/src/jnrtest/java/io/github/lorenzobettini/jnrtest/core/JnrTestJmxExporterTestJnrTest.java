@@ -0,0 +1,100 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Tests for {@link JnrTestJmxExporter}.
+ */
+public class JnrTestJmxExporterTestJnrTest extends JnrTest { // NOSONAR
+
+	public JnrTestJmxExporterTestJnrTest() {
+		super("JnrTestJmxExporterTest in JnrTest");
+	}
+
+	protected @Override void specify() {
+		test("should export the metrics as attributes", () -> {
+			var value = new AtomicLong();
+			try (var exporter = new JnrTestJmxExporter(server)) {
+				exporter.gauge("b_gauge", "A gauge", value::get);
+				exporter.counter("a_total", "A counter", () -> 3);
+				assertThat(exporter.register()).isSameAs(exporter);
+				var name = new ObjectName(JnrTestJmxExporter.DEFAULT_OBJECT_NAME);
+				assertThat(server.getAttribute(name, "a_total")).isEqualTo(3.0);
+				assertThat(server.getAttribute(name, "b_gauge")).isEqualTo(0.0);
+				value.set(5);
+				assertThat(server.getAttribute(name, "b_gauge")).isEqualTo(5.0);
+				assertThat(server.getAttributes(name, new String[] { "a_total", "unknown", "b_gauge" }).asList())
+						.extracting(Attribute::getName, Attribute::getValue)
+						.containsExactly(tuple("a_total", 3.0), tuple("b_gauge", 5.0));
+				assertThatThrownBy(() -> server.getAttribute(name, "unknown"))
+						.isInstanceOf(AttributeNotFoundException.class).hasMessage("unknown");
+				var info = server.getMBeanInfo(name);
+				assertThat(info.getClassName()).isEqualTo(JnrTestJmxExporter.class.getName());
+				assertThat(info.getDescription()).isEqualTo("JnrTest metrics");
+				assertThat(Arrays.stream(info.getAttributes()))
+						.extracting(MBeanAttributeInfo::getName, MBeanAttributeInfo::getType,
+								MBeanAttributeInfo::getDescription, MBeanAttributeInfo::isReadable,
+								MBeanAttributeInfo::isWritable)
+						.containsExactly(tuple("a_total", "double", "A counter", true, false),
+								tuple("b_gauge", "double", "A gauge", true, false));
+				assertThat(info.getOperations()).isEmpty();
+			}
+			assertThat(server.isRegistered(new ObjectName(JnrTestJmxExporter.DEFAULT_OBJECT_NAME))).isFalse();
+		});
+		test("should not allow writing attributes and invoking operations", () -> {
+			var exporter = new JnrTestJmxExporter(server);
+			exporter.counter("a_total", "A counter", () -> 3);
+			assertThatThrownBy(() -> exporter.setAttribute(new Attribute("a_total", 4.0)))
+					.isInstanceOf(AttributeNotFoundException.class).hasMessage("Read-only attribute: a_total");
+			var attributes = new AttributeList();
+			attributes.add(new Attribute("a_total", 4.0));
+			assertThat(exporter.setAttributes(attributes)).isEmpty();
+			assertThatThrownBy(() -> exporter.invoke("reset", new Object[0], new String[0]))
+					.isInstanceOf(ReflectionException.class).hasMessage("No operation: reset")
+					.hasCauseInstanceOf(NoSuchMethodException.class);
+			assertThat(exporter.getAttributes(new String[] { "a_total" }).asList()).extracting(Attribute::getValue)
+					.containsExactly(3.0);
+		});
+		test("should report registration failures", () -> {
+			try (var exporter = new JnrTestJmxExporter(server).register("test:type=Metrics")) {
+				var other = new JnrTestJmxExporter(server);
+				assertThatThrownBy(() -> other.register("test:type=Metrics")).isInstanceOf(IllegalStateException.class)
+						.hasMessage("Cannot register the MBean test:type=Metrics");
+				assertThatThrownBy(() -> other.register("malformed")).isInstanceOf(IllegalStateException.class)
+						.hasMessage("Cannot register the MBean malformed");
+				// not registered, so nothing to unregister
+				other.close();
+				assertThat(server.isRegistered(new ObjectName("test:type=Metrics"))).isTrue();
+				server.unregisterMBean(new ObjectName("test:type=Metrics"));
+				assertThatThrownBy(exporter::close).isInstanceOf(IllegalStateException.class)
+						.hasMessage("Cannot unregister the MBean test:type=Metrics");
+				// closing again does nothing
+				exporter.close();
+			}
+		});
+		test("should use the platform MBean server by default", () -> {
+			var name = new ObjectName("test:type=PlatformMetrics");
+			try (var exporter = new JnrTestJmxExporter().register(name.toString())) {
+				assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue();
+			}
+			assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+		});
+	}
+
+	private final MBeanServer server = MBeanServerFactory.newMBeanServer();
+}
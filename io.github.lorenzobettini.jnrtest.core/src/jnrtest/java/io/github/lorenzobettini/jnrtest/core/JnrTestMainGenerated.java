@@ -5,29 +5,39 @@ package io.github.lorenzobettini.jnrtest.core;
  */
 public class JnrTestMainGenerated {
 	public static void fillTestRunner(JnrTestRunner runner) {
+		runner.add(new JnrTestBenchmarkTestJnrTest());
+		runner.add(new JnrTestCombinationsTestJnrTest());
+		runner.add(new JnrTestCommandLineTestJnrTest());
 		runner.add(new JnrTestConsoleExecutorTestJnrTest());
 		runner.add(new JnrTestConsoleParallelExecutorTestJnrTest());
 		runner.add(new JnrTestConsoleReporterTestJnrTest());
 		runner.add(new JnrTestFilterTestJnrTest());
 		runner.add(new JnrTestFiltersTestJnrTest());
+		runner.add(new JnrTestFlightRecorderListenerTestJnrTest());
+		runner.add(new JnrTestGeneratorTestJnrTest());
+		runner.add(new JnrTestJmxExporterTestJnrTest());
+		runner.add(new JnrTestMetricsListenerTestJnrTest());
+		runner.add(new JnrTestNativeImageTestJnrTest());
 		runner.add(new JnrTestParallelRunnerTestJnrTest());
+		runner.add(new JnrTestParameterSourceTestJnrTest());
+		runner.add(new JnrTestPerformanceBaselineTestJnrTest());
+		runner.add(new JnrTestProgressReporterTestJnrTest());
+		runner.add(new JnrTestPrometheusExporterTestJnrTest());
+		runner.add(new JnrTestPropertyTestJnrTest());
 		runner.add(new JnrTestRecorderTestJnrTest());
 		runner.add(new JnrTestReporterInterfaceTestJnrTest());
+		runner.add(new JnrTestResourceLocksTestJnrTest());
+		runner.add(new JnrTestResourceRecorderTestJnrTest());
 		runner.add(new JnrTestRunnerTestJnrTest());
 		runner.add(new JnrTestStatisticsTestJnrTest());
 		runner.add(new JnrTestThreadSafeConsoleReporterTestJnrTest());
 		runner.add(new JnrTestThreadSafeRecorderTestJnrTest());
+		runner.add(new JnrTestVirtualThreadRunnerTestJnrTest());
+		runner.add(new JnrTestWithTimeoutTestJnrTest());
+		runner.add(new JnrTestXmlReportTestJnrTest());
 	}
 
 	public static void main(String[] args) {
-		var executor = new JnrTestConsoleExecutor() {
-			@Override
-			protected JnrTestRunner createTestRunner() {
-				var runner = new JnrTestRunner();
-				JnrTestMainGenerated.fillTestRunner(runner);
-				return runner;
-			}
-		};
-		executor.execute();
+		JnrTestCommandLine.execute(args, JnrTestMainGenerated::fillTestRunner);
 	}
 }
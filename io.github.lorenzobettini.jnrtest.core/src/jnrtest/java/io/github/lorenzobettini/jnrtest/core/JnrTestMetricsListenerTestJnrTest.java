@@ -0,0 +1,168 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Tests for {@link JnrTestMetricsListener}.
+ */
+public class JnrTestMetricsListenerTestJnrTest extends JnrTest { // NOSONAR
+
+	public JnrTestMetricsListenerTestJnrTest() {
+		super("JnrTestMetricsListenerTest in JnrTest");
+	}
+
+	protected @Override void specify() {
+		test("should register all the metrics", () -> {
+			var registry = new MapRegistry();
+			var listener = new JnrTestMetricsListener();
+			assertThat(listener.registerWith(registry)).isSameAs(listener);
+			assertThat(registry.values()).containsExactly(entry("counter jnrtest_test_classes_started_total", 0.0),
+					entry("counter jnrtest_test_classes_finished_total", 0.0),
+					entry("gauge jnrtest_test_classes_in_flight", 0.0),
+					entry("counter jnrtest_tests_started_total", 0.0),
+					entry("counter jnrtest_tests_succeeded_total", 0.0),
+					entry("counter jnrtest_tests_failed_total", 0.0), entry("counter jnrtest_tests_errors_total", 0.0),
+					entry("counter jnrtest_tests_skipped_total", 0.0),
+					entry("gauge jnrtest_tests_in_flight", 0.0),
+					entry("counter jnrtest_test_duration_seconds_count", 0.0),
+					entry("counter jnrtest_test_duration_seconds_sum", 0.0),
+					entry("gauge jnrtest_test_duration_seconds_max", 0.0),
+					entry("counter jnrtest_before_all_duration_seconds_count", 0.0),
+					entry("counter jnrtest_before_all_duration_seconds_sum", 0.0),
+					entry("gauge jnrtest_before_all_duration_seconds_max", 0.0),
+					entry("counter jnrtest_before_each_duration_seconds_count", 0.0),
+					entry("counter jnrtest_before_each_duration_seconds_sum", 0.0),
+					entry("gauge jnrtest_before_each_duration_seconds_max", 0.0),
+					entry("counter jnrtest_after_each_duration_seconds_count", 0.0),
+					entry("counter jnrtest_after_each_duration_seconds_sum", 0.0),
+					entry("gauge jnrtest_after_each_duration_seconds_max", 0.0),
+					entry("counter jnrtest_after_all_duration_seconds_count", 0.0),
+					entry("counter jnrtest_after_all_duration_seconds_sum", 0.0),
+					entry("gauge jnrtest_after_all_duration_seconds_max", 0.0));
+		});
+		test("should update the metrics while tests run", () -> {
+			var registry = new MapRegistry();
+			// each reading of the clock advances it by one second
+			var clock = new AtomicLong();
+			var listener = new JnrTestMetricsListener(() -> clock.addAndGet(1_000_000_000L)).registerWith(registry);
+			var inFlight = new LinkedHashMap<String, Double>();
+			new JnrTestRunner().testListener(listener).add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					beforeAll("before all", () -> {
+						inFlight.put("classes in before all", registry.value("jnrtest_test_classes_in_flight"));
+						inFlight.put("tests in before all", registry.value("jnrtest_tests_in_flight"));
+					});
+					beforeEach("before each", () -> {
+						// a longer before each
+						clock.addAndGet(2_000_000_000L);
+					});
+					test("success test",
+							() -> inFlight.put("tests in test", registry.value("jnrtest_tests_in_flight")));
+					test("failed test", () -> {
+						throw new AssertionError("failure");
+					});
+					test("error test", () -> {
+						throw new IllegalStateException("error");
+					});
+				}
+			}).execute();
+			assertThat(inFlight).containsExactly(entry("classes in before all", 1.0), entry("tests in before all", 0.0),
+					entry("tests in test", 1.0));
+			assertThat(registry.value("jnrtest_test_classes_started_total")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_test_classes_finished_total")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_test_classes_in_flight")).isZero();
+			assertThat(registry.value("jnrtest_tests_started_total")).isEqualTo(3.0);
+			assertThat(registry.value("jnrtest_tests_succeeded_total")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_tests_failed_total")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_tests_errors_total")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_tests_in_flight")).isZero();
+			assertThat(registry.value("jnrtest_test_duration_seconds_count")).isEqualTo(3.0);
+			assertThat(registry.value("jnrtest_test_duration_seconds_sum")).isEqualTo(3.0);
+			assertThat(registry.value("jnrtest_test_duration_seconds_max")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_before_each_duration_seconds_count")).isEqualTo(3.0);
+			assertThat(registry.value("jnrtest_before_each_duration_seconds_sum")).isEqualTo(9.0);
+			assertThat(registry.value("jnrtest_before_each_duration_seconds_max")).isEqualTo(3.0);
+			assertThat(registry.value("jnrtest_before_all_duration_seconds_count")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_after_all_duration_seconds_count")).isZero();
+		});
+		test("should ignore the end of runnables without the start", () -> {
+			var registry = new MapRegistry();
+			var listener = new JnrTestMetricsListener(() -> 1_000_000_000L).registerWith(registry);
+			listener.notify(new JnrTestRunnableLifecycleEvent("a hook", JnrTestRunnableKind.AFTER_ALL,
+					JnrTestRunnableStatus.START));
+			listener.notify(new JnrTestRunnableLifecycleEvent("a hook", JnrTestRunnableKind.AFTER_ALL,
+					JnrTestRunnableStatus.END));
+			listener.notify(new JnrTestRunnableLifecycleEvent("a hook", JnrTestRunnableKind.AFTER_ALL,
+					JnrTestRunnableStatus.END));
+			assertThat(registry.value("jnrtest_after_all_duration_seconds_count")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_tests_in_flight")).isZero();
+		});
+		test("should update the metrics from several threads", () -> {
+			var registry = new MapRegistry();
+			var listener = new JnrTestMetricsListener().registerWith(registry);
+			var runner = new JnrTestParallelRunner(4).testListener(listener);
+			for (int i = 0; i < 20; i++) {
+				runner.add(new JnrTest("test class " + i) {
+					@Override
+					protected void specify() {
+						for (int j = 0; j < 50; j++) {
+							test("test " + j, () -> {
+							});
+						}
+					}
+				});
+			}
+			runner.execute();
+			assertThat(registry.value("jnrtest_test_classes_finished_total")).isEqualTo(20.0);
+			assertThat(registry.value("jnrtest_tests_started_total")).isEqualTo(1000.0);
+			assertThat(registry.value("jnrtest_tests_succeeded_total")).isEqualTo(1000.0);
+			assertThat(registry.value("jnrtest_test_duration_seconds_count")).isEqualTo(1000.0);
+			assertThat(registry.value("jnrtest_tests_in_flight")).isZero();
+			assertThat(registry.value("jnrtest_test_classes_in_flight")).isZero();
+		});
+		test("should count skipped tests", () -> {
+			var registry = new MapRegistry();
+			var listener = new JnrTestMetricsListener().registerWith(registry);
+			listener.notify(new JnrTestResult("a skipped test", JnrTestResultStatus.SKIPPED, null));
+			assertThat(registry.value("jnrtest_tests_skipped_total")).isEqualTo(1.0);
+			assertThat(registry.value("jnrtest_tests_succeeded_total")).isZero();
+		});
+	}
+
+	/**
+	 * Keeps the registered metrics, prefixing their names with their type.
+	 */
+	private static class MapRegistry implements JnrTestMetricsRegistry {
+		private final Map<String, DoubleSupplier> metrics = new LinkedHashMap<>();
+
+		@Override
+		public void counter(String name, String help, DoubleSupplier value) {
+			assertThat(help).isNotBlank();
+			metrics.put("counter " + name, value);
+		}
+
+		@Override
+		public void gauge(String name, String help, DoubleSupplier value) {
+			assertThat(help).isNotBlank();
+			metrics.put("gauge " + name, value);
+		}
+
+		private double value(String name) {
+			var counter = metrics.get("counter " + name);
+			return counter != null ? counter.getAsDouble() : metrics.get("gauge " + name).getAsDouble();
+		}
+
+		private Map<String, Double> values() {
+			var values = new LinkedHashMap<String, Double>();
+			metrics.forEach((name, value) -> values.put(name, value.getAsDouble()));
+			return values;
+		}
+	}
+}
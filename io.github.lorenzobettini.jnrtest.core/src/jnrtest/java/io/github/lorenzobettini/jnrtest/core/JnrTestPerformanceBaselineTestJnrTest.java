@@ -0,0 +1,236 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTestPerformanceBaseline.Kind;
+import io.github.lorenzobettini.jnrtest.core.JnrTestPerformanceBaseline.Measure;
+
+/**
+ * Tests for {@link JnrTestPerformanceBaseline} and
+ * {@link JnrTestPerformanceBaselineExtension}.
+ */
+public class JnrTestPerformanceBaselineTestJnrTest extends JnrTest { // NOSONAR
+
+	public JnrTestPerformanceBaselineTestJnrTest() {
+		super("JnrTestPerformanceBaselineTest in JnrTest");
+	}
+
+	protected @Override void specify() {
+		test("should store the baseline and fail on regressions", () -> {
+			var file = baselineFile("regressions");
+			var reference = new JnrTestPerformanceBaseline(file, clock::get);
+			durations.add(10L);
+			var recorder = execute(createTestClass(reference));
+			// without a baseline only functional failures are recorded
+			assertThat(recorder.getResults().get("a test class"))
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[SUCCESS] a timed test", "[ FAILED] a failed test");
+			assertThat(reference.getMeasure("a test class", "a timed test"))
+				.isEqualTo(new Measure(Kind.DURATION, 10.0 * MILLIS));
+			// failed tests are not measured
+			assertThat(reference.getMeasure("a test class", "a failed test")).isNull();
+			reference.save();
+			assertThat(Files.readAllLines(file))
+				.containsExactly("a\\ test\\ class\\ /\\ a\\ timed\\ test=DURATION 1.0E7");
+
+			var baseline = new JnrTestPerformanceBaseline(file, clock::get).withThreshold(0.5);
+			assertThat(baseline.getBaseline("a test class", "a timed test"))
+				.isEqualTo(new Measure(Kind.DURATION, 10.0 * MILLIS));
+			// within the threshold
+			durations.add(15L);
+			recorder = execute(createTestClass(baseline));
+			assertThat(recorder.isSuccess()).isFalse();
+			assertThat(new JnrTestResultAggregator().aggregate(recorder).getFailed()).isEqualTo(1);
+			// beyond the threshold
+			durations.add(16L);
+			recorder = execute(createTestClass(baseline));
+			var results = recorder.getResults().get("a test class");
+			assertThat(results)
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[ FAILED] a timed test", "[ FAILED] a failed test");
+			assertThat(results.get(0).throwable())
+				.hasMessage("Performance regression of 'a test class / a timed test': "
+					+ "16.000 ms, baseline 10.000 ms (60.0% slower, threshold 50.0%)");
+			assertThat(new JnrTestResultAggregator().aggregate(recorder).getFailed()).isEqualTo(2);
+		});
+		test("should compare the median of the last samples", () -> {
+			var file = baselineFile("samples");
+			var reference = new JnrTestPerformanceBaseline(file, clock::get).withSamples(3);
+			durations.addAll(List.of(10L, 30L, 12L));
+			var testClass = createTestClass(reference);
+			for (int i = 0; i < 2; i++) {
+				execute(testClass);
+				assertThat(reference.getMeasure("a test class", "a timed test")).isNull();
+			}
+			execute(testClass);
+			assertThat(reference.getMeasure("a test class", "a timed test"))
+				.isEqualTo(new Measure(Kind.DURATION, 12.0 * MILLIS));
+			reference.save();
+
+			var baseline = new JnrTestPerformanceBaseline(file, clock::get).withSamples(2).withThreshold(0.1);
+			testClass = createTestClass(baseline);
+			var regressions = new ArrayList<String>();
+			// the first slow sample is not enough to check, the median of the
+			// first two is 13 ms, then the median of the last two is 14 ms
+			durations.addAll(List.of(12L, 14L, 14L));
+			for (int i = 0; i < 3; i++) {
+				execute(testClass).getResults().get("a test class").stream()
+					.filter(r -> r.status() == JnrTestResultStatus.FAILED && r.description().equals("a timed test"))
+					.forEach(r -> regressions.add(r.throwable().getMessage()));
+			}
+			assertThat(regressions)
+				.containsExactly("Performance regression of 'a test class / a timed test': "
+					+ "14.000 ms, baseline 12.000 ms (16.7% slower, threshold 10.0%)");
+			assertThat(baseline.getMeasure("a test class", "a timed test"))
+				.isEqualTo(new Measure(Kind.DURATION, 14.0 * MILLIS));
+		});
+		test("should compare the throughput of benchmarks", () -> {
+			var file = baselineFile("benchmarks");
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, "a\\ test\\ class\\ /\\ a\\ benchmark=THROUGHPUT 100.0\n");
+			var baseline = new JnrTestPerformanceBaseline(file, clock::get);
+			var recorder = new JnrTestRecorder();
+			new JnrTestRunner()
+				.testListener(recorder)
+				.add(new JnrTestPerformanceBaselineExtension(baseline).extendEach(new JnrTest("a test class") {
+					@Override
+					protected void specify() {
+						// each operation takes 12.5 ms, i.e., 80 ops/s
+						benchmark("a benchmark", blackhole -> {
+							var start = System.nanoTime();
+							while (System.nanoTime() - start < 12_500_000L) {
+								blackhole.consume(start);
+							}
+						})
+							.withWarmupIterations(0)
+							.withMeasurementIterations(1)
+							.withIterationTime(Duration.ofMillis(1));
+					}
+				}))
+				.execute();
+			var results = recorder.getResults().get("a test class");
+			assertThat(results)
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[ FAILED] a benchmark");
+			assertThat(baseline.getMeasure("a test class", "a benchmark").kind()).isEqualTo(Kind.THROUGHPUT);
+			assertThat(results.get(0).throwable().getMessage())
+				.startsWith("Performance regression of 'a test class / a benchmark': ")
+				.contains("ops/s, baseline 100.000 ops/s");
+		});
+		test("should compute the slowdown of measures", () -> {
+			assertThat(new Measure(Kind.DURATION, 30).slowdown(new Measure(Kind.DURATION, 20))).isEqualTo(1.5);
+			assertThat(new Measure(Kind.THROUGHPUT, 20).slowdown(new Measure(Kind.THROUGHPUT, 30))).isEqualTo(1.5);
+			assertThat(new Measure(Kind.DURATION, 1_500_000)).hasToString("1.500 ms");
+			assertThat(new Measure(Kind.THROUGHPUT, 1.5)).hasToString("1.500 ops/s");
+		});
+		test("should have no measure and no baseline for unknown tests", () -> {
+			var baseline = new JnrTestPerformanceBaseline(baselineFile("no-test"));
+			assertThat(baseline.getMeasure("a test class", "a test")).isNull();
+			assertThat(baseline.getBaseline("a test class", "a test")).isNull();
+		});
+		test("should save the baseline sorted, without comments", () -> {
+			var file = baselineFile("sorted");
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, "b=DURATION 2.0\na=THROUGHPUT 1.0\n");
+			var baseline = new JnrTestPerformanceBaseline(file, clock::get);
+			durations.add(10L);
+			execute(createTestClass(baseline));
+			baseline.save();
+			// the tests that have not been measured keep their baseline
+			assertThat(Files.readAllLines(file))
+				.containsExactly("a=THROUGHPUT 1.0",
+					"a\\ test\\ class\\ /\\ a\\ timed\\ test=DURATION 1.0E7",
+					"b=DURATION 2.0");
+		});
+		test("should keep the resource locks of the tests", () -> {
+			var baseline = new JnrTestPerformanceBaseline(baselineFile("locks"), clock::get);
+			var testClass = new JnrTestPerformanceBaselineExtension(baseline).extendEach(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					resourceLock("baseline-test-class", JnrTestResourceMode.READ);
+					test("a locking test", withResourceLock("baseline-test", JnrTestResourceMode.READ_WRITE,
+						() -> clock.addAndGet(durations.remove(0) * MILLIS)));
+				}
+			});
+			// the locks of the test are still acquired with the ones of the test class
+			assertThat(JnrTestResourceLocks.resources(testClass,
+					testClass.getStore().getRunnableSpecifications().stream()))
+				.containsOnlyKeys("baseline-test-class", "baseline-test");
+			durations.add(5L);
+			assertThat(execute(testClass).isSuccess()).isTrue();
+			assertThat(baseline.getMeasure("a test class", "a locking test"))
+				.isEqualTo(new Measure(Kind.DURATION, 5.0 * MILLIS));
+		});
+		test("should reject an invalid configuration", () -> {
+			var baseline = new JnrTestPerformanceBaseline(baselineFile("invalid-configuration"));
+			assertThatThrownBy(() -> baseline.withThreshold(-0.1))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid threshold: -0.1");
+			assertThatThrownBy(() -> baseline.withThreshold(Double.NaN))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid threshold: NaN");
+			assertThatThrownBy(() -> baseline.withSamples(0))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid samples: 0");
+		});
+		test("should reject an invalid baseline file", () -> {
+			var file = baselineFile("invalid-file");
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, "a=DURATION\n");
+			assertThatThrownBy(() -> new JnrTestPerformanceBaseline(file))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid measure: DURATION");
+			Files.writeString(file, "a=SPEED 1.0\n");
+			assertThatThrownBy(() -> new JnrTestPerformanceBaseline(file))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid measure: SPEED 1.0");
+			Files.writeString(file, "a=DURATION fast\n");
+			assertThatThrownBy(() -> new JnrTestPerformanceBaseline(file))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid measure: DURATION fast");
+		});
+	}
+
+	private static final long MILLIS = 1_000_000L;
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final List<Long> durations = new ArrayList<>();
+
+	private JnrTest createTestClass(JnrTestPerformanceBaseline baseline) {
+		return new JnrTestPerformanceBaselineExtension(baseline).extendEach(new JnrTest("a test class") {
+			@Override
+			protected void specify() {
+				test("a timed test", () -> clock.addAndGet(durations.remove(0) * MILLIS));
+				test("a failed test", () -> {
+					clock.addAndGet(MILLIS);
+					throw new AssertionError("failed");
+				});
+			}
+		});
+	}
+
+	private JnrTestRecorder execute(JnrTest testClass) {
+		var recorder = new JnrTestRecorder();
+		new JnrTestRunner()
+			.testListener(recorder)
+			.add(testClass)
+			.execute();
+		return recorder;
+	}
+
+	private static Path baselineFile(String name) throws IOException {
+		var file = Path.of("target", "performance-baseline-test", name + ".properties");
+		Files.deleteIfExists(file);
+		return file;
+	}
+}
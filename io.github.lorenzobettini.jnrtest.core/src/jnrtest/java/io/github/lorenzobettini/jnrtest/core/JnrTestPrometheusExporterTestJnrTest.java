@@ -0,0 +1,125 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link JnrTestPrometheusExporter}.
+ */
+public class JnrTestPrometheusExporterTestJnrTest extends JnrTest { // NOSONAR
+
+	public JnrTestPrometheusExporterTestJnrTest() {
+		super("JnrTestPrometheusExporterTest in JnrTest");
+	}
+
+	protected @Override void specify() {
+		beforeEach("call cleanOutput", () -> {
+			if (Files.exists(OUTPUT)) {
+				try (var walk = Files.walk(OUTPUT)) {
+					for (var path : walk.sorted(Comparator.reverseOrder()).toList()) {
+						Files.delete(path);
+					}
+				}
+			}
+		});
+		test("should export in the Prometheus text format", () -> {
+			var exporter = new JnrTestPrometheusExporter();
+			exporter.counter("a_total", "A counter", () -> 3);
+			exporter.gauge("a_gauge", "A gauge\\with a\nnew line", () -> 1.5);
+			exporter.gauge("infinite", "Infinite", () -> Double.POSITIVE_INFINITY);
+			exporter.gauge("negative_infinite", "Negative infinite", () -> Double.NEGATIVE_INFINITY);
+			exporter.gauge("not_a_number", "Not a number", () -> Double.NaN);
+			exporter.gauge("negative", "Negative", () -> -2);
+			assertThat(exporter.scrape()).isEqualTo("""
+					# HELP a_total A counter
+					# TYPE a_total counter
+					a_total 3
+					# HELP a_gauge A gauge\\\\with a\\nnew line
+					# TYPE a_gauge gauge
+					a_gauge 1.5
+					# HELP infinite Infinite
+					# TYPE infinite gauge
+					infinite +Inf
+					# HELP negative_infinite Negative infinite
+					# TYPE negative_infinite gauge
+					negative_infinite -Inf
+					# HELP not_a_number Not a number
+					# TYPE not_a_number gauge
+					not_a_number NaN
+					# HELP negative Negative
+					# TYPE negative gauge
+					negative -2
+					""");
+		});
+		test("should write the metrics to a file", () -> {
+			var exporter = new JnrTestPrometheusExporter();
+			exporter.counter("a_total", "A counter", () -> 3);
+			var file = OUTPUT.resolve("nested").resolve("metrics.prom");
+			exporter.write(file);
+			exporter.write(file);
+			assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo(exporter.scrape());
+			// no temporary file is left
+			try (var files = Files.list(file.getParent())) {
+				assertThat(files).containsExactly(file);
+			}
+		});
+		test("should write the metrics periodically", () -> {
+			var exporter = new JnrTestPrometheusExporter();
+			var value = new AtomicLong();
+			exporter.gauge("a_gauge", "A gauge", value::get);
+			var file = OUTPUT.resolve("periodic.prom");
+			try (var writer = exporter.writePeriodically(file, Duration.ofMillis(10))) {
+				assertThat(Files.readString(file)).endsWith("a_gauge 0\n");
+				assertThat(Thread.getAllStackTraces().keySet()).filteredOn(t -> t.getName().equals("jnrtest-metrics"))
+						.isNotEmpty().allMatch(Thread::isDaemon);
+				value.set(1);
+				waitForContents(file, "a_gauge 1\n");
+				value.set(2);
+			}
+			// the final values are written when closing
+			assertThat(Files.readString(file)).endsWith("a_gauge 2\n");
+			value.set(3);
+			Thread.sleep(50);
+			assertThat(Files.readString(file)).endsWith("a_gauge 2\n");
+		});
+		test("should report failures of writes", () -> {
+			var exporter = new JnrTestPrometheusExporter();
+			exporter.gauge("a_gauge", "A gauge", () -> 0);
+			var directory = OUTPUT.resolve("directory");
+			Files.createDirectories(directory.resolve("child"));
+			assertThatThrownBy(() -> exporter.writePeriodically(directory, Duration.ofMillis(10)))
+					.isInstanceOf(IOException.class);
+			var file = OUTPUT.resolve("failing.prom");
+			var writer = exporter.writePeriodically(file, Duration.ofMillis(10));
+			// make the next writes fail, replacing the file with a non-empty directory
+			while (!Files.isDirectory(file)) {
+				try {
+					Files.deleteIfExists(file);
+					Files.createDirectories(file.resolve("child"));
+				} catch (FileAlreadyExistsException e) {
+					// written again in the meantime
+				}
+			}
+			Thread.sleep(50);
+			assertThatThrownBy(writer::close).isInstanceOf(IOException.class);
+		});
+	}
+
+	private static final Path OUTPUT = Path.of("target", "prometheus-exporter-test");
+
+	private static void waitForContents(Path file, String suffix) throws IOException, InterruptedException {
+		for (int i = 0; i < 500 && !Files.readString(file).endsWith(suffix); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(Files.readString(file)).endsWith(suffix);
+	}
+}
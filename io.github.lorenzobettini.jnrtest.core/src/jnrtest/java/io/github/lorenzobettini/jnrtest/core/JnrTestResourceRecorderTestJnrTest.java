@@ -0,0 +1,199 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTestResourceRecorder.GarbageCollections;
+import io.github.lorenzobettini.jnrtest.core.JnrTestResourceRecorder.Usage;
+
+/**
+ * Tests for {@link JnrTestResourceRecorder}.
+ */
+public class JnrTestResourceRecorderTestJnrTest extends JnrTest { // NOSONAR
+
+	public JnrTestResourceRecorderTestJnrTest() {
+		super("JnrTestResourceRecorderTest in JnrTest");
+	}
+
+	protected @Override void specify() {
+		test("should record the resources used by tests and hooks", () -> {
+			var recorder = new JnrTestResourceRecorder();
+			new JnrTestRunner().testListener(recorder).add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					beforeAll("before all", () -> {
+					});
+					beforeEach("before each", () -> {
+					});
+					test("allocating test", () -> allocated.add(new byte[10 * MEGABYTE]));
+					test("gc test", System::gc);
+					afterEach("after each", () -> {
+					});
+					afterAll("after all", () -> {
+					});
+				}
+			}).execute();
+			var usages = recorder.getUsages().get("a test class");
+			assertThat(usages).extracting(Usage::kind, Usage::description).containsExactly(
+					tuple(JnrTestRunnableKind.BEFORE_ALL, "before all"),
+					tuple(JnrTestRunnableKind.BEFORE_EACH, "before each"),
+					tuple(JnrTestRunnableKind.TEST, "allocating test"),
+					tuple(JnrTestRunnableKind.AFTER_EACH, "after each"),
+					tuple(JnrTestRunnableKind.BEFORE_EACH, "before each"), tuple(JnrTestRunnableKind.TEST, "gc test"),
+					tuple(JnrTestRunnableKind.AFTER_EACH, "after each"),
+					tuple(JnrTestRunnableKind.AFTER_ALL, "after all"));
+			assertThat(usages.get(2).allocatedBytes()).isGreaterThanOrEqualTo(10L * MEGABYTE);
+			assertThat(usages).allSatisfy(u -> assertThat(u.cpuTime()).isNotNegative());
+			assertThat(recorder.getTopAllocations(1)).containsExactly(usages.get(2));
+			assertThat(recorder.getTopAllocations(20)).hasSize(8);
+			assertThat(recorder.getTotalAllocatedBytes()).isGreaterThanOrEqualTo(10L * MEGABYTE);
+			assertThat(recorder.getTotalCpuTime()).isPositive();
+			assertThat(recorder.getGarbageCollections().get("a test class").count()).isPositive();
+			assertThat(recorder.getTotalGarbageCollections())
+					.isEqualTo(recorder.getGarbageCollections().get("a test class"));
+			assertThat(usages.get(2).toString()).startsWith("[       TEST] allocating test - Allocated: ")
+					.contains(" MB, CPU time: ").endsWith(" s");
+		});
+		test("should compute the differences of the management beans", () -> {
+			var threadMXBean = mock(com.sun.management.ThreadMXBean.class);
+			when(threadMXBean.isThreadAllocatedMemorySupported()).thenReturn(true);
+			when(threadMXBean.isThreadAllocatedMemoryEnabled()).thenReturn(true);
+			when(threadMXBean.isCurrentThreadCpuTimeSupported()).thenReturn(true);
+			when(threadMXBean.isThreadCpuTimeEnabled()).thenReturn(true);
+			when(threadMXBean.getCurrentThreadAllocatedBytes()).thenReturn(100L, 100L + 3 * MEGABYTE);
+			when(threadMXBean.getCurrentThreadCpuTime()).thenReturn(1_000_000_000L, 3_500_000_000L);
+			var collector = mock(GarbageCollectorMXBean.class);
+			when(collector.getCollectionCount()).thenReturn(2L, 5L);
+			when(collector.getCollectionTime()).thenReturn(10L, 1510L);
+			var unavailableCollector = mock(GarbageCollectorMXBean.class);
+			when(unavailableCollector.getCollectionCount()).thenReturn(-1L);
+			when(unavailableCollector.getCollectionTime()).thenReturn(-1L);
+			var recorder = new JnrTestResourceRecorder(threadMXBean, List.of(collector, unavailableCollector));
+			recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.START));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.START));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.END));
+			recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.END));
+			var usage = new Usage("a test", JnrTestRunnableKind.TEST, 3L * MEGABYTE, 2_500_000_000L);
+			assertThat(recorder.getUsages()).containsEntry("a test class", List.of(usage));
+			assertThat(usage)
+					.hasToString(String.format("[       TEST] a test - Allocated: %.2f MB, CPU time: %f s", 3.0, 2.5));
+			assertThat(recorder.getTotalAllocatedBytes()).isEqualTo(3L * MEGABYTE);
+			assertThat(recorder.getTotalCpuTime()).isEqualTo(2_500_000_000L);
+			var garbageCollections = new GarbageCollections(3, 1500);
+			assertThat(recorder.getGarbageCollections()).containsEntry("a test class", garbageCollections);
+			assertThat(recorder.getTotalGarbageCollections()).isEqualTo(garbageCollections);
+			assertThat(garbageCollections).hasToString(String.format("3 (%f s)", 1.5));
+		});
+		test("should record not available resources", () -> {
+			var notSupported = mock(com.sun.management.ThreadMXBean.class);
+			var notEnabled = mock(com.sun.management.ThreadMXBean.class);
+			when(notEnabled.isThreadAllocatedMemorySupported()).thenReturn(true);
+			when(notEnabled.isCurrentThreadCpuTimeSupported()).thenReturn(true);
+			var notAvailable = mock(com.sun.management.ThreadMXBean.class);
+			when(notAvailable.isThreadAllocatedMemorySupported()).thenReturn(true);
+			when(notAvailable.isThreadAllocatedMemoryEnabled()).thenReturn(true);
+			when(notAvailable.isCurrentThreadCpuTimeSupported()).thenReturn(true);
+			when(notAvailable.isThreadCpuTimeEnabled()).thenReturn(true);
+			when(notAvailable.getCurrentThreadAllocatedBytes()).thenReturn(10L, -1L);
+			when(notAvailable.getCurrentThreadCpuTime()).thenReturn(-1L, 10L);
+			for (var threadMXBean : List.of(mock(ThreadMXBean.class), notSupported, notEnabled, notAvailable)) {
+				var recorder = new JnrTestResourceRecorder(threadMXBean, List.of());
+				recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.START));
+				recorder.notify(new JnrTestRunnableLifecycleEvent("a hook", JnrTestRunnableKind.BEFORE_ALL,
+						JnrTestRunnableStatus.START));
+				recorder.notify(new JnrTestRunnableLifecycleEvent("a hook", JnrTestRunnableKind.BEFORE_ALL,
+						JnrTestRunnableStatus.END));
+				recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.END));
+				var usage = new Usage("a hook", JnrTestRunnableKind.BEFORE_ALL, -1, -1);
+				assertThat(recorder.getUsages()).containsEntry("a test class", List.of(usage));
+				assertThat(usage).hasToString("[ BEFORE_ALL] a hook - Allocated: n/a, CPU time: n/a");
+				assertThat(recorder.getTotalAllocatedBytes()).isZero();
+				assertThat(recorder.getTotalCpuTime()).isZero();
+				assertThat(recorder.getTotalGarbageCollections()).isEqualTo(new GarbageCollections(0, 0));
+			}
+		});
+		test("should ignore events without the corresponding start", () -> {
+			var recorder = new JnrTestResourceRecorder();
+			assertThat(recorder.getTotalGarbageCollections()).isEqualTo(new GarbageCollections(0, 0));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.START));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.END));
+			recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.END));
+			assertThat(recorder.getUsages()).isEmpty();
+			assertThat(recorder.getGarbageCollections()).isEmpty();
+			recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.START));
+			assertThat(recorder.getTotalGarbageCollections()).isEqualTo(new GarbageCollections(0, 0));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.END));
+			recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.END));
+			assertThat(recorder.getUsages()).containsEntry("a test class", List.of());
+			// the end of the class removed the start of the class
+			recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.END));
+			assertThat(recorder.getUsages()).containsEntry("a test class", List.of());
+			// the end of the runnable removed the start of the runnable
+			recorder.notify(new JnrTestLifecycleEvent("another test class", JnrTestStatus.START));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.START));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.END));
+			recorder.notify(
+					new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.END));
+			assertThat(recorder.getUsages().get("another test class")).hasSize(1);
+		});
+		test("should count the garbage collections of test classes executed in parallel only once", () -> {
+			var collector = mock(GarbageCollectorMXBean.class);
+			// the snapshot at the end of the first class is taken before the one at
+			// the end of the second class, but it is recorded later
+			when(collector.getCollectionCount()).thenReturn(0L, 1L, 5L, 3L);
+			when(collector.getCollectionTime()).thenReturn(0L, 10L, 50L, 30L);
+			var recorder = new JnrTestResourceRecorder(mock(ThreadMXBean.class), List.of(collector));
+			var firstThread = Executors.newSingleThreadExecutor();
+			var secondThread = Executors.newSingleThreadExecutor();
+			try {
+				firstThread.submit(() -> recorder.notify(new JnrTestLifecycleEvent("first", JnrTestStatus.START)))
+						.get();
+				secondThread.submit(() -> {
+					recorder.notify(new JnrTestLifecycleEvent("second", JnrTestStatus.START));
+					recorder.notify(new JnrTestLifecycleEvent("second", JnrTestStatus.END));
+				}).get();
+				firstThread.submit(() -> recorder.notify(new JnrTestLifecycleEvent("first", JnrTestStatus.END))).get();
+			} finally {
+				firstThread.shutdown();
+				secondThread.shutdown();
+			}
+			assertThat(recorder.getGarbageCollections()).containsEntry("first", new GarbageCollections(3, 30))
+					.containsEntry("second", new GarbageCollections(4, 40));
+			assertThat(recorder.getTotalGarbageCollections()).isEqualTo(new GarbageCollections(5, 50));
+		});
+		test("should report the resources in the aggregator", () -> {
+			var recorder = new JnrTestRecorder();
+			var resourceRecorder = new JnrTestResourceRecorder();
+			new JnrTestRunner().testListener(recorder).testListener(resourceRecorder).add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					test("a test", () -> allocated.add(new byte[MEGABYTE]));
+				}
+			}).execute();
+			assertThat(new JnrTestResultAggregator().aggregate(recorder))
+					.hasToString("Tests run: 1, Succeeded: 1, Failures: 0, Errors: 0");
+			assertThat(new JnrTestResultAggregator().aggregate(recorder).aggregate(resourceRecorder).toString())
+					.startsWith("Tests run: 1, Succeeded: 1, Failures: 0, Errors: 0 - Allocated: ")
+					.contains(" MB, CPU time: ").contains(" s, GC: ").endsWith(" s)");
+		});
+	}
+
+	private static final int MEGABYTE = 1024 * 1024;
+
+	private List<byte[]> allocated = new ArrayList<>();
+}
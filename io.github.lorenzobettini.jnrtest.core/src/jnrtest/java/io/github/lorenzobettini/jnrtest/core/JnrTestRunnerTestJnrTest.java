@@ -1,6 +1,7 @@
 package io.github.lorenzobettini.jnrtest.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -9,6 +10,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 public class JnrTestRunnerTestJnrTest extends JnrTest { // NOSONAR
@@ -381,6 +384,420 @@ public class JnrTestRunnerTestJnrTest extends JnrTest { // NOSONAR
 			final var result = runner.filterBySpecificationDescription(".*");
 			assertThat(result).isSameAs(runner);
 		});
+		test("shard should return this for chaining", () -> {
+			final var runner = new JnrTestRunner();
+			final var result = runner.shard(0, 1);
+			assertThat(result).isSameAs(runner);
+		});
+		test("should only run the test classes of the shard", () -> {
+			var executed = new ArrayList<String>();
+			var runner = new JnrTestRunner();
+			for (int i = 0; i < 5; i++) {
+				String description = "test class " + i;
+				runner.add(new JnrTest(description) {
+					@Override
+					protected void specify() {
+						test("test", () -> executed.add(description));
+					}
+				});
+			}
+			runner.shard(1, 2).execute();
+			assertThat(executed).containsExactly("test class 1", "test class 3");
+			executed.clear();
+			runner.shard(0, 2).execute();
+			assertThat(executed).containsExactly("test class 0", "test class 2", "test class 4");
+			executed.clear();
+			// shards are computed before applying class filters
+			runner.shard(0, 2).filterByClassDescription(".*[34]").execute();
+			assertThat(executed).containsExactly("test class 4");
+		});
+		test("should reject invalid shards", () -> {
+			final var runner = new JnrTestRunner();
+			assertThatThrownBy(() -> runner.shard(0, 0)).isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Invalid shard: 0/0");
+			assertThatThrownBy(() -> runner.shard(-1, 2)).isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Invalid shard: -1/2");
+			assertThatThrownBy(() -> runner.shard(2, 2)).isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Invalid shard: 2/2");
+			assertThat(runner.shard(1, 2)).isSameAs(runner);
+		});
+		test("should compile the execution plan only once", () -> {
+			var evaluatedFilters = new ArrayList<String>();
+			var executed = new ArrayList<String>();
+			var runner = new JnrTestRunner().add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					beforeAll("before all", () -> executed.add("before all"));
+					beforeEach("before each", () -> executed.add("before each"));
+					afterEach("after each", () -> executed.add("after each"));
+					afterAll("after all", () -> executed.add("after all"));
+					test("first test", () -> executed.add("first test"));
+					test("second test", () -> executed.add("second test"));
+				}
+			}).add(new JnrTest("a filtered test class") {
+				@Override
+				protected void specify() {
+					test("filtered test", () -> executed.add("filtered test"));
+				}
+			}).classFilter(c -> evaluatedFilters.add(c.getDescription()) && !c.getDescription().contains("filtered"))
+					.specificationFilter(
+							s -> evaluatedFilters.add(s.description()) && !s.description().equals("second test"));
+			var executionPlan = runner.getExecutionPlan();
+			assertThat(executionPlan.getTestClasses()).extracting(JnrTest::getDescription)
+					.containsExactly("a test class");
+			assertEquals(1, executionPlan.getNumberOfTests());
+			runner.execute();
+			runner.execute();
+			assertThat(runner.getExecutionPlan()).isSameAs(executionPlan);
+			assertThat(evaluatedFilters).containsExactly("a test class", "first test", "second test",
+					"a filtered test class");
+			var expected = List.of("before all", "before each", "first test", "after each", "after all");
+			var expectedTwice = new ArrayList<>(expected);
+			expectedTwice.addAll(expected);
+			assertThat(executed).isEqualTo(expectedTwice);
+		});
+		test("should compile the execution plan again when the configuration changes", () -> {
+			var runner = new JnrTestRunner();
+			var executionPlan = runner.getExecutionPlan();
+			assertThat(executionPlan.getTestClasses()).isEmpty();
+			assertEquals(0, executionPlan.getNumberOfTests());
+			runner.add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					test("first test", () -> {
+					});
+					test("second test", () -> {
+					});
+				}
+			});
+			executionPlan = assertNewExecutionPlan(runner, executionPlan);
+			assertEquals(2, executionPlan.getNumberOfTests());
+			runner.specificationFilter(s -> true);
+			executionPlan = assertNewExecutionPlan(runner, executionPlan);
+			runner.filterBySpecificationDescription("first.*");
+			executionPlan = assertNewExecutionPlan(runner, executionPlan);
+			assertEquals(1, executionPlan.getNumberOfTests());
+			runner.classFilter(c -> true);
+			executionPlan = assertNewExecutionPlan(runner, executionPlan);
+			runner.shard(0, 1);
+			executionPlan = assertNewExecutionPlan(runner, executionPlan);
+			runner.filterByClassDescription("another.*");
+			executionPlan = assertNewExecutionPlan(runner, executionPlan);
+			assertThat(executionPlan.getTestClasses()).isEmpty();
+			assertEquals(0, executionPlan.getNumberOfTests());
+		});
+		test("should execute a test class that is not in the execution plan", () -> {
+			var executed = new ArrayList<String>();
+			var notInThePlan = new JnrTest("a test class not in the plan") {
+				@Override
+				protected void specify() {
+					test("first test", () -> executed.add("first test"));
+					test("second test", () -> executed.add("second test"));
+				}
+			};
+			var runner = new JnrTestRunner() {
+				@Override
+				public void execute() {
+					executeTestClass(notInThePlan);
+				}
+			}.filterBySpecificationDescription("second.*");
+			runner.execute();
+			assertThat(runner.getExecutionPlan().getTestClasses()).isEmpty();
+			assertThat(executed).containsExactly("second test");
+		});
+		test("should measure benchmarks and notify their results", () -> {
+			var events = new ArrayList<String>();
+			var listener = new JnrTestListener() {
+				@Override
+				public void notify(JnrTestResult result) {
+					events.add(result.toString());
+				}
+
+				@Override
+				public void notify(JnrTestLifecycleEvent event) {
+					events.add(event.toString());
+				}
+
+				@Override
+				public void notify(JnrTestRunnableLifecycleEvent event) {
+					events.add(event.toString());
+				}
+
+				@Override
+				public void notify(JnrTestBenchmarkResult result) {
+					events.add("benchmark " + result.description() + " " + result.throughputs().size());
+				}
+			};
+			var operations = new ArrayList<String>();
+			new JnrTestRunner().testListener(listener)
+					// the default method does nothing
+					.testListener(new JnrTestListenerAdapter() {
+					}).add(new JnrTest("a test class") {
+						@Override
+						protected void specify() {
+							beforeEach("before each", () -> {
+							});
+							benchmark("a benchmark", blackhole -> operations.add("operation")).withWarmupIterations(0)
+									.withMeasurementIterations(2).withIterationTime(Duration.ofMillis(1));
+							benchmark("a failing benchmark", blackhole -> assertTrue(false));
+						}
+					}).execute();
+			assertThat(operations).isNotEmpty();
+			assertThat(events).containsExactly("[  START] a test class", "[  START] BEFORE_EACH before each",
+					"[    END] BEFORE_EACH before each", "[  START] TEST a benchmark", "[    END] TEST a benchmark",
+					"benchmark a benchmark 2", "[SUCCESS] a benchmark", "[  START] BEFORE_EACH before each",
+					"[    END] BEFORE_EACH before each", "[  START] TEST a failing benchmark",
+					"[    END] TEST a failing benchmark", "[ FAILED] a failing benchmark", "[    END] a test class");
+		});
+		test("should execute the tests with a new instance for each execution", () -> {
+			var instances = new ArrayList<JnrTest>();
+			var events = new ArrayList<String>();
+			var recorder = new JnrTestRecorder();
+			var runner = new JnrTestRunner()
+				.testListener(recorder)
+				.testListener(new JnrTestListenerAdapter() {
+					@Override
+					public void notify(JnrTestLifecycleEvent event) {
+						events.add(event.toString());
+					}
+
+					@Override
+					public void notify(JnrTestRunnableLifecycleEvent event) {
+						if (event.status() == JnrTestRunnableStatus.START) {
+							events.add(event.kind() + " " + event.description());
+						}
+					}
+				})
+				.add(() -> {
+					var testClass = new JnrTest("a test class") {
+						private List<String> list;
+
+						@Override
+						protected void specify() {
+							beforeAll("before all", () -> {});
+							beforeEach("before each", () -> list = new ArrayList<>());
+							for (int i = 1; i <= 3; i++) {
+								var element = "element " + i;
+								test("test " + i, () -> {
+									list.add(element);
+									assertThat(list).containsExactly(element);
+								});
+							}
+							afterAll("after all", () -> list.clear());
+						}
+					};
+					instances.add(testClass);
+					return testClass;
+				})
+				.filterBySpecificationDescription("test [13]");
+			assertThat(instances).hasSize(1);
+			assertThat(runner.getExecutionPlan().getNumberOfTests()).isEqualTo(2);
+			runner.execute();
+			assertThat(instances).hasSize(2).doesNotHaveDuplicates();
+			assertThat(recorder.getResults().get("a test class"))
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[SUCCESS] test 1", "[SUCCESS] test 3");
+			assertThat(events).containsExactly(
+				"[  START] a test class",
+				"BEFORE_ALL before all",
+				"BEFORE_EACH before each",
+				"TEST test 1",
+				"BEFORE_EACH before each",
+				"TEST test 3",
+				"AFTER_ALL after all",
+				"[    END] a test class");
+			runner.execute();
+			assertThat(instances).hasSize(3);
+		});
+		test("should report tests not specified by new instances", () -> {
+			var recorder = new JnrTestRecorder();
+			var instances = new ArrayList<JnrTest>();
+			new JnrTestRunner()
+				.testListener(recorder)
+				.add(() -> {
+					var index = instances.size();
+					var testClass = new JnrTest("a test class") {
+						@Override
+						protected void specify() {
+							test("test", () -> {});
+							if (index == 0) {
+								test("test of the first instance", () -> {});
+							}
+						}
+					};
+					instances.add(testClass);
+					return testClass;
+				})
+				.execute();
+			var results = recorder.getResults().get("a test class");
+			assertThat(results)
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[SUCCESS] test", "[  ERROR] test of the first instance");
+			assertThat(results.get(1).throwable())
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("The new instance of 'a test class' does not specify 'test of the first instance' as test 2");
+		});
+		test("should execute test classes after the ones they depend on", () -> {
+			var executed = new ArrayList<String>();
+			class Smoke extends JnrTest {
+				Smoke() {
+					super("smoke");
+				}
+
+				@Override
+				protected void specify() {
+					test("test", () -> executed.add(getDescription()));
+				}
+			}
+			class Integration extends JnrTest {
+				Integration() {
+					super("integration");
+				}
+
+				@Override
+				protected void specify() {
+					dependsOn(Smoke.class);
+					test("test", () -> executed.add(getDescription()));
+				}
+			}
+			var smoke = new Smoke();
+			var integration = new Integration();
+			var runner = new JnrTestRunner()
+				.add(new JnrTest("end to end") {
+					@Override
+					protected void specify() {
+						dependsOn(Integration.class);
+						test("test", () -> executed.add(getDescription()));
+					}
+				})
+				.add(integration)
+				.add(new JnrTest("independent") {
+					@Override
+					protected void specify() {
+						test("test", () -> executed.add(getDescription()));
+					}
+				})
+				.add(smoke);
+			var executionPlan = runner.getExecutionPlan();
+			assertThat(executionPlan.getTestClasses())
+				.extracting(JnrTest::getDescription)
+				.containsExactly("independent", "smoke", "integration", "end to end");
+			assertThat(executionPlan.getDependencies(integration)).containsExactly(smoke);
+			assertThat(executionPlan.getDependencies(smoke)).isEmpty();
+			runner.execute();
+			assertThat(executed).containsExactly("independent", "smoke", "integration", "end to end");
+		});
+		test("should skip test classes depending on failed ones", () -> {
+			var executed = new ArrayList<String>();
+			class Smoke extends JnrTest {
+				Smoke() {
+					super("smoke");
+				}
+
+				@Override
+				protected void specify() {
+					beforeAll("before all", () -> executed.add(getDescription()));
+					test("failed test", () -> {
+						throw new AssertionError("smoke failed");
+					});
+					test("success test", () -> {});
+				}
+			}
+			class Integration extends JnrTest {
+				Integration(String description) {
+					super(description);
+				}
+
+				@Override
+				protected void specify() {
+					dependsOn(Smoke.class);
+					beforeAll("before all", () -> executed.add(getDescription()));
+					test("test 1", () -> executed.add(getDescription()));
+					test("test 2", () -> executed.add(getDescription()));
+				}
+			}
+			var recorder = new JnrTestRecorder();
+			new JnrTestRunner()
+				.testListener(recorder)
+				.add(new Integration("integration"))
+				.add(new JnrTest("end to end") {
+					@Override
+					protected void specify() {
+						dependsOn(Integration.class);
+						test("test", () -> executed.add(getDescription()));
+					}
+				})
+				.add(new Smoke())
+				.add(() -> new Integration("integration with a new instance for each test"))
+				.execute();
+			assertThat(executed).containsExactly("smoke");
+			var results = recorder.getResults();
+			assertThat(results.get("smoke"))
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[ FAILED] failed test", "[SUCCESS] success test");
+			assertThat(results.get("integration"))
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[SKIPPED] test 1", "[SKIPPED] test 2");
+			assertThat(results.get("integration with a new instance for each test"))
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[SKIPPED] test 1", "[SKIPPED] test 2");
+			assertThat(results.get("end to end"))
+				.extracting(JnrTestResult::toString)
+				.containsExactly("[SKIPPED] test");
+			assertThat(new JnrTestResultAggregator().aggregate(recorder))
+				.hasToString("Tests run: 2, Succeeded: 1, Failures: 1, Errors: 0, Skipped: 5");
+		});
+		test("should reject cyclic dependencies", () -> {
+			var runner = new JnrTestRunner()
+				.add(new JnrTest("independent") {
+					@Override
+					protected void specify() {
+						test("test", () -> {});
+					}
+				})
+				.add(new JnrTest("first") {
+					@Override
+					protected void specify() {
+						dependsOn(JnrTest.class);
+					}
+				})
+				.add(new JnrTest("second") {
+					@Override
+					protected void specify() {
+						dependsOn(JnrTest.class);
+					}
+				});
+			assertThatThrownBy(runner::execute)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Cyclic dependencies among the test classes: first, second");
+		});
+		test("should filter tests by test class and specification", () -> {
+			var recorder = new JnrTestRecorder();
+			var runner = new JnrTestRunner()
+				.testListener(recorder)
+				.filterBySpecificationDescription(".*test")
+				.testFilter((testClass, specification) -> !(testClass.getDescription().equals("first")
+					&& specification.description().equals("a test")));
+			for (var description : List.of("first", "second")) {
+				runner.add(new JnrTest(description) {
+					@Override
+					protected void specify() {
+						test("a test", () -> {});
+						test("another test", () -> {});
+						test("not matched", () -> {});
+					}
+				});
+			}
+			assertEquals(3, runner.getExecutionPlan().getNumberOfTests());
+			runner.execute();
+			assertThat(recorder.getResults().get("first"))
+				.extracting(JnrTestResult::description)
+				.containsExactly("another test");
+			assertThat(recorder.getResults().get("second"))
+				.extracting(JnrTestResult::description)
+				.containsExactly("a test", "another test");
+			assertThat(runner.testFilter((testClass, specification) -> true)).isSameAs(runner);
+		});
 	}
 
 	static interface Callable {
@@ -405,4 +822,10 @@ public class JnrTestRunnerTestJnrTest extends JnrTest { // NOSONAR
 		void afterEachMethod2();
 	}
 
+	private JnrTestExecutionPlan assertNewExecutionPlan(JnrTestRunner runner, JnrTestExecutionPlan previous) {
+		var executionPlan = runner.getExecutionPlan();
+		assertThat(executionPlan).isNotSameAs(previous);
+		assertThat(runner.getExecutionPlan()).isSameAs(executionPlan);
+		return executionPlan;
+	}
 }
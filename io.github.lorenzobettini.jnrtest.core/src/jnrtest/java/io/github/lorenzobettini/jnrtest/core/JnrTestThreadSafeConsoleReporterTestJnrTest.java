@@ -2,6 +2,7 @@ package io.github.lorenzobettini.jnrtest.core;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -190,6 +191,15 @@ public class JnrTestThreadSafeConsoleReporterTestJnrTest extends JnrTest { // NO
 			assertThat(output).contains("Time elapsed:").doesNotContain("Time elapsed: 0.000000 s")
 					.containsPattern("Time elapsed: 0\\.[0-9][0-9]*");
 		});
+		test("shouldDelegateBenchmarkResultsToUnderlying", () -> {
+			final JnrTestThreadSafeConsoleReporter reporter = new JnrTestThreadSafeConsoleReporter();
+			final var result = new JnrTestBenchmarkResult("a benchmark", List.of(1.0, 2.0, 3.0));
+			reporter.notify(new JnrTestLifecycleEvent("test class", JnrTestStatus.START));
+			reporter.notify(result);
+			reporter.notify(new JnrTestLifecycleEvent("test class", JnrTestStatus.END));
+			assertThat(outputStream.toString().replace("\r\n", "\n"))
+					.contains("[  START] test class\n" + result + "\n");
+		});
 	}
 
 	private ByteArrayOutputStream outputStream;
@@ -0,0 +1,71 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class JnrTestWithTimeoutTestJnrTest extends JnrTest { // NOSONAR
+
+	public JnrTestWithTimeoutTestJnrTest() {
+		super("JnrTestWithTimeoutTest in JnrTest");
+	}
+
+	protected @Override void specify() {
+		beforeEach("call setUp", () -> {
+			executed = new ArrayList<>();
+		});
+		test("shouldRunWithinTimeoutInTheSameThread", () -> {
+			var currentThread = Thread.currentThread();
+			assertThatCode(() -> JnrTest.withTimeout(10, () -> {
+				executed.add("executed");
+				assertThat(Thread.currentThread()).isSameAs(currentThread);
+			}).run()).doesNotThrowAnyException();
+			assertThat(executed).containsExactly("executed");
+			assertThat(Thread.currentThread().isInterrupted()).isFalse();
+		});
+		test("shouldInterruptBlockingCallsOnTimeout", () -> {
+			var timedRunnable = JnrTest.withTimeout(50, TimeUnit.MILLISECONDS, () -> {
+				Thread.sleep(10000);
+				executed.add("should not get here");
+			});
+			assertThatThrownBy(timedRunnable::run).isInstanceOf(TimeoutException.class)
+					.hasMessage("execution timed out after 50 milliseconds")
+					.satisfies(e -> assertThat(e.getSuppressed()).singleElement()
+							.isInstanceOf(InterruptedException.class));
+			assertThat(executed).isEmpty();
+			assertThat(Thread.currentThread().isInterrupted()).isFalse();
+		});
+		test("shouldFailOnTimeoutWhenInterruptionIsIgnored", () -> {
+			var timedRunnable = JnrTest.withTimeout(50, TimeUnit.MILLISECONDS, () -> {
+				// busy wait, ignoring the interruption, which is not cleared
+				while (!Thread.currentThread().isInterrupted()) {
+					Thread.onSpinWait();
+				}
+				executed.add("completed");
+			});
+			assertThatThrownBy(timedRunnable::run).isInstanceOf(TimeoutException.class)
+					.satisfies(e -> assertThat(e.getSuppressed()).isEmpty());
+			assertThat(executed).containsExactly("completed");
+			// the interruption caused by the timeout has been cleared
+			assertThat(Thread.currentThread().isInterrupted()).isFalse();
+		});
+		test("shouldRethrowFailuresWithinTimeout", () -> {
+			var exception = new IllegalStateException("an exception");
+			assertThatThrownBy(JnrTest.withTimeout(10, () -> {
+				throw exception;
+			})::run).isSameAs(exception);
+			var error = new AssertionError("an assertion error");
+			assertThatThrownBy(JnrTest.withTimeout(10, () -> {
+				throw error;
+			})::run).isSameAs(error);
+		});
+	}
+
+	private List<String> executed;
+
+}
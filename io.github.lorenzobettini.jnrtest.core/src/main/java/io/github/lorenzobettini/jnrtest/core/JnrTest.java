@@ -1,8 +1,13 @@
 package io.github.lorenzobettini.jnrtest.core;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Specifies the tests represented by {@link JnrTestRunnableSpecification}, by
@@ -230,6 +235,180 @@ public abstract class JnrTest {
 		}
 	}
 
+	/**
+	 * Specify a test to run with each row of a file, e.g., a CSV file of
+	 * golden data; differently from
+	 * {@link #testWithParameters(String, Supplier, JnrTestRunnableWithParameters)},
+	 * the rows are not collected here, but read one at a time, through
+	 * memory-mapped NIO, while the test is executed, so that the heap used
+	 * does not depend on the size of the file, e.g.,
+	 * {@snippet :
+	 * testWithParameters("golden data of ",
+	 *     JnrTestParameterSource.csv(Path.of("golden.csv")).skip(1),
+	 *     row -> assertEquals(row.get(1), compute(row.get(0))));
+	 * }
+	 * All the rows are executed as a single test, with the description
+	 * followed by the name of the file, which fails reporting the number of
+	 * failed rows and the first failed one.
+	 *
+	 * @param <T> The type of the parameter
+	 * @param description The description template for the test
+	 * @param parameterSource The source of the parameters
+	 * @param testRunnable The runnable implementation containing the test code to execute with each parameter
+	 */
+	protected <T> void testWithParameters(String description, JnrTestParameterSource<T> parameterSource,
+			JnrTestRunnableWithParameters<T> testRunnable) {
+		test(description + parameterSource, () -> parameterSource.run(testRunnable));
+	}
+
+	/**
+	 * Specify a test to run with each combination of the values of the two
+	 * given dimensions, i.e., their cartesian product (for two dimensions,
+	 * pairwise coverage already requires all the combinations); the
+	 * description is formatted with the {@link Pair} of each combination.
+	 *
+	 * @param <T1> The type of the first parameter
+	 * @param <T2> The type of the second parameter
+	 * @param description The description template for the test
+	 * @param first The values of the first parameter
+	 * @param second The values of the second parameter
+	 * @param testRunnable The runnable implementation containing the test code to execute with each combination
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T1, T2> void testWithCombinations(String description, Collection<T1> first, Collection<T2> second,
+			JnrTestRunnableWithParameters<Pair<T1, T2>> testRunnable) {
+		JnrTestCombinations.of(first, second).stream().forEach(values -> {
+			var parameter = Pair.pair((T1) values.get(0), (T2) values.get(1));
+			test(description + parameter, () -> testRunnable.runTest(parameter));
+		});
+	}
+
+	/**
+	 * Specify a test to run with each combination of the values of the three
+	 * given dimensions, i.e., their cartesian product; the description is
+	 * formatted with the {@link Triple} of each combination.
+	 *
+	 * @param <T1> The type of the first parameter
+	 * @param <T2> The type of the second parameter
+	 * @param <T3> The type of the third parameter
+	 * @param description The description template for the test
+	 * @param first The values of the first parameter
+	 * @param second The values of the second parameter
+	 * @param third The values of the third parameter
+	 * @param testRunnable The runnable implementation containing the test code to execute with each combination
+	 */
+	protected <T1, T2, T3> void testWithCombinations(String description, Collection<T1> first,
+			Collection<T2> second, Collection<T3> third,
+			JnrTestRunnableWithParameters<Triple<T1, T2, T3>> testRunnable) {
+		testWithCombinations(description, JnrTestCombinations.ALL, first, second, third, testRunnable);
+	}
+
+	/**
+	 * Specify a test to run with the combinations of the values of the three
+	 * given dimensions covering every combination of the values of any
+	 * strength dimensions, e.g., 2 for pairwise coverage (see
+	 * {@link JnrTestCombinations#withStrength(int)}); the description is
+	 * formatted with the {@link Triple} of each combination.
+	 *
+	 * @param <T1> The type of the first parameter
+	 * @param <T2> The type of the second parameter
+	 * @param <T3> The type of the third parameter
+	 * @param description The description template for the test
+	 * @param strength The strength of the coverage, {@link JnrTestCombinations#ALL} for the cartesian product
+	 * @param first The values of the first parameter
+	 * @param second The values of the second parameter
+	 * @param third The values of the third parameter
+	 * @param testRunnable The runnable implementation containing the test code to execute with each combination
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T1, T2, T3> void testWithCombinations(String description, int strength, Collection<T1> first,
+			Collection<T2> second, Collection<T3> third,
+			JnrTestRunnableWithParameters<Triple<T1, T2, T3>> testRunnable) {
+		JnrTestCombinations.of(first, second, third).withStrength(strength).stream().forEach(values -> {
+			var parameter = Triple.triple((T1) values.get(0), (T2) values.get(1), (T3) values.get(2));
+			test(description + parameter, () -> testRunnable.runTest(parameter));
+		});
+	}
+
+	/**
+	 * Specify a test to run with each of the given combinations, of any number
+	 * of dimensions, e.g.,
+	 * {@snippet :
+	 * testWithCombinations("configuration ",
+	 *     JnrTestCombinations.of(browsers, systems, locales, screenSizes).pairwise(),
+	 *     values -> checkConfiguration((String) values.get(0), ...));
+	 * }
+	 * The description is formatted with the values of each combination, as
+	 * for {@link Pair} and {@link Triple}, e.g., {@code (a,b,c,d)}; the
+	 * cartesian product is enumerated lazily.
+	 *
+	 * @param description The description template for the test
+	 * @param combinations The combinations
+	 * @param testRunnable The runnable implementation containing the test code to execute with each combination
+	 */
+	protected void testWithCombinations(String description, JnrTestCombinations combinations,
+			JnrTestRunnableWithParameters<List<Object>> testRunnable) {
+		combinations.stream().forEach(values -> test(
+			description + values.stream().map(String::valueOf).collect(Collectors.joining(",", "(", ")")),
+			() -> testRunnable.runTest(values)));
+	}
+
+	/**
+	 * Specify a property, i.e., a test checking the given check on many inputs
+	 * created by the given generator, with the given description; by default,
+	 * the trials are executed in parallel, so the check must be thread-safe,
+	 * and a failing input is shrunk to a minimal counterexample, reported
+	 * together with the seed to replay the failure.
+	 * <p>
+	 * Differently from
+	 * {@link #testWithParameters(String, Supplier, JnrTestRunnableWithParameters)},
+	 * the inputs are generated only when the property is executed, one for
+	 * each trial; the returned {@link JnrTestProperty} can be used to configure
+	 * the trials, for example:
+	 * {@snippet :
+	 * property("reversing twice is the identity",
+	 *     JnrTestGenerator.lists(JnrTestGenerator.integers(-100, 100), 0, 20),
+	 *     list -> assertEquals(list, reverse(reverse(list))))
+	 *   .withTrials(10_000);
+	 * }
+	 * 
+	 * @param <T> The type of the inputs
+	 * @param description The description of the property
+	 * @param generator The generator of the inputs
+	 * @param check The check of an input
+	 * @return The property, which can be further configured
+	 */
+	protected <T> JnrTestProperty<T> property(String description, JnrTestGenerator<T> generator,
+			JnrTestRunnableWithParameters<T> check) {
+		return store.property(description, generator, check);
+	}
+
+	/**
+	 * Specify a micro-benchmark, measuring the throughput of the given
+	 * operation, with the given description; the benchmark is executed as a
+	 * test, with warm-up and measurement iterations, and the listeners are
+	 * notified of its {@link JnrTestBenchmarkResult}.
+	 * <p>
+	 * The values computed by the operation should be passed to the
+	 * {@link JnrTestBlackhole}, so that the computation is not eliminated as
+	 * dead code; the returned {@link JnrTestBenchmark} can be used to configure
+	 * the iterations, for example:
+	 * {@snippet :
+	 * benchmark("sort 1000 elements", blackhole -> {
+	 *     var copy = Arrays.copyOf(elements, elements.length);
+	 *     Arrays.sort(copy);
+	 *     blackhole.consume(copy);
+	 * }).withWarmupIterations(3).withMeasurementIterations(5);
+	 * }
+	 * 
+	 * @param description The description of the benchmark
+	 * @param operation The operation to measure
+	 * @return The benchmark, which can be further configured
+	 */
+	protected JnrTestBenchmark benchmark(String description, JnrTestBenchmarkRunnable operation) {
+		return store.benchmark(description, operation);
+	}
+
 	/**
 	 * Specifies a code to run before all tests.
 	 * 
@@ -270,6 +449,169 @@ public abstract class JnrTest {
 		store.afterEach(description, afterEachRunnable);
 	}
 
+	/**
+	 * Declares that this test class uses the given shared resource, e.g.,
+	 * "system-properties", "port-8080" or "db", so that, when test classes
+	 * are executed concurrently, e.g., by {@link JnrTestParallelRunner}, it is
+	 * not executed concurrently with the test classes and the tests using the
+	 * same resource, unless all of them only read it; the lock is held for the
+	 * whole execution of this test class, including its hooks.
+	 * 
+	 * @param resource The name of the resource
+	 * @param mode How the resource is accessed
+	 * @see #withResourceLock(String, JnrTestResourceMode, JnrTestRunnable)
+	 */
+	protected void resourceLock(String resource, JnrTestResourceMode mode) {
+		store.resourceLock(resource, mode);
+	}
+
+	/**
+	 * Declares that this test class depends on the test classes of the given
+	 * type, e.g., a smoke test class that must pass before this one makes
+	 * sense: runners execute this test class only after all of them, and,
+	 * if any of them fails (or is skipped in turn), the tests of this test
+	 * class are not executed, and they are reported as
+	 * {@link JnrTestResultStatus#SKIPPED}. Test classes not depending on each
+	 * other can still be executed in parallel, e.g., by
+	 * {@link JnrTestParallelRunner}.
+	 * <p>
+	 * Only the test classes executed by the same runner are taken into
+	 * consideration, e.g., the ones filtered out are ignored.
+	 * 
+	 * @param testClass The type of the test classes this test class depends on
+	 */
+	protected void dependsOn(Class<? extends JnrTest> testClass) {
+		store.dependsOn(testClass);
+	}
+
+	/**
+	 * Returns a {@link JnrTestRunnable} that runs the given runnable with the
+	 * lock of the given shared resource, so that a single test, or hook, is
+	 * not executed concurrently with the test classes and the tests using the
+	 * same resource, unless all of them only read it; the other tests of the
+	 * test class are not affected, unless the test class declares resources
+	 * with {@link #resourceLock(String, JnrTestResourceMode)}: in that case,
+	 * the lock is held for the whole execution of the test class, so that
+	 * locks are never acquired while holding other ones.
+	 * <p>
+	 * Wrapping a runnable already returned by this method uses all the
+	 * resources.
+	 * 
+	 * @param resource The name of the resource
+	 * @param mode How the resource is accessed
+	 * @param runnable The runnable to execute
+	 * @return The runnable with the lock
+	 * @throws IllegalArgumentException if the name of the resource is blank
+	 */
+	protected static JnrTestRunnable withResourceLock(String resource, JnrTestResourceMode mode,
+			JnrTestRunnable runnable) {
+		return JnrTestResourceLocks.locking(resource, mode, runnable);
+	}
+
+	/**
+	 * Returns a {@link JnrTestRunnable} that runs the given runnable and fails
+	 * with a {@link TimeoutException} if it does not complete within the given
+	 * timeout, in seconds.
+	 * 
+	 * @param timeoutInSeconds The timeout in seconds
+	 * @param runnable The runnable to execute
+	 * @return The runnable with the timeout
+	 * @see #withTimeout(long, TimeUnit, JnrTestRunnable)
+	 */
+	protected static JnrTestRunnable withTimeout(long timeoutInSeconds, JnrTestRunnable runnable) {
+		return withTimeout(timeoutInSeconds, TimeUnit.SECONDS, runnable);
+	}
+
+	/**
+	 * Returns a {@link JnrTestRunnable} that runs the given runnable and fails
+	 * with a {@link TimeoutException} if it does not complete within the given
+	 * timeout.
+	 * <p>
+	 * The runnable is executed in the current thread, which is interrupted when
+	 * the timeout expires; so, for example, a blocking call is aborted, while
+	 * code that does not check for interruptions keeps on running until its end,
+	 * and then fails with a {@link TimeoutException}.
+	 * 
+	 * @param timeout The timeout
+	 * @param unit The unit of the timeout
+	 * @param runnable The runnable to execute
+	 * @return The runnable with the timeout
+	 */
+	protected static JnrTestRunnable withTimeout(long timeout, TimeUnit unit, JnrTestRunnable runnable) {
+		return () -> {
+			var guard = new TimeoutGuard(Thread.currentThread());
+			var interruption = TimeoutGuard.SCHEDULER.schedule(guard, timeout, unit);
+			Throwable failure = null;
+			try {
+				runnable.run();
+			} catch (Exception | Error e) { // NOSONAR it is rethrown below
+				failure = e;
+			}
+			interruption.cancel(false);
+			if (guard.finish()) {
+				var timeoutException = new TimeoutException(
+					"execution timed out after " + timeout + " " + unit.name().toLowerCase());
+				if (failure != null) {
+					timeoutException.addSuppressed(failure);
+				}
+				throw timeoutException;
+			}
+			if (failure instanceof Exception e) {
+				throw e;
+			}
+			if (failure instanceof Error e) {
+				throw e;
+			}
+		};
+	}
+
+	/**
+	 * Interrupts the thread running a test when the timeout expires, unless the
+	 * test has already finished.
+	 */
+	private static final class TimeoutGuard implements Runnable {
+		private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+		private final Thread thread;
+		private boolean finished = false;
+		private boolean timedOut = false;
+
+		private TimeoutGuard(Thread thread) {
+			this.thread = thread;
+		}
+
+		@Override
+		public synchronized void run() {
+			if (!finished) {
+				timedOut = true;
+				thread.interrupt();
+			}
+		}
+
+		/**
+		 * Marks the test as finished, clearing the interruption caused by the timeout.
+		 * 
+		 * @return whether the test timed out
+		 */
+		private synchronized boolean finish() {
+			finished = true;
+			if (timedOut) {
+				Thread.interrupted(); // NOSONAR the interruption was ours
+			}
+			return timedOut;
+		}
+
+		private static ScheduledThreadPoolExecutor createScheduler() {
+			var scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+				var t = new Thread(r, "jnrtest-timeout");
+				t.setDaemon(true);
+				return t;
+			});
+			scheduler.setRemoveOnCancelPolicy(true);
+			return scheduler;
+		}
+	}
+
 	/**
 	 * Gets the description of this test.
 	 * 
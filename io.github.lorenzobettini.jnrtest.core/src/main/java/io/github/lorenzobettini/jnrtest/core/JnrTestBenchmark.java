@@ -0,0 +1,208 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A micro-benchmark specified with
+ * {@link JnrTest#benchmark(String, JnrTestBenchmarkRunnable)}, measuring the
+ * throughput of an operation.
+ * <p>
+ * The operation is first executed for some warm-up iterations, whose results
+ * are discarded, so that the JIT compiler can optimize it, and then for some
+ * measurement iterations; each iteration executes the operation repeatedly for
+ * at least the iteration time, in batches of doubling size, and the time is
+ * read only after each batch, so that the cost of reading the time is
+ * negligible even for fast operations.
+ * <p>
+ * When executed by a {@link JnrTestRunner}, the benchmark is a test, so
+ * before-each and after-each hooks run around it, its listeners are notified of
+ * the {@link JnrTestBenchmarkResult}, and it fails if the operation throws an
+ * exception or an assertion fails; when simply run, as a
+ * {@link JnrTestRunnable}, the benchmark result is discarded.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class JnrTestBenchmark implements JnrTestRunnable {
+
+	/**
+	 * The default number of warm-up iterations.
+	 */
+	public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+
+	/**
+	 * The default number of measurement iterations.
+	 */
+	public static final int DEFAULT_MEASUREMENT_ITERATIONS = 10;
+
+	/**
+	 * The default minimum duration of an iteration.
+	 */
+	public static final Duration DEFAULT_ITERATION_TIME = Duration.ofMillis(100);
+
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+	private final JnrTestBenchmarkRunnable operation;
+	private final LongSupplier nanoTime;
+	private int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+	private int measurementIterations = DEFAULT_MEASUREMENT_ITERATIONS;
+	private long iterationNanos = DEFAULT_ITERATION_TIME.toNanos();
+	private Consumer<JnrTestBenchmarkResult> check = null;
+
+	/**
+	 * Creates a benchmark of the given operation, with the default
+	 * configuration.
+	 *
+	 * @param operation the operation to measure
+	 */
+	public JnrTestBenchmark(JnrTestBenchmarkRunnable operation) {
+		this(operation, System::nanoTime);
+	}
+
+	JnrTestBenchmark(JnrTestBenchmarkRunnable operation, LongSupplier nanoTime) {
+		this.operation = operation;
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * Sets the number of warm-up iterations.
+	 *
+	 * @param warmupIterations the number of warm-up iterations, possibly 0
+	 * @return this benchmark for method chaining
+	 * @throws IllegalArgumentException if the number is negative
+	 */
+	public JnrTestBenchmark withWarmupIterations(int warmupIterations) {
+		if (warmupIterations < 0) {
+			throw new IllegalArgumentException("Invalid warm-up iterations: " + warmupIterations);
+		}
+		this.warmupIterations = warmupIterations;
+		return this;
+	}
+
+	/**
+	 * Sets the number of measurement iterations; at least two are needed to
+	 * compute a confidence interval.
+	 *
+	 * @param measurementIterations the number of measurement iterations
+	 * @return this benchmark for method chaining
+	 * @throws IllegalArgumentException if the number is not positive
+	 */
+	public JnrTestBenchmark withMeasurementIterations(int measurementIterations) {
+		if (measurementIterations < 1) {
+			throw new IllegalArgumentException("Invalid measurement iterations: " + measurementIterations);
+		}
+		this.measurementIterations = measurementIterations;
+		return this;
+	}
+
+	/**
+	 * Sets the minimum duration of each iteration.
+	 *
+	 * @param iterationTime the minimum duration of an iteration
+	 * @return this benchmark for method chaining
+	 * @throws IllegalArgumentException if the duration is not positive
+	 */
+	public JnrTestBenchmark withIterationTime(Duration iterationTime) {
+		if (iterationTime.isNegative() || iterationTime.isZero()) {
+			throw new IllegalArgumentException("Invalid iteration time: " + iterationTime);
+		}
+		this.iterationNanos = iterationTime.toNanos();
+		return this;
+	}
+
+	/**
+	 * Sets the check of the results of the measurement iterations, e.g., against
+	 * a {@link JnrTestPerformanceBaseline}, which fails by throwing an
+	 * {@link AssertionError}.
+	 *
+	 * @param check the check of the results
+	 * @return this benchmark for method chaining
+	 */
+	JnrTestBenchmark withCheck(Consumer<JnrTestBenchmarkResult> check) {
+		this.check = check;
+		return this;
+	}
+
+	/**
+	 * Gets the number of warm-up iterations.
+	 *
+	 * @return the number of warm-up iterations
+	 */
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	/**
+	 * Gets the number of measurement iterations.
+	 *
+	 * @return the number of measurement iterations
+	 */
+	public int getMeasurementIterations() {
+		return measurementIterations;
+	}
+
+	/**
+	 * Gets the minimum duration of each iteration.
+	 *
+	 * @return the minimum duration of an iteration
+	 */
+	public Duration getIterationTime() {
+		return Duration.ofNanos(iterationNanos);
+	}
+
+	/**
+	 * Runs the warm-up and the measurement iterations, discarding the result.
+	 */
+	@Override
+	public void run() throws Exception {
+		measure(null);
+	}
+
+	/**
+	 * Runs the warm-up and the measurement iterations.
+	 *
+	 * @param description the description of the benchmark, for the result
+	 * @return the result of the measurement iterations
+	 * @throws Exception if the operation throws an exception
+	 * @throws AssertionError if the operation or the check of the result fails
+	 */
+	public JnrTestBenchmarkResult measure(String description) throws Exception {
+		var blackhole = new JnrTestBlackhole();
+		for (int i = 0; i < warmupIterations; i++) {
+			iteration(blackhole);
+		}
+		var throughputs = new ArrayList<Double>(measurementIterations);
+		for (int i = 0; i < measurementIterations; i++) {
+			throughputs.add(iteration(blackhole));
+		}
+		var result = new JnrTestBenchmarkResult(description, throughputs);
+		if (check != null) {
+			check.accept(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Executes the operation, in batches of doubling size, until the
+	 * iteration time has elapsed.
+	 *
+	 * @return the throughput of the iteration, in operations per second
+	 */
+	private double iteration(JnrTestBlackhole blackhole) throws Exception {
+		long operations = 0;
+		long batch = 1;
+		long elapsed;
+		var start = nanoTime.getAsLong();
+		do {
+			for (long i = 0; i < batch; i++) {
+				operation.run(blackhole);
+			}
+			operations += batch;
+			batch *= 2;
+			elapsed = nanoTime.getAsLong() - start;
+		} while (elapsed < iterationNanos);
+		return operations * NANOS_PER_SECOND / elapsed;
+	}
+}
@@ -0,0 +1,98 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.List;
+
+/**
+ * The result of a benchmark (see
+ * {@link JnrTest#benchmark(String, JnrTestBenchmarkRunnable)}): the throughput
+ * of each measurement iteration, in operations per second, and their
+ * statistics.
+ *
+ * @author Lorenzo Bettini
+ * @param description The description of the benchmark
+ * @param throughputs The throughput of each measurement iteration, in operations per second
+ */
+public record JnrTestBenchmarkResult(String description, List<Double> throughputs) {
+
+	/**
+	 * The two-sided critical values of the Student's t-distribution for a 95%
+	 * confidence level, indexed by the degrees of freedom minus 1.
+	 */
+	private static final double[] T_95 = {
+		12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+		2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+		2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+	};
+
+	private static final double Z_95 = 1.96;
+
+	/**
+	 * Creates a benchmark result.
+	 *
+	 * @param description The description of the benchmark
+	 * @param throughputs The throughput of each measurement iteration, in operations per second
+	 */
+	public JnrTestBenchmarkResult {
+		throughputs = List.copyOf(throughputs);
+	}
+
+	/**
+	 * Gets the mean throughput.
+	 *
+	 * @return the mean of the throughputs, in operations per second
+	 */
+	public double mean() {
+		return throughputs.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+	}
+
+	/**
+	 * Gets the sample standard deviation of the throughputs.
+	 *
+	 * @return the standard deviation, in operations per second, or
+	 * {@link Double#NaN} with less than two iterations
+	 */
+	public double standardDeviation() {
+		var n = throughputs.size();
+		if (n < 2) {
+			return Double.NaN;
+		}
+		var mean = mean();
+		var squares = throughputs.stream()
+			.mapToDouble(t -> (t - mean) * (t - mean))
+			.sum();
+		return Math.sqrt(squares / (n - 1));
+	}
+
+	/**
+	 * Gets the half-width of the 95% confidence interval of the mean
+	 * throughput, according to the Student's t-distribution, that is, the
+	 * mean is {@link #mean()} &plusmn; this error.
+	 *
+	 * @return the error, in operations per second, or {@link Double#NaN} with
+	 * less than two iterations
+	 */
+	public double error() {
+		var n = throughputs.size();
+		return criticalValue(n - 1) * standardDeviation() / Math.sqrt(n);
+	}
+
+	/**
+	 * The critical value for the given degrees of freedom, from the table, or,
+	 * beyond that, with the first-order Cornish-Fisher approximation.
+	 */
+	static double criticalValue(int degreesOfFreedom) {
+		if (degreesOfFreedom < 1) {
+			return Double.NaN;
+		}
+		if (degreesOfFreedom <= T_95.length) {
+			return T_95[degreesOfFreedom - 1];
+		}
+		return Z_95 + (Z_95 * Z_95 * Z_95 + Z_95) / (4 * degreesOfFreedom);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[BENCHMARK] %s - Throughput: %.3f +- %.3f ops/s", description, mean(), error());
+	}
+
+}
@@ -0,0 +1,20 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+/**
+ * The operation measured by a benchmark (see
+ * {@link JnrTest#benchmark(String, JnrTestBenchmarkRunnable)}).
+ * 
+ * @author Lorenzo Bettini
+ */
+@FunctionalInterface
+public interface JnrTestBenchmarkRunnable {
+
+	/**
+	 * Runs the operation once; the values it computes should be passed to the
+	 * blackhole, so that the computation is not eliminated as dead code.
+	 * 
+	 * @param blackhole the sink for the computed values
+	 * @throws Exception any exception that may occur during the operation
+	 */
+	void run(JnrTestBlackhole blackhole) throws Exception; // NOSONAR
+}
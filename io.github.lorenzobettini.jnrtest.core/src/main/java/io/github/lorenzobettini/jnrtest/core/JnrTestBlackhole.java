@@ -0,0 +1,108 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A sink for the values computed by a benchmark (see
+ * {@link JnrTest#benchmark(String, JnrTestBenchmarkRunnable)}), so that the JIT
+ * compiler cannot consider the computation dead code and eliminate it.
+ * <p>
+ * Consuming a value is cheap: it is compared with volatile fields that never
+ * match it, so the value must be computed, but nothing is actually stored.
+ * Values of other primitive types are widened to the ones of the
+ * {@code consume} methods.
+ * <p>
+ * A blackhole is meant to be used by a single thread, the one running the
+ * benchmark.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class JnrTestBlackhole {
+
+	// the pairs of volatile fields have different values, so a consumed value
+	// can never be equal to both, but the JIT compiler cannot know it
+	private volatile int int1 = 1;
+	private volatile int int2 = 2;
+	private volatile long long1 = 1;
+	private volatile long long2 = 2;
+	private volatile double double1 = 1;
+	private volatile double double2 = 2;
+	private volatile boolean boolean1 = false;
+	private volatile boolean boolean2 = true;
+
+	// objects are stored, weakly, less and less frequently, according to a
+	// pseudo-random sequence that the JIT compiler cannot predict
+	private volatile int mask = 1;
+	private int random = 0;
+	private WeakReference<Object> object = null;
+
+	JnrTestBlackhole() {
+		// created by the benchmark
+	}
+
+	/**
+	 * Consumes an int value.
+	 *
+	 * @param value the value to consume
+	 */
+	public void consume(int value) {
+		if (value == int1 & value == int2) { // NOSONAR both must be evaluated
+			throw new IllegalStateException("Unreachable: " + value);
+		}
+	}
+
+	/**
+	 * Consumes a long value.
+	 *
+	 * @param value the value to consume
+	 */
+	public void consume(long value) {
+		if (value == long1 & value == long2) { // NOSONAR both must be evaluated
+			throw new IllegalStateException("Unreachable: " + value);
+		}
+	}
+
+	/**
+	 * Consumes a double value.
+	 *
+	 * @param value the value to consume
+	 */
+	public void consume(double value) {
+		if (value == double1 & value == double2) { // NOSONAR both must be evaluated
+			throw new IllegalStateException("Unreachable: " + value);
+		}
+	}
+
+	/**
+	 * Consumes a boolean value.
+	 *
+	 * @param value the value to consume
+	 */
+	public void consume(boolean value) {
+		if (value == boolean1 & value == boolean2) { // NOSONAR both must be evaluated
+			throw new IllegalStateException("Unreachable: " + value);
+		}
+	}
+
+	/**
+	 * Consumes an object.
+	 *
+	 * @param value the object to consume
+	 */
+	public void consume(Object value) {
+		var currentMask = mask;
+		random = random * 1664525 + 1013904223;
+		if ((random & currentMask) == 0) {
+			object = new WeakReference<>(value);
+			mask = (currentMask << 1) + 1;
+		}
+	}
+
+	/**
+	 * Gets the last object stored, if not garbage collected yet; only meant
+	 * for testing.
+	 */
+	Object getObject() {
+		return object != null ? object.get() : null;
+	}
+}
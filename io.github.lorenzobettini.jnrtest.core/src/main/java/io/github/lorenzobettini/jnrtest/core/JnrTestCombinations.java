@@ -0,0 +1,332 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The combinations of the values of several parameter dimensions, for
+ * {@link JnrTest#testWithCombinations(String, JnrTestCombinations, JnrTestRunnableWithParameters)}.
+ * <p>
+ * By default, the combinations are the full cartesian product of the
+ * dimensions, which is enumerated lazily, without building it first. With
+ * {@link #withStrength(int)}, e.g., {@link #pairwise()}, the combinations are
+ * instead the rows of a covering array: every combination of the values of
+ * any t dimensions appears in at least one row, which catches the bugs caused
+ * by the interaction of up to t parameters with a number of combinations that
+ * grows logarithmically, instead of exponentially, with the number of
+ * dimensions.
+ * <p>
+ * The covering array is computed with the IPOG (In-Parameter-Order-General)
+ * strategy: it starts from the product of the t dimensions with the most
+ * values, and adds one dimension at a time, first choosing, for each existing
+ * row, the value covering the most uncovered combinations, and then adding
+ * rows for the combinations still uncovered. The result is deterministic.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class JnrTestCombinations {
+
+	/**
+	 * The strength meaning the full cartesian product.
+	 */
+	public static final int ALL = 0;
+
+	private static final int DONT_CARE = -1;
+
+	private final List<List<?>> dimensions;
+	private int strength = ALL;
+
+	private JnrTestCombinations(List<List<?>> dimensions) {
+		this.dimensions = dimensions;
+	}
+
+	/**
+	 * Creates the combinations of the given dimensions, by default the full
+	 * cartesian product.
+	 *
+	 * @param dimensions the values of each dimension, in their iteration order
+	 * @return the combinations
+	 * @throws IllegalArgumentException if there are no dimensions
+	 */
+	public static JnrTestCombinations of(Collection<?>... dimensions) {
+		return of(Arrays.asList(dimensions));
+	}
+
+	/**
+	 * Creates the combinations of the given dimensions, by default the full
+	 * cartesian product.
+	 *
+	 * @param dimensions the values of each dimension, in their iteration order
+	 * @return the combinations
+	 * @throws IllegalArgumentException if there are no dimensions
+	 */
+	public static JnrTestCombinations of(List<? extends Collection<?>> dimensions) {
+		if (dimensions.isEmpty()) {
+			throw new IllegalArgumentException("No dimensions");
+		}
+		return new JnrTestCombinations(dimensions.stream()
+			.<List<?>>map(ArrayList::new)
+			.toList());
+	}
+
+	/**
+	 * Only requires every pair of values of any two dimensions to appear in a
+	 * combination; same as {@code withStrength(2)}.
+	 *
+	 * @return this instance for method chaining
+	 */
+	public JnrTestCombinations pairwise() {
+		return withStrength(2);
+	}
+
+	/**
+	 * Only requires every combination of the values of any t dimensions to
+	 * appear in a combination; with a strength not less than the number of
+	 * dimensions, or {@link #ALL}, the combinations are the full cartesian
+	 * product.
+	 *
+	 * @param strength the strength t
+	 * @return this instance for method chaining
+	 * @throws IllegalArgumentException if the strength is negative
+	 */
+	public JnrTestCombinations withStrength(int strength) {
+		if (strength < 0) {
+			throw new IllegalArgumentException("Invalid strength: " + strength);
+		}
+		this.strength = strength;
+		return this;
+	}
+
+	/**
+	 * Gets the strength.
+	 *
+	 * @return the strength, or {@link #ALL} for the full cartesian product
+	 */
+	public int getStrength() {
+		return strength;
+	}
+
+	/**
+	 * Returns the combinations; the full cartesian product is enumerated
+	 * lazily, while a covering array is computed when the stream is consumed.
+	 *
+	 * @return the stream of the combinations, each one an unmodifiable list with
+	 * a value for each dimension
+	 */
+	public Stream<List<Object>> stream() {
+		var sizes = dimensions.stream().mapToInt(List::size).toArray();
+		if (strength == ALL || strength >= sizes.length) {
+			return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(product(sizes), Spliterator.ORDERED), false)
+				.map(this::values);
+		}
+		return Stream.of(sizes)
+			.flatMap(s -> coveringArray(s, strength).stream())
+			.map(this::values);
+	}
+
+	private List<Object> values(int[] indexes) {
+		var values = new Object[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			values[i] = dimensions.get(i).get(indexes[i]);
+		}
+		return Collections.unmodifiableList(Arrays.asList(values));
+	}
+
+	/**
+	 * Enumerates the indexes of the cartesian product of dimensions with the
+	 * given sizes, the last dimension varying fastest.
+	 */
+	static Iterator<int[]> product(int[] sizes) {
+		return new Iterator<>() {
+			private int[] next = Arrays.stream(sizes).allMatch(s -> s > 0) ? new int[sizes.length] : null;
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public int[] next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				var current = next.clone();
+				for (int i = sizes.length - 1; i >= 0; i--) {
+					if (++next[i] < sizes[i]) {
+						return current;
+					}
+					next[i] = 0;
+				}
+				next = null;
+				return current;
+			}
+		};
+	}
+
+	/**
+	 * Computes the indexes of the rows of a covering array of the given
+	 * strength, which must be positive and less than the number of
+	 * dimensions.
+	 */
+	static List<int[]> coveringArray(int[] sizes, int strength) {
+		if (Arrays.stream(sizes).anyMatch(s -> s == 0)) {
+			return List.of();
+		}
+		// the dimensions with the most values first, for a smaller array
+		var order = IntStream.range(0, sizes.length).boxed()
+			.sorted(Comparator.comparingInt((Integer i) -> sizes[i]).reversed())
+			.mapToInt(Integer::intValue)
+			.toArray();
+		var sorted = Arrays.stream(order).map(i -> sizes[i]).toArray();
+		var rows = new ArrayList<int[]>();
+		product(Arrays.copyOf(sorted, strength)).forEachRemaining(values -> {
+			var row = new int[sorted.length];
+			Arrays.fill(row, DONT_CARE);
+			System.arraycopy(values, 0, row, 0, strength);
+			rows.add(row);
+		});
+		for (int dimension = strength; dimension < sorted.length; dimension++) {
+			extend(rows, sorted, dimension, strength);
+		}
+		return rows.stream()
+			.map(row -> {
+				var original = new int[sizes.length];
+				for (int i = 0; i < order.length; i++) {
+					// any value is fine for the remaining don't-cares
+					original[order[i]] = Math.max(row[i], 0);
+				}
+				return original;
+			})
+			.toList();
+	}
+
+	/**
+	 * Adds the given dimension to the rows, covering all the combinations of
+	 * its values with the values of any strength - 1 previous dimensions.
+	 */
+	private static void extend(List<int[]> rows, int[] sizes, int dimension, int strength) {
+		var columns = subsets(dimension, strength - 1);
+		var uncovered = new BitSet[columns.size()];
+		for (int c = 0; c < uncovered.length; c++) {
+			var count = sizes[dimension];
+			for (int column : columns.get(c)) {
+				count *= sizes[column];
+			}
+			uncovered[c] = new BitSet(count);
+			uncovered[c].set(0, count);
+		}
+		// horizontal growth: the value covering the most uncovered combinations
+		for (var row : rows) {
+			var best = 0;
+			var bestCount = -1;
+			for (int value = 0; value < sizes[dimension]; value++) {
+				var count = 0;
+				for (int c = 0; c < uncovered.length; c++) {
+					var index = index(row, columns.get(c), sizes, dimension, value);
+					if (index >= 0 && uncovered[c].get(index)) {
+						count++;
+					}
+				}
+				if (count > bestCount) {
+					best = value;
+					bestCount = count;
+				}
+			}
+			row[dimension] = best;
+			for (int c = 0; c < uncovered.length; c++) {
+				var index = index(row, columns.get(c), sizes, dimension, best);
+				if (index >= 0) {
+					uncovered[c].clear(index);
+				}
+			}
+		}
+		// vertical growth: a compatible row, or a new one, for the others
+		for (int c = 0; c < uncovered.length; c++) {
+			var cols = columns.get(c);
+			for (int index = uncovered[c].nextSetBit(0); index >= 0; index = uncovered[c].nextSetBit(index + 1)) {
+				var value = index % sizes[dimension];
+				var tuple = new int[cols.length];
+				var rest = index / sizes[dimension];
+				for (int j = cols.length - 1; j >= 0; j--) {
+					tuple[j] = rest % sizes[cols[j]];
+					rest /= sizes[cols[j]];
+				}
+				var row = findCompatible(rows, cols, tuple, dimension, value);
+				if (row == null) {
+					row = new int[sizes.length];
+					Arrays.fill(row, DONT_CARE);
+					rows.add(row);
+				}
+				for (int j = 0; j < cols.length; j++) {
+					row[cols[j]] = tuple[j];
+				}
+				row[dimension] = value;
+			}
+		}
+	}
+
+	private static int[] findCompatible(List<int[]> rows, int[] columns, int[] tuple, int dimension, int value) {
+		for (var row : rows) {
+			if (compatible(row[dimension], value)
+					&& IntStream.range(0, columns.length).allMatch(j -> compatible(row[columns[j]], tuple[j]))) {
+				return row;
+			}
+		}
+		return null;
+	}
+
+	private static boolean compatible(int current, int value) {
+		return current == DONT_CARE || current == value;
+	}
+
+	/**
+	 * The index of the combination of the values of the row in the given
+	 * columns with the given value, or -1 if the row has a don't-care in
+	 * those columns.
+	 */
+	private static int index(int[] row, int[] columns, int[] sizes, int dimension, int value) {
+		var index = 0;
+		for (int column : columns) {
+			if (row[column] == DONT_CARE) {
+				return -1;
+			}
+			index = index * sizes[column] + row[column];
+		}
+		return index * sizes[dimension] + value;
+	}
+
+	/**
+	 * The subsets of the given size of {0, ..., n - 1}, in lexicographic order.
+	 */
+	private static List<int[]> subsets(int n, int size) {
+		var subsets = new ArrayList<int[]>();
+		var subset = IntStream.range(0, size).toArray();
+		while (true) {
+			subsets.add(subset.clone());
+			var i = size - 1;
+			while (i >= 0 && subset[i] == n - size + i) {
+				i--;
+			}
+			if (i < 0) {
+				return subsets;
+			}
+			subset[i]++;
+			for (int j = i + 1; j < size; j++) {
+				subset[j] = subset[j - 1] + 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,423 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parses command-line options and creates a {@link JnrTestConsoleExecutor}
+ * configured accordingly; this is meant to be used in the main method of the
+ * class generated by JnrTestMainGenerator, so that the same entry point can be
+ * used both by developers and in CI:
+ * {@snippet :
+ * public static void main(String[] args) {
+ *     JnrTestCommandLine.execute(args, JnrTestMainGenerated::fillTestRunner);
+ * }
+ * }
+ * <p>
+ * See {@link #USAGE} for the available options.
+ * 
+ * @author Lorenzo Bettini
+ */
+public class JnrTestCommandLine {
+
+	/**
+	 * The description of the available options.
+	 */
+	public static final String USAGE = """
+		Options:
+		  --sequential              execute test classes sequentially (default)
+		  --parallel                execute test classes in parallel
+		  --virtual-threads         execute each test class in its own virtual thread
+		  --threads <n>             the number of threads for --parallel
+		                            (default: the common fork/join pool)
+		  --shard <index>/<total>   only execute the test classes of the given shard
+		                            (index starts from 0)
+		  --class-filter <regex>    only execute test classes whose description matches
+		  --spec-filter <regex>     only execute test specifications whose description matches
+		  --only-summaries          only report the summaries of test classes
+		  --progress                only report failures, with a live progress line
+		                            on terminals
+		  --verbose                 with --progress, also report all the other tests
+		  --xml-report <file>       also write a report in the JUnit XML format
+		  --resource-usage          also report allocated bytes, CPU time and
+		                            garbage collections of tests and hooks
+		  --jfr-events              emit Java Flight Recorder events for test classes,
+		                            tests, hooks and results
+		  --metrics-file <file>     write live metrics in the Prometheus text format,
+		                            every second, while tests run
+		  --metrics-jmx             export live metrics as an MBean while tests run
+		  --help                    show this help""";
+
+	private static final Duration METRICS_PERIOD = Duration.ofSeconds(1);
+
+	private JnrTestExecutionMode mode = JnrTestExecutionMode.SEQUENTIAL;
+	private int threads = 0;
+	private int shardIndex = 0;
+	private int shardTotal = 1;
+	private String classFilter = null;
+	private String specificationFilter = null;
+	private boolean onlySummaries = false;
+	private boolean progress = false;
+	private boolean verbose = false;
+	private Path xmlReport = null;
+	private boolean resourceUsage = false;
+	private boolean jfrEvents = false;
+	private Path metricsFile = null;
+	private boolean metricsJmx = false;
+	private boolean help = false;
+
+	/**
+	 * Parses the given command-line options.
+	 * 
+	 * @param args the command-line options
+	 * @return the parsed command line
+	 * @throws IllegalArgumentException if an option is unknown or has an invalid value
+	 */
+	public static JnrTestCommandLine parse(String... args) {
+		var commandLine = new JnrTestCommandLine();
+		Iterator<String> iterator = List.of(args).iterator();
+		while (iterator.hasNext()) {
+			var option = iterator.next();
+			switch (option) {
+				case "--sequential" -> commandLine.mode = JnrTestExecutionMode.SEQUENTIAL;
+				case "--parallel" -> commandLine.mode = JnrTestExecutionMode.PARALLEL;
+				case "--virtual-threads" -> commandLine.mode = JnrTestExecutionMode.VIRTUAL_THREADS;
+				case "--threads" -> commandLine.threads = parseInt(option, value(iterator, option));
+				case "--shard" -> commandLine.parseShard(value(iterator, option));
+				case "--class-filter" -> commandLine.classFilter = value(iterator, option);
+				case "--spec-filter" -> commandLine.specificationFilter = value(iterator, option);
+				case "--only-summaries" -> commandLine.onlySummaries = true;
+				case "--progress" -> commandLine.progress = true;
+				case "--verbose" -> commandLine.verbose = true;
+				case "--xml-report" -> commandLine.xmlReport = Path.of(value(iterator, option));
+				case "--resource-usage" -> commandLine.resourceUsage = true;
+				case "--jfr-events" -> commandLine.jfrEvents = true;
+				case "--metrics-file" -> commandLine.metricsFile = Path.of(value(iterator, option));
+				case "--metrics-jmx" -> commandLine.metricsJmx = true;
+				case "--help" -> commandLine.help = true;
+				default -> throw new IllegalArgumentException("Unknown option: " + option + "\n" + USAGE);
+			}
+		}
+		return commandLine;
+	}
+
+	/**
+	 * Parses the given command-line options and executes the test classes added
+	 * by the given filler; if the option {@code --help} is given, the usage is
+	 * printed and no test is executed.
+	 * 
+	 * @param args the command-line options
+	 * @param testRunnerFiller adds the test classes to the runner
+	 * @throws RuntimeException if there are test failures
+	 */
+	public static void execute(String[] args, Consumer<JnrTestRunner> testRunnerFiller) {
+		var commandLine = parse(args);
+		if (commandLine.isHelp()) {
+			System.out.println(USAGE); // NOSONAR
+			return;
+		}
+		if (!commandLine.executeWithoutThrowing(testRunnerFiller)) {
+			throw new RuntimeException("There are test failures"); // NOSONAR
+		}
+	}
+
+	/**
+	 * Creates an executor according to the parsed options.
+	 * 
+	 * @param testRunnerFiller adds the test classes to the runner
+	 * @return the configured executor
+	 */
+	public JnrTestConsoleExecutor createExecutor(Consumer<JnrTestRunner> testRunnerFiller) {
+		JnrTestConsoleExecutor executor = switch (mode) {
+			case SEQUENTIAL -> new JnrTestConsoleExecutor() {
+				@Override
+				protected JnrTestReporterInterface createReporter() {
+					return reporter(super.createReporter());
+				}
+
+				@Override
+				protected JnrTestRunner createTestRunner() {
+					return configure(new JnrTestRunner(), testRunnerFiller);
+				}
+			};
+			case PARALLEL -> new JnrTestConsoleParallelExecutor() {
+				@Override
+				protected JnrTestReporterInterface createReporter() {
+					return reporter(super.createReporter());
+				}
+
+				@Override
+				protected JnrTestRunner createTestRunner() {
+					return configure(new JnrTestParallelRunner(threads), testRunnerFiller);
+				}
+			};
+			case VIRTUAL_THREADS -> new JnrTestConsoleParallelExecutor() {
+				@Override
+				protected JnrTestReporterInterface createReporter() {
+					return reporter(super.createReporter());
+				}
+
+				@Override
+				protected JnrTestRunner createTestRunner() {
+					return configure(new JnrTestVirtualThreadRunner(), testRunnerFiller);
+				}
+			};
+		};
+		executor.getReporter().withOnlySummaries(onlySummaries);
+		if (resourceUsage) {
+			executor.withResourceUsage();
+		}
+		if (jfrEvents) {
+			executor.testListener(new JnrTestFlightRecorderListener());
+		}
+		return executor;
+	}
+
+	/**
+	 * Executes the test classes added by the given filler, according to the
+	 * parsed options, and prints the results; if requested, it also writes the
+	 * XML report.
+	 * 
+	 * @param testRunnerFiller adds the test classes to the runner
+	 * @return true if all tests passed, false otherwise
+	 */
+	@SuppressWarnings("try") // the metrics are exported while the tests run
+	public boolean executeWithoutThrowing(Consumer<JnrTestRunner> testRunnerFiller) {
+		var executor = createExecutor(testRunnerFiller);
+		boolean success;
+		try (var metricsExport = exportMetrics(executor)) {
+			success = executor.executeWithoutThrowing();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (xmlReport != null) {
+			try {
+				new JnrTestXmlReport().write(executor.getRecorder(), xmlReport);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			System.out.println("\nXML report: " + xmlReport); // NOSONAR
+		}
+		return success;
+	}
+
+	/**
+	 * Exports the metrics of the executor as requested, and returns the
+	 * {@link Closeable} that stops exporting.
+	 */
+	private Closeable exportMetrics(JnrTestConsoleExecutor executor) throws IOException {
+		// the JMX exporter is created only if requested, since it starts the platform MBean server
+		Closeable jmxExport = metricsJmx ? exportJmx(executor) : () -> {
+			// nothing to stop
+		};
+		if (metricsFile == null) {
+			return jmxExport;
+		}
+		var prometheusExporter = new JnrTestPrometheusExporter();
+		executor.withMetrics(prometheusExporter);
+		Closeable writer;
+		try {
+			writer = prometheusExporter.writePeriodically(metricsFile, METRICS_PERIOD);
+		} catch (IOException e) {
+			jmxExport.close();
+			throw e;
+		}
+		return () -> {
+			try (jmxExport) {
+				writer.close();
+			}
+		};
+	}
+
+	private static Closeable exportJmx(JnrTestConsoleExecutor executor) {
+		var jmxExporter = new JnrTestJmxExporter();
+		executor.withMetrics(jmxExporter);
+		jmxExporter.register();
+		return jmxExporter::close;
+	}
+
+	private JnrTestReporterInterface reporter(JnrTestReporterInterface defaultReporter) {
+		return progress ? new JnrTestProgressReporter().withVerbose(verbose) : defaultReporter;
+	}
+
+	private JnrTestRunner configure(JnrTestRunner runner, Consumer<JnrTestRunner> testRunnerFiller) {
+		testRunnerFiller.accept(runner);
+		runner.shard(shardIndex, shardTotal);
+		if (classFilter != null) {
+			runner.filterByClassDescription(classFilter);
+		}
+		if (specificationFilter != null) {
+			runner.filterBySpecificationDescription(specificationFilter);
+		}
+		return runner;
+	}
+
+	private void parseShard(String value) {
+		var parts = value.split("/");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Invalid value for --shard: " + value);
+		}
+		shardIndex = parseInt("--shard", parts[0]);
+		shardTotal = parseInt("--shard", parts[1]);
+	}
+
+	private static String value(Iterator<String> iterator, String option) {
+		if (!iterator.hasNext()) {
+			throw new IllegalArgumentException("Missing value for " + option);
+		}
+		return iterator.next();
+	}
+
+	private static int parseInt(String option, String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + option + ": " + value, e);
+		}
+	}
+
+	/**
+	 * Gets the execution mode.
+	 * 
+	 * @return the execution mode
+	 */
+	public JnrTestExecutionMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Gets the number of threads for the parallel mode.
+	 * 
+	 * @return the number of threads, not positive for the common fork/join pool
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Gets the index of the shard to execute.
+	 * 
+	 * @return the index of the shard, starting from 0
+	 */
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	/**
+	 * Gets the total number of shards.
+	 * 
+	 * @return the total number of shards
+	 */
+	public int getShardTotal() {
+		return shardTotal;
+	}
+
+	/**
+	 * Gets the pattern for test class descriptions.
+	 * 
+	 * @return the regex pattern, or null if not specified
+	 */
+	public String getClassFilter() {
+		return classFilter;
+	}
+
+	/**
+	 * Gets the pattern for test specification descriptions.
+	 * 
+	 * @return the regex pattern, or null if not specified
+	 */
+	public String getSpecificationFilter() {
+		return specificationFilter;
+	}
+
+	/**
+	 * Whether only the summaries of test classes are reported.
+	 * 
+	 * @return true if only summaries are reported
+	 */
+	public boolean isOnlySummaries() {
+		return onlySummaries;
+	}
+
+	/**
+	 * Whether the progress reporter is used.
+	 * 
+	 * @return true if only failures are reported, with a progress line
+	 * @see JnrTestProgressReporter
+	 */
+	public boolean isProgress() {
+		return progress;
+	}
+
+	/**
+	 * Whether the progress reporter also reports all the other tests.
+	 * 
+	 * @return true if all the tests are reported
+	 */
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	/**
+	 * Gets the file of the XML report.
+	 * 
+	 * @return the file, or null if not specified
+	 */
+	public Path getXmlReport() {
+		return xmlReport;
+	}
+
+	/**
+	 * Whether the resources used by tests and hooks are reported.
+	 * 
+	 * @return true if the resource usage is reported
+	 */
+	public boolean isResourceUsage() {
+		return resourceUsage;
+	}
+
+	/**
+	 * Whether Java Flight Recorder events are emitted.
+	 * 
+	 * @return true if the events are emitted
+	 * @see JnrTestFlightRecorderListener
+	 */
+	public boolean isJfrEvents() {
+		return jfrEvents;
+	}
+
+	/**
+	 * Gets the file where live metrics are written.
+	 * 
+	 * @return the file, or null if not specified
+	 * @see JnrTestPrometheusExporter
+	 */
+	public Path getMetricsFile() {
+		return metricsFile;
+	}
+
+	/**
+	 * Whether live metrics are exported as an MBean.
+	 * 
+	 * @return true if the metrics are exported as an MBean
+	 * @see JnrTestJmxExporter
+	 */
+	public boolean isMetricsJmx() {
+		return metricsJmx;
+	}
+
+	/**
+	 * Whether the help has been requested.
+	 * 
+	 * @return true if the help has been requested
+	 */
+	public boolean isHelp() {
+		return help;
+	}
+}
@@ -1,6 +1,8 @@
 package io.github.lorenzobettini.jnrtest.core;
 
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * A high-level class that provides a simplified API for setting up and executing test classes
@@ -10,9 +12,13 @@ import java.util.function.Predicate;
  * @author Lorenzo Bettini
  */
 public class JnrTestConsoleExecutor {
+	private static final int TOP_ALLOCATIONS = 5;
+
 	private final JnrTestRunner runner;
 	private final JnrTestRecorderInterface recorder;
 	private final JnrTestReporterInterface reporter;
+	private JnrTestResourceRecorder resourceRecorder = null;
+	private JnrTestMetricsListener metricsListener = null;
 
 	/**
 	 * Creates a new JnrTestConsoleExecutor with default recorder and reporter configured with elapsed time.
@@ -60,6 +66,18 @@ public class JnrTestConsoleExecutor {
 		return this;
 	}
 
+	/**
+	 * Adds a test class to be executed with a new instance for each test; see
+	 * {@link JnrTestRunner#add(Supplier)}.
+	 *
+	 * @param testClassFactory the factory of the instances of the test class
+	 * @return this instance for method chaining
+	 */
+	public JnrTestConsoleExecutor add(Supplier<? extends JnrTest> testClassFactory) {
+		runner.add(testClassFactory);
+		return this;
+	}
+
 	/**
 	 * Adds a listener to the test execution.
 	 *
@@ -71,6 +89,38 @@ public class JnrTestConsoleExecutor {
 		return this;
 	}
 
+	/**
+	 * Also records the resources used by tests and hooks with a
+	 * {@link JnrTestResourceRecorder}: the totals are reported next to the
+	 * results, together with the tests and hooks that allocated the most.
+	 *
+	 * @return this instance for method chaining
+	 */
+	public JnrTestConsoleExecutor withResourceUsage() {
+		if (resourceRecorder == null) {
+			resourceRecorder = new JnrTestResourceRecorder();
+			runner.testListener(resourceRecorder);
+		}
+		return this;
+	}
+
+	/**
+	 * Also keeps live metrics of the execution with a {@link JnrTestMetricsListener},
+	 * registered with the given registry; this can be called for several
+	 * registries, which share the same listener.
+	 *
+	 * @param registry the registry of the metrics
+	 * @return this instance for method chaining
+	 */
+	public JnrTestConsoleExecutor withMetrics(JnrTestMetricsRegistry registry) {
+		if (metricsListener == null) {
+			metricsListener = new JnrTestMetricsListener();
+			runner.testListener(metricsListener);
+		}
+		metricsListener.registerWith(registry);
+		return this;
+	}
+
 	/**
 	 * Sets a class filter for the test execution.
 	 *
@@ -92,6 +142,17 @@ public class JnrTestConsoleExecutor {
 		runner.specificationFilter(filter);
 		return this;
 	}
+
+	/**
+	 * Sets a filter on the tests together with their test class for the test execution.
+	 *
+	 * @param filter the filter to apply
+	 * @return this instance for method chaining
+	 */
+	public JnrTestConsoleExecutor testFilter(BiPredicate<JnrTest, JnrTestRunnableSpecification> filter) {
+		runner.testFilter(filter);
+		return this;
+	}
 	
 	/**
 	 * Sets a filter that only includes tests whose test class description matches the given pattern.
@@ -134,16 +195,51 @@ public class JnrTestConsoleExecutor {
 	}
 
 	/**
-	 * Executes all test classes and prints the results.
+	 * Gets the resource recorder used by this executor.
+	 * 
+	 * @return the resource recorder, or null if {@link #withResourceUsage()}
+	 * has not been called
+	 */
+	public JnrTestResourceRecorder getUsageRecorder() {
+		return resourceRecorder;
+	}
+
+	/**
+	 * Gets the metrics listener used by this executor.
+	 * 
+	 * @return the metrics listener, or null if {@link #withMetrics(JnrTestMetricsRegistry)}
+	 * has not been called
+	 */
+	public JnrTestMetricsListener getMetricsListener() {
+		return metricsListener;
+	}
+
+	/**
+	 * Executes all test classes and prints the results; if the reporter is a
+	 * {@link JnrTestProgressReporter}, it is given the number of tests to
+	 * execute, and it is finished before the results are printed.
 	 *
 	 * @return true if all tests passed, false otherwise
 	 */
 	public boolean executeWithoutThrowing() {
+		if (reporter instanceof JnrTestProgressReporter progressReporter) {
+			progressReporter.withExpectedTests(runner.getExecutionPlan().getNumberOfTests());
+		}
 		var startTime = System.currentTimeMillis();
 		runner.execute();
+		if (reporter instanceof JnrTestProgressReporter progressReporter) {
+			progressReporter.finish();
+		}
 		var totalTime = System.currentTimeMillis() - startTime;
+		var aggregator = new JnrTestResultAggregator().aggregate(recorder);
+		if (resourceRecorder != null) {
+			aggregator.aggregate(resourceRecorder);
+			System.out.println("\nTop allocations:\n"); // NOSONAR
+			resourceRecorder.getTopAllocations(TOP_ALLOCATIONS)
+				.forEach(System.out::println); // NOSONAR
+		}
 		System.out.println("\nResults:\n\n" + // NOSONAR
-				new JnrTestResultAggregator().aggregate(recorder));
+				aggregator);
 		System.out.println("\nTotal Execution Time: " + // NOSONAR
 				(float) totalTime / 1000 + " s");
 		return recorder.isSuccess();
@@ -70,6 +70,9 @@ public class JnrTestConsoleReporter implements JnrTestReporterInterface {
 				testStatistics.getSucceeded(),
 				testStatistics.getFailed(),
 				testStatistics.getErrors())
+				+ (testStatistics.getSkipped() > 0 ?
+					String.format(", Skipped: %d", testStatistics.getSkipped()) :
+					"")
 				+ (testStatistics.isWithElapsedTime() ?
 					String.format(" - Time elapsed: %f s",
 						(float) testStatistics.getTotalTime() / 1000) :
@@ -110,6 +113,7 @@ public class JnrTestConsoleReporter implements JnrTestReporterInterface {
 				testStatistics.incrementErrors();
 				result.throwable().printStackTrace();
 			}
+			case SKIPPED -> testStatistics.incrementSkipped();
 			default -> testStatistics.incrementSucceeded();
 		}
 		if (!onlySummaries) {
@@ -120,6 +124,18 @@ public class JnrTestConsoleReporter implements JnrTestReporterInterface {
 		}
 	}
 
+	/**
+	 * Shows the benchmark result, unless only summaries are reported.
+	 * 
+	 * @param result the benchmark result
+	 */
+	@Override
+	public void notify(JnrTestBenchmarkResult result) {
+		if (!onlySummaries) {
+			show(result.toString());
+		}
+	}
+
 	/**
 	 * Displays a message to the configured output stream.
 	 * 
@@ -0,0 +1,25 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+/**
+ * How test classes are executed by {@link JnrTestCommandLine}.
+ * 
+ * @author Lorenzo Bettini
+ */
+public enum JnrTestExecutionMode {
+
+	/**
+	 * One test class after the other, with {@link JnrTestRunner}
+	 */
+	SEQUENTIAL,
+
+	/**
+	 * Test classes in parallel, with {@link JnrTestParallelRunner}
+	 */
+	PARALLEL,
+
+	/**
+	 * Each test class in its own virtual thread, with {@link JnrTestVirtualThreadRunner}
+	 */
+	VIRTUAL_THREADS
+
+}
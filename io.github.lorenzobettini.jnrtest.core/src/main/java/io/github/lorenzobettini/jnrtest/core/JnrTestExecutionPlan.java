@@ -0,0 +1,274 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable, precompiled plan of the execution of a {@link JnrTestRunner}:
+ * the test classes to execute, with shard and class filter already applied,
+ * and, for each test class, the flattened sequence of the steps to execute,
+ * with the specification filter already applied: the before-all hooks, then,
+ * for each test, the before-each hooks, the test and the after-each hooks,
+ * and finally the after-all hooks.
+ * <p>
+ * The test classes declaring dependencies with
+ * {@link JnrTest#dependsOn(Class)} come after the test classes they depend
+ * on, which are resolved among the test classes to execute; otherwise, test
+ * classes keep the order they have been added.
+ * <p>
+ * The plan is compiled by {@link JnrTestRunner#getExecutionPlan()} and reused
+ * by all the executions of the runner, until its configuration changes; thus,
+ * running the same suite many times (e.g., in a benchmark or in a watch loop)
+ * does not evaluate filters and does not walk the test stores again.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class JnrTestExecutionPlan {
+
+	/**
+	 * A step of the execution of a test class.
+	 *
+	 * @param specification the hook or test to execute
+	 * @param kind the kind of the hook or test
+	 */
+	record Step(JnrTestRunnableSpecification specification, JnrTestRunnableKind kind) {
+	}
+
+	/**
+	 * A test of a test class, with its index in the store of the test class.
+	 *
+	 * @param index the index of the test
+	 * @param specification the test
+	 */
+	record IndexedTest(int index, JnrTestRunnableSpecification specification) {
+	}
+
+	private final List<JnrTest> testClasses;
+	private final Map<JnrTest, Step[]> steps = new IdentityHashMap<>();
+	private final Map<JnrTest, List<JnrTest>> dependencies = new IdentityHashMap<>();
+	private final int numberOfTests;
+
+	/**
+	 * Compiles the plan for the given test classes.
+	 *
+	 * @param testClasses all the test classes, in the order they have been added
+	 * @param shardFilter the filter on the indexes of the test classes, may be null
+	 * @param classFilter the filter on the test classes, may be null
+	 * @param specificationFilters the filter on the test specifications of each
+	 * test class, which may be null
+	 * @throws IllegalStateException if the dependencies among the test classes are cyclic
+	 */
+	JnrTestExecutionPlan(List<JnrTest> testClasses, IntPredicate shardFilter, Predicate<JnrTest> classFilter,
+			Function<JnrTest, Predicate<JnrTestRunnableSpecification>> specificationFilters) {
+		var selected = new ArrayList<JnrTest>();
+		var tests = 0;
+		for (int i = 0; i < testClasses.size(); i++) {
+			var testClass = testClasses.get(i);
+			if ((shardFilter == null || shardFilter.test(i)) &&
+					(classFilter == null || classFilter.test(testClass))) {
+				selected.add(testClass);
+				var classSteps = steps.computeIfAbsent(testClass, t -> compile(t, specificationFilters.apply(t)));
+				tests += (int) Arrays.stream(classSteps)
+					.filter(s -> s.kind() == JnrTestRunnableKind.TEST)
+					.count();
+			}
+		}
+		this.testClasses = sortByDependencies(selected);
+		this.numberOfTests = tests;
+	}
+
+	/**
+	 * Resolves the dependencies among the given test classes, and sorts them
+	 * so that each one comes after the ones it depends on, otherwise keeping
+	 * their order.
+	 */
+	private List<JnrTest> sortByDependencies(List<JnrTest> selected) {
+		var size = selected.size();
+		var dependents = new ArrayList<List<Integer>>();
+		var remaining = new int[size];
+		for (int i = 0; i < size; i++) {
+			dependents.add(new ArrayList<>());
+		}
+		for (int i = 0; i < size; i++) {
+			var testClass = selected.get(i);
+			var types = testClass.getStore().getDependencies();
+			var current = i;
+			var dependencyIndexes = IntStream.range(0, size)
+				.filter(j -> j != current && types.stream().anyMatch(t -> t.isInstance(selected.get(j))))
+				.toArray();
+			if (dependencyIndexes.length > 0) {
+				dependencies.put(testClass, Arrays.stream(dependencyIndexes).mapToObj(selected::get).toList());
+				remaining[i] = dependencyIndexes.length;
+				for (int j : dependencyIndexes) {
+					dependents.get(j).add(i);
+				}
+			}
+		}
+		if (dependencies.isEmpty()) {
+			return List.copyOf(selected);
+		}
+		// Kahn's algorithm, always taking the first test class that can be executed
+		var ready = new PriorityQueue<Integer>();
+		for (int i = 0; i < size; i++) {
+			if (remaining[i] == 0) {
+				ready.add(i);
+			}
+		}
+		var sorted = new ArrayList<JnrTest>();
+		while (!ready.isEmpty()) {
+			int i = ready.poll();
+			sorted.add(selected.get(i));
+			for (int dependent : dependents.get(i)) {
+				if (--remaining[dependent] == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		if (sorted.size() < size) {
+			throw new IllegalStateException("Cyclic dependencies among the test classes: "
+				+ IntStream.range(0, size)
+					.filter(i -> remaining[i] > 0)
+					.mapToObj(i -> selected.get(i).getDescription())
+					.collect(Collectors.joining(", ")));
+		}
+		return List.copyOf(sorted);
+	}
+
+	/**
+	 * Flattens the hooks and the tests of the given test class.
+	 */
+	static Step[] compile(JnrTest testClass, Predicate<JnrTestRunnableSpecification> specificationFilter) {
+		var store = testClass.getStore();
+		var classSteps = new ArrayList<Step>();
+		addSteps(classSteps, store.getBeforeAllRunnables(), JnrTestRunnableKind.BEFORE_ALL);
+		for (var specification : store.getRunnableSpecifications()) {
+			if (specificationFilter == null || specificationFilter.test(specification)) {
+				addSteps(classSteps, store.getBeforeEachRunnables(), JnrTestRunnableKind.BEFORE_EACH);
+				classSteps.add(new Step(specification, JnrTestRunnableKind.TEST));
+				addSteps(classSteps, store.getAfterEachRunnables(), JnrTestRunnableKind.AFTER_EACH);
+			}
+		}
+		addSteps(classSteps, store.getAfterAllRunnables(), JnrTestRunnableKind.AFTER_ALL);
+		return classSteps.toArray(Step[]::new);
+	}
+
+	private static void addSteps(List<Step> classSteps, List<JnrTestRunnableSpecification> specifications,
+			JnrTestRunnableKind kind) {
+		for (var specification : specifications) {
+			classSteps.add(new Step(specification, kind));
+		}
+	}
+
+	/**
+	 * Gets the test classes to execute, in order.
+	 *
+	 * @return the unmodifiable list of the test classes to execute
+	 */
+	public List<JnrTest> getTestClasses() {
+		return testClasses;
+	}
+
+	/**
+	 * Gets the test classes to execute that the given test class depends on.
+	 *
+	 * @param testClass the test class
+	 * @return the unmodifiable list of the test classes it depends on, in the
+	 * order they have been added, empty if it does not depend on any
+	 */
+	public List<JnrTest> getDependencies(JnrTest testClass) {
+		return dependencies.getOrDefault(testClass, List.of());
+	}
+
+	/**
+	 * Whether any test class to execute depends on other ones.
+	 */
+	boolean hasDependencies() {
+		return !dependencies.isEmpty();
+	}
+
+	/**
+	 * Gets the number of tests that will be executed, i.e., of the test
+	 * specifications of all the test classes to execute, after filtering.
+	 *
+	 * @return the number of tests to execute
+	 */
+	public int getNumberOfTests() {
+		return numberOfTests;
+	}
+
+	/**
+	 * Flattens the hooks of the given test class and the tests with the given
+	 * indexes in its store, i.e., the steps executing those tests on their own
+	 * with that instance: the before-all hooks, then, for each test, the
+	 * before-each hooks, the test and the after-each hooks, and finally the
+	 * after-all hooks.
+	 * <p>
+	 * The test class is expected to be a new instance of the test class
+	 * specifying each given test at its index, which is looked up directly;
+	 * otherwise, the test is replaced by one throwing an
+	 * {@link IllegalStateException}.
+	 */
+	static Step[] compile(JnrTest testClass, List<IndexedTest> tests) {
+		var store = testClass.getStore();
+		var classSteps = new ArrayList<Step>();
+		addSteps(classSteps, store.getBeforeAllRunnables(), JnrTestRunnableKind.BEFORE_ALL);
+		for (var indexedTest : tests) {
+			addSteps(classSteps, store.getBeforeEachRunnables(), JnrTestRunnableKind.BEFORE_EACH);
+			classSteps.add(new Step(test(testClass, indexedTest), JnrTestRunnableKind.TEST));
+			addSteps(classSteps, store.getAfterEachRunnables(), JnrTestRunnableKind.AFTER_EACH);
+		}
+		addSteps(classSteps, store.getAfterAllRunnables(), JnrTestRunnableKind.AFTER_ALL);
+		return classSteps.toArray(Step[]::new);
+	}
+
+	private static JnrTestRunnableSpecification test(JnrTest testClass, IndexedTest indexedTest) {
+		var specification = indexedTest.specification();
+		var index = indexedTest.index();
+		var specifications = testClass.getStore().getRunnableSpecifications();
+		var test = index < specifications.size() ? specifications.get(index) : null;
+		if (test != null && test.description().equals(specification.description())) {
+			return test;
+		}
+		return new JnrTestRunnableSpecification(specification.description(), () -> {
+			throw new IllegalStateException(String.format(
+				"The new instance of '%s' does not specify '%s' as test %d",
+				testClass.getDescription(), specification.description(), index + 1));
+		});
+	}
+
+	/**
+	 * Gets the tests among the given steps of the given test class, with their
+	 * index in its store.
+	 */
+	static List<IndexedTest> tests(JnrTest testClass, Step[] classSteps) {
+		var indexes = new IdentityHashMap<JnrTestRunnableSpecification, Integer>();
+		var specifications = testClass.getStore().getRunnableSpecifications();
+		for (int i = 0; i < specifications.size(); i++) {
+			indexes.put(specifications.get(i), i);
+		}
+		return Arrays.stream(classSteps)
+			.filter(s -> s.kind() == JnrTestRunnableKind.TEST)
+			.map(s -> new IndexedTest(indexes.get(s.specification()), s.specification()))
+			.toList();
+	}
+
+	/**
+	 * Gets the steps of the given test class.
+	 *
+	 * @param testClass the test class
+	 * @return the steps, or null if the test class is not part of this plan
+	 */
+	Step[] getSteps(JnrTest testClass) {
+		return steps.get(testClass);
+	}
+
+}
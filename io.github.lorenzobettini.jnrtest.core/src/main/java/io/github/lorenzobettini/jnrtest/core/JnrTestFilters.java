@@ -1,5 +1,6 @@
 package io.github.lorenzobettini.jnrtest.core;
 
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 
 /**
@@ -11,6 +12,7 @@ public class JnrTestFilters {
 
 	private Predicate<JnrTest> classFilter;
 	private Predicate<JnrTestRunnableSpecification> specificationFilter;
+	private BiPredicate<JnrTest, JnrTestRunnableSpecification> testFilter;
 
 	/**
 	 * Creates a new instance with null filters.
@@ -18,6 +20,7 @@ public class JnrTestFilters {
 	public JnrTestFilters() {
 		this.classFilter = null;
 		this.specificationFilter = null;
+		this.testFilter = null;
 	}
 
 	/**
@@ -74,6 +77,22 @@ public class JnrTestFilters {
 		return this;
 	}
 
+	/**
+	 * Adds a filter on the test specifications together with their test class,
+	 * and combines it with any existing such filter using logical AND.
+	 * 
+	 * @param filter the filter to add
+	 * @return this instance for method chaining
+	 */
+	public JnrTestFilters testFilter(BiPredicate<JnrTest, JnrTestRunnableSpecification> filter) {
+		if (this.testFilter != null) {
+			this.testFilter = this.testFilter.and(filter);
+		} else {
+			this.testFilter = filter;
+		}
+		return this;
+	}
+
 	/**
 	 * Gets the current class filter.
 	 * 
@@ -91,4 +110,29 @@ public class JnrTestFilters {
 	public Predicate<JnrTestRunnableSpecification> getSpecificationFilter() {
 		return specificationFilter;
 	}
+
+	/**
+	 * Gets the current filter on the test specifications together with their
+	 * test class.
+	 * 
+	 * @return the current filter
+	 */
+	public BiPredicate<JnrTest, JnrTestRunnableSpecification> getTestFilter() {
+		return testFilter;
+	}
+
+	/**
+	 * Gets the filter on the test specifications of the given test class,
+	 * combining the specification filter and the test filter.
+	 * 
+	 * @param testClass the test class
+	 * @return the filter, or null if there are no such filters
+	 */
+	public Predicate<JnrTestRunnableSpecification> getSpecificationFilter(JnrTest testClass) {
+		if (testFilter == null) {
+			return specificationFilter;
+		}
+		Predicate<JnrTestRunnableSpecification> filter = specification -> testFilter.test(testClass, specification);
+		return specificationFilter != null ? specificationFilter.and(filter) : filter;
+	}
 }
@@ -0,0 +1,162 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emits custom Java Flight Recorder events for the execution of tests, so that,
+ * in a recording of a test run, the boundaries of test classes, tests and
+ * hooks can be lined up with CPU samples, allocations, garbage collections and
+ * lock profiles:
+ * <ul>
+ * <li>{@value #TEST_CLASS}, from the START to the END of a test class;</li>
+ * <li>{@value #TEST_RUNNABLE}, from the START to the END of a test or a hook,
+ * with its {@link JnrTestRunnableKind};</li>
+ * <li>{@value #TEST_RESULT}, when the result of a test is notified.</li>
+ * </ul>
+ * When no recording enables these events, this listener does not even
+ * create them; in particular, tests and hooks started before a recording is
+ * started are not emitted.
+ * <p>
+ * Since the events of a test class are notified in the thread executing
+ * the test class, this listener can be used with any runner, including
+ * parallel ones. For example, start the JVM with
+ * {@code -XX:StartFlightRecording:filename=tests.jfr} and register this
+ * listener (or use the command-line option {@code --jfr-events} of
+ * {@link JnrTestCommandLine}).
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestFlightRecorderListener implements JnrTestListener {
+
+	/**
+	 * The name of the event of a test class.
+	 */
+	public static final String TEST_CLASS = "io.github.lorenzobettini.jnrtest.TestClass";
+
+	/**
+	 * The name of the event of a test or a hook.
+	 */
+	public static final String TEST_RUNNABLE = "io.github.lorenzobettini.jnrtest.TestRunnable";
+
+	/**
+	 * The name of the event of a test result.
+	 */
+	public static final String TEST_RESULT = "io.github.lorenzobettini.jnrtest.TestResult";
+
+	private static final String CATEGORY = "JnrTest";
+
+	@Name(TEST_CLASS)
+	@Label("Test Class")
+	@Category(CATEGORY)
+	@Description("The execution of a test class")
+	static final class TestClassEvent extends Event {
+		@Label("Test Class")
+		String testClass;
+	}
+
+	@Name(TEST_RUNNABLE)
+	@Label("Test Runnable")
+	@Category(CATEGORY)
+	@Description("The execution of a test or a hook")
+	static final class TestRunnableEvent extends Event {
+		@Label("Test Class")
+		String testClass;
+
+		@Label("Description")
+		String description;
+
+		@Label("Kind")
+		String kind;
+	}
+
+	@Name(TEST_RESULT)
+	@Label("Test Result")
+	@Category(CATEGORY)
+	@Description("The result of a test")
+	static final class TestResultEvent extends Event {
+		@Label("Test Class")
+		String testClass;
+
+		@Label("Description")
+		String description;
+
+		@Label("Status")
+		String status;
+
+		@Label("Throwable")
+		String throwable;
+
+		@Label("Message")
+		String message;
+	}
+
+	private static final EventType TEST_CLASS_TYPE = EventType.getEventType(TestClassEvent.class);
+	private static final EventType TEST_RUNNABLE_TYPE = EventType.getEventType(TestRunnableEvent.class);
+	private static final EventType TEST_RESULT_TYPE = EventType.getEventType(TestResultEvent.class);
+
+	private final ThreadLocal<String> currentTestClass = new ThreadLocal<>();
+	private final ThreadLocal<TestClassEvent> currentTestClassEvent = new ThreadLocal<>();
+	private final ThreadLocal<TestRunnableEvent> currentTestRunnableEvent = new ThreadLocal<>();
+
+	@Override
+	public void notify(JnrTestLifecycleEvent event) {
+		if (event.status() == JnrTestStatus.START) {
+			currentTestClass.set(event.description());
+			if (TEST_CLASS_TYPE.isEnabled()) {
+				var testClassEvent = new TestClassEvent();
+				testClassEvent.testClass = event.description();
+				testClassEvent.begin();
+				currentTestClassEvent.set(testClassEvent);
+			}
+			return;
+		}
+		currentTestClass.remove();
+		commit(currentTestClassEvent.get());
+		currentTestClassEvent.remove();
+	}
+
+	@Override
+	public void notify(JnrTestRunnableLifecycleEvent event) {
+		if (event.status() == JnrTestRunnableStatus.START) {
+			if (TEST_RUNNABLE_TYPE.isEnabled()) {
+				var testRunnableEvent = new TestRunnableEvent();
+				testRunnableEvent.testClass = currentTestClass.get();
+				testRunnableEvent.description = event.description();
+				testRunnableEvent.kind = event.kind().name();
+				testRunnableEvent.begin();
+				currentTestRunnableEvent.set(testRunnableEvent);
+			}
+			return;
+		}
+		commit(currentTestRunnableEvent.get());
+		currentTestRunnableEvent.remove();
+	}
+
+	@Override
+	public void notify(JnrTestResult result) {
+		if (!TEST_RESULT_TYPE.isEnabled()) {
+			return;
+		}
+		var testResultEvent = new TestResultEvent();
+		testResultEvent.testClass = currentTestClass.get();
+		testResultEvent.description = result.description();
+		testResultEvent.status = result.status().name();
+		var throwable = result.throwable();
+		if (throwable != null) {
+			testResultEvent.throwable = throwable.getClass().getName();
+			testResultEvent.message = throwable.getMessage();
+		}
+		testResultEvent.commit();
+	}
+
+	private static void commit(Event event) {
+		if (event != null) {
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,367 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest.Pair;
+import io.github.lorenzobettini.jnrtest.core.JnrTest.Triple;
+
+/**
+ * Generates the random inputs of a property (see
+ * {@link JnrTest#property(String, JnrTestGenerator, JnrTestRunnableWithParameters)}),
+ * and shrinks a failing input into simpler candidates, so that a minimal
+ * counterexample can be found.
+ * <p>
+ * Generators are deterministic: the same {@link SplittableRandom}, created
+ * with the same seed, generates the same value; they must not keep any state,
+ * since the trials of a property can be executed in parallel.
+ * <p>
+ * The static methods create the generators of the basic types, which can be
+ * combined, e.g., with {@link #pairs(JnrTestGenerator, JnrTestGenerator)}
+ * and {@link #lists(JnrTestGenerator, int, int)}, retaining the shrinking of
+ * the combined generators.
+ *
+ * @author Lorenzo Bettini
+ * @param <T> The type of the generated values
+ */
+@FunctionalInterface
+public interface JnrTestGenerator<T> {
+
+	/**
+	 * The maximum number of attempts of {@link #filter(Predicate)} to generate
+	 * a value satisfying the predicate.
+	 */
+	int MAX_FILTER_ATTEMPTS = 1000;
+
+	/**
+	 * Generates a value.
+	 *
+	 * @param random the source of randomness
+	 * @return the generated value
+	 */
+	T generate(SplittableRandom random);
+
+	/**
+	 * Returns the candidates for shrinking the given value, the simplest
+	 * first; by default, there are no candidates.
+	 *
+	 * @param value the value to shrink
+	 * @return the (lazy) stream of simpler values
+	 */
+	default Stream<T> shrink(T value) {
+		return Stream.empty();
+	}
+
+	/**
+	 * Returns a generator transforming the values of this generator; the
+	 * resulting generator does not shrink its values.
+	 *
+	 * @param <R> The type of the transformed values
+	 * @param mapper the transformation
+	 * @return the new generator
+	 */
+	default <R> JnrTestGenerator<R> map(Function<? super T, ? extends R> mapper) {
+		return random -> mapper.apply(generate(random));
+	}
+
+	/**
+	 * Returns a generator only generating, and shrinking to, the values of
+	 * this generator satisfying the predicate.
+	 *
+	 * @param predicate the predicate the values must satisfy
+	 * @return the new generator, which throws an {@link IllegalStateException}
+	 * if no value satisfying the predicate is generated within
+	 * {@link #MAX_FILTER_ATTEMPTS} attempts
+	 */
+	default JnrTestGenerator<T> filter(Predicate<? super T> predicate) {
+		return of(random -> {
+			for (int i = 0; i < MAX_FILTER_ATTEMPTS; i++) {
+				var value = generate(random);
+				if (predicate.test(value)) {
+					return value;
+				}
+			}
+			throw new IllegalStateException(
+				"No value satisfying the filter after " + MAX_FILTER_ATTEMPTS + " attempts");
+		}, value -> shrink(value).filter(predicate));
+	}
+
+	/**
+	 * Creates a generator with the given generation and shrinking.
+	 *
+	 * @param <T> The type of the generated values
+	 * @param generator the generation of a value
+	 * @param shrinker the candidates for shrinking a value
+	 * @return the new generator
+	 */
+	static <T> JnrTestGenerator<T> of(Function<SplittableRandom, T> generator,
+			Function<T, Stream<T>> shrinker) {
+		return new JnrTestGenerator<>() {
+			@Override
+			public T generate(SplittableRandom random) {
+				return generator.apply(random);
+			}
+
+			@Override
+			public Stream<T> shrink(T value) {
+				return shrinker.apply(value);
+			}
+		};
+	}
+
+	/**
+	 * Creates a generator always generating the same value.
+	 *
+	 * @param <T> The type of the value
+	 * @param value the value
+	 * @return the new generator
+	 */
+	static <T> JnrTestGenerator<T> constant(T value) {
+		return random -> value;
+	}
+
+	/**
+	 * Creates a generator of integers in the given range, shrinking towards
+	 * 0, or towards the bound of the range closest to 0.
+	 *
+	 * @param min the minimum value, inclusive
+	 * @param max the maximum value, inclusive
+	 * @return the new generator
+	 * @throws IllegalArgumentException if min is greater than max
+	 */
+	static JnrTestGenerator<Integer> integers(int min, int max) {
+		checkRange(min, max);
+		var target = (int) target(min, max);
+		return of(random -> (int) random.nextLong(min, (long) max + 1),
+			value -> shrinkTowards(value, target).mapToObj(v -> (int) v));
+	}
+
+	/**
+	 * Creates a generator of longs in the given range, shrinking towards 0, or
+	 * towards the bound of the range closest to 0.
+	 *
+	 * @param min the minimum value, inclusive
+	 * @param max the maximum value, inclusive
+	 * @return the new generator
+	 * @throws IllegalArgumentException if min is greater than max
+	 */
+	static JnrTestGenerator<Long> longs(long min, long max) {
+		checkRange(min, max);
+		var target = target(min, max);
+		return of(random -> {
+			if (max < Long.MAX_VALUE) {
+				return random.nextLong(min, max + 1);
+			}
+			if (min > Long.MIN_VALUE) {
+				return random.nextLong(min - 1, max) + 1;
+			}
+			return random.nextLong();
+		}, value -> shrinkTowards(value, target).boxed());
+	}
+
+	/**
+	 * Creates a generator of doubles in the given range, shrinking towards 0,
+	 * or towards the bound of the range closest to 0, and towards integral
+	 * values.
+	 *
+	 * @param min the minimum value, inclusive
+	 * @param max the maximum value, exclusive
+	 * @return the new generator
+	 * @throws IllegalArgumentException if min is not less than max
+	 */
+	static JnrTestGenerator<Double> doubles(double min, double max) {
+		if (!(min < max)) {
+			throw new IllegalArgumentException("Invalid range: [" + min + ", " + max + ")");
+		}
+		var target = min > 0 ? min : Math.min(0, Math.nextDown(max));
+		return of(random -> random.nextDouble(min, max),
+			value -> Stream.of(target, value > target ? Math.floor(value) : Math.ceil(value), (value + target) / 2)
+				.filter(v -> v >= min && v < max && Math.abs(v - target) < Math.abs(value - target))
+				.distinct());
+	}
+
+	/**
+	 * Creates a generator of booleans, shrinking towards false.
+	 *
+	 * @return the new generator
+	 */
+	static JnrTestGenerator<Boolean> booleans() {
+		return of(SplittableRandom::nextBoolean,
+			value -> Boolean.TRUE.equals(value) ? Stream.of(false) : Stream.empty());
+	}
+
+	/**
+	 * Creates a generator of one of the given values, shrinking towards the
+	 * first ones.
+	 *
+	 * @param <T> The type of the values
+	 * @param values the values, which must not be empty
+	 * @return the new generator
+	 * @throws IllegalArgumentException if there are no values
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // List.of only reads the values
+	static <T> JnrTestGenerator<T> oneOf(T... values) {
+		return oneOf(List.of(values));
+	}
+
+	/**
+	 * Creates a generator of one of the given values, shrinking towards the
+	 * first ones.
+	 *
+	 * @param <T> The type of the values
+	 * @param values the values, which must not be empty
+	 * @return the new generator
+	 * @throws IllegalArgumentException if there are no values
+	 */
+	static <T> JnrTestGenerator<T> oneOf(List<T> values) {
+		if (values.isEmpty()) {
+			throw new IllegalArgumentException("No values");
+		}
+		var copy = List.copyOf(values);
+		return of(random -> copy.get(random.nextInt(copy.size())),
+			value -> copy.subList(0, Math.max(0, copy.indexOf(value))).stream());
+	}
+
+	/**
+	 * Creates a generator of lists of values of the given generator, shrinking
+	 * towards shorter lists and simpler elements.
+	 *
+	 * @param <T> The type of the elements
+	 * @param elements the generator of the elements
+	 * @param minSize the minimum size, inclusive
+	 * @param maxSize the maximum size, inclusive
+	 * @return the new generator of unmodifiable lists
+	 * @throws IllegalArgumentException if the sizes are negative or minSize is
+	 * greater than maxSize
+	 */
+	static <T> JnrTestGenerator<List<T>> lists(JnrTestGenerator<T> elements, int minSize, int maxSize) {
+		if (minSize < 0 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid sizes: [" + minSize + ", " + maxSize + "]");
+		}
+		return of(random -> {
+			var size = random.nextInt(minSize, maxSize + 1);
+			var list = new ArrayList<T>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(elements.generate(random));
+			}
+			return Collections.unmodifiableList(list);
+		}, list -> {
+			var size = list.size();
+			var shorter = size > minSize
+				? Stream.concat(Stream.of(Collections.unmodifiableList(list.subList(0, minSize))),
+					IntStream.range(0, size).mapToObj(i -> without(list, i)))
+				: Stream.<List<T>>empty();
+			var simpler = IntStream.range(0, size).boxed()
+				.flatMap(i -> elements.shrink(list.get(i)).map(e -> with(list, i, e)));
+			return Stream.concat(shorter, simpler).distinct();
+		});
+	}
+
+	/**
+	 * Creates a generator of strings of characters of the given alphabet,
+	 * shrinking towards shorter strings and the first characters of the
+	 * alphabet.
+	 *
+	 * @param alphabet the characters of the strings, which must not be empty
+	 * @param minLength the minimum length, inclusive
+	 * @param maxLength the maximum length, inclusive
+	 * @return the new generator
+	 * @throws IllegalArgumentException if the alphabet is empty or the lengths
+	 * are invalid
+	 */
+	static JnrTestGenerator<String> strings(String alphabet, int minLength, int maxLength) {
+		var characters = lists(oneOf(alphabet.chars().mapToObj(c -> (char) c).toList()), minLength, maxLength);
+		return of(random -> join(characters.generate(random)),
+			value -> characters.shrink(value.chars().mapToObj(c -> (char) c).toList())
+				.map(JnrTestGenerator::join));
+	}
+
+	/**
+	 * Creates a generator of pairs, shrinking the first element, and then
+	 * the second one.
+	 *
+	 * @param <T1> The type of the first element
+	 * @param <T2> The type of the second element
+	 * @param first the generator of the first element
+	 * @param second the generator of the second element
+	 * @return the new generator
+	 */
+	static <T1, T2> JnrTestGenerator<Pair<T1, T2>> pairs(JnrTestGenerator<T1> first,
+			JnrTestGenerator<T2> second) {
+		return of(random -> Pair.pair(first.generate(random), second.generate(random)),
+			pair -> Stream.concat(
+				first.shrink(pair.first()).map(f -> Pair.pair(f, pair.second())),
+				second.shrink(pair.second()).map(s -> Pair.pair(pair.first(), s))));
+	}
+
+	/**
+	 * Creates a generator of triples, shrinking the first element, then the
+	 * second one, and then the third one.
+	 *
+	 * @param <T1> The type of the first element
+	 * @param <T2> The type of the second element
+	 * @param <T3> The type of the third element
+	 * @param first the generator of the first element
+	 * @param second the generator of the second element
+	 * @param third the generator of the third element
+	 * @return the new generator
+	 */
+	static <T1, T2, T3> JnrTestGenerator<Triple<T1, T2, T3>> triples(JnrTestGenerator<T1> first,
+			JnrTestGenerator<T2> second, JnrTestGenerator<T3> third) {
+		return of(random -> Triple.triple(first.generate(random), second.generate(random), third.generate(random)),
+			triple -> Stream.of(
+				first.shrink(triple.first()).map(f -> Triple.triple(f, triple.second(), triple.third())),
+				second.shrink(triple.second()).map(s -> Triple.triple(triple.first(), s, triple.third())),
+				third.shrink(triple.third()).map(t -> Triple.triple(triple.first(), triple.second(), t)))
+				.flatMap(Function.identity()));
+	}
+
+	private static void checkRange(long min, long max) {
+		if (min > max) {
+			throw new IllegalArgumentException("Invalid range: [" + min + ", " + max + "]");
+		}
+	}
+
+	private static long target(long min, long max) {
+		if (min > 0) {
+			return min;
+		}
+		return Math.min(max, 0);
+	}
+
+	/**
+	 * The target, and then values closer and closer to the given one; since
+	 * the target is 0 or a bound of the same sign, the difference does not
+	 * overflow.
+	 */
+	private static LongStream shrinkTowards(long value, long target) {
+		return LongStream.iterate(value - target, d -> d != 0, d -> d / 2)
+			.map(d -> value - d);
+	}
+
+	private static <T> List<T> without(List<T> list, int index) {
+		var copy = new ArrayList<>(list);
+		copy.remove(index);
+		return Collections.unmodifiableList(copy);
+	}
+
+	private static <T> List<T> with(List<T> list, int index, T element) {
+		var copy = new ArrayList<>(list);
+		copy.set(index, element);
+		return Collections.unmodifiableList(copy);
+	}
+
+	private static String join(List<Character> characters) {
+		var builder = new StringBuilder(characters.size());
+		characters.forEach(builder::append);
+		return builder.toString();
+	}
+}
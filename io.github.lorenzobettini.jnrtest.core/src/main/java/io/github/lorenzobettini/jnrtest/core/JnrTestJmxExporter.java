@@ -0,0 +1,160 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * A {@link JnrTestMetricsRegistry} exporting the metrics as the read-only
+ * attributes of an MBean, so that they can be watched live with JMX clients
+ * (e.g., JConsole or VisualVM) while tests run.
+ * <p>
+ * The MBean is a {@link DynamicMBean}, so its attributes are the registered
+ * metrics, and registering it does not need any introspection.
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestJmxExporter implements JnrTestMetricsRegistry, DynamicMBean, AutoCloseable {
+
+	/**
+	 * The default object name of the MBean.
+	 */
+	public static final String DEFAULT_OBJECT_NAME = "io.github.lorenzobettini.jnrtest:type=Metrics";
+
+	private record Metric(String help, DoubleSupplier value) {
+	}
+
+	private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+	private final MBeanServer server;
+	private ObjectName objectName = null;
+
+	/**
+	 * Creates an exporter for the platform MBean server.
+	 */
+	public JnrTestJmxExporter() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * Creates an exporter for the given MBean server.
+	 *
+	 * @param server the MBean server
+	 */
+	public JnrTestJmxExporter(MBeanServer server) {
+		this.server = server;
+	}
+
+	@Override
+	public void counter(String name, String help, DoubleSupplier value) {
+		metrics.put(name, new Metric(help, value));
+	}
+
+	@Override
+	public void gauge(String name, String help, DoubleSupplier value) {
+		metrics.put(name, new Metric(help, value));
+	}
+
+	/**
+	 * Registers the MBean with the {@link #DEFAULT_OBJECT_NAME}.
+	 *
+	 * @return this exporter for method chaining
+	 * @throws IllegalStateException if the MBean cannot be registered, e.g.,
+	 * because another MBean is registered with the same name
+	 */
+	public JnrTestJmxExporter register() {
+		return register(DEFAULT_OBJECT_NAME);
+	}
+
+	/**
+	 * Registers the MBean with the given object name.
+	 *
+	 * @param name the object name
+	 * @return this exporter for method chaining
+	 * @throws IllegalStateException if the MBean cannot be registered, e.g.,
+	 * because the name is malformed or another MBean is registered with the same name
+	 */
+	public JnrTestJmxExporter register(String name) {
+		try {
+			objectName = server.registerMBean(this, new ObjectName(name)).getObjectName();
+		} catch (JMException e) {
+			throw new IllegalStateException("Cannot register the MBean " + name, e);
+		}
+		return this;
+	}
+
+	/**
+	 * Unregisters the MBean, if registered.
+	 *
+	 * @throws IllegalStateException if the MBean cannot be unregistered
+	 */
+	@Override
+	public void close() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("Cannot unregister the MBean " + objectName, e);
+		} finally {
+			objectName = null;
+		}
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		var metric = metrics.get(attribute);
+		if (metric == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return metric.value().getAsDouble();
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Read-only attribute: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		var list = new AttributeList();
+		for (var attribute : attributes) {
+			var metric = metrics.get(attribute);
+			if (metric != null) {
+				list.add(new Attribute(attribute, metric.value().getAsDouble()));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		throw new ReflectionException(new NoSuchMethodException(actionName), "No operation: " + actionName);
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		var attributes = metrics.entrySet().stream()
+			.sorted(Map.Entry.comparingByKey())
+			.map(e -> new MBeanAttributeInfo(e.getKey(), "double", e.getValue().help(), true, false, false))
+			.toArray(MBeanAttributeInfo[]::new);
+		return new MBeanInfo(getClass().getName(), "JnrTest metrics", attributes, null, null, null);
+	}
+}
@@ -27,4 +27,15 @@ public interface JnrTestListener {
 	 * @param result The test result
 	 */
 	void notify(JnrTestResult result);
+
+	/**
+	 * Notifies the listener of the result of a benchmark, before the
+	 * {@link JnrTestResult} of the benchmark itself; by default, it does
+	 * nothing.
+	 * 
+	 * @param result The benchmark result
+	 */
+	default void notify(JnrTestBenchmarkResult result) {
+		// benchmark results are optional for listeners
+	}
 }
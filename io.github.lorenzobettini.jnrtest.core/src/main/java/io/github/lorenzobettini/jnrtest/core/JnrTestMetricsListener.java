@@ -0,0 +1,168 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps live metrics of the execution of tests, which can be exported, while
+ * the tests run, through one or more {@link JnrTestMetricsRegistry}s, e.g., to
+ * build progress and throughput dashboards for long-running suites:
+ * <ul>
+ * <li>the counters of test classes started and finished, and of tests
+ * started, succeeded, failed, with errors and skipped;</li>
+ * <li>the gauges of test classes and tests in flight, that is, currently
+ * executing; since a thread executes one test at a time, the latter is also
+ * the number of threads currently executing a test;</li>
+ * <li>a timer for each {@link JnrTestRunnableKind}, i.e., for tests and for
+ * each kind of hook, with the count, the total and the maximum of durations
+ * in seconds.</li>
+ * </ul>
+ * All the metrics are updated without locks, so this listener can be used with
+ * any runner, including parallel ones.
+ * <p>
+ * Example usage:
+ * {@snippet :
+ * var exporter = new JnrTestPrometheusExporter();
+ * runner.testListener(new JnrTestMetricsListener().registerWith(exporter));
+ * try (var writer = exporter.writePeriodically(Path.of("target/jnrtest.prom"), Duration.ofSeconds(1))) {
+ *     runner.execute();
+ * }
+ * }
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestMetricsListener implements JnrTestListener {
+
+	private static final String PREFIX = "jnrtest_";
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+	/**
+	 * The durations of a kind of runnable.
+	 */
+	private static final class Timer {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private void record(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+	}
+
+	private final LongSupplier nanoTime;
+
+	private final LongAdder testClassesStarted = new LongAdder();
+	private final LongAdder testClassesFinished = new LongAdder();
+	private final LongAdder testsStarted = new LongAdder();
+	private final LongAdder testsSucceeded = new LongAdder();
+	private final LongAdder testsFailed = new LongAdder();
+	private final LongAdder testsErrors = new LongAdder();
+	private final LongAdder testsSkipped = new LongAdder();
+	private final LongAdder testClassesInFlight = new LongAdder();
+	private final LongAdder testsInFlight = new LongAdder();
+	private final Map<JnrTestRunnableKind, Timer> timers = new EnumMap<>(JnrTestRunnableKind.class);
+
+	private final ThreadLocal<Long> runnableStart = new ThreadLocal<>();
+
+	/**
+	 * Creates a listener measuring durations with {@link System#nanoTime()}.
+	 */
+	public JnrTestMetricsListener() {
+		this(System::nanoTime);
+	}
+
+	JnrTestMetricsListener(LongSupplier nanoTime) {
+		this.nanoTime = nanoTime;
+		for (var kind : JnrTestRunnableKind.values()) {
+			timers.put(kind, new Timer());
+		}
+	}
+
+	/**
+	 * Registers all the metrics with the given registry; this can be called
+	 * for several registries.
+	 *
+	 * @param registry the registry
+	 * @return this listener for method chaining
+	 */
+	public JnrTestMetricsListener registerWith(JnrTestMetricsRegistry registry) {
+		registry.counter(PREFIX + "test_classes_started_total",
+			"Test classes started", testClassesStarted::sum);
+		registry.counter(PREFIX + "test_classes_finished_total",
+			"Test classes finished", testClassesFinished::sum);
+		registry.gauge(PREFIX + "test_classes_in_flight",
+			"Test classes currently executing", testClassesInFlight::sum);
+		registry.counter(PREFIX + "tests_started_total",
+			"Tests started", testsStarted::sum);
+		registry.counter(PREFIX + "tests_succeeded_total",
+			"Tests succeeded", testsSucceeded::sum);
+		registry.counter(PREFIX + "tests_failed_total",
+			"Tests failed", testsFailed::sum);
+		registry.counter(PREFIX + "tests_errors_total",
+			"Tests with errors", testsErrors::sum);
+		registry.counter(PREFIX + "tests_skipped_total",
+			"Tests skipped", testsSkipped::sum);
+		registry.gauge(PREFIX + "tests_in_flight",
+			"Tests currently executing, i.e., threads currently executing a test", testsInFlight::sum);
+		for (var entry : timers.entrySet()) {
+			var kind = entry.getKey().name().toLowerCase(Locale.ROOT);
+			var name = PREFIX + kind + "_duration_seconds";
+			var timer = entry.getValue();
+			registry.counter(name + "_count",
+				"Number of executions of " + kind, timer.count::sum);
+			registry.counter(name + "_sum",
+				"Total duration of " + kind + " in seconds", () -> timer.totalNanos.sum() / NANOS_PER_SECOND);
+			registry.gauge(name + "_max",
+				"Maximum duration of " + kind + " in seconds", () -> timer.maxNanos.get() / NANOS_PER_SECOND);
+		}
+		return this;
+	}
+
+	@Override
+	public void notify(JnrTestLifecycleEvent event) {
+		if (event.status() == JnrTestStatus.START) {
+			testClassesStarted.increment();
+			testClassesInFlight.increment();
+		} else {
+			testClassesFinished.increment();
+			testClassesInFlight.decrement();
+		}
+	}
+
+	@Override
+	public void notify(JnrTestRunnableLifecycleEvent event) {
+		var test = event.kind() == JnrTestRunnableKind.TEST;
+		if (event.status() == JnrTestRunnableStatus.START) {
+			if (test) {
+				testsStarted.increment();
+				testsInFlight.increment();
+			}
+			runnableStart.set(nanoTime.getAsLong());
+			return;
+		}
+		if (test) {
+			testsInFlight.decrement();
+		}
+		var start = runnableStart.get();
+		if (start != null) {
+			runnableStart.remove();
+			timers.get(event.kind()).record(nanoTime.getAsLong() - start);
+		}
+	}
+
+	@Override
+	public void notify(JnrTestResult result) {
+		switch (result.status()) {
+			case FAILED -> testsFailed.increment();
+			case ERROR -> testsErrors.increment();
+			case SKIPPED -> testsSkipped.increment();
+			default -> testsSucceeded.increment();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A registry of metrics, where {@link JnrTestMetricsListener} registers its
+ * counters and gauges; the registry reads their current values, through the
+ * given suppliers, whenever it exports them (e.g., {@link JnrTestPrometheusExporter}
+ * and {@link JnrTestJmxExporter}).
+ * <p>
+ * This can also be implemented to bridge the metrics to a monitoring library
+ * used by the project, e.g., with function counters and gauges.
+ *
+ * @author Lorenzo Bettini
+ */
+public interface JnrTestMetricsRegistry {
+
+	/**
+	 * Registers a counter, whose value only increases.
+	 *
+	 * @param name the name of the counter, following the Prometheus conventions
+	 * (e.g., "jnrtest_tests_started_total")
+	 * @param help the description of the counter
+	 * @param value the supplier of the current value
+	 */
+	void counter(String name, String help, DoubleSupplier value);
+
+	/**
+	 * Registers a gauge, whose value can increase and decrease.
+	 *
+	 * @param name the name of the gauge, following the Prometheus conventions
+	 * (e.g., "jnrtest_tests_in_flight")
+	 * @param help the description of the gauge
+	 * @param value the supplier of the current value
+	 */
+	void gauge(String name, String help, DoubleSupplier value);
+}
@@ -1,14 +1,108 @@
 package io.github.lorenzobettini.jnrtest.core;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * A specialized {@link JnrTestRunner} that executes test classes in parallel.
+ * <p>
+ * By default, test classes are executed in the common fork/join pool; a
+ * specific parallelism can be passed to the constructor, so that a dedicated
+ * pool with that number of threads is used.
+ * <p>
+ * The tests of a test class added with {@link #add(Supplier)} are also split
+ * among the threads of the pool, in contiguous chunks, one for each thread,
+ * each one executed with a new instance of the test class: each chunk is
+ * notified to the listeners as a separate execution of the test class, with
+ * its own start and end events, so that, as for the other test classes, all
+ * the events of an execution are notified in the same thread.
+ * <p>
+ * Test classes and tests declaring the same shared resource, with
+ * {@link JnrTest#resourceLock(String, JnrTestResourceMode)} or
+ * {@link JnrTest#withResourceLock(String, JnrTestResourceMode, JnrTestRunnable)},
+ * are not executed concurrently, unless all of them only read it; while a
+ * thread of the pool waits for a resource, the pool keeps on executing the
+ * other test classes.
+ * <p>
+ * When test classes depend on other ones, declared with
+ * {@link JnrTest#dependsOn(Class)}, each test class is submitted to the pool
+ * as soon as the test classes it depends on have been executed, so that
+ * independent branches of the dependency graph are still executed in
+ * parallel, and no thread waits for a dependency.
  * 
  * @author Lorenzo Bettini
  */
 public class JnrTestParallelRunner extends JnrTestRunner {
 
+	private final int parallelism;
+
+	/**
+	 * Creates a parallel runner using the common fork/join pool.
+	 */
+	public JnrTestParallelRunner() {
+		this(0);
+	}
+
+	/**
+	 * Creates a parallel runner using a dedicated pool with the given number of threads.
+	 * 
+	 * @param parallelism the number of threads; if not positive, the common fork/join pool is used
+	 */
+	public JnrTestParallelRunner(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Gets the number of threads used by this runner.
+	 * 
+	 * @return the number of threads, not positive if the common fork/join pool is used
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	@Override
+	public void execute() {
+		if (parallelism <= 0) {
+			execute(ForkJoinPool.commonPool());
+			return;
+		}
+		var pool = new ForkJoinPool(parallelism);
+		try {
+			execute(pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void execute(ForkJoinPool pool) {
+		if (getExecutionPlan().hasDependencies()) {
+			executeTestClasses(pool);
+		} else if (pool == ForkJoinPool.commonPool()) {
+			super.execute();
+		} else {
+			// a parallel stream started from a fork/join pool runs in that pool
+			pool.submit(super::execute).join();
+		}
+	}
+
+	@Override
+	protected void executeTestClass(JnrTest testClass) {
+		if (!isCreatedByFactory(testClass) || isSkipped(testClass)) {
+			super.executeTestClass(testClass);
+			return;
+		}
+		var tests = getNumberOfTests(testClass);
+		var pool = ForkJoinTask.getPool();
+		var threads = pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+		var chunks = Math.max(1, Math.min(tests, threads));
+		IntStream.range(0, chunks).parallel()
+			.forEach(chunk -> executeTests(testClass, chunk * tests / chunks, (chunk + 1) * tests / chunks));
+	}
+
 	@Override
 	protected Stream<JnrTest> getTestClassesStream() {
 		return super.getTestClassesStream().parallel();
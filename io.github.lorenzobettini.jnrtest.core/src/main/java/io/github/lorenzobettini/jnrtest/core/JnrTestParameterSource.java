@@ -0,0 +1,615 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators.AbstractSpliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The parameters of
+ * {@link JnrTest#testWithParameters(String, JnrTestParameterSource, JnrTestRunnableWithParameters)},
+ * read from a CSV, JSON Lines or fixed-width file, one row at a time.
+ * <p>
+ * The file is read through memory-mapped windows of
+ * {@value #DEFAULT_WINDOW_SIZE} bytes, outside of the heap, and each row is
+ * parsed only when it is needed, while the test is executed; differently
+ * from a {@link java.util.Collection} of parameters, the heap used does not
+ * depend on the size of the file, but only on the size of a row, so that
+ * files with millions of rows can be used. Empty lines are ignored, and the
+ * files are decoded as UTF-8.
+ * <p>
+ * A source can be read many times, and it is immutable: {@link #skip(long)}
+ * and {@link #map(Function)} return new sources.
+ *
+ * @author Lorenzo Bettini
+ * @param <T> The type of the parameters
+ */
+public final class JnrTestParameterSource<T> {
+
+	/**
+	 * The default size of the memory-mapped windows.
+	 */
+	public static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * Parses the next row, if any, passing it to the action, as in
+	 * {@link Spliterator#tryAdvance(Consumer)}.
+	 */
+	@FunctionalInterface
+	private interface Parser<T> {
+		boolean next(MappedInput input, Consumer<? super T> action) throws IOException;
+	}
+
+	private final Path file;
+	private final Parser<T> parser;
+	private final long skipped;
+	private final long windowSize;
+
+	private JnrTestParameterSource(Path file, Parser<T> parser, long skipped, long windowSize) {
+		this.file = file;
+		this.parser = parser;
+		this.skipped = skipped;
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * Reads the rows of a CSV file, separated by commas, as lists of fields;
+	 * fields can be quoted, with double quotes, to contain commas, line
+	 * breaks and escaped double quotes ({@code ""}), as in RFC 4180.
+	 *
+	 * @param file the file
+	 * @return the source
+	 */
+	public static JnrTestParameterSource<List<String>> csv(Path file) {
+		return csv(file, ',');
+	}
+
+	/**
+	 * Reads the rows of a CSV file, separated by the given delimiter, as lists
+	 * of fields, as in {@link #csv(Path)}.
+	 *
+	 * @param file the file
+	 * @param delimiter the delimiter, e.g., {@code ';'} or {@code '\t'}
+	 * @return the source
+	 * @throws IllegalArgumentException if the delimiter is not an ASCII
+	 * character, or it is a double quote or a line break
+	 */
+	public static JnrTestParameterSource<List<String>> csv(Path file, char delimiter) {
+		if (delimiter > 127 || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+			throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+		}
+		return new JnrTestParameterSource<>(file, (input, action) -> {
+			var fields = csvRecord(input, delimiter);
+			if (fields == null) {
+				return false;
+			}
+			action.accept(fields);
+			return true;
+		}, 0, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Reads the rows of a JSON Lines file, where each line is a JSON object,
+	 * as maps from the property names to their values: {@link String},
+	 * {@link Long} or {@link Double}, {@link Boolean}, {@code null}, lists
+	 * and maps, for nested arrays and objects.
+	 *
+	 * @param file the file
+	 * @return the source
+	 */
+	public static JnrTestParameterSource<Map<String, Object>> jsonLines(Path file) {
+		return lines(file, line -> {
+			var json = new Json(line);
+			var object = json.object();
+			json.end();
+			return object;
+		});
+	}
+
+	/**
+	 * Reads the rows of a fixed-width file as lists of fields with the given
+	 * widths, in characters, stripped of their padding spaces; the missing
+	 * fields of short lines are empty, and the characters after the last
+	 * field are ignored.
+	 *
+	 * @param file the file
+	 * @param widths the widths of the fields
+	 * @return the source
+	 * @throws IllegalArgumentException if there are no widths, or a width is
+	 * not positive
+	 */
+	public static JnrTestParameterSource<List<String>> fixedWidth(Path file, int... widths) {
+		if (widths.length == 0 || Arrays.stream(widths).anyMatch(w -> w < 1)) {
+			throw new IllegalArgumentException("Invalid widths: " + Arrays.toString(widths));
+		}
+		var copy = widths.clone();
+		return lines(file, line -> {
+			var fields = new String[copy.length];
+			var start = 0;
+			for (int i = 0; i < copy.length; i++) {
+				var from = Math.min(start, line.length());
+				start += copy[i];
+				fields[i] = line.substring(from, Math.min(start, line.length())).strip();
+			}
+			return List.of(fields);
+		});
+	}
+
+	private static <T> JnrTestParameterSource<T> lines(Path file, Function<String, T> parser) {
+		return new JnrTestParameterSource<>(file, (input, action) -> {
+			var line = input.line();
+			if (line == null) {
+				return false;
+			}
+			action.accept(parser.apply(line));
+			return true;
+		}, 0, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Returns a source skipping the given number of rows at the beginning of
+	 * the file, e.g., 1 for the header of a CSV file.
+	 *
+	 * @param rows the number of rows to skip
+	 * @return the new source
+	 * @throws IllegalArgumentException if the number is negative
+	 */
+	public JnrTestParameterSource<T> skip(long rows) {
+		if (rows < 0) {
+			throw new IllegalArgumentException("Invalid rows: " + rows);
+		}
+		return new JnrTestParameterSource<>(file, parser, skipped + rows, windowSize);
+	}
+
+	/**
+	 * Returns a source converting each row with the given function, e.g., into
+	 * a record, when the row is read.
+	 *
+	 * @param <R> The type of the converted rows
+	 * @param mapper the conversion of a row
+	 * @return the new source
+	 */
+	public <R> JnrTestParameterSource<R> map(Function<? super T, ? extends R> mapper) {
+		return new JnrTestParameterSource<R>(file,
+			(input, action) -> parser.next(input, row -> action.accept(mapper.apply(row))),
+			skipped, windowSize);
+	}
+
+	/**
+	 * Uses memory-mapped windows of the given size, instead of
+	 * {@value #DEFAULT_WINDOW_SIZE} bytes.
+	 */
+	JnrTestParameterSource<T> withWindowSize(long windowSize) {
+		return new JnrTestParameterSource<>(file, parser, skipped, windowSize);
+	}
+
+	/**
+	 * Gets the file.
+	 *
+	 * @return the file
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the rows, read lazily from the file, which is closed when the
+	 * stream is closed; rows that cannot be parsed make the stream throw an
+	 * {@link IllegalStateException} reporting their number.
+	 *
+	 * @return the stream of the rows, to be closed after use
+	 * @throws UncheckedIOException if the file cannot be read
+	 */
+	public Stream<T> stream() {
+		MappedInput input;
+		try {
+			input = new MappedInput(file, windowSize);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		var spliterator = new AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+			private long row = 0;
+
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				row++;
+				try {
+					return parser.next(input, action);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} catch (IllegalArgumentException e) {
+					throw new IllegalStateException(
+						String.format("Invalid row %d of %s: %s", row, file, e.getMessage()), e);
+				}
+			}
+		};
+		return StreamSupport.stream(spliterator, false)
+			.skip(skipped)
+			.onClose(input::close);
+	}
+
+	/**
+	 * Executes the given test with all the rows, and then fails if it failed
+	 * with any of them, reporting the number of failed rows and the first
+	 * failed one: with an {@link AssertionError} if the test failed with an
+	 * {@link AssertionError}, or an {@link IllegalStateException} otherwise.
+	 */
+	void run(JnrTestRunnableWithParameters<T> test) {
+		var rows = 0L;
+		var failures = 0L;
+		var firstRow = 0L;
+		Object firstParameter = null;
+		Throwable first = null;
+		try (var parameters = stream()) {
+			var iterator = parameters.iterator();
+			while (iterator.hasNext()) {
+				var parameter = iterator.next();
+				rows++;
+				try {
+					test.runTest(parameter);
+				} catch (Exception | AssertionError e) { // NOSONAR the failure is reported
+					if (failures++ == 0) {
+						firstRow = skipped + rows;
+						firstParameter = parameter;
+						first = e;
+					}
+				}
+			}
+		}
+		if (first == null) {
+			return;
+		}
+		var message = String.format("%d of %d rows of %s failed%nFirst failed row %d: %s%nFailure: %s",
+			failures, rows, file, firstRow, firstParameter, first);
+		if (first instanceof AssertionError) {
+			throw new AssertionError(message, first);
+		}
+		throw new IllegalStateException(message, first);
+	}
+
+	@Override
+	public String toString() {
+		return String.valueOf(file.getFileName());
+	}
+
+	private static List<String> csvRecord(MappedInput input, char delimiter) throws IOException {
+		var fields = new ArrayList<String>();
+		var field = input.buffer();
+		var quoted = false;
+		var started = false;
+		while (true) {
+			var b = input.read();
+			if (quoted) {
+				if (b < 0) {
+					throw new IllegalArgumentException("Unterminated quoted field");
+				} else if (b != '"') {
+					field.write(b);
+				} else if (input.peek() == '"') {
+					field.write(input.read());
+				} else {
+					quoted = false;
+				}
+			} else if (b == '"' && field.size() == 0 && !started) {
+				quoted = true;
+				started = true;
+			} else if (b == delimiter) {
+				fields.add(field.toString());
+				field.reset();
+				started = false;
+			} else if (b == '\r' && input.peek() == '\n') {
+				// the line break is \r\n
+			} else if (b == '\n' || b < 0) {
+				if (fields.isEmpty() && !started && field.size() == 0) {
+					// an empty line, or the end of the file
+					if (b < 0) {
+						return null;
+					}
+					continue;
+				}
+				fields.add(field.toString());
+				field.reset();
+				return Collections.unmodifiableList(fields);
+			} else {
+				field.write(b);
+				started = true;
+			}
+		}
+	}
+
+	/**
+	 * Reads a file through memory-mapped windows.
+	 */
+	private static final class MappedInput implements AutoCloseable {
+		private final FileChannel channel;
+		private final long size;
+		private final long windowSize;
+		private final Bytes buffer = new Bytes();
+		private MappedByteBuffer window;
+		private long windowStart = 0;
+		private int peeked = -2;
+
+		MappedInput(Path file, long windowSize) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.READ);
+			this.size = channel.size();
+			this.windowSize = windowSize;
+		}
+
+		Bytes buffer() {
+			buffer.reset();
+			return buffer;
+		}
+
+		int read() throws IOException {
+			if (peeked != -2) {
+				var b = peeked;
+				peeked = -2;
+				return b;
+			}
+			if (window == null || !window.hasRemaining()) {
+				var next = window == null ? 0 : windowStart + window.capacity();
+				if (next >= size) {
+					return -1;
+				}
+				windowStart = next;
+				window = channel.map(MapMode.READ_ONLY, next, Math.min(windowSize, size - next));
+			}
+			return window.get() & 0xff;
+		}
+
+		int peek() throws IOException {
+			if (peeked == -2) {
+				peeked = read();
+			}
+			return peeked;
+		}
+
+		/**
+		 * Reads the next non-empty line, without the line break, or null at the
+		 * end of the file.
+		 */
+		String line() throws IOException {
+			buffer.reset();
+			var previous = -1;
+			while (true) {
+				var b = read();
+				if (b < 0 || b == '\n') {
+					var length = previous == '\r' ? buffer.size() - 1 : buffer.size();
+					if (length > 0) {
+						return buffer.toString(length);
+					}
+					if (b < 0) {
+						return null;
+					}
+					buffer.reset();
+				} else {
+					buffer.write(b);
+				}
+				previous = b;
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * A growable buffer of bytes, like {@link java.io.ByteArrayOutputStream},
+	 * but not synchronized, since it is written one byte at a time.
+	 */
+	private static final class Bytes {
+		private byte[] bytes = new byte[256];
+		private int size = 0;
+
+		void write(int b) {
+			if (size == bytes.length) {
+				bytes = Arrays.copyOf(bytes, size * 2);
+			}
+			bytes[size++] = (byte) b;
+		}
+
+		void reset() {
+			size = 0;
+		}
+
+		int size() {
+			return size;
+		}
+
+		String toString(int length) {
+			return new String(bytes, 0, length, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String toString() {
+			return toString(size);
+		}
+	}
+
+	/**
+	 * A minimal parser of JSON values.
+	 */
+	private static final class Json {
+		private final String text;
+		private int position = 0;
+
+		Json(String text) {
+			this.text = text;
+		}
+
+		Map<String, Object> object() {
+			expect('{');
+			var object = new LinkedHashMap<String, Object>();
+			if (!consume('}')) {
+				do {
+					skipWhitespace();
+					var name = string();
+					expect(':');
+					object.put(name, value());
+				} while (consume(','));
+				expect('}');
+			}
+			return Collections.unmodifiableMap(object);
+		}
+
+		void end() {
+			skipWhitespace();
+			if (position < text.length()) {
+				throw error("end of line");
+			}
+		}
+
+		private Object value() {
+			skipWhitespace();
+			if (position >= text.length()) {
+				throw error("a value");
+			}
+			var c = text.charAt(position);
+			return switch (c) {
+			case '{' -> object();
+			case '[' -> array();
+			case '"' -> string();
+			case 't' -> literal("true", Boolean.TRUE);
+			case 'f' -> literal("false", Boolean.FALSE);
+			case 'n' -> literal("null", null);
+			default -> number();
+			};
+		}
+
+		private List<Object> array() {
+			expect('[');
+			var array = new ArrayList<Object>();
+			if (!consume(']')) {
+				do {
+					array.add(value());
+				} while (consume(','));
+				expect(']');
+			}
+			return Collections.unmodifiableList(array);
+		}
+
+		private String string() {
+			if (position >= text.length() || text.charAt(position) != '"') {
+				throw error("a string");
+			}
+			position++;
+			var string = new StringBuilder();
+			while (true) {
+				if (position >= text.length()) {
+					throw error("'\"'");
+				}
+				var c = text.charAt(position++);
+				if (c == '"') {
+					return string.toString();
+				}
+				if (c != '\\') {
+					string.append(c);
+					continue;
+				}
+				if (position >= text.length()) {
+					throw error("an escape");
+				}
+				var escape = text.charAt(position++);
+				switch (escape) {
+				case '"', '\\', '/' -> string.append(escape);
+				case 'b' -> string.append('\b');
+				case 'f' -> string.append('\f');
+				case 'n' -> string.append('\n');
+				case 'r' -> string.append('\r');
+				case 't' -> string.append('\t');
+				case 'u' -> {
+					if (position + 4 > text.length()) {
+						throw error("an escape");
+					}
+					try {
+						string.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					} catch (NumberFormatException e) {
+						throw error("an escape");
+					}
+					position += 4;
+				}
+				default -> {
+					position--;
+					throw error("an escape");
+				}
+				}
+			}
+		}
+
+		private Object literal(String literal, Object value) {
+			if (!text.startsWith(literal, position)) {
+				throw error("a value");
+			}
+			position += literal.length();
+			return value;
+		}
+
+		private Object number() {
+			var start = position;
+			while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+				position++;
+			}
+			var number = text.substring(start, position);
+			try {
+				if (number.matches("-?\\d+")) {
+					try {
+						return Long.parseLong(number);
+					} catch (NumberFormatException e) {
+						// too big for a long
+					}
+				}
+				return Double.parseDouble(number);
+			} catch (NumberFormatException e) {
+				position = start;
+				throw error("a value");
+			}
+		}
+
+		private void expect(char c) {
+			if (!consume(c)) {
+				throw error("'" + c + "'");
+			}
+		}
+
+		private boolean consume(char c) {
+			skipWhitespace();
+			if (position < text.length() && text.charAt(position) == c) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		private void skipWhitespace() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+
+		private IllegalArgumentException error(String expected) {
+			return new IllegalArgumentException(
+				String.format("Invalid JSON at column %d: expected %s", position + 1, expected));
+		}
+	}
+}
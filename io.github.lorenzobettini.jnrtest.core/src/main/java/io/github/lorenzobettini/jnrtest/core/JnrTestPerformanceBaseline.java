@@ -0,0 +1,319 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTestResourceLocks.LockingRunnable;
+
+/**
+ * Records the performance of each successful test, and compares it with a
+ * baseline stored in a file by a reference run, so that performance
+ * regressions break the build like functional failures do.
+ * <p>
+ * The performance of a test is the duration of its runnable, or, for a
+ * benchmark (see {@link JnrTest#benchmark(String, JnrTestBenchmarkRunnable)}),
+ * the mean throughput of its {@link JnrTestBenchmarkResult}. A test regressed when it
+ * is slower than its baseline by more than the relative threshold, e.g., with
+ * a threshold of 0.2, when it takes more than 120% of the time of the
+ * baseline, or when its throughput is less than the one of the baseline
+ * divided by 1.2.
+ * <p>
+ * To beat the noise, the median of the last samples of a test is compared
+ * with the baseline, and only when the configured number of samples has been
+ * collected; the samples are collected across executions, so with
+ * {@link #withSamples(int)} greater than 1 the {@link JnrTestRunner} is meant
+ * to be executed that many times, which reuses its execution plan.
+ * <p>
+ * The tests are measured and checked by the runnables they are wrapped in by
+ * a {@link JnrTestPerformanceBaselineExtension}: when a test regressed, its
+ * runnable fails, so the test is recorded as a
+ * {@link JnrTestResultStatus#FAILED} {@link JnrTestResult}. Tests without a
+ * baseline are not checked; the baseline is created, or updated, with
+ * {@link #save()}, e.g., in the reference run.
+ * <p>
+ * The measures are thread-safe, so the baseline can be used with any runner,
+ * including parallel ones.
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestPerformanceBaseline {
+
+	/**
+	 * The kind of performance of a test.
+	 */
+	public enum Kind {
+		/**
+		 * The duration of a test, in nanoseconds: the lower, the better.
+		 */
+		DURATION,
+
+		/**
+		 * The throughput of a benchmark, in operations per second: the higher,
+		 * the better.
+		 */
+		THROUGHPUT
+	}
+
+	/**
+	 * The performance of a test.
+	 *
+	 * @param kind the kind of performance
+	 * @param value the duration in nanoseconds or the throughput in operations per second
+	 */
+	public record Measure(Kind kind, double value) {
+
+		/**
+		 * Computes how much this measure is slower than the given one.
+		 *
+		 * @param baseline the measure to compare with
+		 * @return the ratio, greater than 1 if this measure is slower
+		 */
+		public double slowdown(Measure baseline) {
+			return kind == Kind.DURATION ? value / baseline.value : baseline.value / value;
+		}
+
+		@Override
+		public String toString() {
+			return kind == Kind.DURATION ? String.format("%.3f ms", value / 1_000_000)
+				: String.format("%.3f ops/s", value);
+		}
+	}
+
+	/**
+	 * The default relative threshold.
+	 */
+	public static final double DEFAULT_THRESHOLD = 0.2;
+
+	/**
+	 * The default number of samples.
+	 */
+	public static final int DEFAULT_SAMPLES = 1;
+
+	private static final String KEY_SEPARATOR = " / ";
+
+	private final Path file;
+	private final LongSupplier nanoTime;
+	private double threshold = DEFAULT_THRESHOLD;
+	private int samples = DEFAULT_SAMPLES;
+	private final Map<String, Measure> baseline = new ConcurrentHashMap<>();
+	private final Map<String, List<Measure>> measures = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a performance baseline with the baseline stored in the given file, which is
+	 * loaded, if it exists.
+	 *
+	 * @param file the file of the baseline
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public JnrTestPerformanceBaseline(Path file) throws IOException {
+		this(file, System::nanoTime);
+	}
+
+	JnrTestPerformanceBaseline(Path file, LongSupplier nanoTime) throws IOException {
+		this.file = file;
+		this.nanoTime = nanoTime;
+		if (Files.exists(file)) {
+			read();
+		}
+	}
+
+	/**
+	 * Sets the relative threshold beyond which a slowdown is a regression.
+	 *
+	 * @param threshold the threshold, e.g., 0.2 for 20%
+	 * @return this baseline for method chaining
+	 * @throws IllegalArgumentException if the threshold is negative
+	 */
+	public JnrTestPerformanceBaseline withThreshold(double threshold) {
+		if (threshold < 0 || Double.isNaN(threshold)) {
+			throw new IllegalArgumentException("Invalid threshold: " + threshold);
+		}
+		this.threshold = threshold;
+		return this;
+	}
+
+	/**
+	 * Sets the number of samples whose median is compared with the baseline.
+	 *
+	 * @param samples the number of samples
+	 * @return this baseline for method chaining
+	 * @throws IllegalArgumentException if the number is not positive
+	 */
+	public JnrTestPerformanceBaseline withSamples(int samples) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("Invalid samples: " + samples);
+		}
+		this.samples = samples;
+		return this;
+	}
+
+	/**
+	 * Wraps the runnable of a test so that, when it succeeds, it is measured
+	 * and checked against its baseline; this is meant to be called by
+	 * {@link JnrTestPerformanceBaselineExtension}.
+	 * <p>
+	 * A benchmark is checked after its measurement iterations, so that it is
+	 * still executed as a benchmark; a runnable locking resources is wrapped
+	 * inside its locks, so that the resources are still declared to the runner.
+	 *
+	 * @param testClass the description of the test class
+	 * @param test the description of the test
+	 * @param runnable the runnable of the test
+	 * @return the runnable failing with an {@link AssertionError} if the test regressed
+	 */
+	JnrTestRunnable checking(String testClass, String test, JnrTestRunnable runnable) {
+		var key = key(testClass, test);
+		if (runnable instanceof LockingRunnable locking) {
+			return new LockingRunnable(locking.resources(), checking(testClass, test, locking.runnable()));
+		}
+		if (runnable instanceof JnrTestBenchmark benchmark) {
+			return benchmark.withCheck(result -> check(key, new Measure(Kind.THROUGHPUT, result.mean())));
+		}
+		return () -> {
+			var start = nanoTime.getAsLong();
+			runnable.run();
+			check(key, new Measure(Kind.DURATION, (double) nanoTime.getAsLong() - start));
+		};
+	}
+
+	/**
+	 * Records the measure of a successful test and checks the median of its
+	 * last samples against its baseline.
+	 *
+	 * @throws AssertionError if the test regressed
+	 */
+	private void check(String key, Measure measure) {
+		var list = measures.computeIfAbsent(key, k -> new ArrayList<>());
+		synchronized (list) {
+			list.add(measure);
+		}
+		var expected = baseline.get(key);
+		var actual = getMeasure(key);
+		if (expected == null || actual == null || actual.kind() != expected.kind()) {
+			return;
+		}
+		var slowdown = actual.slowdown(expected);
+		if (slowdown > 1 + threshold) {
+			throw new AssertionError(String.format(
+				"Performance regression of '%s': %s, baseline %s (%.1f%% slower, threshold %.1f%%)",
+				key, actual, expected, (slowdown - 1) * 100, threshold * 100));
+		}
+	}
+
+	/**
+	 * Gets the median of the last samples of a test, if enough samples have
+	 * been collected.
+	 *
+	 * @param testClass the description of the test class
+	 * @param test the description of the test
+	 * @return the measure, or null if not enough samples have been collected
+	 */
+	public Measure getMeasure(String testClass, String test) {
+		return getMeasure(key(testClass, test));
+	}
+
+	/**
+	 * Gets the baseline of a test.
+	 *
+	 * @param testClass the description of the test class
+	 * @param test the description of the test
+	 * @return the baseline, or null if the test has no baseline
+	 */
+	public Measure getBaseline(String testClass, String test) {
+		return baseline.get(key(testClass, test));
+	}
+
+	/**
+	 * Loads the baseline from the file, replacing the current one.
+	 *
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file contains an invalid measure
+	 */
+	public void load() throws IOException {
+		read();
+	}
+
+	private void read() throws IOException {
+		var properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file)) {
+			properties.load(reader);
+		}
+		baseline.clear();
+		properties.forEach((key, value) -> baseline.put((String) key, parse((String) value)));
+	}
+
+	/**
+	 * Saves the measures of the tests with enough samples as the new baseline,
+	 * keeping the baseline of the tests that have not been measured.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save() throws IOException {
+		measures.keySet().forEach(key -> {
+			var measure = getMeasure(key);
+			if (measure != null) {
+				baseline.put(key, measure);
+			}
+		});
+		var properties = new Properties();
+		baseline.forEach((key, measure) -> properties.setProperty(key, measure.kind() + " " + measure.value()));
+		var stored = new StringWriter();
+		properties.store(stored, null);
+		// without the date comment, always the first line, and with the entries
+		// sorted, so that the file changes only when the baseline changes
+		var entries = stored.toString().lines().skip(1).sorted().toList();
+		var parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Files.write(file, entries);
+	}
+
+	private Measure getMeasure(String key) {
+		var list = measures.get(key);
+		if (list == null) {
+			return null;
+		}
+		List<Measure> last;
+		synchronized (list) {
+			if (list.size() < samples) {
+				return null;
+			}
+			last = new ArrayList<>(list.subList(list.size() - samples, list.size()));
+		}
+		var kind = last.get(last.size() - 1).kind();
+		var values = last.stream()
+			.filter(m -> m.kind() == kind)
+			.mapToDouble(Measure::value)
+			.sorted()
+			.toArray();
+		var middle = values.length / 2;
+		var median = values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+		return new Measure(kind, median);
+	}
+
+	private static Measure parse(String value) {
+		var parts = value.trim().split(" ");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Invalid measure: " + value);
+		}
+		try {
+			return new Measure(Kind.valueOf(parts[0]), Double.parseDouble(parts[1]));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid measure: " + value, e);
+		}
+	}
+
+	private static String key(String testClass, String test) {
+		return testClass + KEY_SEPARATOR + test;
+	}
+}
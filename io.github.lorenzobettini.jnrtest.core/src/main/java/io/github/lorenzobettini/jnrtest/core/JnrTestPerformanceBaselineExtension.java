@@ -0,0 +1,41 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.List;
+
+/**
+ * Wraps the tests of a {@link JnrTest} so that they are measured and checked
+ * against the baseline of a {@link JnrTestPerformanceBaseline}; when a test
+ * regressed, it fails, so the regression is recorded as the
+ * {@link JnrTestResultStatus#FAILED} {@link JnrTestResult} of the test itself,
+ * which is counted by the {@link JnrTestResultAggregator}.
+ * <p>
+ * The hooks are not changed, so it can be used with either
+ * {@link #extendEach(JnrTest)} or {@link #extendAll(JnrTest)}, but only once
+ * for each test class. The {@link JnrTestBenchmarkResult} of a benchmark that
+ * regressed is not notified to the listeners, but its throughput is part of
+ * the failure.
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestPerformanceBaselineExtension extends JnrTestExtension {
+
+	private final JnrTestPerformanceBaseline baseline;
+
+	/**
+	 * Creates an extension checking the tests against the given baseline.
+	 *
+	 * @param baseline the baseline recording the performance of the tests
+	 */
+	public JnrTestPerformanceBaselineExtension(JnrTestPerformanceBaseline baseline) {
+		this.baseline = baseline;
+	}
+
+	@Override
+	protected <T extends JnrTest> void extend(T testClass, List<JnrTestRunnableSpecification> before,
+			List<JnrTestRunnableSpecification> after) {
+		var description = testClass.getDescription();
+		testClass.getStore().getRunnableSpecifications().replaceAll(s -> new JnrTestRunnableSpecification(
+			s.description(), baseline.checking(description, s.description(), s.testRunnable())));
+	}
+
+}
@@ -0,0 +1,388 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A reporter for large test suites, which keeps console output out of the way
+ * of test execution.
+ * <p>
+ * Output is written in batches: the lines of a test class are encoded into a
+ * buffer of the thread executing it, whose prefixes are encoded only once,
+ * and the buffer is written to the stream, at once, when the test class ends,
+ * or when it becomes large; this reporter is thread-safe, and the lines of a
+ * test class are not interleaved with the ones of other test classes, as long
+ * as its buffer is not written before its end.
+ * <p>
+ * By default, only failed tests and tests with errors are shown, together
+ * with their stack traces, after the description of their test class; with
+ * {@link #withVerbose(boolean)}, all the lines of {@link JnrTestConsoleReporter}
+ * are shown as well. When the stream is a terminal, a single progress line is
+ * updated, a few times per second, with the number of executed tests, their
+ * throughput and the estimated time to complete the execution, if the number
+ * of tests to execute is known (see {@link #withExpectedTests(int)}).
+ * {@link #finish()} shows the final counts and throughput.
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestProgressReporter implements JnrTestReporterInterface {
+
+	private static final int BATCH_SIZE = 64 * 1024;
+	private static final long PROGRESS_PERIOD = TimeUnit.MILLISECONDS.toNanos(200);
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+	private static final String CLEAR_LINE = "\r\u001b[K";
+
+	/**
+	 * The output of the test class executed by the current thread.
+	 */
+	private static final class ClassOutput {
+		private final String description;
+		private final JnrTestStatistics statistics = new JnrTestStatistics();
+		private final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+		private boolean descriptionShown = false;
+
+		private ClassOutput(String description) {
+			this.description = description;
+		}
+	}
+
+	private final PrintStream printStream;
+	private final boolean interactive;
+	private final Charset charset;
+	private final byte[] lineSeparator;
+	private final byte[] startPrefix;
+	private final Map<JnrTestResultStatus, byte[]> resultPrefixes = new EnumMap<>(JnrTestResultStatus.class);
+	private final byte[] clearLine;
+	private final ThreadLocal<ClassOutput> currentOutput = new ThreadLocal<>();
+	private final AtomicIntegerArray counts = new AtomicIntegerArray(JnrTestResultStatus.values().length);
+	private final AtomicLong startTime = new AtomicLong(NOT_STARTED);
+	// the first result is always shown
+	private final AtomicLong lastProgressTime = new AtomicLong(System.nanoTime() - PROGRESS_PERIOD);
+	private volatile int expectedTests = 0;
+	private boolean withElapsedTime = false;
+	private boolean onlySummaries = false;
+	private boolean verbose = false;
+	private boolean progressShown = false;
+
+	/**
+	 * Creates a new progress reporter on System.out, which shows the progress
+	 * line only if the JVM is attached to a terminal.
+	 */
+	public JnrTestProgressReporter() {
+		this(System.out, System.console() != null); // NOSONAR
+	}
+
+	/**
+	 * Creates a new progress reporter on the specified output stream.
+	 *
+	 * @param printStream the stream to use for output
+	 * @param interactive whether the stream is a terminal, where the progress
+	 * line is shown
+	 */
+	public JnrTestProgressReporter(PrintStream printStream, boolean interactive) {
+		this.printStream = printStream;
+		this.interactive = interactive;
+		this.charset = printStream.charset();
+		this.lineSeparator = encode(System.lineSeparator());
+		this.startPrefix = encode(String.format("[%7s] ", JnrTestStatus.START));
+		for (var status : JnrTestResultStatus.values()) {
+			resultPrefixes.put(status, encode(String.format("[%7s] ", status)));
+		}
+		this.clearLine = encode(CLEAR_LINE);
+	}
+
+	@Override
+	public JnrTestProgressReporter withOnlySummaries(boolean onlySummaries) {
+		this.onlySummaries = onlySummaries;
+		return this;
+	}
+
+	@Override
+	public JnrTestProgressReporter withElapsedTime(boolean withElapsedTime) {
+		this.withElapsedTime = withElapsedTime;
+		return this;
+	}
+
+	/**
+	 * Configures whether to show all the lines of {@link JnrTestConsoleReporter},
+	 * instead of only the failed tests and the tests with errors; in verbose
+	 * mode, {@link #withOnlySummaries(boolean)} hides the lines of the other
+	 * tests.
+	 *
+	 * @param verbose true to show all the lines
+	 * @return this reporter
+	 */
+	public JnrTestProgressReporter withVerbose(boolean verbose) {
+		this.verbose = verbose;
+		return this;
+	}
+
+	/**
+	 * Sets the number of tests that are about to be executed, used to estimate
+	 * the time to complete the execution; e.g., the one of
+	 * {@link JnrTestExecutionPlan#getNumberOfTests()}, which
+	 * {@link JnrTestConsoleExecutor} sets automatically.
+	 *
+	 * @param expectedTests the number of tests to execute, 0 if unknown
+	 * @return this reporter
+	 */
+	public JnrTestProgressReporter withExpectedTests(int expectedTests) {
+		this.expectedTests = expectedTests;
+		return this;
+	}
+
+	/**
+	 * Whether the progress line is shown.
+	 *
+	 * @return true if the stream is a terminal
+	 */
+	public boolean isInteractive() {
+		return interactive;
+	}
+
+	@Override
+	public void notify(JnrTestLifecycleEvent event) {
+		if (event.status() == JnrTestStatus.START) {
+			startTime.compareAndSet(NOT_STARTED, System.nanoTime());
+			var output = new ClassOutput(event.description());
+			output.statistics.setWithElapsedTime(withElapsedTime);
+			currentOutput.set(output);
+			if (verbose) {
+				showDescription(output);
+			}
+		} else { // i.e., JnrTestStatus.END
+			var output = output();
+			if (verbose) {
+				var statistics = output.statistics;
+				var summary = new StringBuilder("Tests run: ")
+					.append(statistics.getTotalTests())
+					.append(", Succeeded: ").append(statistics.getSucceeded())
+					.append(", Failures: ").append(statistics.getFailed())
+					.append(", Errors: ").append(statistics.getErrors());
+				if (statistics.getSkipped() > 0) {
+					summary.append(", Skipped: ").append(statistics.getSkipped());
+				}
+				if (withElapsedTime) {
+					summary.append(elapsedTime(statistics.getTotalTime()));
+				}
+				writeLine(output, summary);
+			}
+			currentOutput.remove();
+			write(output);
+		}
+	}
+
+	@Override
+	public void notify(JnrTestRunnableLifecycleEvent event) {
+		if (!withElapsedTime || event.kind() != JnrTestRunnableKind.TEST) {
+			return;
+		}
+		var statistics = output().statistics;
+		if (event.status() == JnrTestRunnableStatus.START) {
+			statistics.startTimer();
+		} else {
+			statistics.stopTimer();
+		}
+	}
+
+	@Override
+	public void notify(JnrTestResult result) {
+		var output = output();
+		var statistics = output.statistics;
+		var failure = false;
+		switch (result.status()) {
+			case FAILED -> {
+				statistics.incrementFailed();
+				failure = true;
+			}
+			case ERROR -> {
+				statistics.incrementErrors();
+				failure = true;
+			}
+			case SKIPPED -> statistics.incrementSkipped();
+			default -> statistics.incrementSucceeded();
+		}
+		counts.incrementAndGet(result.status().ordinal());
+		if (failure || (verbose && !onlySummaries)) {
+			if (!output.descriptionShown) {
+				showDescription(output);
+			}
+			output.lines.writeBytes(resultPrefixes.get(result.status()));
+			writeLine(output, withElapsedTime ?
+				result.description() + elapsedTime(statistics.getElapsedTime()) :
+				result.description());
+		}
+		if (failure && result.throwable() != null) {
+			var stackTrace = new StringWriter();
+			result.throwable().printStackTrace(new PrintWriter(stackTrace));
+			output.lines.writeBytes(encode(stackTrace.toString()));
+		}
+		if (output.lines.size() >= BATCH_SIZE) {
+			write(output);
+		} else if (interactive) {
+			var now = System.nanoTime();
+			var last = lastProgressTime.get();
+			if (now - last >= PROGRESS_PERIOD && lastProgressTime.compareAndSet(last, now)) {
+				write(null);
+			}
+		}
+	}
+
+	@Override
+	public void notify(JnrTestBenchmarkResult result) {
+		if (verbose && !onlySummaries) {
+			writeLine(output(), result.toString());
+		}
+	}
+
+	/**
+	 * Shows the final counts of the tests and their throughput, replacing the
+	 * progress line, if shown; to be called by the thread executing the tests,
+	 * when all of them have been executed.
+	 */
+	public synchronized void finish() {
+		var output = currentOutput.get();
+		if (output != null) {
+			currentOutput.remove();
+			write(output);
+		}
+		var line = counts(new StringBuilder("Tests run: ").append(completed()));
+		var throughput = throughput();
+		if (throughput > 0) {
+			line.append(" - ").append(Math.round(throughput)).append(" tests/s");
+		}
+		if (progressShown) {
+			printStream.write(clearLine, 0, clearLine.length);
+			progressShown = false;
+		}
+		var bytes = encode(line.append(System.lineSeparator()).toString());
+		printStream.write(bytes, 0, bytes.length);
+		printStream.flush();
+	}
+
+	/**
+	 * The output of the current test class; results notified outside a test
+	 * class are still shown.
+	 */
+	private ClassOutput output() {
+		var output = currentOutput.get();
+		if (output == null) {
+			output = new ClassOutput(null);
+			output.descriptionShown = true;
+			output.statistics.setWithElapsedTime(withElapsedTime);
+			currentOutput.set(output);
+		}
+		return output;
+	}
+
+	private void showDescription(ClassOutput output) {
+		output.descriptionShown = true;
+		output.lines.writeBytes(startPrefix);
+		writeLine(output, output.description);
+	}
+
+	private void writeLine(ClassOutput output, CharSequence line) {
+		output.lines.writeBytes(encode(line.toString()));
+		output.lines.writeBytes(lineSeparator);
+	}
+
+	/**
+	 * Writes the lines of the given output, if any, and updates the progress
+	 * line, all at once.
+	 */
+	private synchronized void write(ClassOutput output) {
+		var hasLines = output != null && output.lines.size() > 0;
+		if (!hasLines && !interactive) {
+			return;
+		}
+		if (progressShown && hasLines) {
+			printStream.write(clearLine, 0, clearLine.length);
+		}
+		if (hasLines) {
+			printStream.write(output.lines.toByteArray(), 0, output.lines.size());
+			output.lines.reset();
+		}
+		if (interactive) {
+			var progress = encode(CLEAR_LINE + progress());
+			printStream.write(progress, 0, progress.length);
+			progressShown = true;
+		}
+		printStream.flush();
+	}
+
+	private String progress() {
+		var completed = completed();
+		var expected = expectedTests;
+		var line = new StringBuilder("Tests run: ").append(completed);
+		if (expected > 0) {
+			line.append('/').append(expected);
+		}
+		counts(line);
+		var throughput = throughput();
+		if (throughput > 0) {
+			line.append(" - ").append(Math.round(throughput)).append(" tests/s");
+			if (expected > completed) {
+				line.append(", ETA ").append(duration(Math.round((expected - completed) / throughput)));
+			}
+		}
+		return line.toString();
+	}
+
+	private StringBuilder counts(StringBuilder line) {
+		line.append(", Succeeded: ").append(counts.get(JnrTestResultStatus.SUCCESS.ordinal()))
+			.append(", Failures: ").append(counts.get(JnrTestResultStatus.FAILED.ordinal()))
+			.append(", Errors: ").append(counts.get(JnrTestResultStatus.ERROR.ordinal()));
+		var skipped = counts.get(JnrTestResultStatus.SKIPPED.ordinal());
+		if (skipped > 0) {
+			line.append(", Skipped: ").append(skipped);
+		}
+		return line;
+	}
+
+	private int completed() {
+		var completed = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			completed += counts.get(i);
+		}
+		return completed;
+	}
+
+	/**
+	 * The number of tests per second since the first test class started, or 0
+	 * if no test has been executed yet.
+	 */
+	private double throughput() {
+		var start = startTime.get();
+		if (start == NOT_STARTED) {
+			return 0;
+		}
+		var elapsed = System.nanoTime() - start;
+		if (elapsed <= 0) {
+			return 0;
+		}
+		return completed() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	private static String duration(long seconds) {
+		if (seconds < 60) {
+			return seconds + " s";
+		}
+		return seconds / 60 + " min " + seconds % 60 + " s";
+	}
+
+	private static String elapsedTime(long millis) {
+		return String.format(" - Time elapsed: %f s", (float) millis / 1000);
+	}
+
+	private byte[] encode(String string) {
+		return string.getBytes(charset);
+	}
+}
@@ -0,0 +1,126 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A {@link JnrTestMetricsRegistry} exporting the metrics in the Prometheus text
+ * format, e.g., to a file read by the textfile collector of the Prometheus node
+ * exporter; the file can be written periodically while tests run, with
+ * {@link #writePeriodically(Path, Duration)}.
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestPrometheusExporter implements JnrTestMetricsRegistry {
+
+	private record Metric(String name, String help, String type, DoubleSupplier value) {
+	}
+
+	private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void counter(String name, String help, DoubleSupplier value) {
+		metrics.add(new Metric(name, help, "counter", value));
+	}
+
+	@Override
+	public void gauge(String name, String help, DoubleSupplier value) {
+		metrics.add(new Metric(name, help, "gauge", value));
+	}
+
+	/**
+	 * Gets the current values of the registered metrics, in the Prometheus text
+	 * format.
+	 *
+	 * @return the metrics in the Prometheus text format
+	 */
+	public String scrape() {
+		var text = new StringBuilder();
+		for (var metric : metrics) {
+			text.append("# HELP ").append(metric.name()).append(' ').append(escape(metric.help())).append('\n')
+				.append("# TYPE ").append(metric.name()).append(' ').append(metric.type()).append('\n')
+				.append(metric.name()).append(' ').append(format(metric.value().getAsDouble())).append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Writes the current values of the registered metrics to the given file,
+	 * creating parent directories if needed; the file is replaced atomically,
+	 * so that a reader never sees a partially written file, and concurrent
+	 * writes are serialized.
+	 *
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void write(Path file) throws IOException {
+		var parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		var temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+		try {
+			Files.writeString(temporary, scrape(), StandardCharsets.UTF_8);
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Writes the metrics to the given file now and then periodically, in a
+	 * daemon thread, until the returned {@link Closeable} is closed, which also
+	 * writes the final values; if a periodic write fails, the following ones
+	 * are not performed, but the final one is.
+	 *
+	 * @param file the file to write
+	 * @param period the period between writes
+	 * @return the {@link Closeable} to stop writing
+	 * @throws IOException if the file cannot be written the first time
+	 */
+	public Closeable writePeriodically(Path file, Duration period) throws IOException {
+		write(file);
+		var scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			var t = new Thread(r, "jnrtest-metrics");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleAtFixedRate(() -> {
+			try {
+				write(file);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+		return () -> {
+			scheduler.shutdownNow();
+			write(file);
+		};
+	}
+
+	private static String format(double value) {
+		if (value == Double.POSITIVE_INFINITY) {
+			return "+Inf";
+		}
+		if (value == Double.NEGATIVE_INFINITY) {
+			return "-Inf";
+		}
+		if (value == Math.rint(value)) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	private static String escape(String help) {
+		return help.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+}
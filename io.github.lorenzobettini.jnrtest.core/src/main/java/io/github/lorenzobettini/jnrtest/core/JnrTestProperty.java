@@ -0,0 +1,232 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A property specified with
+ * {@link JnrTest#property(String, JnrTestGenerator, JnrTestRunnableWithParameters)},
+ * checked on the inputs created by a {@link JnrTestGenerator}.
+ * <p>
+ * Each trial generates its input with a {@link SplittableRandom} created from
+ * the seed and the index of the trial, so trials are independent of the order
+ * they are executed: by default, they are executed in parallel, using all the
+ * cores, and each input is generated only when its trial is executed. Thus,
+ * the check must be thread-safe, unless {@link #withParallel(boolean)} is
+ * used to disable parallelism.
+ * <p>
+ * When a trial fails, the first failing one (in the order of the trials) is
+ * shrunk, by repeatedly replacing its input with the first of its
+ * {@link JnrTestGenerator#shrink(Object)} candidates that still fails, into a
+ * minimal counterexample; the property then fails with an
+ * {@link AssertionError} reporting the counterexample and the seed, or, if the
+ * check threw an exception, with an {@link IllegalStateException}, so that
+ * the runner reports an error, as for other tests. The failure can be replayed
+ * with {@link #withSeed(long)}, or, without changing the code, with the
+ * system property {@value #SEED_PROPERTY}.
+ *
+ * @author Lorenzo Bettini
+ * @param <T> The type of the inputs of the property
+ */
+public final class JnrTestProperty<T> implements JnrTestRunnable {
+
+	/**
+	 * The default number of trials.
+	 */
+	public static final int DEFAULT_TRIALS = 100;
+
+	/**
+	 * The default maximum number of successful shrinking steps.
+	 */
+	public static final int DEFAULT_MAX_SHRINKS = 1000;
+
+	/**
+	 * The system property with the seed to use for the properties without an
+	 * explicit seed, to replay a failure.
+	 */
+	public static final String SEED_PROPERTY = "jnrtest.property.seed";
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final JnrTestGenerator<T> generator;
+	private final JnrTestRunnableWithParameters<T> check;
+	private int trials = DEFAULT_TRIALS;
+	private int maxShrinks = DEFAULT_MAX_SHRINKS;
+	private boolean parallel = true;
+	private Long seed = null;
+
+	private record Failure<T>(int trial, T input, Throwable throwable) {
+	}
+
+	/**
+	 * Creates a property checked on the inputs of the given generator, with
+	 * the default configuration.
+	 *
+	 * @param generator the generator of the inputs
+	 * @param check the check of an input
+	 */
+	public JnrTestProperty(JnrTestGenerator<T> generator, JnrTestRunnableWithParameters<T> check) {
+		this.generator = generator;
+		this.check = check;
+	}
+
+	/**
+	 * Sets the number of trials.
+	 *
+	 * @param trials the number of trials
+	 * @return this property for method chaining
+	 * @throws IllegalArgumentException if the number is not positive
+	 */
+	public JnrTestProperty<T> withTrials(int trials) {
+		if (trials < 1) {
+			throw new IllegalArgumentException("Invalid trials: " + trials);
+		}
+		this.trials = trials;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of successful shrinking steps.
+	 *
+	 * @param maxShrinks the maximum number of steps, 0 to disable shrinking
+	 * @return this property for method chaining
+	 * @throws IllegalArgumentException if the number is negative
+	 */
+	public JnrTestProperty<T> withMaxShrinks(int maxShrinks) {
+		if (maxShrinks < 0) {
+			throw new IllegalArgumentException("Invalid max shrinks: " + maxShrinks);
+		}
+		this.maxShrinks = maxShrinks;
+		return this;
+	}
+
+	/**
+	 * Sets whether the trials are executed in parallel.
+	 *
+	 * @param parallel whether the trials are executed in parallel
+	 * @return this property for method chaining
+	 */
+	public JnrTestProperty<T> withParallel(boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * Sets the seed, so that the same inputs are generated at each execution.
+	 *
+	 * @param seed the seed
+	 * @return this property for method chaining
+	 */
+	public JnrTestProperty<T> withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Gets the number of trials.
+	 *
+	 * @return the number of trials
+	 */
+	public int getTrials() {
+		return trials;
+	}
+
+	/**
+	 * Gets the maximum number of successful shrinking steps.
+	 *
+	 * @return the maximum number of steps
+	 */
+	public int getMaxShrinks() {
+		return maxShrinks;
+	}
+
+	/**
+	 * Gets whether the trials are executed in parallel.
+	 *
+	 * @return whether the trials are executed in parallel
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Gets the seed used by the next execution: the one set with
+	 * {@link #withSeed(long)}, or the one of the system property
+	 * {@value #SEED_PROPERTY}, or, otherwise, a random one.
+	 *
+	 * @return the seed
+	 */
+	public long getSeed() {
+		if (seed != null) {
+			return seed;
+		}
+		var property = Long.getLong(SEED_PROPERTY);
+		return property != null ? property : ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * Executes the trials, shrinking the first failing one, if any.
+	 *
+	 * @throws AssertionError if the check fails with an {@link AssertionError}
+	 * @throws IllegalStateException if the check throws an exception
+	 */
+	@Override
+	public void run() {
+		var currentSeed = getSeed();
+		var indexes = IntStream.range(0, trials);
+		if (parallel) {
+			indexes = indexes.parallel();
+		}
+		indexes
+			.mapToObj(i -> trial(currentSeed, i))
+			.filter(Objects::nonNull)
+			.findFirst()
+			.ifPresent(failure -> fail(currentSeed, failure));
+	}
+
+	private Failure<T> trial(long currentSeed, int trial) {
+		var input = generator.generate(new SplittableRandom(currentSeed + trial * GOLDEN_GAMMA));
+		var throwable = check(input);
+		return throwable != null ? new Failure<>(trial, input, throwable) : null;
+	}
+
+	private Throwable check(T input) {
+		try {
+			check.runTest(input);
+			return null;
+		} catch (Exception | AssertionError e) { // NOSONAR the failure is reported
+			return e;
+		}
+	}
+
+	private void fail(long currentSeed, Failure<T> failure) {
+		var input = failure.input();
+		var throwable = failure.throwable();
+		var shrinks = 0;
+		var shrunk = true;
+		while (shrunk && shrinks < maxShrinks) {
+			shrunk = false;
+			var candidates = generator.shrink(input).iterator();
+			while (candidates.hasNext()) {
+				var candidate = candidates.next();
+				var candidateThrowable = check(candidate);
+				if (candidateThrowable != null) {
+					input = candidate;
+					throwable = candidateThrowable;
+					shrinks++;
+					shrunk = true;
+					break;
+				}
+			}
+		}
+		var message = String.format("Property falsified by trial %d of %d (seed: %d)%n"
+				+ "Counterexample: %s%nShrunk %d times from: %s%nFailure: %s",
+			failure.trial() + 1, trials, currentSeed, input, shrinks, failure.input(), throwable);
+		if (throwable instanceof AssertionError) {
+			throw new AssertionError(message, throwable);
+		}
+		throw new IllegalStateException(message, throwable);
+	}
+}
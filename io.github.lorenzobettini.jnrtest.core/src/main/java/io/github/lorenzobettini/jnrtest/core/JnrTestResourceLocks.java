@@ -0,0 +1,338 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * The locks of the shared resources declared with
+ * {@link JnrTest#resourceLock(String, JnrTestResourceMode)} and
+ * {@link JnrTest#withResourceLock(String, JnrTestResourceMode, JnrTestRunnable)},
+ * a read/write lock for each resource name, shared by all the runners.
+ * <p>
+ * A thread always acquires all the locks it needs at once, in the order of the
+ * resource names, and it acquires no other lock until it releases them; thus,
+ * the locks cannot deadlock. For this reason, when a test class declares
+ * resources, the resources of its tests are acquired together with them, for
+ * the whole execution of the test class; otherwise, each test acquires its
+ * resources only while it runs.
+ * <p>
+ * Locks are never held by a thread of a fork/join pool: while joining other
+ * tasks (e.g., a parallel stream in a test), such a thread could run a task of
+ * the runner, i.e., another test class, which would run with the locks of the
+ * first one. Thus, a thread of a fork/join pool runs with locks on a new
+ * thread, waiting for it with a managed block, so that the pool can run other
+ * test classes, not conflicting, in the meantime; the same holds for waiting
+ * for a lock.
+ * <p>
+ * Moreover, the locks record the test class owning them, so that only the
+ * same test class runs with the locks already held by a thread. Another test
+ * class can still be run by a thread holding locks only when that thread
+ * explicitly helps a pool (e.g., {@link java.util.concurrent.ForkJoinTask#helpQuiesce()}
+ * on the pool of the runner): such a test class runs in the same thread, sharing
+ * the held locks, and acquiring only the locks of its other resources, which
+ * must follow the held ones in the order of the resource names, so that the
+ * locks still cannot deadlock; otherwise, or if its resources conflict with the
+ * held ones, an {@link IllegalStateException} is thrown.
+ *
+ * @author Lorenzo Bettini
+ */
+final class JnrTestResourceLocks {
+
+	/**
+	 * A runnable that runs with the locks of the given resources, created by
+	 * {@link JnrTest#withResourceLock(String, JnrTestResourceMode, JnrTestRunnable)}.
+	 *
+	 * @param resources the resources, with their modes
+	 * @param runnable the runnable to run
+	 */
+	record LockingRunnable(Map<String, JnrTestResourceMode> resources, JnrTestRunnable runnable)
+			implements JnrTestRunnable {
+
+		@Override
+		public void run() throws Exception {
+			execute(OWNER.get(), resources, runnable);
+		}
+	}
+
+	private static final Map<String, ReentrantReadWriteLock> LOCKS = new ConcurrentHashMap<>();
+	private static final ThreadLocal<JnrTestResourceLocks> HELD = new ThreadLocal<>();
+	private static final ThreadLocal<Object> OWNER = new ThreadLocal<>();
+
+	private final Object owner;
+	private final Map<String, JnrTestResourceMode> resources;
+	private final List<Lock> locks;
+	private final JnrTestResourceLocks previous;
+
+	private JnrTestResourceLocks(Object owner, Map<String, JnrTestResourceMode> resources, List<Lock> locks,
+			JnrTestResourceLocks previous) {
+		this.owner = owner;
+		this.resources = resources;
+		this.locks = locks;
+		this.previous = previous;
+	}
+
+	/**
+	 * Wraps the given runnable so that it runs with the lock of the given
+	 * resource; wrapping a {@link LockingRunnable} merges the resources.
+	 */
+	static LockingRunnable locking(String resource, JnrTestResourceMode mode, JnrTestRunnable runnable) {
+		checkResource(resource);
+		var resources = new HashMap<String, JnrTestResourceMode>();
+		resources.put(resource, mode);
+		if (runnable instanceof LockingRunnable locking) {
+			merge(resources, locking.resources());
+			return new LockingRunnable(Map.copyOf(resources), locking.runnable());
+		}
+		return new LockingRunnable(Map.copyOf(resources), runnable);
+	}
+
+	/**
+	 * Gets the resources to acquire for the execution of a test class: its own
+	 * ones, and, if there are any, also the ones of the given hooks and tests,
+	 * which cannot be acquired later.
+	 */
+	static Map<String, JnrTestResourceMode> resources(JnrTest testClass,
+			Stream<JnrTestRunnableSpecification> specifications) {
+		var resources = new HashMap<>(testClass.getStore().getResourceLocks());
+		if (!resources.isEmpty()) {
+			specifications
+				.filter(s -> s.testRunnable() instanceof LockingRunnable)
+				.forEach(s -> merge(resources, ((LockingRunnable) s.testRunnable()).resources()));
+		}
+		return resources;
+	}
+
+	/**
+	 * Merges the given resources, the exclusive mode winning.
+	 */
+	static void merge(Map<String, JnrTestResourceMode> resources, Map<String, JnrTestResourceMode> others) {
+		others.forEach((resource, mode) -> resources.merge(resource, mode,
+			(current, other) -> current == JnrTestResourceMode.READ ? other : current));
+	}
+
+	static void checkResource(String resource) {
+		if (resource == null || resource.isBlank()) {
+			throw new IllegalArgumentException("Invalid resource: " + resource);
+		}
+	}
+
+	/**
+	 * Runs the given action of the given owner (a test class) with the locks of
+	 * the given resources; see {@link #execute(Object, Map, JnrTestRunnable)}.
+	 */
+	static void runWithLocks(Object owner, Map<String, JnrTestResourceMode> resources, Runnable action) {
+		try {
+			execute(owner, resources, action::run);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// not thrown by a Runnable
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Runs the given action of the given owner with the locks of the given
+	 * resources, unless the current thread already holds the locks of the same
+	 * owner, which include the given ones; in a thread holding the locks of
+	 * another owner, only the locks of the resources that are not held are
+	 * acquired; in a thread of a fork/join pool, the action runs on a new
+	 * thread.
+	 *
+	 * @throws IllegalStateException if the current thread holds the locks of
+	 * another owner conflicting with the given resources, or preceding some of
+	 * them in the order of the resource names
+	 */
+	static void execute(Object owner, Map<String, JnrTestResourceMode> resources, JnrTestRunnable action)
+			throws Exception {
+		var held = HELD.get();
+		if (resources.isEmpty() || (held != null && held.owner == owner)) {
+			executeAs(owner, action);
+		} else if (held == null && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+			executeOnNewThread(owner, resources, action);
+		} else {
+			var locks = held != null
+				? held.acquireFollowing(owner, resources)
+				: acquire(owner, resources, resources, null);
+			try {
+				executeAs(owner, action);
+			} finally {
+				locks.close();
+			}
+		}
+	}
+
+	private static void executeAs(Object owner, JnrTestRunnable action) throws Exception {
+		var previous = OWNER.get();
+		OWNER.set(owner);
+		try {
+			action.run();
+		} finally {
+			OWNER.set(previous);
+		}
+	}
+
+	private static void executeOnNewThread(Object owner, Map<String, JnrTestResourceMode> resources,
+			JnrTestRunnable action) throws Exception {
+		var failure = new AtomicReference<Throwable>();
+		var thread = Thread.ofPlatform().name("jnrtest-resource-locks").daemon(true).start(() -> {
+			try {
+				execute(owner, resources, action);
+			} catch (Throwable e) { // NOSONAR rethrown in the calling thread
+				failure.set(e);
+			}
+		});
+		join(thread);
+		var e = failure.get();
+		if (e instanceof Exception exception) {
+			throw exception;
+		}
+		if (e instanceof Error error) {
+			throw error;
+		}
+	}
+
+	private static void join(Thread thread) {
+		var interrupted = false;
+		var blocker = new ForkJoinPool.ManagedBlocker() {
+			@Override
+			public boolean block() throws InterruptedException {
+				thread.join();
+				return true;
+			}
+
+			@Override
+			public boolean isReleasable() {
+				return !thread.isAlive();
+			}
+		};
+		while (thread.isAlive()) {
+			try {
+				ForkJoinPool.managedBlock(blocker);
+			} catch (InterruptedException e) {
+				// the action must complete before its locks can be considered released
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the read/write lock of the given resource.
+	 */
+	static ReentrantReadWriteLock lockOf(String resource) {
+		return LOCKS.computeIfAbsent(resource, r -> new ReentrantReadWriteLock());
+	}
+
+	/**
+	 * Acquires the locks of the given resources, in addition to the ones already
+	 * held, if any, so that the thread holds all the given resources.
+	 *
+	 * @return the acquired locks, to be closed to release them
+	 */
+	private static JnrTestResourceLocks acquire(Object owner, Map<String, JnrTestResourceMode> toAcquire,
+			Map<String, JnrTestResourceMode> resources, JnrTestResourceLocks previous) {
+		var locks = new ArrayList<Lock>();
+		for (var entry : new TreeMap<>(toAcquire).entrySet()) {
+			var lock = lockOf(entry.getKey());
+			var modeLock = entry.getValue() == JnrTestResourceMode.READ ? lock.readLock() : lock.writeLock();
+			lock(modeLock);
+			locks.add(modeLock);
+		}
+		var held = new JnrTestResourceLocks(owner, Map.copyOf(resources), locks, previous);
+		HELD.set(held);
+		return held;
+	}
+
+	/**
+	 * Acquires, for another owner, the locks of the given resources that are not
+	 * held, which must follow the held ones; the held ones are shared, since they
+	 * are all in read mode.
+	 */
+	private JnrTestResourceLocks acquireFollowing(Object other, Map<String, JnrTestResourceMode> others) {
+		if (conflicts(others)) {
+			throw new IllegalStateException("Cannot acquire the resources " + others
+				+ " while holding the conflicting resources " + resources + " in the same thread");
+		}
+		var last = new TreeMap<>(resources).lastKey();
+		var toAcquire = new HashMap<>(others);
+		toAcquire.keySet().removeAll(resources.keySet());
+		if (toAcquire.keySet().stream().anyMatch(r -> r.compareTo(last) < 0)) {
+			throw new IllegalStateException("Cannot acquire the resources " + others
+				+ " while holding the following resources " + resources + " in the same thread");
+		}
+		var all = new HashMap<>(resources);
+		all.putAll(toAcquire);
+		return acquire(other, toAcquire, all, this);
+	}
+
+	private static void lock(Lock lock) {
+		if (lock.tryLock()) {
+			return;
+		}
+		var blocker = new ForkJoinPool.ManagedBlocker() {
+			private boolean locked = false;
+
+			@Override
+			public boolean block() {
+				lock.lock();
+				locked = true;
+				return true;
+			}
+
+			@Override
+			public boolean isReleasable() {
+				if (!locked) {
+					locked = lock.tryLock();
+				}
+				return locked;
+			}
+		};
+		try {
+			ForkJoinPool.managedBlock(blocker);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			if (!blocker.locked) {
+				lock.lock();
+			}
+		}
+	}
+
+	/**
+	 * Whether the given resources conflict with the held ones, i.e., one of them
+	 * is held, or requested, in the exclusive mode.
+	 */
+	private boolean conflicts(Map<String, JnrTestResourceMode> others) {
+		return others.entrySet().stream()
+			.anyMatch(e -> resources.containsKey(e.getKey())
+				&& (e.getValue() == JnrTestResourceMode.READ_WRITE
+					|| resources.get(e.getKey()) == JnrTestResourceMode.READ_WRITE));
+	}
+
+	/**
+	 * Releases the locks, in reverse order, going back to the previously held
+	 * ones, if any.
+	 */
+	private void close() {
+		for (int i = locks.size() - 1; i >= 0; i--) {
+			locks.get(i).unlock();
+		}
+		if (previous != null) {
+			HELD.set(previous);
+		} else {
+			HELD.remove();
+		}
+	}
+}
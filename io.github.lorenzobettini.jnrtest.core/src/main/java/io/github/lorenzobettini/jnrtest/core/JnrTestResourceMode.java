@@ -0,0 +1,21 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+/**
+ * How a test class or a test accesses a shared resource, see
+ * {@link JnrTest#resourceLock(String, JnrTestResourceMode)}.
+ *
+ * @author Lorenzo Bettini
+ */
+public enum JnrTestResourceMode {
+
+	/**
+	 * The resource is only read, so it can be shared with the other readers
+	 */
+	READ,
+
+	/**
+	 * The resource is modified, so it is accessed exclusively
+	 */
+	READ_WRITE
+
+}
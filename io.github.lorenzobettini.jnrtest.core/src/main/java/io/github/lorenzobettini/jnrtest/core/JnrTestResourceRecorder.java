@@ -0,0 +1,265 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BinaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Records the resources used by each test and hook: the bytes allocated and
+ * the CPU time consumed by the executing thread, between the START and END
+ * {@link JnrTestRunnableLifecycleEvent}s; it also records the garbage
+ * collections that happened during the execution of each test class, between
+ * the START and END {@link JnrTestLifecycleEvent}s.
+ * <p>
+ * Since the events of a test class are notified in the thread executing
+ * the test class, this recorder can be used with any runner, including
+ * parallel ones; note that, in that case, the garbage collections of a test
+ * class also include the ones caused by the test classes executed at the
+ * same time.
+ * <p>
+ * Allocated bytes and CPU time are measured with the
+ * {@link ThreadMXBean} of the JVM; they are -1 when the
+ * JVM cannot measure them (e.g., the CPU time of virtual threads).
+ * The totals can be reported together with the results, with
+ * {@link JnrTestResultAggregator#aggregate(JnrTestResourceRecorder)}.
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestResourceRecorder extends JnrTestListenerAdapter {
+
+	/**
+	 * The resources used by a test or a hook.
+	 *
+	 * @param description the description of the test or hook
+	 * @param kind the kind of the test or hook
+	 * @param allocatedBytes the bytes allocated, or -1 if not available
+	 * @param cpuTime the CPU time in nanoseconds, or -1 if not available
+	 */
+	public record Usage(String description, JnrTestRunnableKind kind, long allocatedBytes, long cpuTime) {
+
+		@Override
+		public String toString() {
+			return String.format("[%11s] %s - Allocated: %s, CPU time: %s",
+				kind, description, formatBytes(allocatedBytes), formatCpuTime(cpuTime));
+		}
+	}
+
+	/**
+	 * The garbage collections, of all the collectors of the JVM.
+	 *
+	 * @param count the number of collections
+	 * @param time the approximate accumulated collection time in milliseconds
+	 */
+	public record GarbageCollections(long count, long time) {
+
+		private GarbageCollections minus(GarbageCollections other) {
+			return new GarbageCollections(count - other.count, time - other.time);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d (%f s)", count, (float) time / 1000);
+		}
+	}
+
+	private static final long NOT_AVAILABLE = -1;
+
+	private static final BinaryOperator<GarbageCollections> LATEST = BinaryOperator.maxBy(
+		Comparator.comparingLong(GarbageCollections::count).thenComparingLong(GarbageCollections::time));
+
+	private final ThreadMXBean threadMXBean;
+	private final List<GarbageCollectorMXBean> garbageCollectorMXBeans;
+
+	private final Map<String, List<Usage>> usages = new ConcurrentHashMap<>();
+	private final Map<String, GarbageCollections> garbageCollections = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<String> currentKey = new ThreadLocal<>();
+	private final ThreadLocal<GarbageCollections> classStart = new ThreadLocal<>();
+	private final ThreadLocal<long[]> runnableStart = new ThreadLocal<>();
+
+	private final AtomicReference<GarbageCollections> firstStart = new AtomicReference<>();
+	private final AtomicReference<GarbageCollections> lastEnd = new AtomicReference<>();
+
+	/**
+	 * Creates a recorder using the management beans of the running JVM.
+	 */
+	public JnrTestResourceRecorder() {
+		this(ManagementFactory.getThreadMXBean(), ManagementFactory.getGarbageCollectorMXBeans());
+	}
+
+	JnrTestResourceRecorder(ThreadMXBean threadMXBean, List<GarbageCollectorMXBean> garbageCollectorMXBeans) {
+		this.threadMXBean = threadMXBean;
+		this.garbageCollectorMXBeans = garbageCollectorMXBeans;
+	}
+
+	@Override
+	public void notify(JnrTestLifecycleEvent event) {
+		var current = currentGarbageCollections();
+		if (event.status() == JnrTestStatus.START) {
+			firstStart.compareAndSet(null, current);
+			currentKey.set(event.description());
+			classStart.set(current);
+			usages.computeIfAbsent(event.description(), desc -> Collections.synchronizedList(new ArrayList<>()));
+			return;
+		}
+		var start = classStart.get();
+		if (start != null) {
+			garbageCollections.put(event.description(), current.minus(start));
+			lastEnd.accumulateAndGet(current, (last, next) -> last == null ? next : LATEST.apply(last, next));
+		}
+		currentKey.remove();
+		classStart.remove();
+	}
+
+	@Override
+	public void notify(JnrTestRunnableLifecycleEvent event) {
+		if (event.status() == JnrTestRunnableStatus.START) {
+			runnableStart.set(new long[] { currentThreadAllocatedBytes(), currentThreadCpuTime() });
+			return;
+		}
+		var start = runnableStart.get();
+		runnableStart.remove();
+		var key = currentKey.get();
+		if (start == null || key == null) {
+			return;
+		}
+		usages.get(key).add(new Usage(event.description(), event.kind(),
+			difference(currentThreadAllocatedBytes(), start[0]),
+			difference(currentThreadCpuTime(), start[1])));
+	}
+
+	/**
+	 * Gets the resources used by the tests and hooks, organized by test class
+	 * description, in the order of execution.
+	 *
+	 * @return a map where keys are test class descriptions and values are lists
+	 * of resource usages
+	 */
+	public Map<String, List<Usage>> getUsages() {
+		return usages;
+	}
+
+	/**
+	 * Gets the garbage collections that happened during the execution of
+	 * each test class.
+	 *
+	 * @return a map where keys are test class descriptions
+	 */
+	public Map<String, GarbageCollections> getGarbageCollections() {
+		return garbageCollections;
+	}
+
+	/**
+	 * Gets the tests and hooks that allocated the most bytes, which are the
+	 * first suspects when garbage collections slow down the execution.
+	 *
+	 * @param limit the maximum number of usages to return
+	 * @return the usages, sorted by allocated bytes in descending order
+	 */
+	public List<Usage> getTopAllocations(int limit) {
+		return usages.values().stream()
+			.flatMap(List::stream)
+			.sorted(Comparator.comparingLong(Usage::allocatedBytes).reversed())
+			.limit(limit)
+			.toList();
+	}
+
+	/**
+	 * Gets the total bytes allocated by all the tests and hooks.
+	 *
+	 * @return the total allocated bytes, ignoring the ones that are not available
+	 */
+	public long getTotalAllocatedBytes() {
+		return total(Usage::allocatedBytes);
+	}
+
+	/**
+	 * Gets the total CPU time consumed by all the tests and hooks.
+	 *
+	 * @return the total CPU time in nanoseconds, ignoring the ones that are not available
+	 */
+	public long getTotalCpuTime() {
+		return total(Usage::cpuTime);
+	}
+
+	/**
+	 * Gets the garbage collections that happened from the start of the first
+	 * test class to the end of the last one; differently from summing the ones
+	 * of {@link #getGarbageCollections()}, collections that happened during
+	 * test classes executed in parallel are counted only once.
+	 *
+	 * @return the total garbage collections
+	 */
+	public GarbageCollections getTotalGarbageCollections() {
+		var start = firstStart.get();
+		var end = lastEnd.get();
+		if (start == null || end == null) {
+			return new GarbageCollections(0, 0);
+		}
+		return end.minus(start);
+	}
+
+	private long total(ToLongFunction<Usage> value) {
+		return usages.values().stream()
+			.flatMap(List::stream)
+			.mapToLong(value)
+			.filter(v -> v != NOT_AVAILABLE)
+			.sum();
+	}
+
+	private long currentThreadAllocatedBytes() {
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean sunThreadMXBean
+				&& sunThreadMXBean.isThreadAllocatedMemorySupported()
+				&& sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+			return sunThreadMXBean.getCurrentThreadAllocatedBytes();
+		}
+		return NOT_AVAILABLE;
+	}
+
+	private long currentThreadCpuTime() {
+		if (threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+			return threadMXBean.getCurrentThreadCpuTime();
+		}
+		return NOT_AVAILABLE;
+	}
+
+	private GarbageCollections currentGarbageCollections() {
+		long count = 0;
+		long time = 0;
+		for (var garbageCollectorMXBean : garbageCollectorMXBeans) {
+			count += Math.max(0, garbageCollectorMXBean.getCollectionCount());
+			time += Math.max(0, garbageCollectorMXBean.getCollectionTime());
+		}
+		return new GarbageCollections(count, time);
+	}
+
+	private static long difference(long end, long start) {
+		if (end == NOT_AVAILABLE || start == NOT_AVAILABLE) {
+			return NOT_AVAILABLE;
+		}
+		return end - start;
+	}
+
+	static String formatBytes(long bytes) {
+		if (bytes == NOT_AVAILABLE) {
+			return "n/a";
+		}
+		return String.format("%.2f MB", (double) bytes / (1024 * 1024));
+	}
+
+	static String formatCpuTime(long cpuTime) {
+		if (cpuTime == NOT_AVAILABLE) {
+			return "n/a";
+		}
+		return String.format("%f s", (double) cpuTime / 1_000_000_000);
+	}
+}
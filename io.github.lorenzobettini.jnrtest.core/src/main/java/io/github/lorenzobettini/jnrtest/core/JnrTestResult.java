@@ -5,7 +5,7 @@ package io.github.lorenzobettini.jnrtest.core;
  * 
  * @author Lorenzo Bettini
  * @param description The description of the test
- * @param status The status of the test result (SUCCESS, FAILED, ERROR)
+ * @param status The status of the test result (SUCCESS, FAILED, ERROR, SKIPPED)
  * @param throwable The exception thrown during test execution, if any
  */
 public record JnrTestResult(String description, JnrTestResultStatus status, Throwable throwable) {
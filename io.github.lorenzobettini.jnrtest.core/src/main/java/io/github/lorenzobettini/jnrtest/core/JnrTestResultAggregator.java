@@ -10,7 +10,9 @@ public class JnrTestResultAggregator {
 	private int succeeded;
 	private int failed;
 	private int errors;
+	private int skipped;
 	private long totalTime;
+	private JnrTestResourceRecorder resourceRecorder;
 
 	/**
 	 * Aggregates the results from a test recorder into this aggregator.
@@ -31,6 +33,10 @@ public class JnrTestResultAggregator {
 					errors++;
 					break;
 				}
+				case SKIPPED: {
+					skipped++;
+					break;
+				}
 				default: { // SUCCESS
 					succeeded++;
 					break;
@@ -41,6 +47,19 @@ public class JnrTestResultAggregator {
 		return this;
 	}
 
+	/**
+	 * Aggregates the resources recorded by a {@link JnrTestResourceRecorder},
+	 * so that the total allocated bytes, CPU time and garbage collections are
+	 * reported next to the elapsed time.
+	 * 
+	 * @param resourceRecorder the recorder containing the resource usages
+	 * @return this aggregator instance for method chaining
+	 */
+	public JnrTestResultAggregator aggregate(JnrTestResourceRecorder resourceRecorder) {
+		this.resourceRecorder = resourceRecorder;
+		return this;
+	}
+
 	/**
 	 * Gets the number of successful tests.
 	 * 
@@ -68,6 +87,16 @@ public class JnrTestResultAggregator {
 		return errors;
 	}
 
+	/**
+	 * Gets the number of skipped tests, since a test class their test class
+	 * depends on failed.
+	 * 
+	 * @return the number of tests that were skipped
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
 	/**
 	 * Gets the total execution time for all tests.
 	 * 
@@ -82,6 +111,11 @@ public class JnrTestResultAggregator {
 		return String.format("Tests run: %d, Succeeded: %d, Failures: %d, Errors: %d",
 				succeeded + failed + errors,
 				succeeded, failed, errors) + (
-					totalTime > 0 ? String.format(" - Time elapsed: %f s", (float) totalTime/1000) : "");
+					skipped > 0 ? String.format(", Skipped: %d", skipped) : "") + (
+					totalTime > 0 ? String.format(" - Time elapsed: %f s", (float) totalTime/1000) : "") + (
+					resourceRecorder != null ? String.format(" - Allocated: %s, CPU time: %s, GC: %s",
+						JnrTestResourceRecorder.formatBytes(resourceRecorder.getTotalAllocatedBytes()),
+						JnrTestResourceRecorder.formatCpuTime(resourceRecorder.getTotalCpuTime()),
+						resourceRecorder.getTotalGarbageCollections()) : "");
 	}
 }
@@ -21,6 +21,11 @@ public enum JnrTestResultStatus {
 	/**
 	 * Test encountered an unexpected error during execution
 	 */
-	ERROR
+	ERROR,
+
+	/**
+	 * Test not executed, since a test class its test class depends on failed
+	 */
+	SKIPPED
 
 }
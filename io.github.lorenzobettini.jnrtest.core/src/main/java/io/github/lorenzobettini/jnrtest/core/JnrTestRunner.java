@@ -1,14 +1,49 @@
 package io.github.lorenzobettini.jnrtest.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiPredicate;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import io.github.lorenzobettini.jnrtest.core.JnrTestExecutionPlan.IndexedTest;
+import io.github.lorenzobettini.jnrtest.core.JnrTestExecutionPlan.Step;
+
 /**
  * Runs the tests of {@link JnrTest}; the actual test execution is
  * performed by {@link #execute()}.
+ * <p>
+ * The first execution compiles a {@link JnrTestExecutionPlan}, which is reused
+ * by the next executions, until test classes or filters are added; thus, the
+ * tests of a test class are specified only once, and modifications of the
+ * {@link JnrTestStore} of an added test class after the first execution are
+ * not taken into consideration.
+ * <p>
+ * Test classes added with {@link #add(Supplier)} are instead executed with a
+ * new instance for each execution, or for each chunk of their tests executed
+ * by a thread, so that the tests executed concurrently do not share instance
+ * fields.
+ * <p>
+ * The locks of the shared resources declared by a test class with
+ * {@link JnrTest#resourceLock(String, JnrTestResourceMode)} are held for its
+ * whole execution; they only matter when test classes are executed
+ * concurrently, e.g., by {@link JnrTestParallelRunner}.
+ * <p>
+ * A test class depending on other ones, declared with
+ * {@link JnrTest#dependsOn(Class)}, is executed after them, and, if any of
+ * them fails, its tests are not executed: they are notified to the listeners
+ * as {@link JnrTestResultStatus#SKIPPED}.
  * 
  * @author Lorenzo Bettini
  *
@@ -16,8 +51,12 @@ import java.util.stream.Stream;
 public class JnrTestRunner {
 
 	private final List<JnrTest> testClasses = new ArrayList<>();
+	private final Map<JnrTest, Supplier<? extends JnrTest>> testClassFactories = new IdentityHashMap<>();
 	private final List<JnrTestListener> listeners = new ArrayList<>();
 	private final JnrTestFilters filters = new JnrTestFilters();
+	private IntPredicate shardFilter = null;
+	private JnrTestExecutionPlan executionPlan = null;
+	private final Set<JnrTest> failedTestClasses = ConcurrentHashMap.newKeySet();
 
 	/**
 	 * Adds a test class to be executed.
@@ -27,9 +66,34 @@ public class JnrTestRunner {
 	 */
 	public JnrTestRunner add(JnrTest testClass) {
 		testClasses.add(testClass);
+		executionPlan = null;
 		return this;
 	}
 
+	/**
+	 * Adds a test class to be executed with a new instance, created by the
+	 * given factory, for each execution, with its own {@link JnrTestStore} and
+	 * hooks; when the tests are split among several threads (see
+	 * {@link JnrTestParallelRunner}), each chunk of tests is executed with its
+	 * own new instance, with all its hooks, i.e., also the before-all and
+	 * after-all ones, so that the tests executed concurrently never share the
+	 * instance fields set by hooks.
+	 * <p>
+	 * The first instance is created immediately, and it is only used for its
+	 * description and to specify the tests to execute, e.g., for filters; thus,
+	 * {@link JnrTest#specify()} must specify the same tests for all the
+	 * instances. Extensions must be applied in the factory, e.g.,
+	 * {@code runner.add(() -> extension.extendEach(new MyTest()))}.
+	 * 
+	 * @param testClassFactory the factory of the instances of the test class
+	 * @return this runner for method chaining
+	 */
+	public JnrTestRunner add(Supplier<? extends JnrTest> testClassFactory) {
+		var testClass = testClassFactory.get();
+		testClassFactories.put(testClass, testClassFactory);
+		return add(testClass);
+	}
+
 	/**
 	 * Adds a test listener that will be notified of test events.
 	 * 
@@ -49,6 +113,7 @@ public class JnrTestRunner {
 	 */
 	public JnrTestRunner classFilter(Predicate<JnrTest> filter) {
 		filters.classFilter(filter);
+		executionPlan = null;
 		return this;
 	}
 	
@@ -60,6 +125,20 @@ public class JnrTestRunner {
 	 */
 	public JnrTestRunner specificationFilter(Predicate<JnrTestRunnableSpecification> filter) {
 		filters.specificationFilter(filter);
+		executionPlan = null;
+		return this;
+	}
+
+	/**
+	 * Sets a filter for test specifications that also depends on their test
+	 * class, e.g., to select tests by the pair of descriptions.
+	 * 
+	 * @param filter the predicate on a test class and one of its test specifications
+	 * @return this runner for method chaining
+	 */
+	public JnrTestRunner testFilter(BiPredicate<JnrTest, JnrTestRunnableSpecification> filter) {
+		filters.testFilter(filter);
+		executionPlan = null;
 		return this;
 	}
 
@@ -71,6 +150,7 @@ public class JnrTestRunner {
 	 */
 	public JnrTestRunner filterByClassDescription(String pattern) {
 		filters.byClassDescription(pattern);
+		executionPlan = null;
 		return this;
 	}
 	
@@ -82,6 +162,30 @@ public class JnrTestRunner {
 	 */
 	public JnrTestRunner filterBySpecificationDescription(String pattern) {
 		filters.bySpecificationDescription(pattern);
+		executionPlan = null;
+		return this;
+	}
+
+	/**
+	 * Only executes the test classes of the given shard, so that the test classes
+	 * can be split among several processes (e.g., CI jobs).
+	 * <p>
+	 * Test classes are assigned to shards in a round-robin fashion, according to
+	 * the order they have been added, before applying any class filter; thus,
+	 * running all the shards with the same test classes executes each test class
+	 * exactly once.
+	 * 
+	 * @param index the index of the shard to execute, starting from 0
+	 * @param total the total number of shards
+	 * @return this runner for method chaining
+	 * @throws IllegalArgumentException if total is less than 1 or index is not in [0, total)
+	 */
+	public JnrTestRunner shard(int index, int total) {
+		if (total < 1 || index < 0 || index >= total) {
+			throw new IllegalArgumentException("Invalid shard: " + index + "/" + total);
+		}
+		this.shardFilter = i -> i % total == index;
+		executionPlan = null;
 		return this;
 	}
 
@@ -90,9 +194,54 @@ public class JnrTestRunner {
 	 * Filters will be applied according to the configured filter predicates.
 	 */
 	public void execute() {
+		failedTestClasses.clear();
 		getTestClassesStream().forEach(this::executeTestClass);
 	}
 
+	/**
+	 * Executes all the test classes with the given executor, each one as soon
+	 * as the test classes it depends on have been executed, so that test
+	 * classes not depending on each other are executed concurrently;
+	 * subclasses can use this method to execute test classes concurrently.
+	 * 
+	 * @param executor the executor of the test classes
+	 * @throws IllegalStateException if the execution of a test class throws
+	 * an exception, e.g., a listener, with that exception as the cause
+	 */
+	protected void executeTestClasses(Executor executor) {
+		failedTestClasses.clear();
+		var plan = getExecutionPlan();
+		var executions = new IdentityHashMap<JnrTest, CompletableFuture<Void>>();
+		// dependencies come first, so their executions have already been created
+		getTestClassesStream().sequential().forEachOrdered(testClass -> {
+			var dependencies = plan.getDependencies(testClass).stream()
+				.map(executions::get)
+				.filter(Objects::nonNull)
+				.toArray(CompletableFuture<?>[]::new);
+			executions.put(testClass, CompletableFuture.allOf(dependencies)
+				.thenRunAsync(() -> executeTestClass(testClass), executor));
+		});
+		try {
+			CompletableFuture.allOf(executions.values().toArray(CompletableFuture<?>[]::new)).join();
+		} catch (CompletionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Returns the execution plan, compiling it the first time, and after test
+	 * classes or filters have been added.
+	 * 
+	 * @return the execution plan of this runner
+	 */
+	public JnrTestExecutionPlan getExecutionPlan() {
+		if (executionPlan == null) {
+			executionPlan = new JnrTestExecutionPlan(testClasses, shardFilter,
+				filters.getClassFilter(), filters::getSpecificationFilter);
+		}
+		return executionPlan;
+	}
+
 	/**
 	 * Returns a stream of test classes to be executed. Subclasses can override this
 	 * method to customize the stream of test classes.
@@ -100,96 +249,175 @@ public class JnrTestRunner {
 	 * @return the stream of test classes to be executed, filtered according to the configured filters
 	 */
 	protected Stream<JnrTest> getTestClassesStream() {
-		Predicate<JnrTest> classFilter = filters.getClassFilter();
-		if (classFilter == null) {
-			// No filtering needed
-			return testClasses.stream();
-		}
-		// Apply the class filter
-		return testClasses.stream()
-				.filter(classFilter);
+		return getExecutionPlan().getTestClasses().stream();
 	}
 
-	private void executeTestClass(JnrTest testClass) {
+	/**
+	 * Executes a single test class, notifying the listeners; subclasses can use
+	 * this method to execute test classes with a different strategy.
+	 * 
+	 * @param testClass the test class to execute
+	 */
+	protected void executeTestClass(JnrTest testClass) {
+		if (isSkipped(testClass)) {
+			skipTestClass(testClass);
+			return;
+		}
+		if (isCreatedByFactory(testClass)) {
+			executeTests(testClass, 0, getNumberOfTests(testClass));
+			return;
+		}
+		var steps = getSteps(testClass);
 		var description = testClass.getDescription();
-		notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.START));
-		executeTestClass(testClass.getStore());
-		notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.END));
-	}
-
-	private void executeTestClass(JnrTestStore store) {
-		executeBeforeAll(store);
-		executeTestRunnables(store);
-		executeAfterAll(store);
+		var resources = JnrTestResourceLocks.resources(testClass, Arrays.stream(steps).map(Step::specification));
+		JnrTestResourceLocks.runWithLocks(testClass, resources, () -> {
+			notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.START));
+			var succeeded = true;
+			for (var step : steps) {
+				succeeded &= executeSafely(step);
+			}
+			if (!succeeded) {
+				failedTestClasses.add(testClass);
+			}
+			notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.END));
+		});
 	}
 
-	private void executeBeforeAll(JnrTestStore store) {
-		executeLifecycleRunnables(store.getBeforeAllRunnables(), JnrTestRunnableKind.BEFORE_ALL);
+	/**
+	 * Whether the given test class must be skipped, since a test class it
+	 * depends on failed, or was skipped in turn, in the current execution;
+	 * thus, the test classes it depends on must have already been executed.
+	 * 
+	 * @param testClass the test class
+	 * @return whether the tests of the test class must not be executed
+	 */
+	protected boolean isSkipped(JnrTest testClass) {
+		return getExecutionPlan().getDependencies(testClass).stream()
+			.anyMatch(failedTestClasses::contains);
 	}
 
-	private void executeAfterAll(JnrTestStore store) {
-		executeLifecycleRunnables(store.getAfterAllRunnables(), JnrTestRunnableKind.AFTER_ALL);
+	/**
+	 * Notifies the tests of the given test class as skipped, without executing
+	 * them, nor its hooks.
+	 */
+	private void skipTestClass(JnrTest testClass) {
+		failedTestClasses.add(testClass);
+		var description = testClass.getDescription();
+		notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.START));
+		for (var step : getSteps(testClass)) {
+			if (step.kind() == JnrTestRunnableKind.TEST) {
+				notifyTestResult(new JnrTestResult(step.specification().description(),
+					JnrTestResultStatus.SKIPPED, null));
+			}
+		}
+		notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.END));
 	}
 
-	private void executeBeforeEach(JnrTestStore store) {
-		executeLifecycleRunnables(store.getBeforeEachRunnables(), JnrTestRunnableKind.BEFORE_EACH);
+	/**
+	 * Whether the given test class has been added with {@link #add(Supplier)},
+	 * so that its tests are executed with new instances.
+	 * 
+	 * @param testClass the test class
+	 * @return whether the tests are executed with new instances
+	 */
+	protected boolean isCreatedByFactory(JnrTest testClass) {
+		return testClassFactories.containsKey(testClass);
 	}
 
-	private void executeAfterEach(JnrTestStore store) {
-		executeLifecycleRunnables(store.getAfterEachRunnables(), JnrTestRunnableKind.AFTER_EACH);
+	/**
+	 * Gets the number of tests of the given test class that will be executed.
+	 * 
+	 * @param testClass the test class
+	 * @return the number of tests, after filtering
+	 */
+	protected int getNumberOfTests(JnrTest testClass) {
+		return (int) Arrays.stream(getSteps(testClass))
+			.filter(s -> s.kind() == JnrTestRunnableKind.TEST)
+			.count();
 	}
 
-	private void executeLifecycleRunnables(List<JnrTestRunnableSpecification> runnables, JnrTestRunnableKind kind) {
-		for (var runnable : runnables) {
-			executeSafely(runnable, kind, null);
-		}
+	/**
+	 * Executes the tests, from the first index (inclusive) to the last index
+	 * (exclusive), of a test class added with {@link #add(Supplier)}, with a
+	 * new instance, notifying the listeners, as a single execution of the test
+	 * class; subclasses can use this method to split the tests of such a test
+	 * class among several threads, each chunk with its own instance.
+	 * 
+	 * @param testClass the test class, added with {@link #add(Supplier)}
+	 * @param from the index of the first test to execute
+	 * @param to the index after the last test to execute
+	 */
+	protected void executeTests(JnrTest testClass, int from, int to) {
+		var factory = testClassFactories.get(testClass);
+		var steps = getSteps(testClass);
+		var tests = JnrTestExecutionPlan.tests(testClass, steps).subList(from, to);
+		var description = testClass.getDescription();
+		var resources = JnrTestResourceLocks.resources(testClass, Stream.concat(
+			Arrays.stream(steps).filter(s -> s.kind() != JnrTestRunnableKind.TEST).map(Step::specification),
+			tests.stream().map(IndexedTest::specification)));
+		JnrTestResourceLocks.runWithLocks(testClass, resources, () -> {
+			notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.START));
+			var succeeded = true;
+			for (var step : JnrTestExecutionPlan.compile(factory.get(), tests)) {
+				succeeded &= executeSafely(step);
+			}
+			if (!succeeded) {
+				failedTestClasses.add(testClass);
+			}
+			notifyTestLifecycleEvent(new JnrTestLifecycleEvent(description, JnrTestStatus.END));
+		});
 	}
 
-	private void executeTestRunnables(JnrTestStore store) {
-		List<JnrTestRunnableSpecification> runnablesToExecute;
-		
-		Predicate<JnrTestRunnableSpecification> specFilter = filters.getSpecificationFilter();
-		if (specFilter == null) {
-			// No specification filtering needed, execute all test runnables
-			runnablesToExecute = store.getRunnableSpecifications();
-		} else {
-			// Apply specification filter
-			runnablesToExecute = store.getRunnableSpecifications().stream()
-					.filter(specFilter)
-					.toList();
-		}
-		
-		// Execute the filtered (or all) specifications
-		for (var runnableSpecification : runnablesToExecute) {
-			executeBeforeEach(store);
-			executeSafely(runnableSpecification, JnrTestRunnableKind.TEST,
-					d -> notifyTestResult(new JnrTestResult(d, JnrTestResultStatus.SUCCESS, null)));
-			executeAfterEach(store);
+	private Step[] getSteps(JnrTest testClass) {
+		var steps = getExecutionPlan().getSteps(testClass);
+		if (steps == null) {
+			// not part of the plan, e.g., filtered out
+			steps = JnrTestExecutionPlan.compile(testClass, filters.getSpecificationFilter(testClass));
 		}
+		return steps;
 	}
 
-	private void executeSafely(JnrTestRunnableSpecification testRunnableSpecification,
-			JnrTestRunnableKind kind,
-			Consumer<String> successConsumer) {
+	/**
+	 * Executes the step, notifying its result.
+	 * 
+	 * @return whether the step succeeded
+	 */
+	private boolean executeSafely(Step step) {
+		var kind = step.kind();
+		var testRunnableSpecification = step.specification();
 		var description = testRunnableSpecification.description();
-		var testRunnable = testRunnableSpecification.testRunnable();
 		try {
-			executeSafely(testRunnable, kind, description);
-			if (successConsumer != null) {
-				successConsumer.accept(description);
+			var benchmarkResult = executeSafely(testRunnableSpecification.testRunnable(), kind, description);
+			if (benchmarkResult != null) {
+				notifyBenchmarkResult(benchmarkResult);
+			}
+			if (kind == JnrTestRunnableKind.TEST) {
+				notifyTestResult(new JnrTestResult(description, JnrTestResultStatus.SUCCESS, null));
 			}
+			return true;
 		} catch (Exception e) {
 			notifyTestResult(new JnrTestResult(description, JnrTestResultStatus.ERROR, e));
 		} catch (AssertionError assertionError) {
 			notifyTestResult(new JnrTestResult(description, JnrTestResultStatus.FAILED, assertionError));
 		}
+		return false;
 	}
 
-	private void executeSafely(JnrTestRunnable testRunnable, JnrTestRunnableKind kind, String description) throws Exception {
+	/**
+	 * Runs the runnable, or measures it, if it is a benchmark.
+	 * 
+	 * @return the benchmark result, or null if the runnable is not a benchmark
+	 */
+	private JnrTestBenchmarkResult executeSafely(JnrTestRunnable testRunnable, JnrTestRunnableKind kind,
+			String description) throws Exception {
 		try {
 			notifyTestRunnableLifecycleEvent(
 					new JnrTestRunnableLifecycleEvent(description, kind, JnrTestRunnableStatus.START));
+			if (testRunnable instanceof JnrTestBenchmark benchmark) {
+				return benchmark.measure(description);
+			}
 			testRunnable.run();
+			return null;
 		} finally {
 			notifyTestRunnableLifecycleEvent(
 					new JnrTestRunnableLifecycleEvent(description, kind, JnrTestRunnableStatus.END));
@@ -204,6 +432,10 @@ public class JnrTestRunner {
 		listeners.forEach(l -> l.notify(result));
 	}
 
+	private void notifyBenchmarkResult(JnrTestBenchmarkResult result) {
+		listeners.forEach(l -> l.notify(result));
+	}
+
 	private void notifyTestRunnableLifecycleEvent(JnrTestRunnableLifecycleEvent event) {
 		listeners.forEach(l -> l.notify(event));
 	}
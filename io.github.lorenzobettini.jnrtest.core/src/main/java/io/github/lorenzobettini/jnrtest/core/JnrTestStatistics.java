@@ -10,6 +10,7 @@ public class JnrTestStatistics {
 	private int succeeded;
 	private int failed;
 	private int errors;
+	private int skipped;
 	private long startTime;
 	private long elapsedTime;
 	private long totalTime = 0;
@@ -22,6 +23,7 @@ public class JnrTestStatistics {
 		succeeded = 0;
 		failed = 0;
 		errors = 0;
+		skipped = 0;
 		totalTime = 0;
 	}
 
@@ -61,6 +63,13 @@ public class JnrTestStatistics {
 		errors++;
 	}
 
+	/**
+	 * Increments the count of skipped tests.
+	 */
+	public void incrementSkipped() {
+		skipped++;
+	}
+
 	/**
 	 * Gets the number of successful tests.
 	 * 
@@ -88,6 +97,15 @@ public class JnrTestStatistics {
 		return errors;
 	}
 
+	/**
+	 * Gets the number of skipped tests.
+	 * 
+	 * @return the number of tests that were skipped
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
 	/**
 	 * Gets the total number of tests executed.
 	 * 
@@ -1,7 +1,11 @@
 package io.github.lorenzobettini.jnrtest.core;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Stores the tests represented by {@link JnrTestRunnableSpecification}.
@@ -18,6 +22,10 @@ public class JnrTestStore {
 	private List<JnrTestRunnableSpecification> afterAllRunnables = new ArrayList<>();
 	private List<JnrTestRunnableSpecification> afterEachRunnables = new ArrayList<>();
 
+	private Map<String, JnrTestResourceMode> resourceLocks = new LinkedHashMap<>();
+
+	private Set<Class<? extends JnrTest>> dependencies = new LinkedHashSet<>();
+
 	/**
 	 * Creates a new empty test store.
 	 */
@@ -36,6 +44,37 @@ public class JnrTestStore {
 		runnableSpecifications.add(new JnrTestRunnableSpecification(description, testRunnable));
 	}
 
+	/**
+	 * Specify a benchmark, i.e., a test measuring the throughput of the given
+	 * operation, with the given description.
+	 * 
+	 * @param description The description of the benchmark
+	 * @param operation The operation to measure
+	 * @return The benchmark, which can be further configured
+	 */
+	public JnrTestBenchmark benchmark(String description, JnrTestBenchmarkRunnable operation) {
+		var benchmark = new JnrTestBenchmark(operation);
+		runnableSpecifications.add(new JnrTestRunnableSpecification(description, benchmark));
+		return benchmark;
+	}
+
+	/**
+	 * Specify a property, i.e., a test checking the given check on the inputs
+	 * created by the given generator, with the given description.
+	 * 
+	 * @param <T> The type of the inputs
+	 * @param description The description of the property
+	 * @param generator The generator of the inputs
+	 * @param check The check of an input
+	 * @return The property, which can be further configured
+	 */
+	public <T> JnrTestProperty<T> property(String description, JnrTestGenerator<T> generator,
+			JnrTestRunnableWithParameters<T> check) {
+		var property = new JnrTestProperty<>(generator, check);
+		runnableSpecifications.add(new JnrTestRunnableSpecification(description, property));
+		return property;
+	}
+
 	/**
 	 * Specifies a code to run before all tests.
 	 * 
@@ -76,6 +115,30 @@ public class JnrTestStore {
 		afterEachRunnables.add(new JnrTestRunnableSpecification(description, afterEachRunnable));
 	}
 
+	/**
+	 * Declares that the test class uses the given shared resource, in the given
+	 * mode; declaring the same resource again keeps the exclusive mode, if any.
+	 * 
+	 * @param resource The name of the resource, e.g., "system-properties"
+	 * @param mode How the resource is accessed
+	 * @throws IllegalArgumentException if the name of the resource is blank
+	 */
+	public void resourceLock(String resource, JnrTestResourceMode mode) {
+		JnrTestResourceLocks.checkResource(resource);
+		JnrTestResourceLocks.merge(resourceLocks, Map.of(resource, mode));
+	}
+
+	/**
+	 * Declares that the test class depends on the test classes of the given
+	 * type, which are executed before it; if any of them fails, the tests of
+	 * the test class are skipped.
+	 * 
+	 * @param testClass The type of the test classes this test class depends on
+	 */
+	public void dependsOn(Class<? extends JnrTest> testClass) {
+		dependencies.add(testClass);
+	}
+
 	/**
 	 * Gets the list of all runnable specifications (tests).
 	 * 
@@ -120,4 +183,22 @@ public class JnrTestStore {
 	public List<JnrTestRunnableSpecification> getAfterEachRunnables() {
 		return afterEachRunnables;
 	}
+
+	/**
+	 * Gets the shared resources used by the test class, with their modes.
+	 * 
+	 * @return the resources, in the order they have been declared
+	 */
+	public Map<String, JnrTestResourceMode> getResourceLocks() {
+		return resourceLocks;
+	}
+
+	/**
+	 * Gets the types of the test classes the test class depends on.
+	 * 
+	 * @return the types, in the order they have been declared
+	 */
+	public Set<Class<? extends JnrTest>> getDependencies() {
+		return dependencies;
+	}
 }
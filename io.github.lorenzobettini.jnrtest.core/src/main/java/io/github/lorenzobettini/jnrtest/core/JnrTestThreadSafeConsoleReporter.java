@@ -63,4 +63,10 @@ public class JnrTestThreadSafeConsoleReporter implements JnrTestReporterInterfac
 		JnrTestConsoleReporter reporter = currentReporter.get();
 		reporter.notify(result);
 	}
+
+	@Override
+	public void notify(JnrTestBenchmarkResult result) {
+		JnrTestConsoleReporter reporter = currentReporter.get();
+		reporter.notify(result);
+	}
 }
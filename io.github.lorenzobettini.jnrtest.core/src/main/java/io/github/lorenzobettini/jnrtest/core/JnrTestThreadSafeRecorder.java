@@ -1,6 +1,7 @@
 package io.github.lorenzobettini.jnrtest.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,7 +46,8 @@ public class JnrTestThreadSafeRecorder extends JnrTestListenerAdapter implements
 		}
 		String key = event.description();
 		currentKey.set(key);
-		results.computeIfAbsent(key, desc -> new ArrayList<>());
+		// synchronized, for the executions of a test class split among threads
+		results.computeIfAbsent(key, desc -> Collections.synchronizedList(new ArrayList<>()));
 	}
 
 	@Override
@@ -0,0 +1,24 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.util.concurrent.Executors;
+
+/**
+ * A specialized {@link JnrTestRunner} that executes each test class in its own
+ * virtual thread.
+ * <p>
+ * This is useful for test classes that mostly wait (e.g., on I/O), since the
+ * number of test classes executed concurrently is not bounded by the number of
+ * platform threads; a test class depending on other ones, declared with
+ * {@link JnrTest#dependsOn(Class)}, is started when they have been executed.
+ * 
+ * @author Lorenzo Bettini
+ */
+public class JnrTestVirtualThreadRunner extends JnrTestRunner {
+
+	@Override
+	public void execute() {
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			executeTestClasses(executor);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates a report of the results recorded by a {@link JnrTestRecorderInterface}
+ * in the XML format of JUnit reports, which is understood by most CI servers.
+ * <p>
+ * Each test class becomes a {@code testsuite} and each test specification
+ * becomes a {@code testcase}, with a nested {@code failure} or {@code error}
+ * element in case of failures or errors, or a nested {@code skipped} element
+ * for the tests skipped since a test class their test class depends on
+ * failed; the {@code skipped} counts are only present when there are skipped
+ * tests.
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestXmlReport {
+
+	/**
+	 * Creates the XML report for the results of the given recorder.
+	 *
+	 * @param recorder the recorder with the results
+	 * @return the XML report
+	 */
+	public String toXml(JnrTestRecorderInterface recorder) {
+		var xml = new StringBuilder();
+		var results = recorder.getResults();
+		var all = results.values().stream().flatMap(List::stream).toList();
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append(String.format("<testsuites tests=\"%d\" failures=\"%d\" errors=\"%d\"%s>%n",
+			all.size(), count(all, JnrTestResultStatus.FAILED), count(all, JnrTestResultStatus.ERROR),
+			skipped(all)));
+		for (Map.Entry<String, List<JnrTestResult>> entry : results.entrySet()) {
+			var classResults = entry.getValue();
+			xml.append(String.format("  <testsuite name=\"%s\" tests=\"%d\" failures=\"%d\" errors=\"%d\"%s>%n",
+				escape(entry.getKey()), classResults.size(),
+				count(classResults, JnrTestResultStatus.FAILED), count(classResults, JnrTestResultStatus.ERROR),
+				skipped(classResults)));
+			for (JnrTestResult result : classResults) {
+				appendTestCase(xml, entry.getKey(), result);
+			}
+			xml.append("  </testsuite>\n");
+		}
+		xml.append("</testsuites>\n");
+		return xml.toString();
+	}
+
+	/**
+	 * Writes the XML report for the results of the given recorder to the given file,
+	 * creating parent directories if needed.
+	 *
+	 * @param recorder the recorder with the results
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(JnrTestRecorderInterface recorder, Path file) throws IOException {
+		var parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Files.writeString(file, toXml(recorder), StandardCharsets.UTF_8);
+	}
+
+	private void appendTestCase(StringBuilder xml, String className, JnrTestResult result) {
+		var testCase = String.format("    <testcase classname=\"%s\" name=\"%s\"",
+			escape(className), escape(result.description()));
+		if (result.status() == JnrTestResultStatus.SUCCESS) {
+			xml.append(testCase).append("/>\n");
+			return;
+		}
+		if (result.status() == JnrTestResultStatus.SKIPPED) {
+			xml.append(testCase).append(">\n")
+				.append("      <skipped/>\n")
+				.append("    </testcase>\n");
+			return;
+		}
+		var element = result.status() == JnrTestResultStatus.FAILED ? "failure" : "error";
+		var throwable = result.throwable();
+		var stackTrace = new StringWriter();
+		throwable.printStackTrace(new PrintWriter(stackTrace));
+		xml.append(testCase).append(">\n")
+			.append(String.format("      <%s message=\"%s\" type=\"%s\">%s</%s>%n",
+				element, escape(String.valueOf(throwable.getMessage())), throwable.getClass().getName(),
+				escape(stackTrace.toString()), element))
+			.append("    </testcase>\n");
+	}
+
+	private static long count(List<JnrTestResult> results, JnrTestResultStatus status) {
+		return results.stream().filter(r -> r.status() == status).count();
+	}
+
+	private static String skipped(List<JnrTestResult> results) {
+		var skipped = count(results, JnrTestResultStatus.SKIPPED);
+		return skipped > 0 ? String.format(" skipped=\"%d\"", skipped) : "";
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;")
+			.replace("<", "&lt;")
+			.replace(">", "&gt;")
+			.replace("\"", "&quot;");
+	}
+}
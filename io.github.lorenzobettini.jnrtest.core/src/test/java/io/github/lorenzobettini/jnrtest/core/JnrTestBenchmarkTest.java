@@ -0,0 +1,174 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link JnrTestBenchmark}, {@link JnrTestBenchmarkResult} and
+ * {@link JnrTestBlackhole}.
+ */
+class JnrTestBenchmarkTest {
+
+	private static final long MILLIS = 1_000_000L;
+
+	@Test
+	@DisplayName("should have a default configuration")
+	void shouldHaveADefaultConfiguration() {
+		var benchmark = new JnrTestBenchmark(blackhole -> {});
+		assertThat(benchmark.getWarmupIterations()).isEqualTo(5);
+		assertThat(benchmark.getMeasurementIterations()).isEqualTo(10);
+		assertThat(benchmark.getIterationTime()).isEqualTo(Duration.ofMillis(100));
+		assertThat(benchmark
+				.withWarmupIterations(0)
+				.withMeasurementIterations(1)
+				.withIterationTime(Duration.ofNanos(1)))
+			.isSameAs(benchmark);
+		assertThat(benchmark.getWarmupIterations()).isZero();
+		assertThat(benchmark.getMeasurementIterations()).isEqualTo(1);
+		assertThat(benchmark.getIterationTime()).isEqualTo(Duration.ofNanos(1));
+	}
+
+	@Test
+	@DisplayName("should reject an invalid configuration")
+	void shouldRejectAnInvalidConfiguration() {
+		var benchmark = new JnrTestBenchmark(blackhole -> {});
+		assertThatThrownBy(() -> benchmark.withWarmupIterations(-1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid warm-up iterations: -1");
+		assertThatThrownBy(() -> benchmark.withMeasurementIterations(0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid measurement iterations: 0");
+		assertThatThrownBy(() -> benchmark.withIterationTime(Duration.ZERO))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid iteration time: PT0S");
+		assertThatThrownBy(() -> benchmark.withIterationTime(Duration.ofMillis(-1)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid iteration time: PT-0.001S");
+	}
+
+	@Test
+	@DisplayName("should measure the throughput after the warm-up")
+	void shouldMeasureTheThroughputAfterTheWarmUp() throws Exception {
+		// each operation takes 10 ms
+		var clock = new AtomicLong();
+		var operations = new AtomicLong();
+		var benchmark = new JnrTestBenchmark(blackhole -> {
+				operations.incrementAndGet();
+				clock.addAndGet(10 * MILLIS);
+			}, clock::get)
+			.withWarmupIterations(2)
+			.withMeasurementIterations(3)
+			// exactly the time of the first three batches: 1 + 2 + 4 operations
+			.withIterationTime(Duration.ofMillis(70));
+		var result = benchmark.measure("a benchmark");
+		assertThat(result.description()).isEqualTo("a benchmark");
+		assertThat(result.throughputs()).containsExactly(100.0, 100.0, 100.0);
+		assertThat(operations).hasValue(5 * 7);
+		// without a description, when simply run
+		benchmark.run();
+		assertThat(operations).hasValue(2 * 5 * 7);
+	}
+
+	@Test
+	@DisplayName("should run batches until the iteration time has elapsed")
+	void shouldRunBatchesUntilTheIterationTimeHasElapsed() throws Exception {
+		var clock = new AtomicLong();
+		var durations = new ArrayList<Long>(List.of(10L, 20L, 10L, 10L, 10L, 10L, 10L));
+		var result = new JnrTestBenchmark(blackhole -> clock.addAndGet(durations.remove(0) * MILLIS), clock::get)
+			.withWarmupIterations(0)
+			.withMeasurementIterations(2)
+			.withIterationTime(Duration.ofMillis(25))
+			.measure("a benchmark");
+		// 1 + 2 operations in 40 ms, then 1 + 2 operations in 30 ms
+		assertThat(result.throughputs()).containsExactly(75.0, 100.0);
+		assertThat(durations).containsExactly(10L);
+	}
+
+	@Test
+	@DisplayName("should propagate exceptions of the operation")
+	void shouldPropagateExceptionsOfTheOperation() {
+		var benchmark = new JnrTestBenchmark(blackhole -> {
+			throw new IllegalStateException("operation failed");
+		});
+		assertThatThrownBy(() -> benchmark.measure("a benchmark"))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("operation failed");
+	}
+
+	@Test
+	@DisplayName("should compute the statistics of the result")
+	void shouldComputeTheStatisticsOfTheResult() {
+		var throughputs = new ArrayList<>(List.of(1.0, 2.0, 3.0));
+		var result = new JnrTestBenchmarkResult("a benchmark", throughputs);
+		// defensive copy
+		throughputs.clear();
+		assertThat(result.throughputs()).containsExactly(1.0, 2.0, 3.0);
+		assertThat(result.mean()).isEqualTo(2.0);
+		assertThat(result.standardDeviation()).isEqualTo(1.0);
+		assertThat(result.error()).isCloseTo(4.303 / Math.sqrt(3), within(1e-9));
+		assertThat(result).hasToString(String.format("[BENCHMARK] a benchmark - Throughput: %.3f +- %.3f ops/s",
+			2.0, 4.303 / Math.sqrt(3)));
+	}
+
+	@Test
+	@DisplayName("should not compute the error with less than two iterations")
+	void shouldNotComputeTheErrorWithLessThanTwoIterations() {
+		var result = new JnrTestBenchmarkResult("a benchmark", List.of(5.0));
+		assertThat(result.mean()).isEqualTo(5.0);
+		assertThat(result.standardDeviation()).isNaN();
+		assertThat(result.error()).isNaN();
+		assertThat(new JnrTestBenchmarkResult("a benchmark", List.of()).mean()).isNaN();
+	}
+
+	@Test
+	@DisplayName("should use the critical values of the Student's t-distribution")
+	void shouldUseTheCriticalValuesOfTheStudentsTDistribution() {
+		assertThat(JnrTestBenchmarkResult.criticalValue(0)).isNaN();
+		assertThat(JnrTestBenchmarkResult.criticalValue(1)).isEqualTo(12.706);
+		assertThat(JnrTestBenchmarkResult.criticalValue(9)).isEqualTo(2.262);
+		assertThat(JnrTestBenchmarkResult.criticalValue(30)).isEqualTo(2.042);
+		// approximated beyond the table
+		assertThat(JnrTestBenchmarkResult.criticalValue(40)).isCloseTo(2.021, within(0.002));
+		assertThat(JnrTestBenchmarkResult.criticalValue(120)).isCloseTo(1.980, within(0.002));
+	}
+
+	@Test
+	@DisplayName("should consume primitive values")
+	void shouldConsumePrimitiveValues() {
+		var blackhole = new JnrTestBlackhole();
+		assertThatCode(() -> {
+			for (int i = 0; i < 3; i++) {
+				blackhole.consume(i);
+				blackhole.consume((long) i);
+				blackhole.consume((double) i);
+			}
+			blackhole.consume(true);
+			blackhole.consume(false);
+		}).doesNotThrowAnyException();
+	}
+
+	@Test
+	@DisplayName("should store consumed objects less and less frequently")
+	void shouldStoreConsumedObjectsLessAndLessFrequently() {
+		var blackhole = new JnrTestBlackhole();
+		var first = "first";
+		var second = "second";
+		var third = "third";
+		blackhole.consume(first);
+		assertThat(blackhole.getObject()).isNull();
+		blackhole.consume(second);
+		assertThat(blackhole.getObject()).isSameAs(second);
+		blackhole.consume(third);
+		assertThat(blackhole.getObject()).isSameAs(second);
+	}
+}
@@ -0,0 +1,167 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest.Pair;
+import io.github.lorenzobettini.jnrtest.core.JnrTest.Triple;
+
+/**
+ * Tests for {@link JnrTestCombinations}.
+ */
+class JnrTestCombinationsTest {
+
+	/**
+	 * The combinations of the values of the given dimensions missing from the
+	 * given rows.
+	 */
+	private static List<List<Object>> uncovered(List<List<Object>> rows, List<List<?>> dimensions, int i, int j) {
+		var covered = new HashSet<List<Object>>();
+		for (var row : rows) {
+			covered.add(List.of(row.get(i), row.get(j)));
+		}
+		var uncovered = new ArrayList<List<Object>>();
+		for (var first : dimensions.get(i)) {
+			for (var second : dimensions.get(j)) {
+				if (!covered.contains(List.of(first, second))) {
+					uncovered.add(List.of(first, second));
+				}
+			}
+		}
+		return uncovered;
+	}
+
+	private static List<Integer> values(int size) {
+		return IntStream.range(0, size).boxed().toList();
+	}
+
+	@Test
+	@DisplayName("should enumerate the cartesian product")
+	void shouldEnumerateTheCartesianProduct() {
+		var combinations = JnrTestCombinations.of(List.of("a", "b"), List.of(1, 2, 3));
+		assertThat(combinations.getStrength()).isEqualTo(JnrTestCombinations.ALL);
+		assertThat(combinations.stream())
+			.containsExactly(
+				List.of("a", 1), List.of("a", 2), List.of("a", 3),
+				List.of("b", 1), List.of("b", 2), List.of("b", 3));
+		assertThat(JnrTestCombinations.of(List.of("a", "b"), List.of(1, 2)).withStrength(2).stream())
+			.containsExactly(List.of("a", 1), List.of("a", 2), List.of("b", 1), List.of("b", 2));
+	}
+
+	@Test
+	@DisplayName("should enumerate the cartesian product lazily")
+	void shouldEnumerateTheCartesianProductLazily() {
+		var dimensions = Collections.nCopies(10, values(100));
+		assertThat(JnrTestCombinations.of(dimensions).stream().skip(100).limit(2))
+			.containsExactly(
+				List.of(0, 0, 0, 0, 0, 0, 0, 0, 1, 0),
+				List.of(0, 0, 0, 0, 0, 0, 0, 0, 1, 1));
+	}
+
+	@Test
+	@DisplayName("should cover all the pairs with fewer combinations")
+	void shouldCoverAllThePairsWithFewerCombinations() {
+		assertThat(JnrTestCombinations.of(List.of("a", "b"), List.of(1, 2), List.of(true, false))
+				.pairwise().stream())
+			.containsExactly(
+				List.of("a", 1, true), List.of("a", 2, false),
+				List.of("b", 1, false), List.of("b", 2, true));
+		List<List<?>> dimensions = List.of(values(3), values(5), values(2), values(4), values(3), values(2));
+		var combinations = JnrTestCombinations.of(dimensions).pairwise();
+		assertThat(combinations.getStrength()).isEqualTo(2);
+		var rows = combinations.stream().toList();
+		assertThat(rows).hasSizeLessThan(5 * 4 * 2).doesNotHaveDuplicates();
+		for (int i = 0; i < dimensions.size(); i++) {
+			for (int j = i + 1; j < dimensions.size(); j++) {
+				assertThat(uncovered(rows, dimensions, i, j)).isEmpty();
+			}
+		}
+		assertThat(combinations.stream().toList()).isEqualTo(rows);
+		assertThat(JnrTestCombinations.of(Collections.nCopies(10, List.of(false, true))).pairwise().stream())
+			.hasSizeLessThanOrEqualTo(12);
+	}
+
+	@Test
+	@DisplayName("should cover all the t-tuples")
+	void shouldCoverAllTheTTuples() {
+		var sizes = new int[] { 3, 2, 4, 3, 2 };
+		var rows = JnrTestCombinations.coveringArray(sizes, 3);
+		assertThat(rows).hasSizeLessThan(3 * 2 * 4 * 3 * 2);
+		for (int i = 0; i < sizes.length; i++) {
+			for (int j = i + 1; j < sizes.length; j++) {
+				for (int k = j + 1; k < sizes.length; k++) {
+					var tuples = new HashSet<List<Integer>>();
+					for (var row : rows) {
+						tuples.add(List.of(row[i], row[j], row[k]));
+					}
+					assertThat(tuples).hasSize(sizes[i] * sizes[j] * sizes[k]);
+				}
+			}
+		}
+		assertThat(JnrTestCombinations.coveringArray(sizes, 1)).hasSize(4);
+	}
+
+	@Test
+	@DisplayName("should have no combinations with an empty dimension")
+	void shouldHaveNoCombinationsWithAnEmptyDimension() {
+		assertThat(JnrTestCombinations.of(List.of("a"), List.of()).stream()).isEmpty();
+		assertThat(JnrTestCombinations.of(List.of("a"), List.of(), List.of(1)).pairwise().stream()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should reject an invalid configuration")
+	void shouldRejectAnInvalidConfiguration() {
+		assertThatThrownBy(() -> JnrTestCombinations.of())
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("No dimensions");
+		var combinations = JnrTestCombinations.of(List.of("a"));
+		assertThatThrownBy(() -> combinations.withStrength(-1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid strength: -1");
+	}
+
+	@Test
+	@DisplayName("should execute tests with combinations")
+	void shouldExecuteTestsWithCombinations() {
+		var recorder = new JnrTestRecorder();
+		var pairs = new ArrayList<Pair<String, Integer>>();
+		var triples = new ArrayList<Triple<String, Integer, Boolean>>();
+		new JnrTestRunner()
+			.testListener(recorder)
+			.add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					testWithCombinations("pair ", List.of("a", "b"), List.of(1, 2), pairs::add);
+					testWithCombinations("triple ", 2, List.of("a", "b"), List.of(1, 2), List.of(true, false),
+						triples::add);
+					testWithCombinations("list ",
+						JnrTestCombinations.of(List.of("a"), List.of(1), List.of(true), List.of('c')),
+						values -> assertThat(values).hasSize(4));
+				}
+			})
+			.execute();
+		assertThat(recorder.getResults().get("a test class"))
+			.extracting(JnrTestResult::toString)
+			.containsExactlyElementsOf(List.of(
+				"[SUCCESS] pair (a,1)",
+				"[SUCCESS] pair (a,2)",
+				"[SUCCESS] pair (b,1)",
+				"[SUCCESS] pair (b,2)",
+				"[SUCCESS] triple (a,1,true)",
+				"[SUCCESS] triple (a,2,false)",
+				"[SUCCESS] triple (b,1,false)",
+				"[SUCCESS] triple (b,2,true)",
+				"[SUCCESS] list (a,1,true,c)"));
+		assertThat(pairs).extracting(Pair::toString).containsExactly("(a,1)", "(a,2)", "(b,1)", "(b,2)");
+		assertThat(triples).extracting(Triple::second).containsExactly(1, 2, 1, 2);
+	}
+}
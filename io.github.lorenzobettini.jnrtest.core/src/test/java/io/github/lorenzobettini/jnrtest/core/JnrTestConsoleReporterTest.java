@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -392,4 +393,29 @@ class JnrTestConsoleReporterTest {
 		assertThat(output).containsPattern("Time elapsed: 0\\.[0-9][0-9]*");
 	}
 
+	@Test
+	@DisplayName("should report benchmark results unless only summaries are reported")
+	void shouldReportBenchmarkResultsUnlessOnlySummariesAreReported() {
+		var result = new JnrTestBenchmarkResult("a benchmark", List.of(1.0, 2.0, 3.0));
+		var reporter = new JnrTestConsoleReporter();
+		reporter.notify(result);
+		reporter.withOnlySummaries(true).notify(result);
+		assertEquals(result + "\n", getOutContent());
+	}
+
+	@Test
+	@DisplayName("should report skipped tests")
+	void shouldReportSkippedTests() {
+		var testReporter = new JnrTestConsoleReporter();
+		testReporter.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.START));
+		testReporter.notify(new JnrTestResult("a skipped test", JnrTestResultStatus.SKIPPED, null));
+		testReporter.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.END));
+		assertEquals("""
+			[  START] a test class
+			[SKIPPED] a skipped test
+			Tests run: 0, Succeeded: 0, Failures: 0, Errors: 0, Skipped: 1
+			""",
+			getOutContent());
+		assertThat(getErrContent()).isEmpty();
+	}
 }
@@ -0,0 +1,118 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static io.github.lorenzobettini.jnrtest.core.JnrTestFlightRecorderListener.TEST_CLASS;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestFlightRecorderListener.TEST_RESULT;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestFlightRecorderListener.TEST_RUNNABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for {@link JnrTestFlightRecorderListener}.
+ */
+class JnrTestFlightRecorderListenerTest {
+
+	private static final Path OUTPUT = Path.of("target", "flight-recorder-listener-test");
+
+	@Test
+	@DisplayName("should emit events for test classes, tests, hooks and results")
+	void shouldEmitEventsForTestClassesTestsHooksAndResults() throws IOException {
+		var runner = new JnrTestRunner()
+			.testListener(new JnrTestFlightRecorderListener())
+			.add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					beforeEach("before each", () -> {});
+					test("success test", () -> Thread.sleep(10));
+					test("failed test", () -> {
+						throw new AssertionError("expected failure");
+					});
+				}
+			});
+		var events = record("all", runner::execute);
+		assertThat(events)
+			.filteredOn(e -> e.getEventType().getName().equals(TEST_CLASS))
+			.extracting(e -> e.getString("testClass"))
+			.containsExactly("a test class");
+		assertThat(events)
+			.filteredOn(e -> e.getEventType().getName().equals(TEST_RUNNABLE))
+			.extracting(e -> e.getString("testClass"), e -> e.getString("description"), e -> e.getString("kind"))
+			.containsExactly(
+				tuple("a test class", "before each", "BEFORE_EACH"),
+				tuple("a test class", "success test", "TEST"),
+				tuple("a test class", "before each", "BEFORE_EACH"),
+				tuple("a test class", "failed test", "TEST"));
+		assertThat(events)
+			.filteredOn(e -> e.getEventType().getName().equals(TEST_RESULT))
+			.extracting(e -> e.getString("testClass"), e -> e.getString("description"), e -> e.getString("status"),
+				e -> e.getString("throwable"), e -> e.getString("message"))
+			.containsExactly(
+				tuple("a test class", "success test", "SUCCESS", null, null),
+				tuple("a test class", "failed test", "FAILED", AssertionError.class.getName(), "expected failure"));
+		assertThat(events)
+			.filteredOn(e -> e.getEventType().getName().equals(TEST_RUNNABLE))
+			.filteredOn(e -> e.getString("description").equals("success test"))
+			.allSatisfy(e -> assertThat(e.getDuration()).isGreaterThanOrEqualTo(Duration.ofMillis(10)));
+		// the test class lasts at least as long as its tests and hooks
+		var testClassEvent = events.stream()
+			.filter(e -> e.getEventType().getName().equals(TEST_CLASS))
+			.findFirst().orElseThrow();
+		assertThat(events)
+			.filteredOn(e -> e.getEventType().getName().equals(TEST_RUNNABLE))
+			.allSatisfy(e -> {
+				assertThat(e.getStartTime()).isAfterOrEqualTo(testClassEvent.getStartTime());
+				assertThat(e.getEndTime()).isBeforeOrEqualTo(testClassEvent.getEndTime());
+			});
+	}
+
+	@Test
+	@DisplayName("should not create events when recording is off")
+	void shouldNotCreateEventsWhenRecordingIsOff() throws IOException {
+		var listener = new JnrTestFlightRecorderListener();
+		var throwable = mock(RuntimeException.class);
+		// started before the recording: neither emitted later
+		listener.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.START));
+		listener.notify(new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.START));
+		listener.notify(new JnrTestResult("a test", JnrTestResultStatus.ERROR, throwable));
+		verifyNoInteractions(throwable);
+		var events = record("off", () -> {
+			listener.notify(new JnrTestRunnableLifecycleEvent("a test", JnrTestRunnableKind.TEST, JnrTestRunnableStatus.END));
+			listener.notify(new JnrTestResult("a test", JnrTestResultStatus.SUCCESS, null));
+			listener.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.END));
+		});
+		assertThat(events)
+			.extracting(e -> e.getEventType().getName(), e -> e.getString("testClass"))
+			.containsExactly(tuple(TEST_RESULT, "a test class"));
+	}
+
+	private static List<RecordedEvent> record(String name, Runnable runnable) throws IOException {
+		var file = OUTPUT.resolve(name + ".jfr");
+		Files.createDirectories(OUTPUT);
+		try (var recording = new Recording()) {
+			for (var event : List.of(TEST_CLASS, TEST_RUNNABLE, TEST_RESULT)) {
+				recording.enable(event).withThreshold(Duration.ZERO);
+			}
+			recording.start();
+			runnable.run();
+			recording.stop();
+			recording.dump(file);
+		}
+		return RecordingFile.readAllEvents(file).stream()
+			.filter(e -> e.getEventType().getName().startsWith("io.github.lorenzobettini.jnrtest."))
+			.toList();
+	}
+}
@@ -0,0 +1,177 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.booleans;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.constant;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.doubles;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.integers;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.lists;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.longs;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.oneOf;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.pairs;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.strings;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.triples;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest.Pair;
+import io.github.lorenzobettini.jnrtest.core.JnrTest.Triple;
+
+/**
+ * Tests for {@link JnrTestGenerator}.
+ */
+class JnrTestGeneratorTest {
+
+	private static <T> List<T> generate(JnrTestGenerator<T> generator, long seed, int count) {
+		var random = new SplittableRandom(seed);
+		var values = new ArrayList<T>();
+		for (int i = 0; i < count; i++) {
+			values.add(generator.generate(random));
+		}
+		return values;
+	}
+
+	@Test
+	@DisplayName("should generate the same values with the same seed")
+	void shouldGenerateTheSameValuesWithTheSameSeed() {
+		var generator = lists(integers(-100, 100), 0, 10);
+		assertThat(generate(generator, 42, 100))
+			.isEqualTo(generate(generator, 42, 100))
+			.isNotEqualTo(generate(generator, 43, 100));
+	}
+
+	@Test
+	@DisplayName("should generate numbers in their ranges")
+	void shouldGenerateNumbersInTheirRanges() {
+		assertThat(generate(integers(-3, 3), 1, 1000))
+			.allSatisfy(i -> assertThat(i).isBetween(-3, 3))
+			.contains(-3, 3);
+		assertThat(generate(integers(Integer.MIN_VALUE, Integer.MAX_VALUE), 1, 10)).doesNotHaveDuplicates();
+		assertThat(generate(integers(7, 7), 1, 10)).containsOnly(7);
+		assertThat(generate(longs(-3, 3), 1, 1000))
+			.allSatisfy(l -> assertThat(l).isBetween(-3L, 3L))
+			.contains(-3L, 3L);
+		assertThat(generate(longs(Long.MAX_VALUE - 1, Long.MAX_VALUE), 1, 1000))
+			.containsOnly(Long.MAX_VALUE - 1, Long.MAX_VALUE)
+			.contains(Long.MAX_VALUE);
+		assertThat(generate(longs(Long.MIN_VALUE, Long.MAX_VALUE), 1, 10)).doesNotHaveDuplicates();
+		assertThat(generate(doubles(-1.5, 2.5), 1, 1000))
+			.allSatisfy(d -> assertThat(d).isGreaterThanOrEqualTo(-1.5).isLessThan(2.5));
+	}
+
+	@Test
+	@DisplayName("should reject invalid ranges")
+	void shouldRejectInvalidRanges() {
+		assertThatThrownBy(() -> integers(1, 0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid range: [1, 0]");
+		assertThatThrownBy(() -> longs(1, 0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid range: [1, 0]");
+		assertThatThrownBy(() -> doubles(1.0, 1.0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid range: [1.0, 1.0)");
+		assertThatThrownBy(() -> doubles(Double.NaN, 1.0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid range: [NaN, 1.0)");
+		assertThatThrownBy(() -> lists(booleans(), -1, 1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid sizes: [-1, 1]");
+		assertThatThrownBy(() -> lists(booleans(), 2, 1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid sizes: [2, 1]");
+		assertThatThrownBy(() -> oneOf(List.of()))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("No values");
+		assertThatThrownBy(() -> strings("", 0, 1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("No values");
+	}
+
+	@Test
+	@DisplayName("should shrink numbers towards 0 or the closest bound")
+	void shouldShrinkNumbersTowards0OrTheClosestBound() {
+		assertThat(integers(-100, 100).shrink(10)).containsExactly(0, 5, 8, 9);
+		assertThat(integers(-5, 5).shrink(-5)).containsExactly(0, -3, -4);
+		assertThat(integers(3, 10).shrink(10)).containsExactly(3, 7, 9);
+		assertThat(integers(-10, -3).shrink(-10)).containsExactly(-3, -7, -9);
+		assertThat(integers(-5, 5).shrink(0)).isEmpty();
+		assertThat(longs(Long.MIN_VALUE, Long.MAX_VALUE).shrink(Long.MIN_VALUE)).startsWith(0L)
+			.endsWith(Long.MIN_VALUE + 1);
+		assertThat(longs(Long.MAX_VALUE - 1, Long.MAX_VALUE).shrink(Long.MAX_VALUE))
+			.containsExactly(Long.MAX_VALUE - 1);
+		assertThat(doubles(-10, 10).shrink(7.3)).containsExactly(0.0, 7.0, 3.65);
+		assertThat(doubles(-10, 10).shrink(-7.0)).containsExactly(0.0, -3.5);
+		assertThat(doubles(2, 10).shrink(3.5)).containsExactly(2.0, 3.0, 2.75);
+		assertThat(doubles(-10, -2).shrink(-2.5))
+			.containsExactly(Math.nextDown(-2.0), (-2.5 + Math.nextDown(-2.0)) / 2);
+		assertThat(doubles(-10, 10).shrink(0.0)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should generate and shrink booleans, constants and values")
+	void shouldGenerateAndShrinkBooleansConstantsAndValues() {
+		assertThat(generate(booleans(), 1, 100)).contains(true, false);
+		assertThat(booleans().shrink(true)).containsExactly(false);
+		assertThat(booleans().shrink(false)).isEmpty();
+		assertThat(generate(constant("a"), 1, 10)).containsOnly("a");
+		assertThat(constant("a").shrink("a")).isEmpty();
+		assertThat(generate(oneOf("a", "b", "c"), 1, 100)).containsOnly("a", "b", "c").contains("a", "b", "c");
+		assertThat(oneOf("a", "b", "c").shrink("c")).containsExactly("a", "b");
+		assertThat(oneOf("a", "b", "c").shrink("a")).isEmpty();
+		assertThat(oneOf("a", "b", "c").shrink("d")).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should generate and shrink lists and strings")
+	void shouldGenerateAndShrinkListsAndStrings() {
+		assertThat(generate(lists(integers(0, 9), 1, 3), 1, 100))
+			.allSatisfy(l -> assertThat(l).hasSizeBetween(1, 3).allSatisfy(i -> assertThat(i).isBetween(0, 9)));
+		var list = lists(integers(0, 9), 1, 3).generate(new SplittableRandom(1));
+		assertThatThrownBy(() -> list.add(1)).isInstanceOf(UnsupportedOperationException.class);
+		assertThat(lists(integers(0, 3), 1, 3).shrink(List.of(2, 3)))
+			.containsExactly(List.of(2), List.of(3), List.of(0, 3), List.of(1, 3), List.of(2, 0), List.of(2, 2));
+		assertThat(lists(integers(0, 3), 2, 3).shrink(List.of(0, 0))).isEmpty();
+		assertThat(generate(strings("ab", 2, 4), 1, 100))
+			.allSatisfy(s -> assertThat(s).hasSizeBetween(2, 4).matches("[ab]+"));
+		assertThat(strings("abc", 0, 5).shrink("ca")).containsExactly("", "a", "c", "aa", "ba");
+	}
+
+	@Test
+	@DisplayName("should generate and shrink pairs and triples")
+	void shouldGenerateAndShrinkPairsAndTriples() {
+		assertThat(generate(pairs(integers(0, 3), constant("a")), 1, 10))
+			.allSatisfy(p -> assertThat(p.first()).isBetween(0, 3))
+			.extracting(Pair::second).containsOnly("a");
+		assertThat(pairs(integers(0, 10), booleans()).shrink(Pair.pair(2, true)))
+			.extracting(Pair::toString)
+			.containsExactly("(0,true)", "(1,true)", "(2,false)");
+		assertThat(generate(triples(integers(0, 3), constant("a"), booleans()), 1, 10))
+			.extracting(Triple::second).containsOnly("a");
+		assertThat(triples(integers(0, 10), oneOf("a", "b"), booleans()).shrink(Triple.triple(1, "b", true)))
+			.extracting(Triple::toString)
+			.containsExactly("(0,b,true)", "(1,a,true)", "(1,b,false)");
+	}
+
+	@Test
+	@DisplayName("should map and filter generators")
+	void shouldMapAndFilterGenerators() {
+		var mapped = integers(0, 9).map(i -> "#" + i);
+		assertThat(generate(mapped, 1, 100)).allSatisfy(s -> assertThat(s).matches("#[0-9]"));
+		assertThat(mapped.shrink("#9")).isEmpty();
+		var even = integers(0, 10).filter(i -> i % 2 == 0);
+		assertThat(generate(even, 1, 100)).allSatisfy(i -> assertThat(i % 2).isZero());
+		assertThat(even.shrink(9)).containsExactly(0, 8);
+		var impossible = integers(0, 10).filter(i -> i > 10);
+		var random = new SplittableRandom(1);
+		assertThatThrownBy(() -> impossible.generate(random))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("No value satisfying the filter after 1000 attempts");
+	}
+}
@@ -0,0 +1,134 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that the core classes can be compiled with GraalVM native-image
+ * without any reachability metadata, that is, that they do not use APIs
+ * requiring reflection configuration.
+ */
+class JnrTestNativeImageTest {
+
+	// the methods of Class and ClassLoader requiring reachability metadata
+	private static final Set<String> REFLECTIVE_METHODS = Set.of(
+		"forName",
+		"newInstance",
+		"getDeclaredMethod",
+		"getDeclaredMethods",
+		"getDeclaredField",
+		"getDeclaredFields",
+		"getDeclaredConstructor",
+		"getDeclaredConstructors",
+		"getMethod",
+		"getMethods",
+		"getField",
+		"getFields",
+		"getConstructor",
+		"getConstructors",
+		"getResource",
+		"getResourceAsStream",
+		"getResources",
+		"loadClass");
+
+	@Test
+	void shouldProvideNativeImageProperties() throws IOException {
+		try (var properties = JnrTest.class.getResourceAsStream(
+				"/META-INF/native-image/io.github.lorenzobettini.jnrtest/io.github.lorenzobettini.jnrtest.core/native-image.properties")) {
+			assertThat(properties).isNotNull();
+			assertThat(new String(properties.readAllBytes(), StandardCharsets.UTF_8))
+				.contains("--initialize-at-run-time=io.github.lorenzobettini.jnrtest.core.JnrTest$TimeoutGuard");
+		}
+	}
+
+	@Test
+	void shouldNotUseReflectiveApis() throws IOException, URISyntaxException {
+		var classesDir = Path.of(JnrTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		List<Path> classFiles;
+		try (var walk = Files.walk(classesDir)) {
+			classFiles = walk.filter(p -> p.toString().endsWith(".class")).toList();
+		}
+		assertThat(classFiles).isNotEmpty();
+		for (var classFile : classFiles) {
+			assertThat(reflectiveMethods(classFile))
+				.as(classFile.toString())
+				.isEmpty();
+		}
+	}
+
+	@Test
+	void shouldDetectReflectiveApis() throws IOException, URISyntaxException {
+		// this test class loads a resource, while names such as getResourceLocks are fine
+		var classFile = Path.of(JnrTestNativeImageTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+			.resolve(JnrTestNativeImageTest.class.getName().replace('.', '/') + ".class");
+		assertThat(reflectiveMethods(classFile))
+			.containsExactly("java/lang/Class.getResourceAsStream");
+	}
+
+	/**
+	 * Parses the constant pool of the given class file and returns the referenced
+	 * methods, as "owner.name", that require reflection configuration: the ones
+	 * of java.lang.reflect and java.util.ServiceLoader, and the reflective ones of
+	 * Class and ClassLoader.
+	 */
+	private static List<String> reflectiveMethods(Path classFile) throws IOException {
+		try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(classFile)))) {
+			input.readInt(); // magic
+			input.readUnsignedShort(); // minor version
+			input.readUnsignedShort(); // major version
+			int count = input.readUnsignedShort();
+			var utf8 = new String[count];
+			var first = new int[count];
+			var second = new int[count];
+			var methodRefs = new ArrayList<Integer>();
+			for (int i = 1; i < count; i++) {
+				int tag = input.readUnsignedByte();
+				switch (tag) {
+				case 1 -> utf8[i] = input.readUTF();
+				case 7, 8, 16, 19, 20 -> first[i] = input.readUnsignedShort();
+				case 15 -> {
+					input.readUnsignedByte();
+					input.readUnsignedShort();
+				}
+				case 3, 4 -> input.readInt();
+				case 5, 6 -> {
+					input.readLong();
+					i++; // takes two entries
+				}
+				case 9, 10, 11, 12, 17, 18 -> {
+					first[i] = input.readUnsignedShort();
+					second[i] = input.readUnsignedShort();
+					if (tag == 10 || tag == 11) {
+						methodRefs.add(i);
+					}
+				}
+				default -> throw new IOException("Invalid constant pool tag " + tag + " in " + classFile);
+				}
+			}
+			var result = new ArrayList<String>();
+			for (int ref : methodRefs) {
+				var owner = utf8[first[first[ref]]];
+				var name = utf8[first[second[ref]]];
+				if (owner.startsWith("java/lang/reflect/") || owner.equals("java/util/ServiceLoader")
+						|| ((owner.equals("java/lang/Class") || owner.equals("java/lang/ClassLoader"))
+							&& REFLECTIVE_METHODS.contains(name))) {
+					result.add(owner + "." + name);
+				}
+			}
+			return result;
+		}
+	}
+
+}
@@ -5,6 +5,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -122,6 +130,96 @@ class JnrTestParallelRunnerTest {
 		assertThat(aggregatedResults.toString()).contains("s");
 	}
 
+	@Test
+	@DisplayName("should run in a dedicated pool with the given parallelism")
+	void shouldRunInDedicatedPool() throws InterruptedException {
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		var runner = new JnrTestParallelRunner(2);
+		for (int i = 0; i < 10; i++) {
+			runner.add(new JnrTest("a test class " + i) {
+				@Override
+				protected void specify() {
+					test("success test", () -> threads.add(Thread.currentThread()));
+				}
+			});
+		}
+		runner.execute();
+		assertThat(runner.getParallelism()).isEqualTo(2);
+		assertThat(threads)
+			.isNotEmpty()
+			.hasSizeLessThanOrEqualTo(2)
+			.allSatisfy(t -> assertThat(t.getName())
+				.startsWith("ForkJoinPool-")
+				.doesNotContain("commonPool"));
+		// the dedicated pool is shut down after the execution
+		for (var thread : threads) {
+			thread.join(10000);
+			assertThat(thread.isAlive()).isFalse();
+		}
+	}
+
+	@Test
+	@DisplayName("should run in the common pool by default")
+	void shouldRunInCommonPoolByDefault() {
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		var runner = new JnrTestParallelRunner();
+		for (int i = 0; i < 10; i++) {
+			runner.add(new JnrTest("a test class " + i) {
+				@Override
+				protected void specify() {
+					test("success test", () -> threads.add(Thread.currentThread()));
+				}
+			});
+		}
+		runner.execute();
+		assertThat(runner.getParallelism()).isZero();
+		assertThat(threads)
+			.isNotEmpty()
+			.allSatisfy(t -> assertThat(t.getName()).doesNotStartWith("ForkJoinPool-"));
+	}
+
+	@Test
+	@DisplayName("should split tests created per test among threads")
+	void shouldSplitTestsCreatedPerTestAmongThreads() {
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		Set<JnrTest> instances = ConcurrentHashMap.newKeySet();
+		var recorder = new JnrTestThreadSafeRecorder();
+		new JnrTestParallelRunner(4)
+			.testListener(recorder)
+			.add(() -> {
+				var testClass = new JnrTest("a test class") {
+					private String current;
+
+					@Override
+					protected void specify() {
+						beforeEach("before each", () -> current = null);
+						for (int i = 0; i < 20; i++) {
+							var value = "value " + i;
+							test("test " + i, () -> {
+								threads.add(Thread.currentThread());
+								current = value;
+								Thread.sleep(5); // NOSONAR
+								assertThat(current).isEqualTo(value);
+							});
+						}
+					}
+				};
+				instances.add(testClass);
+				return testClass;
+			})
+			.execute();
+		assertThat(recorder.isSuccess()).isTrue();
+		assertThat(recorder.getResults().get("a test class"))
+			.hasSize(20)
+			.extracting(JnrTestResult::description)
+			.containsExactlyInAnyOrderElementsOf(IntStream.range(0, 20).mapToObj(i -> "test " + i).toList());
+		// the first instance, and a new one for each of the 4 chunks
+		assertThat(instances).hasSize(5);
+		if (Runtime.getRuntime().availableProcessors() > 1) {
+			assertThat(threads).hasSizeGreaterThan(1);
+		}
+	}
+
 	private String getOutContent() {
 		return outContent.toString().replace("\r", "");
 	}
@@ -130,4 +228,79 @@ class JnrTestParallelRunnerTest {
 		return errContent.toString().replace("\r", "");
 	}
 
+	@Test
+	@DisplayName("should execute independent test classes in parallel after the ones they depend on")
+	void shouldExecuteIndependentTestClassesInParallelAfterTheOnesTheyDependOn() {
+		var smokeExecuted = new AtomicBoolean();
+		class Smoke extends JnrTest {
+			Smoke() {
+				super("smoke");
+			}
+
+			@Override
+			protected void specify() {
+				test("test", () -> {
+					Thread.sleep(10); // NOSONAR
+					smokeExecuted.set(true);
+				});
+			}
+		}
+		// both dependents must be executing at the same time to pass the barrier
+		var barrier = new CyclicBarrier(2);
+		var recorder = new JnrTestThreadSafeRecorder();
+		var runner = new JnrTestParallelRunner(2).testListener(recorder);
+		IntStream.range(0, 2).forEach(i -> runner.add(new JnrTest("dependent " + i) {
+			@Override
+			protected void specify() {
+				dependsOn(Smoke.class);
+				test("test", () -> {
+					assertThat(smokeExecuted).isTrue();
+					barrier.await(5, TimeUnit.SECONDS);
+				});
+			}
+		}));
+		runner.add(new Smoke());
+		runner.execute();
+		assertThat(recorder.getResults().values().stream().flatMap(List::stream))
+			.extracting(JnrTestResult::status)
+			.containsOnly(JnrTestResultStatus.SUCCESS)
+			.hasSize(3);
+	}
+
+	@Test
+	@DisplayName("should skip test classes depending on failed ones")
+	void shouldSkipTestClassesDependingOnFailedOnes() {
+		class Smoke extends JnrTest {
+			Smoke() {
+				super("smoke");
+			}
+
+			@Override
+			protected void specify() {
+				test("test", () -> {
+					throw new IllegalStateException("smoke error");
+				});
+			}
+		}
+		var executed = new AtomicInteger();
+		var recorder = new JnrTestThreadSafeRecorder();
+		new JnrTestParallelRunner(4)
+			.testListener(recorder)
+			.add(() -> new JnrTest("a test class with a new instance for each test") {
+				@Override
+				protected void specify() {
+					dependsOn(Smoke.class);
+					for (int i = 0; i < 4; i++) {
+						test("test " + i, executed::incrementAndGet);
+					}
+				}
+			})
+			.add(new Smoke())
+			.execute();
+		assertThat(executed).hasValue(0);
+		assertThat(recorder.getResults().get("a test class with a new instance for each test"))
+			.extracting(JnrTestResult::status)
+			.containsOnly(JnrTestResultStatus.SKIPPED)
+			.hasSize(4);
+	}
 }
@@ -0,0 +1,180 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link JnrTestParameterSource}.
+ */
+class JnrTestParameterSourceTest {
+
+	private static final String CSV = "name,value\r\n\"x, y\",1\n\n\"multi\nline \"\"quoted\"\"\",2\nè,\nlast,3";
+
+	private static Path file(String name, String contents) throws IOException {
+		var file = Path.of("target", "parameter-source-test", name);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, contents);
+		return file;
+	}
+
+	private static <T> List<T> read(JnrTestParameterSource<T> source) {
+		try (var rows = source.stream()) {
+			return rows.toList();
+		}
+	}
+
+	@Test
+	@DisplayName("should read CSV files")
+	void shouldReadCSVFiles() throws IOException {
+		var source = JnrTestParameterSource.csv(file("test.csv", CSV));
+		var expected = List.of(
+			List.of("name", "value"),
+			List.of("x, y", "1"),
+			List.of("multi\nline \"quoted\"", "2"),
+			List.of("è", ""),
+			List.of("last", "3"));
+		assertThat(read(source)).isEqualTo(expected);
+		// rows crossing the memory-mapped windows
+		assertThat(read(source.withWindowSize(1))).isEqualTo(expected);
+		assertThat(read(source.withWindowSize(7))).isEqualTo(expected);
+		assertThat(read(JnrTestParameterSource.csv(file("test.tsv", "a\tb;c\n\"d\"\t\n"), '\t')))
+			.containsExactly(List.of("a", "b;c"), List.of("d", ""));
+		assertThat(read(JnrTestParameterSource.csv(file("empty.csv", "")))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should skip and map rows")
+	void shouldSkipAndMapRows() throws IOException {
+		var source = JnrTestParameterSource.csv(file("test.csv", CSV));
+		assertThat(read(source.skip(1).map(row -> row.get(1)))).containsExactly("1", "2", "", "3");
+		assertThat(read(source.skip(1).skip(3))).containsExactly(List.of("last", "3"));
+		assertThat(read(source.skip(10))).isEmpty();
+		assertThat(source).hasToString("test.csv");
+		assertThat(source.skip(1).getFile()).isEqualTo(Path.of("target", "parameter-source-test", "test.csv"));
+	}
+
+	@Test
+	@DisplayName("should read JSON Lines files")
+	void shouldReadJSONLinesFiles() throws IOException {
+		var source = JnrTestParameterSource.jsonLines(file("test.jsonl",
+			"{\"a\": 1, \"b\": [true, false, null, -2.5e1], \"c\": {\"d\": \"\\u00e8\\n\\\"\"}}\r\n"
+			+ "\n"
+			+ "  { }  \n"
+			+ "{\"big\": 123456789012345678901234, \"empty\": []}"));
+		var expected = List.of(
+			Map.of("a", 1L, "b", Arrays.asList(true, false, null, -25.0), "c", Map.of("d", "è\n\"")),
+			Map.of(),
+			Map.of("big", 123456789012345678901234.0, "empty", List.of()));
+		assertThat(read(source)).isEqualTo(expected);
+		assertThat(read(source.withWindowSize(5))).isEqualTo(expected);
+	}
+
+	@Test
+	@DisplayName("should read fixed-width files")
+	void shouldReadFixedWidthFiles() throws IOException {
+		var source = JnrTestParameterSource.fixedWidth(file("test.txt", "ab   12345ignored\nc  7\r\n"), 5, 5);
+		assertThat(read(source)).containsExactly(List.of("ab", "12345"), List.of("c  7", ""));
+	}
+
+	@Test
+	@DisplayName("should report invalid rows")
+	void shouldReportInvalidRows() throws IOException {
+		var invalid = List.of(
+			"{\"a\" 1}", "{\"a\": tru}", "{\"a\": 1} x", "[1]", "{\"a\": \"\\x\"}", "{\"a\": 1,}", "{\"a\": -}");
+		var messages = new ArrayList<String>();
+		for (var row : invalid) {
+			var source = JnrTestParameterSource.jsonLines(file("invalid.jsonl", "{}\n" + row + "\n"));
+			assertThatThrownBy(() -> read(source))
+				.isInstanceOf(IllegalStateException.class)
+				.satisfies(e -> messages.add(e.getMessage()));
+		}
+		var prefix = "Invalid row 2 of " + Path.of("target", "parameter-source-test", "invalid.jsonl") + ": ";
+		assertThat(messages).containsExactly(
+			prefix + "Invalid JSON at column 6: expected ':'",
+			prefix + "Invalid JSON at column 7: expected a value",
+			prefix + "Invalid JSON at column 10: expected end of line",
+			prefix + "Invalid JSON at column 1: expected '{'",
+			prefix + "Invalid JSON at column 9: expected an escape",
+			prefix + "Invalid JSON at column 9: expected a string",
+			prefix + "Invalid JSON at column 7: expected a value");
+		var csv = JnrTestParameterSource.csv(file("invalid.csv", "a,\"b\n"));
+		assertThatThrownBy(() -> read(csv))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageEndingWith("invalid.csv: Unterminated quoted field");
+		var missing = JnrTestParameterSource.csv(Path.of("target", "missing.csv"));
+		assertThatThrownBy(missing::stream)
+			.isInstanceOf(UncheckedIOException.class);
+	}
+
+	@Test
+	@DisplayName("should reject an invalid configuration")
+	void shouldRejectAnInvalidConfiguration() {
+		var file = Path.of("target", "test.csv");
+		assertThatThrownBy(() -> JnrTestParameterSource.csv(file, '"'))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid delimiter: \"");
+		assertThatThrownBy(() -> JnrTestParameterSource.fixedWidth(file))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid widths: []");
+		assertThatThrownBy(() -> JnrTestParameterSource.fixedWidth(file, 1, 0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid widths: [1, 0]");
+		var source = JnrTestParameterSource.csv(file);
+		assertThatThrownBy(() -> source.skip(-1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid rows: -1");
+	}
+
+	@Test
+	@DisplayName("should execute tests with all the rows")
+	void shouldExecuteTestsWithAllTheRows() throws IOException {
+		var file = file("test.csv", CSV);
+		var values = new ArrayList<String>();
+		var recorder = new JnrTestRecorder();
+		new JnrTestRunner()
+			.testListener(recorder)
+			.add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					var source = JnrTestParameterSource.csv(file).skip(1);
+					testWithParameters("all the rows of ", source, row -> values.add(row.get(1)));
+					testWithParameters("failed rows of ", source, row -> {
+						if (row.get(1).isEmpty() || row.get(1).equals("3")) {
+							throw new AssertionError("invalid " + row);
+						}
+					});
+					testWithParameters("error rows of ", source.map(row -> row.get(1)), Integer::parseInt);
+				}
+			})
+			.execute();
+		assertThat(values).containsExactly("1", "2", "", "3");
+		var results = recorder.getResults().get("a test class");
+		assertThat(results)
+			.extracting(JnrTestResult::toString)
+			.containsExactly(
+				"[SUCCESS] all the rows of test.csv",
+				"[ FAILED] failed rows of test.csv",
+				"[  ERROR] error rows of test.csv");
+		assertThat(results.get(1).throwable())
+			.hasMessage(String.format("2 of 4 rows of %s failed%nFirst failed row 4: [è, ]%n"
+				+ "Failure: java.lang.AssertionError: invalid [è, ]", file))
+			.cause()
+			.hasMessage("invalid [è, ]");
+		assertThat(results.get(2).throwable())
+			.hasMessageStartingWith(String.format("1 of 4 rows of %s failed%nFirst failed row 4: %n", file))
+			.cause()
+			.isInstanceOf(NumberFormatException.class);
+	}
+}
@@ -0,0 +1,235 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JnrTestProgressReporterTest {
+
+	private static final String CLEAR_LINE = "\r\u001b[K";
+
+	private ByteArrayOutputStream outContent;
+	private AtomicInteger writes;
+	private PrintStream printStream;
+
+	@BeforeEach
+	void setUpStream() {
+		outContent = new ByteArrayOutputStream();
+		writes = new AtomicInteger();
+		printStream = new PrintStream(outContent) {
+			@Override
+			public void write(byte[] buf, int off, int len) {
+				writes.incrementAndGet();
+				super.write(buf, off, len);
+			}
+		};
+	}
+
+	@Test
+	@DisplayName("should report only failures")
+	void shouldReportOnlyFailures() {
+		var reporter = new JnrTestProgressReporter(printStream, false);
+		assertThat(reporter.isInteractive()).isFalse();
+		createRunner(reporter).execute();
+		assertThat(outContent.toString().replace("\r\n", "\n")).startsWith("""
+			[  START] a test class with failures
+			[ FAILED] failed test
+			java.lang.AssertionError: a failure
+			""")
+			.contains("""
+			[  ERROR] error test
+			java.lang.Exception: an exception
+			""")
+			.doesNotContain("success test", "a test class with success");
+		reporter.finish();
+		assertThat(outContent.toString().replace("\r\n", "\n"))
+			.containsPattern("Tests run: 4, Succeeded: 2, Failures: 1, Errors: 1 - \\d+ tests/s\n$");
+	}
+
+	@Test
+	@DisplayName("should report all the lines in verbose mode")
+	void shouldReportAllTheLinesInVerboseMode() {
+		var reporter = new JnrTestProgressReporter(printStream, false).withVerbose(true);
+		createRunner(reporter).execute();
+		assertThat(outContent.toString().replace("\r\n", "\n")
+				.replaceAll("\n(java\\.|\tat ).*", ""))
+			.isEqualTo("""
+				[  START] a test class with success
+				[SUCCESS] success test
+				Tests run: 1, Succeeded: 1, Failures: 0, Errors: 0
+				[  START] a test class with failures
+				[ FAILED] failed test
+				[SUCCESS] success test
+				[  ERROR] error test
+				Tests run: 3, Succeeded: 1, Failures: 1, Errors: 1
+				""");
+	}
+
+	@Test
+	@DisplayName("should report only summaries and failures in verbose mode")
+	void shouldReportOnlySummariesAndFailuresInVerboseMode() {
+		var reporter = new JnrTestProgressReporter(printStream, false)
+			.withVerbose(true)
+			.withOnlySummaries(true);
+		createRunner(reporter).execute();
+		assertThat(outContent.toString().replace("\r\n", "\n")
+				.replaceAll("\n(java\\.|\tat ).*", ""))
+			.isEqualTo("""
+				[  START] a test class with success
+				Tests run: 1, Succeeded: 1, Failures: 0, Errors: 0
+				[  START] a test class with failures
+				[ FAILED] failed test
+				[  ERROR] error test
+				Tests run: 3, Succeeded: 1, Failures: 1, Errors: 1
+				""");
+	}
+
+	@Test
+	@DisplayName("should report elapsed time")
+	void shouldReportElapsedTime() {
+		var reporter = new JnrTestProgressReporter(printStream, false)
+			.withVerbose(true)
+			.withElapsedTime(true);
+		createRunner(reporter).execute();
+		assertThat(outContent.toString())
+			.containsPattern("\\[SUCCESS\\] success test - Time elapsed: \\d+\\.\\d+ s")
+			.containsPattern("\\[ FAILED\\] failed test - Time elapsed: \\d+\\.\\d+ s")
+			.containsPattern("Tests run: 1, Succeeded: 1, Failures: 0, Errors: 0 - Time elapsed: \\d+\\.\\d+ s");
+	}
+
+	@Test
+	@DisplayName("should show a progress line on terminals")
+	void shouldShowAProgressLineOnTerminals() {
+		var reporter = new JnrTestProgressReporter(printStream, true).withExpectedTests(4);
+		assertThat(reporter.isInteractive()).isTrue();
+		createRunner(reporter).execute();
+		var output = outContent.toString();
+		// the first result is always shown
+		assertThat(output)
+			.startsWith(CLEAR_LINE + "Tests run: 1/4, Succeeded: 1, Failures: 0, Errors: 0 - ")
+			.contains(CLEAR_LINE + "[  START] a test class with failures")
+			.containsPattern("\r\u001b\\[KTests run: 4/4, Succeeded: 2, Failures: 1, Errors: 1 - \\d+ tests/s$")
+			.doesNotContain("success test");
+		reporter.finish();
+		assertThat(outContent.toString().substring(output.length()))
+			.matches("\r\u001b\\[KTests run: 4, Succeeded: 2, Failures: 1, Errors: 1 - \\d+ tests/s"
+				+ System.lineSeparator());
+	}
+
+	@Test
+	@DisplayName("should estimate the time to complete")
+	void shouldEstimateTheTimeToComplete() {
+		var reporter = new JnrTestProgressReporter(printStream, true).withExpectedTests(1000);
+		new JnrTestRunner().add(new JnrTest("a test class") {
+			@Override
+			protected void specify() {
+				test("a test", () -> {
+					// success
+				});
+			}
+		}).testListener(reporter).execute();
+		assertThat(outContent.toString())
+			.containsPattern("Tests run: 1/1000, Succeeded: 1, Failures: 0, Errors: 0 - \\d+ tests/s, ETA \\d+ ");
+	}
+
+	@Test
+	@DisplayName("should write the output in batches")
+	void shouldWriteTheOutputInBatches() {
+		var reporter = new JnrTestProgressReporter(printStream, false).withVerbose(true);
+		new JnrTestRunner().add(new JnrTest("a test class with many tests") {
+			@Override
+			protected void specify() {
+				for (int i = 0; i < 10000; i++) {
+					test("test " + i, () -> {
+						// success
+					});
+				}
+			}
+		}).testListener(reporter).execute();
+		assertThat(outContent.toString().lines())
+			.hasSize(10002)
+			.contains("[SUCCESS] test 0", "[SUCCESS] test 9999")
+			.last().isEqualTo("Tests run: 10000, Succeeded: 10000, Failures: 0, Errors: 0");
+		assertThat(writes.get()).isLessThan(10);
+	}
+
+	@Test
+	@DisplayName("should not interleave the lines of test classes executed in parallel")
+	void shouldNotInterleaveTheLinesOfTestClassesExecutedInParallel() {
+		var reporter = new JnrTestProgressReporter(printStream, true).withVerbose(true);
+		var runner = new JnrTestParallelRunner(4).testListener(reporter);
+		for (int i = 0; i < 10; i++) {
+			var description = "test class " + i;
+			runner.add(new JnrTest(description) {
+				@Override
+				protected void specify() {
+					for (int j = 0; j < 5; j++) {
+						test(description + " test " + j, () -> {
+							// success
+						});
+					}
+				}
+			});
+		}
+		runner.execute();
+		reporter.finish();
+		var output = outContent.toString().replace("\r\n", "\n");
+		for (int i = 0; i < 10; i++) {
+			var expected = new StringBuilder("[  START] test class " + i + "\n");
+			for (int j = 0; j < 5; j++) {
+				expected.append("[SUCCESS] test class " + i + " test " + j + "\n");
+			}
+			expected.append("Tests run: 5, Succeeded: 5, Failures: 0, Errors: 0\n");
+			assertThat(output).contains(expected);
+		}
+		assertThat(output).containsPattern("Tests run: 50, Succeeded: 50, Failures: 0, Errors: 0 - \\d+ tests/s\n$");
+	}
+
+	@Test
+	@DisplayName("finish should show results notified outside test classes")
+	void finishShouldShowResultsNotifiedOutsideTestClasses() {
+		var reporter = new JnrTestProgressReporter(printStream, false);
+		reporter.notify(new JnrTestResult("a failed test", JnrTestResultStatus.FAILED, null));
+		reporter.notify(new JnrTestResult("a skipped test", JnrTestResultStatus.SKIPPED, null));
+		assertEquals("", outContent.toString());
+		reporter.finish();
+		assertThat(outContent.toString().replace("\r\n", "\n"))
+			.isEqualTo("[ FAILED] a failed test\nTests run: 2, Succeeded: 0, Failures: 1, Errors: 0, Skipped: 1\n");
+	}
+
+	private static JnrTestRunner createRunner(JnrTestReporterInterface reporter) {
+		var successClass = new JnrTest("a test class with success") {
+			@Override
+			protected void specify() {
+				test("success test", () -> {
+					// success
+				});
+			}
+		};
+		var failuresClass = new JnrTest("a test class with failures") {
+			@Override
+			protected void specify() {
+				test("failed test", () -> {
+					throw new AssertionError("a failure");
+				});
+				test("success test", () -> {
+					// success
+				});
+				test("error test", () -> {
+					throw new Exception("an exception");
+				});
+			}
+		};
+		return new JnrTestRunner()
+			.add(successClass)
+			.add(failuresClass)
+			.testListener(reporter);
+	}
+}
@@ -0,0 +1,167 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.integers;
+import static io.github.lorenzobettini.jnrtest.core.JnrTestGenerator.lists;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link JnrTestProperty}.
+ */
+class JnrTestPropertyTest {
+
+	@Test
+	@DisplayName("should have a default configuration")
+	void shouldHaveADefaultConfiguration() {
+		var property = new JnrTestProperty<>(integers(0, 10), i -> {});
+		assertThat(property.getTrials()).isEqualTo(100);
+		assertThat(property.getMaxShrinks()).isEqualTo(1000);
+		assertThat(property.isParallel()).isTrue();
+		assertThat(property
+				.withTrials(1)
+				.withMaxShrinks(0)
+				.withParallel(false)
+				.withSeed(42))
+			.isSameAs(property);
+		assertThat(property.getTrials()).isEqualTo(1);
+		assertThat(property.getMaxShrinks()).isZero();
+		assertThat(property.isParallel()).isFalse();
+		assertThat(property.getSeed()).isEqualTo(42);
+	}
+
+	@Test
+	@DisplayName("should reject an invalid configuration")
+	void shouldRejectAnInvalidConfiguration() {
+		var property = new JnrTestProperty<>(integers(0, 10), i -> {});
+		assertThatThrownBy(() -> property.withTrials(0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid trials: 0");
+		assertThatThrownBy(() -> property.withMaxShrinks(-1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid max shrinks: -1");
+	}
+
+	@Test
+	@DisplayName("should use the seed of the system property")
+	void shouldUseTheSeedOfTheSystemProperty() {
+		var property = new JnrTestProperty<>(integers(0, 10), i -> {});
+		System.setProperty(JnrTestProperty.SEED_PROPERTY, "123");
+		try {
+			assertThat(property.getSeed()).isEqualTo(123);
+			assertThat(property.withSeed(42).getSeed()).isEqualTo(42);
+		} finally {
+			System.clearProperty(JnrTestProperty.SEED_PROPERTY);
+		}
+	}
+
+	@Test
+	@DisplayName("should execute all the trials in parallel")
+	void shouldExecuteAllTheTrialsInParallel() {
+		var trials = new AtomicInteger();
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		new JnrTestProperty<>(integers(0, 10), i -> {
+				trials.incrementAndGet();
+				threads.add(Thread.currentThread());
+				Thread.sleep(1);
+			})
+			.withTrials(1000)
+			.run();
+		assertThat(trials).hasValue(1000);
+		if (Runtime.getRuntime().availableProcessors() > 1) {
+			assertThat(threads).hasSizeGreaterThan(1);
+		}
+	}
+
+	@Test
+	@DisplayName("should generate the same inputs with the same seed")
+	void shouldGenerateTheSameInputsWithTheSameSeed() {
+		var first = new ArrayList<Integer>();
+		var second = new ArrayList<Integer>();
+		var third = new ArrayList<Integer>();
+		new JnrTestProperty<>(integers(0, 1000), first::add).withSeed(42).withParallel(false).run();
+		new JnrTestProperty<>(integers(0, 1000), second::add).withSeed(42).withParallel(false).run();
+		new JnrTestProperty<>(integers(0, 1000), third::add).withSeed(43).withParallel(false).run();
+		assertThat(first).hasSize(100).isEqualTo(second).isNotEqualTo(third);
+	}
+
+	@Test
+	@DisplayName("should shrink the first failing input")
+	void shouldShrinkTheFirstFailingInput() {
+		var property = new JnrTestProperty<>(integers(-1000, 1000), i -> {
+			if (i > 100) {
+				throw new AssertionError("too big: " + i);
+			}
+		}).withSeed(42).withTrials(10_000);
+		assertThatThrownBy(property::run)
+			.isInstanceOf(AssertionError.class)
+			.hasMessageStartingWith(String.format("Property falsified by trial 1 of 10000 (seed: 42)%n"
+				+ "Counterexample: 101%nShrunk 6 times from: 656%n"))
+			.hasMessageEndingWith("Failure: java.lang.AssertionError: too big: 101")
+			.cause()
+			.hasMessage("too big: 101");
+	}
+
+	@Test
+	@DisplayName("should shrink lists to a minimal counterexample")
+	void shouldShrinkListsToAMinimalCounterexample() {
+		var property = new JnrTestProperty<>(lists(integers(0, 100), 0, 10), list -> {
+			if (list.stream().mapToInt(Integer::intValue).sum() > 50) {
+				throw new AssertionError("sum of " + list);
+			}
+		}).withSeed(1);
+		assertThatThrownBy(property::run)
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining(String.format("Counterexample: [51]%nShrunk 8 times from: [17, 80, 37, 94, 94, 8]%n"));
+	}
+
+	@Test
+	@DisplayName("should report exceptions as errors")
+	void shouldReportExceptionsAsErrors() {
+		var property = new JnrTestProperty<>(integers(0, 1000), i -> {
+			if (i > 10) {
+				throw new IllegalArgumentException("invalid: " + i);
+			}
+		}).withSeed(42).withMaxShrinks(0);
+		assertThatThrownBy(property::run)
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("Shrunk 0 times")
+			.cause()
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	@DisplayName("should execute properties as tests")
+	void shouldExecutePropertiesAsTests() {
+		var recorder = new JnrTestRecorder();
+		new JnrTestRunner()
+			.testListener(recorder)
+			.add(new JnrTest("a test class") {
+				@Override
+				protected void specify() {
+					property("a successful property", integers(0, 10), i -> {});
+					property("a failed property", integers(0, 10), i -> {
+						throw new AssertionError("failed");
+					}).withTrials(1);
+					property("an error property", integers(0, 10), i -> {
+						throw new IllegalStateException("error");
+					}).withTrials(1);
+				}
+			})
+			.execute();
+		assertThat(recorder.getResults().get("a test class"))
+			.extracting(JnrTestResult::toString)
+			.containsExactlyElementsOf(List.of(
+				"[SUCCESS] a successful property",
+				"[ FAILED] a failed property",
+				"[  ERROR] an error property"));
+	}
+}
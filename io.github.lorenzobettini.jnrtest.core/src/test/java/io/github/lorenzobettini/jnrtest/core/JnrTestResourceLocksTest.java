@@ -0,0 +1,248 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link JnrTestResourceLocks}.
+ */
+class JnrTestResourceLocksTest {
+
+	/**
+	 * Counts the threads running concurrently, keeping the maximum.
+	 */
+	private static class Concurrency {
+		private final AtomicInteger running = new AtomicInteger();
+		private final AtomicInteger max = new AtomicInteger();
+
+		private JnrTestRunnable tracked() {
+			return () -> {
+				max.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(5); // NOSONAR
+				running.decrementAndGet();
+			};
+		}
+	}
+
+	private static JnrTestRunnable await(CyclicBarrier barrier) {
+		return () -> barrier.await(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	@DisplayName("should not execute test classes modifying the same resource concurrently")
+	void shouldNotExecuteTestClassesModifyingTheSameResourceConcurrently() {
+		var concurrency = new Concurrency();
+		var recorder = new JnrTestThreadSafeRecorder();
+		var runner = new JnrTestParallelRunner(4).testListener(recorder);
+		IntStream.range(0, 6).forEach(i -> runner.add(new JnrTest("writer " + i) {
+			@Override
+			protected void specify() {
+				resourceLock("locks-test-write", JnrTestResourceMode.READ_WRITE);
+				resourceLock("locks-test-read", JnrTestResourceMode.READ);
+				beforeAll("before all", concurrency.tracked());
+				test("test", concurrency.tracked());
+			}
+		}));
+		runner.execute();
+		assertThat(concurrency.max).hasValue(1);
+		assertThat(recorder.getResults().values())
+			.hasSize(6)
+			.allSatisfy(results -> assertThat(results)
+				.extracting(JnrTestResult::status)
+				.containsExactly(JnrTestResultStatus.SUCCESS));
+	}
+
+	@Test
+	@DisplayName("should execute test classes reading the same resource concurrently")
+	void shouldExecuteTestClassesReadingTheSameResourceConcurrently() {
+		var barrier = new CyclicBarrier(2);
+		var recorder = new JnrTestThreadSafeRecorder();
+		var runner = new JnrTestParallelRunner(2).testListener(recorder);
+		IntStream.range(0, 2).forEach(i -> runner.add(new JnrTest("reader " + i) {
+			@Override
+			protected void specify() {
+				resourceLock("locks-test-read", JnrTestResourceMode.READ);
+				test("test", await(barrier));
+			}
+		}));
+		runner.execute();
+		assertThat(recorder.getResults().values().stream().flatMap(List::stream))
+			.extracting(JnrTestResult::status)
+			.containsExactly(JnrTestResultStatus.SUCCESS, JnrTestResultStatus.SUCCESS);
+	}
+
+	@Test
+	@DisplayName("should only lock the tests declaring a resource")
+	void shouldOnlyLockTheTestsDeclaringAResource() {
+		var concurrency = new Concurrency();
+		var barrier = new CyclicBarrier(2);
+		var recorder = new JnrTestThreadSafeRecorder();
+		var runner = new JnrTestParallelRunner(2).testListener(recorder);
+		IntStream.range(0, 2).forEach(i -> runner.add(new JnrTest("a test class " + i) {
+			@Override
+			protected void specify() {
+				test("locked", withResourceLock("locks-test-test", JnrTestResourceMode.READ_WRITE,
+					concurrency.tracked()));
+				// it would time out if the lock were held for the whole test class
+				test("not locked", await(barrier));
+			}
+		}));
+		runner.execute();
+		assertThat(concurrency.max).hasValue(1);
+		assertThat(recorder.getResults().values().stream().flatMap(List::stream))
+			.extracting(JnrTestResult::status)
+			.containsOnly(JnrTestResultStatus.SUCCESS)
+			.hasSize(4);
+	}
+
+	@Test
+	@DisplayName("should acquire the resources of the tests with the ones of the test class")
+	void shouldAcquireTheResourcesOfTheTestsWithTheOnesOfTheTestClass() {
+		var testClass = new JnrTest("a test class") {
+			@Override
+			protected void specify() {
+				resourceLock("a", JnrTestResourceMode.READ);
+				resourceLock("c", JnrTestResourceMode.READ_WRITE);
+				resourceLock("c", JnrTestResourceMode.READ);
+				beforeEach("before each", withResourceLock("d", JnrTestResourceMode.READ, () -> {}));
+				test("test", withResourceLock("a", JnrTestResourceMode.READ_WRITE,
+					withResourceLock("b", JnrTestResourceMode.READ, () -> {})));
+			}
+		};
+		var store = testClass.getStore();
+		assertThat(store.getResourceLocks())
+			.containsExactly(Map.entry("a", JnrTestResourceMode.READ), Map.entry("c", JnrTestResourceMode.READ_WRITE));
+		assertThat(JnrTestResourceLocks.resources(testClass, store.getRunnableSpecifications().stream()))
+			.isEqualTo(Map.of(
+				"a", JnrTestResourceMode.READ_WRITE,
+				"b", JnrTestResourceMode.READ,
+				"c", JnrTestResourceMode.READ_WRITE));
+		var withoutResources = new JnrTest("a test class without resources") {
+			@Override
+			protected void specify() {
+				test("test", withResourceLock("a", JnrTestResourceMode.READ, () -> {}));
+			}
+		};
+		assertThat(JnrTestResourceLocks.resources(withoutResources,
+				withoutResources.getStore().getRunnableSpecifications().stream()))
+			.isEmpty();
+	}
+
+	@Test
+	@DisplayName("should not execute conflicting test classes while joining pool work")
+	void shouldNotExecuteConflictingTestClassesWhileJoiningPoolWork() {
+		var concurrency = new Concurrency();
+		var recorder = new JnrTestThreadSafeRecorder();
+		// with a single thread, helping the pool runs the queued test classes
+		var runner = new JnrTestParallelRunner(1).testListener(recorder);
+		IntStream.range(0, 5).forEach(i -> runner.add(new JnrTest("joining " + i) {
+			@Override
+			protected void specify() {
+				resourceLock("locks-test-joining", JnrTestResourceMode.READ_WRITE);
+				test("test", () -> {
+					concurrency.max.accumulateAndGet(concurrency.running.incrementAndGet(), Math::max);
+					IntStream.range(0, 10).parallel()
+						.forEach(j -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1)));
+					ForkJoinTask.helpQuiesce();
+					concurrency.running.decrementAndGet();
+				});
+			}
+		}));
+		runner.execute();
+		assertThat(concurrency.max).hasValue(1);
+		assertThat(recorder.getResults().values())
+			.hasSize(5)
+			.allSatisfy(results -> assertThat(results)
+				.extracting(JnrTestResult::status)
+				.containsExactly(JnrTestResultStatus.SUCCESS));
+	}
+
+	@Test
+	@DisplayName("should not acquire other locks while holding locks")
+	void shouldNotAcquireOtherLocksWhileHoldingLocks() throws Exception {
+		var executed = new AtomicInteger();
+		var owner = new Object();
+		JnrTestResourceLocks.execute(owner, Map.of("locks-test-held", JnrTestResourceMode.READ),
+			JnrTest.withResourceLock("locks-test-held", JnrTestResourceMode.READ_WRITE, executed::incrementAndGet));
+		// released, so another thread can modify it
+		CompletableFuture.runAsync(() -> JnrTestResourceLocks.runWithLocks(owner,
+				Map.of("locks-test-held", JnrTestResourceMode.READ_WRITE), executed::incrementAndGet))
+			.get(5, TimeUnit.SECONDS);
+		assertThat(executed).hasValue(2);
+	}
+
+	@Test
+	@DisplayName("should share the held locks with another owner while a writer is waiting")
+	void shouldShareTheHeldLocksWithAnotherOwnerWhileAWriterIsWaiting() throws Exception {
+		var threads = new CopyOnWriteArrayList<Thread>();
+		var writer = new AtomicReference<CompletableFuture<Void>>();
+		JnrTestResourceLocks.runWithLocks(new Object(), Map.of("locks-test-shared", JnrTestResourceMode.READ), () -> {
+			threads.add(Thread.currentThread());
+			writer.set(CompletableFuture.runAsync(() -> JnrTestResourceLocks.runWithLocks(new Object(),
+				Map.of("locks-test-shared", JnrTestResourceMode.READ_WRITE), () -> threads.add(Thread.currentThread()))));
+			while (!JnrTestResourceLocks.lockOf("locks-test-shared").hasQueuedThreads()) {
+				Thread.onSpinWait();
+			}
+			// a new reader would wait for the writer, which waits for this thread
+			JnrTestResourceLocks.runWithLocks(new Object(),
+				Map.of("locks-test-shared", JnrTestResourceMode.READ, "locks-test-shared-next", JnrTestResourceMode.READ_WRITE),
+				() -> threads.add(Thread.currentThread()));
+		});
+		writer.get().get(5, TimeUnit.SECONDS);
+		assertThat(threads).hasSize(3);
+		assertThat(threads.get(1)).isSameAs(threads.get(0));
+	}
+
+	@Test
+	@DisplayName("should reject another owner with resources preceding the held ones")
+	void shouldRejectAnotherOwnerWithResourcesPrecedingTheHeldOnes() {
+		var executed = new AtomicInteger();
+		JnrTestResourceLocks.runWithLocks(new Object(), Map.of("locks-test-order-b", JnrTestResourceMode.READ), () ->
+			assertThatThrownBy(() -> JnrTestResourceLocks.runWithLocks(new Object(),
+					Map.of("locks-test-order-a", JnrTestResourceMode.READ_WRITE), executed::incrementAndGet))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Cannot acquire the resources {locks-test-order-a=READ_WRITE} "
+					+ "while holding the following resources {locks-test-order-b=READ} in the same thread"));
+		assertThat(executed).hasValue(0);
+	}
+
+	@Test
+	@DisplayName("should reject another owner conflicting with the held locks")
+	void shouldRejectAnotherOwnerConflictingWithTheHeldLocks() {
+		var executed = new AtomicInteger();
+		JnrTestResourceLocks.runWithLocks(new Object(), Map.of("locks-test-owner", JnrTestResourceMode.READ), () ->
+			assertThatThrownBy(() -> JnrTestResourceLocks.runWithLocks(new Object(),
+					Map.of("locks-test-owner", JnrTestResourceMode.READ_WRITE), executed::incrementAndGet))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Cannot acquire the resources {locks-test-owner=READ_WRITE} "
+					+ "while holding the conflicting resources {locks-test-owner=READ} in the same thread"));
+		assertThat(executed).hasValue(0);
+	}
+
+	@Test
+	@DisplayName("should reject invalid resources")
+	void shouldRejectInvalidResources() {
+		var store = new JnrTestStore();
+		assertThatThrownBy(() -> store.resourceLock(null, JnrTestResourceMode.READ))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid resource: null");
+		assertThatThrownBy(() -> JnrTest.withResourceLock(" ", JnrTestResourceMode.READ, () -> {}))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Invalid resource:  ");
+	}
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -210,4 +211,15 @@ class JnrTestThreadSafeConsoleReporterTest {
 			.doesNotContain("Time elapsed: 0.000000 s")
 			.containsPattern("Time elapsed: 0\\.[0-9][0-9]*");
 	}
+
+	@Test
+	void shouldDelegateBenchmarkResultsToUnderlying() {
+		final JnrTestThreadSafeConsoleReporter reporter = new JnrTestThreadSafeConsoleReporter();
+		final var result = new JnrTestBenchmarkResult("a benchmark", List.of(1.0, 2.0, 3.0));
+		reporter.notify(new JnrTestLifecycleEvent("test class", JnrTestStatus.START));
+		reporter.notify(result);
+		reporter.notify(new JnrTestLifecycleEvent("test class", JnrTestStatus.END));
+		assertThat(outputStream.toString().replace("\r\n", "\n"))
+			.contains("[  START] test class\n" + result + "\n");
+	}
 }
@@ -0,0 +1,161 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JnrTestVirtualThreadRunnerTest {
+
+	private ByteArrayOutputStream outContent;
+	private ByteArrayOutputStream errContent;
+	private final PrintStream originalOut = System.out;
+	private final PrintStream originalErr = System.err;
+
+	@BeforeEach
+	void setUpStreams() {
+		outContent = new ByteArrayOutputStream();
+		errContent = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(outContent));
+		System.setErr(new PrintStream(errContent));
+	}
+
+	@AfterEach
+	void restoreStreams() {
+		System.setOut(originalOut);
+		System.setErr(originalErr);
+	}
+
+	@Test
+	@DisplayName("should run test classes in other threads")
+	void shouldRunEachTestClassInItsOwnThread() {
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		var recorder = new JnrTestThreadSafeRecorder();
+		var runner = new JnrTestVirtualThreadRunner();
+		for (int i = 0; i < 10; i++) {
+			runner.add(new JnrTest("a test class " + i) {
+				@Override
+				protected void specify() {
+					test("success test", () -> threads.add(Thread.currentThread()));
+					test("failed test", () -> {
+						throw new AssertionError("a failure");
+					});
+				}
+			});
+		}
+		runner.testListener(recorder);
+		runner.execute();
+		assertThat(threads)
+			.isNotEmpty()
+			.doesNotContain(Thread.currentThread());
+		var aggregatedResults = new JnrTestResultAggregator().aggregate(recorder);
+		assertThat(aggregatedResults.getSucceeded()).isEqualTo(10);
+		assertThat(aggregatedResults.getFailed()).isEqualTo(10);
+	}
+
+	@Test
+	@DisplayName("should apply filters")
+	void shouldApplyFilters() {
+		Set<String> executed = ConcurrentHashMap.newKeySet();
+		var runner = new JnrTestVirtualThreadRunner();
+		for (int i = 0; i < 4; i++) {
+			String description = "a test class " + i;
+			runner.add(new JnrTest(description) {
+				@Override
+				protected void specify() {
+					test("success test", () -> executed.add(description));
+				}
+			});
+		}
+		runner.shard(0, 2).filterByClassDescription(".*2");
+		runner.execute();
+		assertThat(executed).containsExactly("a test class 2");
+	}
+
+	@Test
+	@DisplayName("should rethrow unexpected exceptions")
+	void shouldRethrowUnexpectedExceptions() {
+		var runner = new JnrTestVirtualThreadRunner();
+		runner.add(new JnrTest("a test class") {
+			@Override
+			protected void specify() {
+				test("success test", () -> {});
+			}
+		});
+		runner.testListener(new JnrTestListenerAdapter() {
+			@Override
+			public void notify(JnrTestLifecycleEvent event) {
+				throw new IllegalArgumentException("a listener exception");
+			}
+		});
+		assertThatThrownBy(runner::execute)
+			.isInstanceOf(IllegalStateException.class)
+			.hasCauseInstanceOf(IllegalArgumentException.class)
+			.cause().hasMessage("a listener exception");
+	}
+
+	@Test
+	@DisplayName("should preserve the interrupted status")
+	void shouldPreserveTheInterruptedStatus() {
+		var runner = new JnrTestVirtualThreadRunner();
+		runner.add(new JnrTest("a test class") {
+			@Override
+			protected void specify() {
+				test("success test", () -> {});
+			}
+		});
+		Thread.currentThread().interrupt();
+		runner.execute();
+		assertThat(Thread.interrupted()).isTrue();
+	}
+
+	@Test
+	@DisplayName("should skip test classes depending on failed ones")
+	void shouldSkipTestClassesDependingOnFailedOnes() {
+		Set<String> executed = ConcurrentHashMap.newKeySet();
+		class Smoke extends JnrTest {
+			Smoke() {
+				super("smoke");
+			}
+
+			@Override
+			protected void specify() {
+				test("test", () -> {
+					Thread.sleep(10); // NOSONAR
+					executed.add(getDescription());
+					throw new AssertionError("smoke failed");
+				});
+			}
+		}
+		var recorder = new JnrTestThreadSafeRecorder();
+		new JnrTestVirtualThreadRunner()
+			.testListener(recorder)
+			.add(new JnrTest("dependent") {
+				@Override
+				protected void specify() {
+					dependsOn(Smoke.class);
+					test("test", () -> executed.add(getDescription()));
+				}
+			})
+			.add(new Smoke())
+			.add(new JnrTest("independent") {
+				@Override
+				protected void specify() {
+					test("test", () -> executed.add(getDescription()));
+				}
+			})
+			.execute();
+		assertThat(executed).containsExactlyInAnyOrder("smoke", "independent");
+		assertThat(recorder.getResults().get("dependent"))
+			.extracting(JnrTestResult::toString)
+			.containsExactly("[SKIPPED] test");
+	}
+}
@@ -0,0 +1,80 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JnrTestWithTimeoutTest {
+
+	private List<String> executed;
+
+	@BeforeEach
+	void setUp() {
+		executed = new ArrayList<>();
+	}
+
+	@Test
+	void shouldRunWithinTimeoutInTheSameThread() {
+		var currentThread = Thread.currentThread();
+		assertThatCode(() -> JnrTest.withTimeout(10, () -> {
+			executed.add("executed");
+			assertThat(Thread.currentThread()).isSameAs(currentThread);
+		}).run()).doesNotThrowAnyException();
+		assertThat(executed).containsExactly("executed");
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+
+	@Test
+	void shouldInterruptBlockingCallsOnTimeout() {
+		var timedRunnable = JnrTest.withTimeout(50, TimeUnit.MILLISECONDS, () -> {
+			Thread.sleep(10000);
+			executed.add("should not get here");
+		});
+		assertThatThrownBy(timedRunnable::run)
+			.isInstanceOf(TimeoutException.class)
+			.hasMessage("execution timed out after 50 milliseconds")
+			.satisfies(e -> assertThat(e.getSuppressed())
+				.singleElement()
+				.isInstanceOf(InterruptedException.class));
+		assertThat(executed).isEmpty();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+
+	@Test
+	void shouldFailOnTimeoutWhenInterruptionIsIgnored() {
+		var timedRunnable = JnrTest.withTimeout(50, TimeUnit.MILLISECONDS, () -> {
+			// busy wait, ignoring the interruption, which is not cleared
+			while (!Thread.currentThread().isInterrupted()) {
+				Thread.onSpinWait();
+			}
+			executed.add("completed");
+		});
+		assertThatThrownBy(timedRunnable::run)
+			.isInstanceOf(TimeoutException.class)
+			.satisfies(e -> assertThat(e.getSuppressed()).isEmpty());
+		assertThat(executed).containsExactly("completed");
+		// the interruption caused by the timeout has been cleared
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+
+	@Test
+	void shouldRethrowFailuresWithinTimeout() {
+		var exception = new IllegalStateException("an exception");
+		assertThatThrownBy(JnrTest.withTimeout(10, () -> {
+			throw exception;
+		})::run).isSameAs(exception);
+		var error = new AssertionError("an assertion error");
+		assertThatThrownBy(JnrTest.withTimeout(10, () -> {
+			throw error;
+		})::run).isSameAs(error);
+	}
+
+}
@@ -0,0 +1,94 @@
+package io.github.lorenzobettini.jnrtest.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JnrTestXmlReportTest {
+
+	@Test
+	@DisplayName("should create the XML report")
+	void shouldCreateTheXmlReport() {
+		var recorder = new JnrTestRecorder();
+		recorder.notify(new JnrTestLifecycleEvent("a <test> class", JnrTestStatus.START));
+		recorder.notify(new JnrTestResult("a \"success\" & test", JnrTestResultStatus.SUCCESS, null));
+		recorder.notify(new JnrTestResult("a failed test", JnrTestResultStatus.FAILED,
+				new AssertionError("expected <1>")));
+		recorder.notify(new JnrTestLifecycleEvent("another class", JnrTestStatus.START));
+		recorder.notify(new JnrTestResult("an error test", JnrTestResultStatus.ERROR,
+				new IllegalStateException("an exception")));
+		recorder.notify(new JnrTestResult("an error test without message", JnrTestResultStatus.ERROR,
+				new IllegalStateException()));
+		var xml = new JnrTestXmlReport().toXml(recorder);
+		assertThat(xml)
+			.startsWith("""
+				<?xml version="1.0" encoding="UTF-8"?>
+				<testsuites tests="4" failures="1" errors="2">
+				  <testsuite name="a &lt;test&gt; class" tests="2" failures="1" errors="0">
+				    <testcase classname="a &lt;test&gt; class" name="a &quot;success&quot; &amp; test"/>
+				    <testcase classname="a &lt;test&gt; class" name="a failed test">
+				      <failure message="expected &lt;1&gt;" type="java.lang.AssertionError">java.lang.AssertionError: expected &lt;1&gt;
+				""")
+			.contains("""
+				</failure>
+				    </testcase>
+				  </testsuite>
+				  <testsuite name="another class" tests="2" failures="0" errors="2">
+				    <testcase classname="another class" name="an error test">
+				      <error message="an exception" type="java.lang.IllegalStateException">java.lang.IllegalStateException: an exception
+				""")
+			.contains("""
+				    <testcase classname="another class" name="an error test without message">
+				      <error message="null" type="java.lang.IllegalStateException">java.lang.IllegalStateException
+				""")
+			.contains("at io.github.lorenzobettini.jnrtest.core.JnrTestXmlReportTest")
+			.endsWith("""
+				</error>
+				    </testcase>
+				  </testsuite>
+				</testsuites>
+				""");
+	}
+
+	@Test
+	@DisplayName("should write the XML report")
+	void shouldWriteTheXmlReport() throws IOException {
+		var recorder = new JnrTestRecorder();
+		recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.START));
+		recorder.notify(new JnrTestResult("a success test", JnrTestResultStatus.SUCCESS, null));
+		var file = Path.of("target", "xml-report-test", "nested", "report.xml");
+		Files.deleteIfExists(file);
+		var report = new JnrTestXmlReport();
+		report.write(recorder, file);
+		assertThat(file).hasContent(report.toXml(recorder));
+	}
+
+	@Test
+	@DisplayName("should report skipped tests")
+	void shouldReportSkippedTests() {
+		var recorder = new JnrTestRecorder();
+		recorder.notify(new JnrTestLifecycleEvent("a test class", JnrTestStatus.START));
+		recorder.notify(new JnrTestResult("a success test", JnrTestResultStatus.SUCCESS, null));
+		recorder.notify(new JnrTestLifecycleEvent("a skipped class", JnrTestStatus.START));
+		recorder.notify(new JnrTestResult("a skipped test", JnrTestResultStatus.SKIPPED, null));
+		assertThat(new JnrTestXmlReport().toXml(recorder))
+			.isEqualTo("""
+				<?xml version="1.0" encoding="UTF-8"?>
+				<testsuites tests="2" failures="0" errors="0" skipped="1">
+				  <testsuite name="a test class" tests="1" failures="0" errors="0">
+				    <testcase classname="a test class" name="a success test"/>
+				  </testsuite>
+				  <testsuite name="a skipped class" tests="1" failures="0" errors="0" skipped="1">
+				    <testcase classname="a skipped class" name="a skipped test">
+				      <skipped/>
+				    </testcase>
+				  </testsuite>
+				</testsuites>
+				""");
+	}
+}
@@ -0,0 +1,29 @@
+package io.github.lorenzobettini.jnrtest.examples;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTestCommandLine;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
+
+/**
+ * The examples that can be compiled with GraalVM native-image (see the "native"
+ * profile), in the same shape as the main generated by JnrTestMainGenerator;
+ * the examples using Mockito and Guice are left out, since these libraries
+ * rely on reflection and bytecode generation.
+ */
+public class JnrExamplesNativeTestMain {
+
+	public static void fillTestRunner(JnrTestRunner runner) {
+		runner.add(new FactorialJnrTest());
+		runner.add(new FactorialJnrParameterizedTest());
+		runner.add(new FactorialJnrParameterizedWithDescriptionTest());
+		runner.add(new MyStringUtilsJnrTest());
+		runner.add(new MyStringUtilsJnrParameterizedTest());
+		runner.add(new MathOperationsJnrTripleParameterizedTest());
+		runner.add(new JnrTestTemporaryFolderExampleTest());
+		runner.add(new JnrTestTemporaryFolderExampleBeforeAllTest());
+		runner.add(new JnrTestTemporaryFolderAnotherExampleTest());
+	}
+
+	public static void main(String[] args) {
+		JnrTestCommandLine.execute(args, JnrExamplesNativeTestMain::fillTestRunner);
+	}
+}
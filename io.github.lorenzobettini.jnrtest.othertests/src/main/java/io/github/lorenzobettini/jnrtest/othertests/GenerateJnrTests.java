@@ -35,6 +35,31 @@ public class MyJnrTestMain {
 		writer.println("""
 		executor.execute();
 	}
+}
+			""");
+		}
+
+		// generate the main file for the StartupBenchmark, which runs a single suite
+		fileName = "src/test/java/com/example/demos/jnrtest/MyJnrTestStartupMain.java";
+		outputFile = new java.io.File(fileName);
+		try (var writer = new PrintWriter(outputFile)) {
+			writer.println("""
+package com.example.demos.jnrtest;
+
+import io.github.lorenzobettini.jnrtest.othertests.StartupProbe;
+
+public class MyJnrTestStartupMain {
+
+	public static void main(String[] args) {
+		StartupProbe.runJnrTest(args, size -> switch (size) {
+""");
+		for (var size : TEST_SIZES) {
+			writer.println("			case " + size + " -> new MyJnr" + size + "(\"MyJnr" + size + "\");");
+		}
+		writer.println("""
+			default -> throw new IllegalArgumentException("No suite of size " + size);
+		});
+	}
 }
 			""");
 		}
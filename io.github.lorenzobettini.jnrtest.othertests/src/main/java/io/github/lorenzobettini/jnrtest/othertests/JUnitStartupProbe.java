@@ -0,0 +1,41 @@
+package io.github.lorenzobettini.jnrtest.othertests;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+/**
+ * The {@link StartupProbe} for the JUnit Platform: the test class, given as
+ * argument, is discovered and executed through the JUnit Platform
+ * {@link org.junit.platform.launcher.Launcher}, as build tools do.
+ */
+public class JUnitStartupProbe {
+
+	public static void main(String[] args) {
+		var probe = new StartupProbe();
+
+		var discoveryStart = System.nanoTime();
+		var launcher = LauncherFactory.create();
+		var testPlan = launcher.discover(LauncherDiscoveryRequestBuilder.request()
+			.selectors(selectClass(args[0]))
+			.build());
+		var discoveryMicros = (System.nanoTime() - discoveryStart) / 1000;
+
+		var executionStart = System.nanoTime();
+		launcher.execute(testPlan, new TestExecutionListener() {
+			@Override
+			public void executionStarted(TestIdentifier testIdentifier) {
+				if (testIdentifier.isTest()) {
+					probe.testStarted();
+				}
+			}
+		});
+		var executionMicros = (System.nanoTime() - executionStart) / 1000;
+
+		probe.report(discoveryMicros, executionMicros);
+	}
+
+}
@@ -0,0 +1,184 @@
+package io.github.lorenzobettini.jnrtest.othertests;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+import io.github.lorenzobettini.jnrtest.tools.JnrTestClassDataSharing;
+
+/**
+ * Runs each generated suite, of each size, in a fresh JVM, several times, and
+ * reports the phases measured by {@link StartupProbe}: time to main, discovery,
+ * time to first test and execution, together with the total time, the peak RSS
+ * and the allocated bytes.
+ * <p>
+ * The JnrTest suites are also launched with a class-data sharing archive,
+ * created by {@link JnrTestClassDataSharing} with a training run before the
+ * measured runs, to show the startup difference.
+ * <p>
+ * The suites must have been generated by {@link GenerateJnrTests} and
+ * {@link GenerateJUnitTests} and compiled; this is meant to be run with the
+ * test classpath, which is passed to the launched JVMs.
+ * <p>
+ * Arguments (optional): the number of runs for each suite (default 5) and the
+ * output directory (default "target/startup-benchmark"), where the results of
+ * all the runs ("runs.csv") and the medians ("summary.csv") are written.
+ */
+public class StartupBenchmark {
+
+	private static final List<Integer> TEST_SIZES = List.of(1, 10, 100, 1000, 5000);
+
+	private record Framework(String name, String mainClass, IntFunction<String> argument,
+			boolean classDataSharing) {
+	}
+
+	private static final List<Framework> FRAMEWORKS = List.of(
+		new Framework("jnrtest", "com.example.demos.jnrtest.MyJnrTestStartupMain",
+			String::valueOf, false),
+		new Framework("jnrtest-cds", "com.example.demos.jnrtest.MyJnrTestStartupMain",
+			String::valueOf, true),
+		new Framework("junit", JUnitStartupProbe.class.getName(),
+			size -> "com.example.demos.junit.MyJUnit" + size + "Spec", false),
+		new Framework("junit-per-class", JUnitStartupProbe.class.getName(),
+			size -> "com.example.demos.junit.MyJUnit" + size + "OneInstancePerClassSpec", false));
+
+	private record Run(String framework, int size, int run, long tests,
+			long timeToMainMicros, long discoveryMicros, long timeToFirstTestMicros,
+			long executionMicros, long totalMicros, long peakRssKb, long allocatedBytes) {
+	}
+
+	private static final String HEADER =
+		"framework,size,tests,timeToMainMs,discoveryMs,timeToFirstTestMs,executionMs,totalMs,peakRssKb,allocatedBytes";
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		var runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		var outputDir = Path.of(args.length > 1 ? args[1] : "target/startup-benchmark");
+
+		var results = new ArrayList<Run>();
+		for (var size : TEST_SIZES) {
+			for (int run = 1; run <= runs; run++) {
+				// interleave the frameworks, so that they are equally affected by the machine load
+				for (var framework : FRAMEWORKS) {
+					results.add(launch(framework, size, run, outputDir));
+				}
+			}
+		}
+
+		Files.createDirectories(outputDir);
+		try (var writer = new PrintWriter(Files.newBufferedWriter(outputDir.resolve("runs.csv")))) {
+			writer.println("run," + HEADER);
+			for (var r : results) {
+				writer.println(r.run() + "," + csv(r.framework(), r.size(), r.tests(),
+					r.timeToMainMicros(), r.discoveryMicros(), r.timeToFirstTestMicros(),
+					r.executionMicros(), r.totalMicros(), r.peakRssKb(), r.allocatedBytes()));
+			}
+		}
+
+		var summary = new ArrayList<String>();
+		for (var size : TEST_SIZES) {
+			for (var framework : FRAMEWORKS) {
+				var runsOf = results.stream()
+					.filter(r -> r.size() == size && r.framework().equals(framework.name()))
+					.toList();
+				summary.add(csv(framework.name(), size, runsOf.get(0).tests(),
+					median(runsOf, Run::timeToMainMicros),
+					median(runsOf, Run::discoveryMicros),
+					median(runsOf, Run::timeToFirstTestMicros),
+					median(runsOf, Run::executionMicros),
+					median(runsOf, Run::totalMicros),
+					median(runsOf, Run::peakRssKb),
+					median(runsOf, Run::allocatedBytes)));
+			}
+		}
+		var summaryLines = new ArrayList<String>();
+		summaryLines.add(HEADER);
+		summaryLines.addAll(summary);
+		Files.write(outputDir.resolve("summary.csv"), summaryLines);
+
+		System.out.println("\nStartup benchmark, median of " + runs + " runs (" + outputDir.resolve("summary.csv") + ")\n");
+		for (var line : summaryLines) {
+			System.out.println(String.format("%-16s%6s%7s%14s%13s%19s%13s%10s%11s%16s", (Object[]) line.split(",")));
+		}
+	}
+
+	private static Run launch(Framework framework, int size, int run, Path outputDir)
+			throws IOException, InterruptedException {
+		var classpath = System.getProperty("java.class.path");
+		var argument = framework.argument().apply(size);
+		var command = new ArrayList<String>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		if (framework.classDataSharing()) {
+			// the training run takes place only the first time
+			command.addAll(new JnrTestClassDataSharing(outputDir.resolve("cds-" + size))
+				.withTrainingArguments(argument)
+				.jvmOptions(classpath, framework.mainClass()));
+		} else {
+			command.addAll(List.of("-cp", classpath));
+		}
+		command.add(framework.mainClass());
+		command.add(argument);
+		var launchInstant = StartupProbe.nowMicros();
+		var start = System.nanoTime();
+		var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		Map<String, Long> values = new HashMap<>();
+		var output = new StringBuilder();
+		try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(StartupProbe.PREFIX)) {
+					var keyValue = line.substring(StartupProbe.PREFIX.length()).split("=");
+					values.put(keyValue[0], Long.parseLong(keyValue[1]));
+				} else {
+					output.append(line).append('\n');
+				}
+			}
+		}
+		var exitCode = process.waitFor();
+		var totalMicros = (System.nanoTime() - start) / 1000;
+		if (exitCode != 0 || values.size() != 7) {
+			throw new IllegalStateException(
+				"Failed run of " + framework.name() + " " + size + " (exit code " + exitCode + "):\n" + output);
+		}
+		System.out.println(String.format("%s %d run %d: %d ms", framework.name(), size, run, totalMicros / 1000));
+		return new Run(framework.name(), size, run, values.get(StartupProbe.TESTS),
+			values.get(StartupProbe.MAIN) - launchInstant,
+			values.get(StartupProbe.DISCOVERY),
+			values.get(StartupProbe.FIRST_TEST) - launchInstant,
+			values.get(StartupProbe.EXECUTION),
+			totalMicros,
+			values.get(StartupProbe.PEAK_RSS),
+			values.get(StartupProbe.ALLOCATED));
+	}
+
+	private static long median(List<Run> runs, ToLongFunction<Run> metric) {
+		var sorted = runs.stream().mapToLong(metric).sorted().toArray();
+		return sorted[sorted.length / 2];
+	}
+
+	/**
+	 * Formats the values as CSV: the first three as they are, the next five
+	 * (durations in microseconds) in milliseconds, and the others as they are.
+	 */
+	private static String csv(String framework, int size, long tests, long... values) {
+		var line = new StringBuilder(framework).append(',').append(size).append(',').append(tests);
+		for (int i = 0; i < values.length; i++) {
+			line.append(',');
+			if (i < 5) {
+				line.append(String.format(java.util.Locale.ROOT, "%.3f", values[i] / 1000.0));
+			} else {
+				line.append(values[i]);
+			}
+		}
+		return line.toString();
+	}
+
+}
@@ -0,0 +1,129 @@
+package io.github.lorenzobettini.jnrtest.othertests;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.function.IntFunction;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+import io.github.lorenzobettini.jnrtest.core.JnrTestListenerAdapter;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableKind;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableLifecycleEvent;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableStatus;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
+
+/**
+ * Measures the phases of a test run from inside the JVM launched by
+ * {@link StartupBenchmark}, and reports them on the standard output, one per
+ * line, with the prefix {@value #PREFIX}.
+ * <p>
+ * Instants are reported as microseconds since the epoch, so that the launcher
+ * can compute them relative to the launch of the JVM; durations are reported
+ * in microseconds.
+ */
+public class StartupProbe {
+
+	public static final String PREFIX = "startup-probe ";
+
+	public static final String MAIN = "mainInstant";
+	public static final String FIRST_TEST = "firstTestInstant";
+	public static final String DISCOVERY = "discoveryMicros";
+	public static final String EXECUTION = "executionMicros";
+	public static final String TESTS = "tests";
+	public static final String PEAK_RSS = "peakRssKb";
+	public static final String ALLOCATED = "allocatedBytes";
+
+	private final long mainInstant = nowMicros();
+	private long firstTestInstant = -1;
+	private long tests = 0;
+
+	/**
+	 * Runs the JnrTest suite of the given size, created by the given function,
+	 * without reflection; this is meant to be called by a generated main.
+	 *
+	 * @param args the command-line arguments, with the size of the suite
+	 * @param suites creates the suite of the given size
+	 */
+	public static void runJnrTest(String[] args, IntFunction<JnrTest> suites) {
+		var probe = new StartupProbe();
+
+		var discoveryStart = System.nanoTime();
+		var suite = suites.apply(Integer.parseInt(args[0]));
+		// the specification of the tests is the JnrTest counterpart of the discovery
+		suite.getStore();
+		var discoveryMicros = (System.nanoTime() - discoveryStart) / 1000;
+
+		var runner = new JnrTestRunner()
+			.add(suite)
+			.testListener(new JnrTestListenerAdapter() {
+				@Override
+				public void notify(JnrTestRunnableLifecycleEvent event) {
+					if (event.kind() == JnrTestRunnableKind.TEST && event.status() == JnrTestRunnableStatus.START) {
+						probe.testStarted();
+					}
+				}
+			});
+		var executionStart = System.nanoTime();
+		runner.execute();
+		var executionMicros = (System.nanoTime() - executionStart) / 1000;
+
+		probe.report(discoveryMicros, executionMicros);
+	}
+
+	void testStarted() {
+		if (firstTestInstant < 0) {
+			firstTestInstant = nowMicros();
+		}
+		tests++;
+	}
+
+	void report(long discoveryMicros, long executionMicros) {
+		print(MAIN, mainInstant);
+		print(FIRST_TEST, firstTestInstant);
+		print(DISCOVERY, discoveryMicros);
+		print(EXECUTION, executionMicros);
+		print(TESTS, tests);
+		print(PEAK_RSS, peakRssKb());
+		print(ALLOCATED, allocatedBytes());
+	}
+
+	private static void print(String key, long value) {
+		System.out.println(PREFIX + key + "=" + value);
+	}
+
+	static long nowMicros() {
+		return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+	}
+
+	/**
+	 * The peak resident set size of this process, in KB, as reported by Linux;
+	 * -1 if not available.
+	 */
+	private static long peakRssKb() {
+		try {
+			return Files.readAllLines(Path.of("/proc/self/status")).stream()
+				.filter(line -> line.startsWith("VmHWM:"))
+				.mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+				.findFirst()
+				.orElse(-1);
+		} catch (IOException | UnsupportedOperationException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * The bytes allocated by the main thread; both frameworks discover and
+	 * execute the tests sequentially in the main thread, so this includes all the
+	 * allocations of discovery and execution.
+	 */
+	private static long allocatedBytes() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean) {
+			return threadMXBean.getCurrentThreadAllocatedBytes();
+		}
+		return -1;
+	}
+
+}
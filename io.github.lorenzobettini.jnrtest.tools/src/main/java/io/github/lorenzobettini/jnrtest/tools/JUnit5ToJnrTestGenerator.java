@@ -2,6 +2,7 @@ package io.github.lorenzobettini.jnrtest.tools;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -12,6 +13,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.ToolFactory;
@@ -20,8 +28,11 @@ import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.Annotation;
+import org.eclipse.jdt.core.dom.ArrayInitializer;
 import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.ImportDeclaration;
 import org.eclipse.jdt.core.dom.MarkerAnnotation;
 import org.eclipse.jdt.core.dom.MemberValuePair;
@@ -29,13 +40,20 @@ import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.Name;
 import org.eclipse.jdt.core.dom.NormalAnnotation;
+import org.eclipse.jdt.core.dom.ParameterizedType;
 import org.eclipse.jdt.core.dom.PrimitiveType;
 import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.QualifiedType;
 import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
 import org.eclipse.jdt.core.dom.SingleMemberAnnotation;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
 import org.eclipse.jdt.core.dom.StringLiteral;
 import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.TextBlock;
+import org.eclipse.jdt.core.dom.Type;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.WildcardType;
 import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
 import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 import org.eclipse.jdt.core.formatter.CodeFormatter;
@@ -128,12 +146,98 @@ public class JUnit5ToJnrTestGenerator {
 			"org.junit.jupiter.api.AfterAll",
 			"org.junit.jupiter.api.AfterEach",
 			"org.junit.jupiter.api.Test",
-			"org.junit.jupiter.api.DisplayName"
+			"org.junit.jupiter.api.DisplayName",
+			"org.junit.jupiter.api.Nested",
+			"org.junit.jupiter.api.Disabled",
+			"org.junit.jupiter.api.Timeout",
+			"org.junit.jupiter.params.ParameterizedTest",
+			"org.junit.jupiter.params.provider.ValueSource",
+			"org.junit.jupiter.params.provider.CsvSource",
+			"org.junit.jupiter.params.provider.MethodSource"
 	);
 
+	private static final Set<String> JUNIT_ANNOTATIONS = JUNIT_ANNOTATION_IMPORTS.stream()
+			.map(name -> name.substring(name.lastIndexOf('.') + 1))
+			.collect(Collectors.toSet());
+
+	/**
+	 * The annotations of the methods that are converted, possibly qualified.
+	 */
+	private static final Pattern JUNIT_METHOD_ANNOTATION =
+			Pattern.compile("@\\s*(?:[\\w$]+\\s*\\.\\s*)*(?:Test|ParameterizedTest|Nested|BeforeAll|BeforeEach|AfterAll|AfterEach)\\b");
+
+	/**
+	 * The groups of the imports, after the static ones; the other imports follow.
+	 */
+	private static final List<String> IMPORT_GROUPS = List.of("java.", "javax.", "org.", "com.");
+
+	private static final Pattern IMPORT = Pattern.compile("import\\s+(static\\s+)?([\\w$.]+?)(\\.\\*)?\\s*;");
+
+	private static final Pattern IDENTIFIER =
+			Pattern.compile("\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
+
 	protected static final String JNRTEST_FQN = JnrTest.class.getCanonicalName();
 	protected static final String[] JNRTEST_FQN_PARTS = JNRTEST_FQN.split("\\.");
 
+	private int parallelism = 1;
+	private boolean incremental = false;
+
+	/**
+	 * The summary of a generation.
+	 *
+	 * @param generated the generated files
+	 * @param upToDate the files that have not been generated again, since they are up to date
+	 * @param withoutJUnitTests the number of source files without JUnit tests
+	 * @param notConverted the source files with JUnit features that cannot be converted
+	 * @param elapsedMillis the time taken by the generation, in milliseconds
+	 */
+	public record GenerationSummary(List<Path> generated, List<Path> upToDate, int withoutJUnitTests,
+			List<Path> notConverted, long elapsedMillis) {
+
+		@Override
+		public String toString() {
+			return String.format("Generated %d file(s), %d up to date, %d source file(s) without JUnit tests, "
+					+ "%d not converted, in %d ms",
+					generated.size(), upToDate.size(), withoutJUnitTests, notConverted.size(), elapsedMillis);
+		}
+	}
+
+	private enum FileStatus {
+		GENERATED, UP_TO_DATE, NO_JUNIT_TESTS, NOT_CONVERTED
+	}
+
+	private record FileResult(Path output, FileStatus status) {
+	}
+
+	/**
+	 * Converts the source files in parallel, using the given number of worker
+	 * threads; each worker thread reuses its own formatter, while the parser and
+	 * formatter options are shared.
+	 *
+	 * @param parallelism the number of worker threads; 1 (the default) means sequential
+	 * @return this instance for method chaining
+	 */
+	public JUnit5ToJnrTestGenerator withParallelism(int parallelism) {
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Skips the source files whose generated file is newer than the source file.
+	 * <p>
+	 * The generated file is expected in the output directory with the same
+	 * relative path as the source file (i.e., the package corresponds to the
+	 * directory); if that's not the case, the source file is always converted.
+	 * Note that generated files must be removed when the generator itself
+	 * changes, since they would be considered up to date.
+	 *
+	 * @return this instance for method chaining
+	 */
+	public JUnit5ToJnrTestGenerator withIncremental() {
+		this.incremental = true;
+		return this;
+	}
+
 	/**
 	 * Generates new JnrTest subclass source files from all JUnit Jupiter test classes
 	 * found in the source directory.
@@ -151,16 +255,32 @@ public class JUnit5ToJnrTestGenerator {
 	 * <li>{@code @AfterAll} - converted to {@code afterAll(...)} calls</li>
 	 * <li>{@code @AfterEach} - converted to {@code afterEach(...)} calls</li>
 	 * <li>{@code @DisplayName} - used as test description</li>
+	 * <li>{@code @ParameterizedTest} with {@code @ValueSource}, {@code @CsvSource} or
+	 * {@code @MethodSource} (a static factory method of the same class) - converted to
+	 * {@code testWithParameters(...)} calls</li>
+	 * <li>{@code @Nested} - the nested class is kept, and its tests are specified in
+	 * the generated class, calling its lifecycle and test methods on new instances</li>
+	 * <li>{@code @Timeout} - the test is wrapped with {@code withTimeout(...)}</li>
+	 * <li>{@code @Disabled} - the test, or the {@code @Nested} class, is not specified
+	 * and it is removed, leaving a comment in {@code specify()}</li>
 	 * </ul>
 	 * <p>
+	 * Source files using other JUnit features that cannot be converted (e.g., other
+	 * argument sources) are reported and not converted.
+	 * <p>
 	 * The generated files are formatted using Eclipse JDT formatter with tab indentation.
+	 * <p>
+	 * Source files can be converted in parallel (see {@link #withParallelism(int)}),
+	 * and up-to-date generated files can be skipped (see {@link #withIncremental()});
+	 * a summary of the generation is printed and returned.
 	 *
 	 * @param srcDir the source directory to scan for JUnit test files (relative or absolute)
 	 * @param outputDir the output directory where to generate the JnrTest files (will be created if needed)
+	 * @return the summary of the generation
 	 * @throws IOException if there is an error reading source files or writing output files
 	 * @throws IllegalArgumentException if srcDir is not a valid directory
 	 */
-	public void generate(String srcDir, String outputDir) throws IOException {
+	public GenerationSummary generate(String srcDir, String outputDir) throws IOException {
 		Path inputSrcDirPath = Path.of(srcDir).toAbsolutePath().normalize();
 		Path outputDirPath = Path.of(outputDir).toAbsolutePath().normalize();
 
@@ -169,44 +289,110 @@ public class JUnit5ToJnrTestGenerator {
 		}
 		Files.createDirectories(outputDirPath);
 
+		// shared (read-only) by all the workers, while each worker thread reuses its own formatter
 		Map<String, String> options = formatterOptions();
+		ThreadLocal<CodeFormatter> formatters = ThreadLocal.withInitial(() -> ToolFactory.createCodeFormatter(options));
 
+		List<Path> javaFiles;
 		try (var walk = Files.walk(inputSrcDirPath)) {
-			List<Path> javaFiles = walk
+			javaFiles = walk
 					.filter(p -> p.toString().endsWith(".java"))
+					.sorted()
 					.toList();
+		}
 
-			for (Path f : javaFiles) {
-				String source = Files.readString(f, StandardCharsets.UTF_8);
-				CompilationUnit cu = parse(source, options);
-
-				Optional<AbstractTypeDeclaration> primaryType = primaryTopLevelType(cu);
-				if (primaryType.isEmpty()) {
-					continue;
+		long start = System.currentTimeMillis();
+		List<FileResult> results;
+		try {
+			if (parallelism > 1) {
+				var pool = new ForkJoinPool(parallelism);
+				try {
+					results = pool.submit(() -> javaFiles.parallelStream()
+							.map(f -> convert(f, inputSrcDirPath, outputDirPath, options, formatters))
+							.toList()).join();
+				} finally {
+					pool.shutdown();
 				}
+			} else {
+				results = javaFiles.stream()
+						.map(f -> convert(f, inputSrcDirPath, outputDirPath, options, formatters))
+						.toList();
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
 
-				AbstractTypeDeclaration td = primaryType.get();
-				if (!(td instanceof TypeDeclaration typeDecl)) {
-					continue;
-				}
+		var summary = new GenerationSummary(
+				outputsWith(results, FileStatus.GENERATED),
+				outputsWith(results, FileStatus.UP_TO_DATE),
+				(int) results.stream().filter(r -> r.status() == FileStatus.NO_JUNIT_TESTS).count(),
+				outputsWith(results, FileStatus.NOT_CONVERTED),
+				System.currentTimeMillis() - start);
+		System.out.println(summary);
+		return summary;
+	}
 
-				TransformPlan plan = plan(typeDecl);
-				if (!plan.hasAnyJUnitMethods()) {
-					continue;
+	/**
+	 * Converts a single source file, if it contains JUnit tests.
+	 */
+	private FileResult convert(Path f, Path inputSrcDirPath, Path outputDirPath,
+			Map<String, String> options, ThreadLocal<CodeFormatter> formatters) {
+		try {
+			if (incremental) {
+				// the expected output, assuming the package corresponds to the directory
+				String fileName = f.getFileName().toString();
+				Path expectedOutput = outputDirPath.resolve(inputSrcDirPath.relativize(f))
+						.resolveSibling(fileName.substring(0, fileName.length() - ".java".length()) + "JnrTest.java");
+				if (Files.isRegularFile(expectedOutput) &&
+						Files.getLastModifiedTime(expectedOutput).compareTo(Files.getLastModifiedTime(f)) > 0) {
+					return new FileResult(expectedOutput, FileStatus.UP_TO_DATE);
 				}
+			}
 
-				String rewritten = transformOne(source, cu, typeDecl, plan, options);
+			String source = Files.readString(f, StandardCharsets.UTF_8);
+			// cheap textual check, to avoid parsing files that surely do not contain JUnit tests
+			if (!JUNIT_METHOD_ANNOTATION.matcher(source).find()) {
+				return new FileResult(f, FileStatus.NO_JUNIT_TESTS);
+			}
+			CompilationUnit cu = parse(source, options);
 
-				String pkg = (cu.getPackage() != null) ? cu.getPackage().getName().getFullyQualifiedName() : "";
-				Path outFile = outputPath(outputDirPath, pkg, plan.newClassName + ".java");
-				Files.createDirectories(outFile.getParent());
-				Files.writeString(outFile, rewritten, StandardCharsets.UTF_8);
+			Optional<AbstractTypeDeclaration> primaryType = primaryTopLevelType(cu);
+			if (primaryType.isEmpty() || !(primaryType.get() instanceof TypeDeclaration typeDecl)) {
+				return new FileResult(f, FileStatus.NO_JUNIT_TESTS);
+			}
 
-				System.out.println("Generated: " + outFile);
+			TransformPlan plan;
+			try {
+				plan = plan(typeDecl);
+			} catch (UnsupportedJUnitFeatureException e) {
+				System.out.println("Not converted: " + f + ": " + e.getMessage());
+				return new FileResult(f, FileStatus.NOT_CONVERTED);
 			}
+			if (!plan.hasAnyJUnitMethods()) {
+				return new FileResult(f, FileStatus.NO_JUNIT_TESTS);
+			}
+
+			String rewritten = transformOne(source, cu, typeDecl, plan, options, formatters.get());
+
+			String pkg = (cu.getPackage() != null) ? cu.getPackage().getName().getFullyQualifiedName() : "";
+			Path outFile = outputPath(outputDirPath, pkg, plan.newClassName + ".java");
+			Files.createDirectories(outFile.getParent());
+			Files.writeString(outFile, rewritten, StandardCharsets.UTF_8);
+
+			System.out.println("Generated: " + outFile);
+			return new FileResult(outFile, FileStatus.GENERATED);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 	}
 
+	private static List<Path> outputsWith(List<FileResult> results, FileStatus status) {
+		return results.stream()
+				.filter(r -> r.status() == status)
+				.map(FileResult::output)
+				.toList();
+	}
+
 	private static CompilationUnit parse(String source, Map<String, String> options) {
 		ASTParser p = ASTParser.newParser(AST.getJLSLatest());
 		p.setKind(ASTParser.K_COMPILATION_UNIT);
@@ -232,7 +418,8 @@ public class JUnit5ToJnrTestGenerator {
 			CompilationUnit cu,
 			TypeDeclaration typeDecl,
 			TransformPlan plan,
-			Map<String, String> options
+			Map<String, String> options,
+			CodeFormatter formatter
 	) {
 
 		AST ast = cu.getAST();
@@ -246,11 +433,14 @@ public class JUnit5ToJnrTestGenerator {
 		// extends JnrTest
 		rw.set(typeDecl, TypeDeclaration.SUPERCLASS_TYPE_PROPERTY, ast.newSimpleType(ast.newSimpleName("JnrTest")), null);
 
-		// Remove annotated methods (Before*/After*/Test)
+		// Remove converted methods (Before*/After*/Test/ParameterizedTest)
 		ListRewrite bodyRw = rw.getListRewrite(typeDecl, TypeDeclaration.BODY_DECLARATIONS_PROPERTY);
-		for (MethodDeclaration md : plan.junitMethodsInOrder) {
+		for (MethodDeclaration md : plan.root.convertedMethods) {
 			bodyRw.remove(md, null);
 		}
+		// Remove JUnit annotations from what is kept (e.g., @Nested classes), and what is disabled
+		removeJUnitAnnotations(rw, plan.root, plan.root.convertedMethods);
+		addImports(ast, rw, cu, plan.requiredImports);
 
 		// Add ctor + specify()
 		MethodDeclaration ctor = newConstructor(ast, plan.newClassName, plan.originalClassName);
@@ -265,7 +455,6 @@ public class JUnit5ToJnrTestGenerator {
 		astEdits.apply(doc);
 
 		// Format with tabs + include comments
-		CodeFormatter formatter = ToolFactory.createCodeFormatter(options);
 		TextEdit fmt = formatter.format(
 				CodeFormatter.K_COMPILATION_UNIT | CodeFormatter.F_INCLUDE_COMMENTS,
 				doc.get(),
@@ -281,7 +470,7 @@ public class JUnit5ToJnrTestGenerator {
 			throw new RuntimeException("Error during transformation of " + plan.originalClassName, e); // NOSONAR
 		}
 
-		String result = doc.get();
+		String result = organizeImports(doc.get());
 		result = result.replace("extends JnrTest {", "extends JnrTest { // NOSONAR");
 		return result;
 	}
@@ -312,6 +501,127 @@ public class JUnit5ToJnrTestGenerator {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private static void addImports(AST ast, ASTRewrite rw, CompilationUnit cu, Set<String> requiredImports) {
+		ListRewrite importsRw = rw.getListRewrite(cu, CompilationUnit.IMPORTS_PROPERTY);
+		for (String requiredImport : requiredImports) {
+			String packageName = requiredImport.substring(0, requiredImport.lastIndexOf('.'));
+			boolean alreadyImported = ((List<ImportDeclaration>) cu.imports()).stream()
+					.filter(id -> !id.isStatic())
+					.map(id -> id.getName().getFullyQualifiedName())
+					.anyMatch(name -> name.equals(requiredImport) || name.equals(packageName));
+			if (!alreadyImported) {
+				ImportDeclaration id = ast.newImportDeclaration();
+				id.setName(ast.newName(requiredImport.split("\\.")));
+				importsRw.insertLast(id, null);
+			}
+		}
+	}
+
+	/**
+	 * Removes the JUnit annotations from the given type, from its methods that are
+	 * kept and, recursively, from its {@code @Nested} classes; the disabled tests
+	 * and {@code @Nested} classes are removed, since they would be dead code.
+	 */
+	private static void removeJUnitAnnotations(ASTRewrite rw, TypePlan typePlan,
+			List<MethodDeclaration> removedMethods) {
+		TypeDeclaration type = typePlan.type;
+		ListRewrite bodyRw = rw.getListRewrite(type, TypeDeclaration.BODY_DECLARATIONS_PROPERTY);
+		removeJUnitAnnotations(rw.getListRewrite(type, TypeDeclaration.MODIFIERS2_PROPERTY), type.modifiers());
+		for (MethodDeclaration md : type.getMethods()) {
+			if (removedMethods.contains(md)) {
+				continue;
+			}
+			if (typePlan.tests.stream().anyMatch(t -> t.method() == md && t.disabledReason() != null)) {
+				bodyRw.remove(md, null);
+			} else {
+				removeJUnitAnnotations(rw.getListRewrite(md, MethodDeclaration.MODIFIERS2_PROPERTY), md.modifiers());
+			}
+		}
+		for (TypePlan nested : typePlan.nested) {
+			if (nested.disabledReason != null) {
+				bodyRw.remove(nested.type, null);
+			} else {
+				removeJUnitAnnotations(rw, nested, List.of());
+			}
+		}
+	}
+
+	/**
+	 * Removes the single imports that are not used (e.g., the ones only used by
+	 * the removed methods), and sorts the other ones in groups: the static ones,
+	 * then the ones of {@link #IMPORT_GROUPS}, then the other ones (e.g., the one
+	 * of {@link JnrTest}).
+	 * <p>
+	 * An import is considered used if its simple name occurs anywhere after the
+	 * imports, even in comments, so that a used import is never removed; imports
+	 * interleaved with comments are left untouched.
+	 */
+	private static String organizeImports(String source) {
+		List<String> lines = source.lines().toList();
+		int first = -1;
+		int last = -1;
+		for (int i = 0; i < lines.size(); i++) {
+			if (lines.get(i).startsWith("import ")) {
+				first = first < 0 ? i : first;
+				last = i;
+			}
+		}
+		if (first < 0) {
+			return source;
+		}
+		Set<String> usedNames = new HashSet<>();
+		Matcher identifiers = IDENTIFIER.matcher(String.join("\n", lines.subList(last + 1, lines.size())));
+		while (identifiers.find()) {
+			usedNames.add(identifiers.group());
+		}
+		// for each group, the imports sorted by name
+		Map<Integer, Map<String, String>> groups = new TreeMap<>();
+		for (String line : lines.subList(first, last + 1)) {
+			if (line.isBlank()) {
+				continue;
+			}
+			Matcher m = IMPORT.matcher(line.strip());
+			if (!m.matches()) {
+				return source;
+			}
+			String name = m.group(2);
+			boolean onDemand = m.group(3) != null;
+			if (!onDemand && !usedNames.contains(name.substring(name.lastIndexOf('.') + 1))) {
+				continue;
+			}
+			int group = 0;
+			if (m.group(1) == null) {
+				group = IMPORT_GROUPS.size() + 1;
+				for (int i = 0; i < IMPORT_GROUPS.size(); i++) {
+					if (name.startsWith(IMPORT_GROUPS.get(i))) {
+						group = i + 1;
+						break;
+					}
+				}
+			}
+			groups.computeIfAbsent(group, k -> new TreeMap<>()).put(name + (onDemand ? ".*" : ""), line.strip());
+		}
+		List<String> result = new ArrayList<>(lines.subList(0, first));
+		for (Map<String, String> group : groups.values()) {
+			if (result.size() > first) {
+				result.add("");
+			}
+			result.addAll(group.values());
+		}
+		result.addAll(lines.subList(last + 1, lines.size()));
+		String lineSeparator = System.lineSeparator();
+		return String.join(lineSeparator, result) + (source.endsWith("\n") ? lineSeparator : "");
+	}
+
+	private static void removeJUnitAnnotations(ListRewrite modifiersRw, List<?> modifiers) {
+		for (Object o : modifiers) {
+			if (o instanceof Annotation a && JUNIT_ANNOTATIONS.contains(simpleName(a.getTypeName()))) {
+				modifiersRw.remove(a, null);
+			}
+		}
+	}
+
 	protected boolean hasJnrTestImport(ImportDeclaration id, String name) {
 		return !id.isStatic() && !id.isOnDemand() && JNRTEST_FQN.equals(name);
 	}
@@ -375,22 +685,30 @@ public class JUnit5ToJnrTestGenerator {
 		StringBuilder sb = new StringBuilder();
 		sb.append("{\n");
 
-		for (MethodDeclaration md : plan.beforeAll) {
+		TypePlan root = plan.root;
+		for (MethodDeclaration md : root.beforeAll) {
 			sb.append(hookCall("beforeAll", CALL + md.getName().getIdentifier(), md, source));
 		}
-		for (MethodDeclaration md : plan.beforeEach) {
+		for (MethodDeclaration md : root.beforeEach) {
 			sb.append(hookCall("beforeEach", CALL + md.getName().getIdentifier(), md, source));
 		}
-		for (MethodDeclaration md : plan.afterAll) {
+		for (MethodDeclaration md : root.afterAll) {
 			sb.append(hookCall("afterAll", CALL + md.getName().getIdentifier(), md, source));
 		}
-		for (MethodDeclaration md : plan.afterEach) {
+		for (MethodDeclaration md : root.afterEach) {
 			sb.append(hookCall("afterEach", CALL + md.getName().getIdentifier(), md, source));
 		}
 
-		for (MethodDeclaration md : plan.tests) {
-			String display = displayNameOrMethodName(md);
-			sb.append(hookCall("test", display, md, source));
+		for (TestSpec test : root.tests) {
+			Block body = test.method().getBody();
+			if (body != null) {
+				String bodySrc = source.substring(body.getStartPosition(), body.getStartPosition() + body.getLength());
+				sb.append(testCall(test, test.description(), bodySrc));
+			}
+		}
+
+		for (TypePlan nested : root.nested) {
+			appendNested(sb, nested, List.of());
 		}
 
 		sb.append("}\n");
@@ -410,37 +728,189 @@ public class JUnit5ToJnrTestGenerator {
 				+ "\t\t\t() -> " + bodySrc + ");\n";
 	}
 
-	private static String displayNameOrMethodName(MethodDeclaration md) {
-		String dn = annotationStringValue(md, "DisplayName");
-		return (dn != null && !dn.isBlank()) ? dn : md.getName().getIdentifier();
+	/**
+	 * The call to test or testWithParameters for the given test, whose body is the
+	 * given block; a disabled test becomes a comment, since its method is removed.
+	 * <p>
+	 * The description of each execution of a parameterized test is the one of the
+	 * test followed by the parameters, separated by a space.
+	 */
+	private static String testCall(TestSpec test, String description, String block) {
+		if (test.disabledReason() != null) {
+			String reason = test.disabledReason().isBlank() ? "" : " (" + test.disabledReason() + ")";
+			return "\t\t// disabled: " + (description + reason).replaceAll("\\R", " ") + "\n";
+		}
+		Parameters parameters = test.parameters();
+		if (parameters == null) {
+			return "\t\ttest(\"" + escapeJava(description) + "\",\n"
+					+ "\t\t\t" + runnable(test.timeout(), block) + ");\n";
+		}
+		String lambda;
+		String parameter;
+		if (parameters.single()) {
+			parameter = parameters.names().get(0);
+			lambda = parameter + " -> "
+					+ (test.timeout() == null ? block : runnable(test.timeout(), block) + ".run()");
+		} else {
+			// the parameters are in a List<Object>
+			String arguments = freshName("arguments", new HashSet<>(parameters.names()));
+			parameter = arguments;
+			StringBuilder body = new StringBuilder("{\n");
+			for (int i = 0; i < parameters.names().size(); i++) {
+				String type = parameters.types().get(i);
+				body.append(type).append(' ').append(parameters.names().get(i))
+					.append(" = (").append(type).append(") ").append(arguments).append(".get(").append(i).append(");\n");
+			}
+			body.append(test.timeout() == null ?
+					block.substring(1, block.length() - 1).replaceFirst("^\\R", "") :
+					runnable(test.timeout(), block) + ".run();\n");
+			body.append('}');
+			lambda = arguments + " -> " + body;
+		}
+		return "\t\ttestWithParameters(\"" + escapeJava(description) + "\",\n"
+				+ "\t\t\t() -> " + parameters.provider() + ",\n"
+				+ "\t\t\t" + parameter + " -> \" \" + " + parameter + ",\n"
+				+ "\t\t\t" + lambda + ");\n";
 	}
 
-	private static String annotationStringValue(MethodDeclaration md, String annotationSimpleName) {
-		for (Object o : md.modifiers()) {
-			if (!(o instanceof Annotation a)) {
-				continue;
+	private static String runnable(Timeout timeout, String block) {
+		if (timeout == null) {
+			return "() -> " + block;
+		}
+		return "withTimeout(" + timeout.value() + (timeout.unit() != null ? ", " + timeout.unit() : "")
+				+ ", () -> " + block + ")";
+	}
+
+	/**
+	 * The tests of a {@code @Nested} class are specified in the outer class: for
+	 * each test, new instances of the nested classes are created, and the nested
+	 * lifecycle methods and the test method are called on them.
+	 */
+	private static void appendNested(StringBuilder sb, TypePlan nested, List<TypePlan> enclosing) {
+		List<TypePlan> path = new ArrayList<>(enclosing);
+		path.add(nested);
+		String qualifier = path.stream()
+				.map(t -> t.type.getName().getIdentifier())
+				.collect(Collectors.joining("."));
+		String prefix = path.stream()
+				.map(t -> t.description)
+				.collect(Collectors.joining(": ")) + ": ";
+
+		if (nested.disabledReason != null) {
+			String reason = nested.disabledReason.isBlank() ? "" : " (" + nested.disabledReason + ")";
+			sb.append("\t\t// disabled: ").append((qualifier + reason).replaceAll("\\R", " ")).append('\n');
+			return;
+		}
+		for (MethodDeclaration md : nested.beforeAll) {
+			String call = qualifier + "." + md.getName().getIdentifier();
+			sb.append("\t\tbeforeAll(\"" + CALL + call + "\",\n\t\t\t() -> " + call + "());\n");
+		}
+		for (MethodDeclaration md : nested.afterAll) {
+			String call = qualifier + "." + md.getName().getIdentifier();
+			sb.append("\t\tafterAll(\"" + CALL + call + "\",\n\t\t\t() -> " + call + "());\n");
+		}
+		for (TestSpec test : nested.tests) {
+			sb.append(testCall(test, prefix + test.description(), nestedTestBlock(path, test)));
+		}
+		for (TypePlan n : nested.nested) {
+			appendNested(sb, n, path);
+		}
+	}
+
+	private static String nestedTestBlock(List<TypePlan> path, TestSpec test) {
+		Set<String> usedNames = new HashSet<>(test.parameters() != null ? test.parameters().names() : List.of());
+		StringBuilder block = new StringBuilder("{\n");
+		StringBuilder finallyBlocks = new StringBuilder();
+		String instance = null;
+		for (TypePlan t : path) {
+			String className = t.type.getName().getIdentifier();
+			String variable = freshName(Character.toLowerCase(className.charAt(0)) + className.substring(1), usedNames);
+			block.append("var ").append(variable).append(" = ")
+				.append(instance == null ? "new " : instance + ".new ").append(className).append("();\n");
+			for (MethodDeclaration md : t.beforeEach) {
+				block.append(variable).append('.').append(md.getName().getIdentifier()).append("();\n");
 			}
-			String ann = simpleName(a.getTypeName());
-			if (!annotationSimpleName.equals(ann)) {
-				continue;
+			if (!t.afterEach.isEmpty()) {
+				block.append("try {\n");
+				StringBuilder finallyBlock = new StringBuilder("} finally {\n");
+				for (MethodDeclaration md : t.afterEach) {
+					finallyBlock.append(variable).append('.').append(md.getName().getIdentifier()).append("();\n");
+				}
+				finallyBlocks.insert(0, finallyBlock.append("}\n"));
 			}
+			instance = variable;
+		}
+		String arguments = test.parameters() != null ? String.join(", ", test.parameters().names()) : "";
+		block.append(instance).append('.').append(test.method().getName().getIdentifier())
+			.append('(').append(arguments).append(");\n");
+		return block.append(finallyBlocks).append('}').toString();
+	}
 
-			if (a instanceof SingleMemberAnnotation sma && sma.getValue() instanceof StringLiteral sl) {
-				return sl.getLiteralValue();
+	private static String freshName(String base, Set<String> usedNames) {
+		String name = base;
+		for (int i = 1; usedNames.contains(name); i++) {
+			name = base + i;
+		}
+		usedNames.add(name);
+		return name;
+	}
+
+	private static String displayNameOrName(List<?> modifiers, String name) {
+		String dn = annotationStringValue(modifiers, "DisplayName");
+		return (dn != null && !dn.isBlank()) ? dn.strip() : name;
+	}
+
+	private static Annotation findAnnotation(List<?> modifiers, String annotationSimpleName) {
+		for (Object o : modifiers) {
+			if (o instanceof Annotation a && annotationSimpleName.equals(simpleName(a.getTypeName()))) {
+				return a;
 			}
-			if (a instanceof NormalAnnotation na) {
-				for (Object v : na.values()) {
-					if (v instanceof MemberValuePair mvp
-							&& "value".equals(mvp.getName().getIdentifier())
-							&& mvp.getValue() instanceof StringLiteral sl) {
-						return sl.getLiteralValue();
-					}
+		}
+		return null;
+	}
+
+	private static Expression annotationValue(Annotation a, String memberName) {
+		if (a instanceof SingleMemberAnnotation sma && "value".equals(memberName)) {
+			return sma.getValue();
+		}
+		if (a instanceof NormalAnnotation na) {
+			for (Object v : na.values()) {
+				if (v instanceof MemberValuePair mvp && memberName.equals(mvp.getName().getIdentifier())) {
+					return mvp.getValue();
 				}
 			}
 		}
 		return null;
 	}
 
+	private static String annotationStringValue(List<?> modifiers, String annotationSimpleName) {
+		Annotation a = findAnnotation(modifiers, annotationSimpleName);
+		if (a != null && annotationValue(a, "value") instanceof StringLiteral sl) {
+			return sl.getLiteralValue();
+		}
+		return null;
+	}
+
+	/**
+	 * @return the reason of {@code @Disabled} (possibly empty), or null if not disabled
+	 */
+	private static String disabledReason(List<?> modifiers) {
+		if (findAnnotation(modifiers, "Disabled") == null) {
+			return null;
+		}
+		String reason = annotationStringValue(modifiers, "Disabled");
+		return reason != null ? reason : "";
+	}
+
+	private static Timeout timeout(List<?> modifiers) {
+		Annotation a = findAnnotation(modifiers, "Timeout");
+		if (a == null) {
+			return null;
+		}
+		Expression unit = annotationValue(a, "unit");
+		return new Timeout(annotationValue(a, "value").toString(), unit != null ? unit.toString() : null);
+	}
+
 	private static String simpleName(Name name) {
 		if (name.isQualifiedName()) {
 			return ((QualifiedName) name).getName().getIdentifier();
@@ -448,68 +918,394 @@ public class JUnit5ToJnrTestGenerator {
 		return ((SimpleName) name).getIdentifier();
 	}
 
+	private static String simpleName(Type type) {
+		if (type instanceof SimpleType st) {
+			return simpleName(st.getName());
+		}
+		if (type instanceof QualifiedType qt) {
+			return qt.getName().getIdentifier();
+		}
+		if (type instanceof ParameterizedType pt) {
+			return simpleName(pt.getType());
+		}
+		if (type instanceof WildcardType wt && wt.getBound() != null) {
+			return simpleName(wt.getBound());
+		}
+		return type.toString();
+	}
+
 	private static String escapeJava(String s) {
 		return s
 				.replace("\\", "\\\\")
 				.replace("\"", "\\\"");
 	}
 
+	private static String stringLiteral(String s) {
+		return "\"" + escapeJava(s)
+				.replace("\n", "\\n")
+				.replace("\r", "\\r")
+				.replace("\t", "\\t") + "\"";
+	}
+
 	private static TransformPlan plan(TypeDeclaration typeDecl) {
 		String originalName = typeDecl.getName().getIdentifier();
 		String newName = originalName + "JnrTest";
 
-		List<MethodDeclaration> junitMethodsInOrder = new ArrayList<>();
-		List<MethodDeclaration> beforeAll = new ArrayList<>();
-		List<MethodDeclaration> beforeEach = new ArrayList<>();
-		List<MethodDeclaration> afterAll = new ArrayList<>();
-		List<MethodDeclaration> afterEach = new ArrayList<>();
-		List<MethodDeclaration> tests = new ArrayList<>();
+		Set<String> requiredImports = new TreeSet<>();
+		TypePlan root = planType(typeDecl, "", timeout(typeDecl.modifiers()), disabledReason(typeDecl.modifiers()),
+				requiredImports);
+		return new TransformPlan(originalName, newName, root, requiredImports);
+	}
+
+	/**
+	 * Collects the JUnit methods of the given type, and, recursively, of its
+	 * {@code @Nested} classes.
+	 *
+	 * @param qualifier the qualifier to access the static methods of the type from
+	 * the generated class
+	 * @param timeout the timeout of the enclosing class, if any
+	 * @param disabledReason the reason of the enclosing class being disabled, if any
+	 */
+	private static TypePlan planType(TypeDeclaration type, String qualifier, Timeout timeout, String disabledReason,
+			Set<String> requiredImports) {
+		TypePlan typePlan = new TypePlan(type,
+				displayNameOrName(type.modifiers(), type.getName().getIdentifier()), disabledReason);
 
-		for (MethodDeclaration md : typeDecl.getMethods()) {
-			Set<String> anns = methodAnnotationSimpleNames(md);
+		for (MethodDeclaration md : type.getMethods()) {
+			Set<String> anns = annotationSimpleNames(md.modifiers());
 			boolean isJUnit = false;
 
 			if (anns.contains("BeforeAll")) {
-				beforeAll.add(md);
+				typePlan.beforeAll.add(md);
 				isJUnit = true;
 			}
 			if (anns.contains("BeforeEach")) {
-				beforeEach.add(md);
+				typePlan.beforeEach.add(md);
 				isJUnit = true;
 			}
 			if (anns.contains("AfterAll")) {
-				afterAll.add(md);
+				typePlan.afterAll.add(md);
 				isJUnit = true;
 			}
 			if (anns.contains("AfterEach")) {
-				afterEach.add(md);
+				typePlan.afterEach.add(md);
 				isJUnit = true;
 			}
-			if (anns.contains("Test")) {
-				tests.add(md);
-				isJUnit = true;
+			if (anns.contains("Test") || anns.contains("ParameterizedTest")) {
+				String testDisabledReason = disabledReason != null ? disabledReason : disabledReason(md.modifiers());
+				Timeout testTimeout = timeout(md.modifiers());
+				Parameters parameters = null;
+				if (testDisabledReason == null && anns.contains("ParameterizedTest")) {
+					parameters = parameters(md, type, qualifier, requiredImports);
+				}
+				typePlan.tests.add(new TestSpec(md,
+						displayNameOrName(md.modifiers(), md.getName().getIdentifier()),
+						parameters,
+						testTimeout != null ? testTimeout : timeout,
+						testDisabledReason));
+				// disabled tests are not converted, and they are removed
+				isJUnit = testDisabledReason == null;
 			}
 
 			if (isJUnit) {
-				junitMethodsInOrder.add(md);
+				typePlan.convertedMethods.add(md);
 			}
 		}
 
-		return new TransformPlan(
-				originalName,
-				newName,
-				junitMethodsInOrder,
-				beforeAll,
-				beforeEach,
-				afterAll,
-				afterEach,
-				tests
-		);
+		for (TypeDeclaration member : type.getTypes()) {
+			if (findAnnotation(member.modifiers(), "Nested") != null) {
+				Timeout nestedTimeout = timeout(member.modifiers());
+				String nestedDisabledReason = disabledReason(member.modifiers());
+				typePlan.nested.add(planType(member,
+						qualifier + member.getName().getIdentifier() + ".",
+						nestedTimeout != null ? nestedTimeout : timeout,
+						disabledReason != null ? disabledReason : nestedDisabledReason,
+						requiredImports));
+			}
+		}
+
+		return typePlan;
 	}
 
-	private static Set<String> methodAnnotationSimpleNames(MethodDeclaration md) {
-		Set<String> out = new HashSet<>();
+	/**
+	 * Computes the provider of the parameters of a {@code @ParameterizedTest}.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Parameters parameters(MethodDeclaration md, TypeDeclaration type, String qualifier,
+			Set<String> requiredImports) {
+		String methodName = md.getName().getIdentifier();
+		List<String> names = new ArrayList<>();
+		List<String> types = new ArrayList<>();
+		for (SingleVariableDeclaration p : (List<SingleVariableDeclaration>) md.parameters()) {
+			if (p.isVarargs() || p.getExtraDimensions() > 0) {
+				throw new UnsupportedJUnitFeatureException(methodName + ": varargs or array parameters");
+			}
+			names.add(p.getName().getIdentifier());
+			types.add(p.getType().toString());
+		}
+		if (names.isEmpty()) {
+			throw new UnsupportedJUnitFeatureException(methodName + ": @ParameterizedTest without parameters");
+		}
+
+		List<Annotation> sources = new ArrayList<>();
 		for (Object o : md.modifiers()) {
+			if (o instanceof Annotation a && simpleName(a.getTypeName()).matches(".*Sources?")) {
+				sources.add(a);
+			}
+		}
+		if (sources.size() != 1) {
+			throw new UnsupportedJUnitFeatureException(methodName + ": only a single argument source is supported");
+		}
+		Annotation source = sources.get(0);
+		switch (simpleName(source.getTypeName())) {
+		case "ValueSource":
+			return valueSourceParameters(methodName, source, names, types, requiredImports);
+		case "CsvSource":
+			return csvSourceParameters(methodName, source, names, types, requiredImports);
+		case "MethodSource":
+			return methodSourceParameters(md, source, type, qualifier, names, types, requiredImports);
+		default:
+			throw new UnsupportedJUnitFeatureException(methodName + ": @" + simpleName(source.getTypeName()));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Parameters valueSourceParameters(String methodName, Annotation source,
+			List<String> names, List<String> types, Set<String> requiredImports) {
+		if (names.size() != 1 || !(source instanceof NormalAnnotation na) || na.values().size() != 1) {
+			throw new UnsupportedJUnitFeatureException(methodName + ": @ValueSource with more than one parameter");
+		}
+		MemberValuePair pair = (MemberValuePair) na.values().get(0);
+		String kind = pair.getName().getIdentifier();
+		List<Expression> values = pair.getValue() instanceof ArrayInitializer ai ?
+				ai.expressions() : List.of(pair.getValue());
+		List<String> literals = new ArrayList<>();
+		for (Expression value : values) {
+			String v = value.toString();
+			literals.add(switch (kind) {
+			case "shorts" -> "(short) " + v;
+			case "bytes" -> "(byte) " + v;
+			case "longs" -> v.matches("-?\\d[\\d_]*") ? v + "L" : v;
+			case "floats" -> v.matches("-?[\\d_.]+([eE][-+]?\\d+)?") ? v + "f" : v;
+			case "doubles" -> v.matches("-?[\\d_]+") ? v + "d" : v;
+			case "ints", "chars", "booleans", "strings", "classes" -> v;
+			default -> throw new UnsupportedJUnitFeatureException(methodName + ": @ValueSource(" + kind + ")");
+			});
+		}
+		requiredImports.add("java.util.List");
+		return new Parameters("List.of(" + String.join(", ", literals) + ")", names, types, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Parameters csvSourceParameters(String methodName, Annotation source,
+			List<String> names, List<String> types, Set<String> requiredImports) {
+		List<String> records = new ArrayList<>();
+		String delimiter = ",";
+		List<MemberValuePair> pairs = new ArrayList<>();
+		if (source instanceof SingleMemberAnnotation sma) {
+			MemberValuePair pair = sma.getAST().newMemberValuePair();
+			pair.setName(sma.getAST().newSimpleName("value"));
+			pair.setValue((Expression) ASTNode.copySubtree(sma.getAST(), sma.getValue()));
+			pairs.add(pair);
+		} else if (source instanceof NormalAnnotation na) {
+			pairs.addAll(na.values());
+		}
+		for (MemberValuePair pair : pairs) {
+			Expression value = pair.getValue();
+			switch (pair.getName().getIdentifier()) {
+			case "value":
+				List<Expression> values = value instanceof ArrayInitializer ai ? ai.expressions() : List.of(value);
+				for (Expression e : values) {
+					if (!(e instanceof StringLiteral sl)) {
+						throw new UnsupportedJUnitFeatureException(methodName + ": @CsvSource with non literal values");
+					}
+					records.add(sl.getLiteralValue());
+				}
+				break;
+			case "textBlock":
+				if (!(value instanceof TextBlock tb)) {
+					throw new UnsupportedJUnitFeatureException(methodName + ": @CsvSource with non literal text block");
+				}
+				tb.getLiteralValue().lines()
+					.filter(line -> !line.isBlank() && !line.strip().startsWith("#"))
+					.forEach(records::add);
+				break;
+			case "delimiter":
+				if (!(value instanceof CharacterLiteral cl)) {
+					throw new UnsupportedJUnitFeatureException(methodName + ": @CsvSource with non literal delimiter");
+				}
+				delimiter = String.valueOf(cl.charValue());
+				break;
+			case "delimiterString":
+				if (!(value instanceof StringLiteral sl)) {
+					throw new UnsupportedJUnitFeatureException(methodName + ": @CsvSource with non literal delimiter");
+				}
+				delimiter = sl.getLiteralValue();
+				break;
+			default:
+				throw new UnsupportedJUnitFeatureException(
+						methodName + ": @CsvSource(" + pair.getName().getIdentifier() + ")");
+			}
+		}
+
+		List<String> tuples = new ArrayList<>();
+		for (String csvRecord : records) {
+			List<String> fields = parseCsvRecord(csvRecord, delimiter);
+			if (fields.size() < names.size()) {
+				throw new UnsupportedJUnitFeatureException(methodName + ": too few values in \"" + csvRecord + "\"");
+			}
+			List<String> literals = new ArrayList<>();
+			for (int i = 0; i < names.size(); i++) {
+				literals.add(csvLiteral(methodName, fields.get(i), types.get(i)));
+			}
+			tuples.add(names.size() == 1 ? literals.get(0) : "List.<Object>of(" + String.join(", ", literals) + ")");
+		}
+		requiredImports.add("java.util.List");
+		return new Parameters("List.of(" + String.join(", ", tuples) + ")", names, types, names.size() == 1);
+	}
+
+	/**
+	 * Splits a CSV record, where values can be quoted with single quotes.
+	 *
+	 * @return the values, where a null element represents an empty unquoted value
+	 */
+	private static List<String> parseCsvRecord(String csvRecord, String delimiter) {
+		List<String> rawFields = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false;
+		int i = 0;
+		while (i < csvRecord.length()) {
+			char c = csvRecord.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (!quoted && csvRecord.startsWith(delimiter, i)) {
+				rawFields.add(current.toString());
+				current.setLength(0);
+				i += delimiter.length();
+				continue;
+			}
+			current.append(c);
+			i++;
+		}
+		rawFields.add(current.toString());
+
+		List<String> fields = new ArrayList<>();
+		for (String rawField : rawFields) {
+			String field = rawField.strip();
+			if (field.length() >= 2 && field.startsWith("'") && field.endsWith("'")) {
+				fields.add(field.substring(1, field.length() - 1).replace("''", "'"));
+			} else {
+				fields.add(field.isEmpty() ? null : field);
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Converts a CSV value into a Java literal of the given type, with the same
+	 * implicit conversions of JUnit.
+	 */
+	private static String csvLiteral(String methodName, String value, String type) {
+		if (value == null) {
+			throw new UnsupportedJUnitFeatureException(methodName + ": @CsvSource with null values");
+		}
+		try {
+			return switch (type) {
+			case "int", "Integer" -> Integer.toString(Integer.parseInt(value));
+			case "long", "Long" -> Long.parseLong(value) + "L";
+			case "short", "Short" -> "(short) " + Short.parseShort(value);
+			case "byte", "Byte" -> "(byte) " + Byte.parseByte(value);
+			case "double", "Double" -> finite(Double.parseDouble(value), Double.toString(Double.parseDouble(value)));
+			case "float", "Float" -> finite(Float.parseFloat(value), Float.parseFloat(value) + "f");
+			case "boolean", "Boolean" -> switch (value.toLowerCase()) {
+				case "true", "false" -> value.toLowerCase();
+				default -> throw new NumberFormatException(value);
+			};
+			case "char", "Character" -> {
+				if (value.length() != 1) {
+					throw new NumberFormatException(value);
+				}
+				yield charLiteral(value.charAt(0));
+			}
+			case "String", "CharSequence", "Object" -> stringLiteral(value);
+			default -> throw new UnsupportedJUnitFeatureException(
+					methodName + ": @CsvSource with parameter of type " + type);
+			};
+		} catch (NumberFormatException e) {
+			throw new UnsupportedJUnitFeatureException(
+					methodName + ": cannot convert \"" + value + "\" to " + type);
+		}
+	}
+
+	private static String charLiteral(char c) {
+		return switch (c) {
+		case '\'' -> "'\\''";
+		case '\\' -> "'\\\\'";
+		default -> "'" + c + "'";
+		};
+	}
+
+	private static String finite(double value, String literal) {
+		if (!Double.isFinite(value)) {
+			throw new NumberFormatException(literal);
+		}
+		return literal;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Parameters methodSourceParameters(MethodDeclaration md, Annotation source,
+			TypeDeclaration type, String qualifier, List<String> names, List<String> types,
+			Set<String> requiredImports) {
+		String methodName = md.getName().getIdentifier();
+		Expression value = annotationValue(source, "value");
+		List<Expression> values = value instanceof ArrayInitializer ai ? ai.expressions() :
+			value != null ? List.of(value) : List.of();
+		if (values.size() > 1 || (values.size() == 1 && !(values.get(0) instanceof StringLiteral))) {
+			throw new UnsupportedJUnitFeatureException(methodName + ": @MethodSource with several factory methods");
+		}
+		String factoryName = values.isEmpty() ? "" : ((StringLiteral) values.get(0)).getLiteralValue();
+		if (factoryName.isEmpty()) {
+			factoryName = methodName;
+		}
+		final String name = factoryName;
+		MethodDeclaration factory = Stream.of(type.getMethods())
+				.filter(m -> m.getName().getIdentifier().equals(name) && m.parameters().isEmpty())
+				.filter(m -> Modifier.isStatic(m.getModifiers()))
+				.findFirst()
+				.orElseThrow(() -> new UnsupportedJUnitFeatureException(
+						methodName + ": @MethodSource(\"" + name + "\") is not a static method of the same class"));
+
+		Type returnType = factory.getReturnType2();
+		String returnTypeName = simpleName(returnType);
+		String elementTypeName = returnType instanceof ParameterizedType pt && pt.typeArguments().size() == 1 ?
+				simpleName((Type) pt.typeArguments().get(0)) : null;
+		boolean arguments = "Arguments".equals(elementTypeName);
+		String call = qualifier + name + "()";
+		String provider = switch (returnTypeName) {
+		case "Stream" -> elementTypeName == null ? null :
+			arguments ? call + ".map(a -> Arrays.asList(a.get())).toList()" : call + ".toList()";
+		case "IntStream", "LongStream", "DoubleStream" -> call + ".boxed().toList()";
+		case "List", "Collection", "Set" -> elementTypeName == null ? null :
+			arguments ? call + ".stream().map(a -> Arrays.asList(a.get())).toList()" : call;
+		default -> null;
+		};
+		if (provider == null) {
+			throw new UnsupportedJUnitFeatureException(methodName + ": @MethodSource returning " + returnType);
+		}
+		if (arguments) {
+			requiredImports.add("java.util.Arrays");
+			return new Parameters(provider, names, types, false);
+		}
+		if (names.size() != 1) {
+			throw new UnsupportedJUnitFeatureException(
+					methodName + ": @MethodSource for several parameters must provide Arguments");
+		}
+		return new Parameters(provider, names, types, true);
+	}
+
+	private static Set<String> annotationSimpleNames(List<?> modifiers) {
+		Set<String> out = new HashSet<>();
+		for (Object o : modifiers) {
 			if (o instanceof Annotation a) {
 				out.add(simpleName(a.getTypeName()));
 			}
@@ -541,39 +1337,74 @@ public class JUnit5ToJnrTestGenerator {
 		return opts;
 	}
 
+	private record Timeout(String value, String unit) {
+	}
+
+	/**
+	 * The parameters of a parameterized test.
+	 *
+	 * @param provider the expression providing the collection of parameters
+	 * @param names the names of the parameters of the test method
+	 * @param types the types of the parameters of the test method
+	 * @param single whether each provided element is the single parameter, or a
+	 * {@code List<Object>} of the parameters
+	 */
+	private record Parameters(String provider, List<String> names, List<String> types, boolean single) {
+	}
+
+	private record TestSpec(MethodDeclaration method, String description, Parameters parameters,
+			Timeout timeout, String disabledReason) {
+	}
+
+	/**
+	 * The JUnit methods of the main type or of a {@code @Nested} class.
+	 */
+	private static final class TypePlan {
+		final TypeDeclaration type;
+		final String description;
+		final String disabledReason;
+
+		final List<MethodDeclaration> convertedMethods = new ArrayList<>();
+		final List<MethodDeclaration> beforeAll = new ArrayList<>();
+		final List<MethodDeclaration> beforeEach = new ArrayList<>();
+		final List<MethodDeclaration> afterAll = new ArrayList<>();
+		final List<MethodDeclaration> afterEach = new ArrayList<>();
+		final List<TestSpec> tests = new ArrayList<>();
+		final List<TypePlan> nested = new ArrayList<>();
+
+		TypePlan(TypeDeclaration type, String description, String disabledReason) {
+			this.type = type;
+			this.description = description;
+			this.disabledReason = disabledReason;
+		}
+	}
+
 	private static final class TransformPlan {
 		final String originalClassName;
 		final String newClassName;
+		final TypePlan root;
+		final Set<String> requiredImports;
 
-		final List<MethodDeclaration> junitMethodsInOrder;
-		final List<MethodDeclaration> beforeAll;
-		final List<MethodDeclaration> beforeEach;
-		final List<MethodDeclaration> afterAll;
-		final List<MethodDeclaration> afterEach;
-		final List<MethodDeclaration> tests;
-
-		TransformPlan( // NOSONAR we need all these parameters
-				String originalClassName,
-				String newClassName,
-				List<MethodDeclaration> junitMethodsInOrder,
-				List<MethodDeclaration> beforeAll,
-				List<MethodDeclaration> beforeEach,
-				List<MethodDeclaration> afterAll,
-				List<MethodDeclaration> afterEach,
-				List<MethodDeclaration> tests
-		) {
+		TransformPlan(String originalClassName, String newClassName, TypePlan root, Set<String> requiredImports) {
 			this.originalClassName = originalClassName;
 			this.newClassName = newClassName;
-			this.junitMethodsInOrder = junitMethodsInOrder;
-			this.beforeAll = beforeAll;
-			this.beforeEach = beforeEach;
-			this.afterAll = afterAll;
-			this.afterEach = afterEach;
-			this.tests = tests;
+			this.root = root;
+			this.requiredImports = requiredImports;
 		}
 
 		boolean hasAnyJUnitMethods() {
-			return !junitMethodsInOrder.isEmpty();
+			return !root.convertedMethods.isEmpty() || !root.tests.isEmpty() || !root.nested.isEmpty();
+		}
+	}
+
+	/**
+	 * Signals a JUnit feature that cannot be converted; the whole file is not converted.
+	 */
+	private static final class UnsupportedJUnitFeatureException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		UnsupportedJUnitFeatureException(String message) {
+			super(message);
 		}
 	}
 }
@@ -0,0 +1,218 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Creates a class-data sharing archive for launching a test main (typically the
+ * one generated by {@link JnrTestMainGenerator}), so that repeated launches of
+ * the same, small, test suites do not pay the cost of loading and linking
+ * classes again.
+ * <p>
+ * The archive is created by a training run of the main, and is reused by the
+ * later launches, until the classpath changes: on JDK 25 or later, this is an
+ * AOT cache ({@code -XX:AOTCacheOutput} and {@code -XX:AOTCache}); on earlier
+ * JDKs, this is a dynamic AppCDS archive ({@code -XX:ArchiveClassesAtExit}
+ * and {@code -XX:SharedArchiveFile}).
+ * <p>
+ * The JVM only archives classes loaded from jars, so the directories in the
+ * classpath (e.g., "target/test-classes") are first packed into jars, in the
+ * directory of the archive; the returned options refer to such jars, which are
+ * recreated, together with the archive, only when the contents of the
+ * directories change.
+ * <p>
+ * Example usage:
+ * {@snippet :
+ * List<String> jvmOptions = new JnrTestClassDataSharing(Path.of("target/cds"))
+ *     .jvmOptions(classpath, "com.example.JnrTestMain");
+ * // launch "java" with jvmOptions, followed by the main class and its arguments
+ * }
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestClassDataSharing {
+
+	private static final String ARCHIVE = "jnrtest.jsa";
+	private static final String AOT_CACHE = "jnrtest.aot";
+	private static final String JARS = "classpath";
+	private static final String TRAINING_COMMAND = "training-command.txt";
+	private static final String TRAINING_LOG = "training.log";
+
+	private final Path directory;
+	private final boolean aotCache;
+	private List<String> trainingArguments = List.of();
+
+	/**
+	 * Uses the given directory for the archive, the jars of the classpath
+	 * directories and the log of the training run.
+	 *
+	 * @param directory the directory (will be created if it doesn't exist)
+	 */
+	public JnrTestClassDataSharing(Path directory) {
+		this.directory = directory;
+		this.aotCache = Runtime.version().feature() >= 25;
+	}
+
+	/**
+	 * The arguments passed to the main during the training run, e.g., to
+	 * select the same test classes that will be launched later.
+	 *
+	 * @param arguments the arguments for the main
+	 * @return this instance for method chaining
+	 */
+	public JnrTestClassDataSharing withTrainingArguments(String... arguments) {
+		this.trainingArguments = List.of(arguments);
+		return this;
+	}
+
+	/**
+	 * The path of the archive, which exists after a successful training run.
+	 *
+	 * @return the path of the archive
+	 */
+	public Path getArchive() {
+		return directory.resolve(aotCache ? AOT_CACHE : ARCHIVE);
+	}
+
+	/**
+	 * Returns the options for launching, with the current JVM, the given main
+	 * with the archive; if the archive is missing or out of date with respect
+	 * to the classpath, it is created first, with a training run of the main.
+	 *
+	 * @param classpath the classpath of the main, with entries separated by
+	 * {@link File#pathSeparator}
+	 * @param mainClass the fully qualified name of the main class
+	 * @return the JVM options, including the classpath, to be passed before
+	 * the main class
+	 * @throws IOException if the jars or the archive cannot be created
+	 * @throws InterruptedException if interrupted while waiting for the
+	 * training run
+	 * @throws IllegalStateException if the training run fails
+	 */
+	public List<String> jvmOptions(String classpath, String mainClass) throws IOException, InterruptedException {
+		Files.createDirectories(directory.resolve(JARS));
+		var jarClasspath = jarClasspath(classpath);
+		var archive = getArchive();
+		var trainingCommand = command(
+			(aotCache ? "-XX:AOTCacheOutput=" : "-XX:ArchiveClassesAtExit=") + archive,
+			jarClasspath, mainClass, trainingArguments);
+		if (!isUpToDate(archive, jarClasspath, trainingCommand)) {
+			train(archive, trainingCommand);
+		}
+		return List.of(
+			(aotCache ? "-XX:AOTCache=" : "-XX:SharedArchiveFile=") + archive,
+			"-cp", jarClasspath);
+	}
+
+	/**
+	 * Replaces the directories in the classpath with jars containing the same
+	 * files; the jar of a directory is recreated only if the directory changed.
+	 */
+	private String jarClasspath(String classpath) throws IOException {
+		var entries = new ArrayList<String>();
+		var index = 0;
+		for (var entry : classpath.split(File.pathSeparator)) {
+			var path = Path.of(entry);
+			if (!Files.isDirectory(path)) {
+				entries.add(entry);
+				continue;
+			}
+			var jar = directory.resolve(JARS).resolve(index++ + "-" + path.getFileName() + ".jar").toAbsolutePath();
+			if (!Files.exists(jar) || lastModified(path).compareTo(Files.getLastModifiedTime(jar)) > 0) {
+				createJar(path, jar);
+			}
+			entries.add(jar.toString());
+		}
+		return String.join(File.pathSeparator, entries);
+	}
+
+	/**
+	 * The most recent modification time of the files and directories in the
+	 * given directory; the modification time of a directory changes also when
+	 * a file is deleted.
+	 */
+	private static FileTime lastModified(Path dir) throws IOException {
+		try (Stream<Path> walk = Files.walk(dir)) {
+			return walk.map(p -> {
+					try {
+						return Files.getLastModifiedTime(p);
+					} catch (IOException e) {
+						return FileTime.fromMillis(Long.MAX_VALUE);
+					}
+				})
+				.max(FileTime::compareTo)
+				.orElseThrow();
+		}
+	}
+
+	private static void createJar(Path dir, Path jar) throws IOException {
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(dir)) {
+			files = walk.filter(Files::isRegularFile).sorted().toList();
+		}
+		try (var out = new JarOutputStream(Files.newOutputStream(jar))) {
+			for (var file : files) {
+				out.putNextEntry(new JarEntry(dir.relativize(file).toString().replace(File.separatorChar, '/')));
+				Files.copy(file, out);
+				out.closeEntry();
+			}
+		}
+	}
+
+	/**
+	 * The archive is up to date if it is more recent than all the entries of the
+	 * classpath and it was created with the same training command.
+	 */
+	private boolean isUpToDate(Path archive, String jarClasspath, List<String> trainingCommand) throws IOException {
+		var trainingCommandFile = directory.resolve(TRAINING_COMMAND);
+		if (!Files.exists(archive) || !Files.exists(trainingCommandFile) ||
+				!Files.readAllLines(trainingCommandFile, StandardCharsets.UTF_8).equals(trainingCommand)) {
+			return false;
+		}
+		var archiveTime = Files.getLastModifiedTime(archive);
+		for (var entry : jarClasspath.split(File.pathSeparator)) {
+			var path = Path.of(entry);
+			if (Files.exists(path) && Files.getLastModifiedTime(path).compareTo(archiveTime) > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void train(Path archive, List<String> trainingCommand) throws IOException, InterruptedException {
+		Files.deleteIfExists(archive);
+		var log = directory.resolve(TRAINING_LOG);
+		var exitCode = new ProcessBuilder(trainingCommand)
+			.redirectErrorStream(true)
+			.redirectOutput(log.toFile())
+			.start()
+			.waitFor();
+		if (!Files.exists(archive)) {
+			throw new IllegalStateException(
+				"Training run failed (exit code " + exitCode + "), see " + log.toAbsolutePath());
+		}
+		Files.write(directory.resolve(TRAINING_COMMAND), trainingCommand, StandardCharsets.UTF_8);
+	}
+
+	private static List<String> command(String archiveOption, String classpath, String mainClass,
+			List<String> arguments) {
+		var command = new ArrayList<String>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.add(archiveOption);
+		command.add("-cp");
+		command.add(classpath);
+		command.add(mainClass);
+		command.addAll(arguments);
+		return command;
+	}
+
+}
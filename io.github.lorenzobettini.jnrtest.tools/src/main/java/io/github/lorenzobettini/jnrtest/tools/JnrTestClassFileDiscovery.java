@@ -0,0 +1,314 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+/**
+ * Discovers JnrTest subclasses in a directory of compiled classes (e.g.,
+ * {@code target/test-classes}) by reading the headers of class files.
+ * <p>
+ * Differently from {@link JnrTestDiscovery}, no source is parsed and no binding
+ * is resolved: only the superclass, the access flags, the constructors and the
+ * inner class information of each class file are read, without loading any
+ * class. This is much faster and lighter, and it also works for tests written
+ * in other JVM languages.
+ * <p>
+ * Superclasses that are not in the scanned directory are looked up, again as
+ * class file resources, in the class path of the current JVM.
+ * <p>
+ * Example usage:
+ * {@snippet :
+ * List<String> testClasses = new JnrTestClassFileDiscovery().discover("target/test-classes");
+ * }
+ *
+ * @author Lorenzo Bettini
+ */
+public final class JnrTestClassFileDiscovery implements JnrTestDiscoveryInterface {
+
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_ABSTRACT = 0x0400;
+
+	private static final String CLASS_FILE_EXTENSION = ".class";
+	private static final String JAVA_LANG_OBJECT = "java/lang/Object";
+
+	private final Map<String, Boolean> classpathSubtypes = new ConcurrentHashMap<>();
+
+	/**
+	 * Discovers all instantiable JnrTest subclasses in the specified directory of class files.
+	 * <p>
+	 * The classes are the same as the ones of {@link JnrTestDiscovery#discover(String)}, i.e., classes that:
+	 * <ul>
+	 * <li>Extend {@link JnrTest} (directly or indirectly)</li>
+	 * <li>Are public and not abstract</li>
+	 * <li>Have a public no-argument constructor</li>
+	 * <li>Are not inner classes (or are static inner classes)</li>
+	 * </ul>
+	 * <p>
+	 * The method prints discovery information to System.out, including the total number
+	 * of subtypes found and which ones are instantiable.
+	 *
+	 * @param classesDir the directory with compiled classes to scan (relative to current working directory)
+	 * @return a sorted list of fully qualified class names that can be instantiated
+	 * @throws IOException if there is an error reading the directory or files
+	 * @throws IllegalArgumentException if classesDir is not a valid directory
+	 */
+	@Override
+	public List<String> discover(String classesDir) throws IOException {
+		String superTypeName = JnrTest.class.getName().replace('.', '/');
+		Path classesRoot = Path.of("").toAbsolutePath().resolve(classesDir);
+		if (!Files.isDirectory(classesRoot)) {
+			throw new IllegalArgumentException("Not found: " + classesRoot.toAbsolutePath());
+		}
+
+		Map<String, ClassHeader> headers;
+		try (Stream<Path> s = Files.walk(classesRoot)) {
+			headers = s
+					.filter(p -> p.toString().endsWith(CLASS_FILE_EXTENSION))
+					.filter(p -> !p.getFileName().toString().equals("module-info.class"))
+					.filter(p -> !p.getFileName().toString().equals("package-info.class"))
+					.toList()
+					.parallelStream()
+					.map(JnrTestClassFileDiscovery::read)
+					.collect(Collectors.toMap(ClassHeader::name, Function.identity()));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		Map<String, Boolean> subtypesCache = new HashMap<>();
+		List<ClassHeader> hits = headers.values().stream()
+				.filter(h -> !h.isLocalOrAnonymous())
+				.filter(h -> isSubtypeOf(h.name(), superTypeName, headers, subtypesCache))
+				.toList();
+
+		List<String> subtypes = hits.stream()
+				.map(h -> canonicalName(h, headers))
+				.sorted()
+				.toList();
+
+		List<String> newables = hits.stream()
+				.filter(JnrTestClassFileDiscovery::isNewableNoArgPublicCtor)
+				.map(h -> canonicalName(h, headers))
+				.sorted()
+				.toList();
+
+		System.out.println("Supertype: " + JnrTest.class.getName());
+		System.out.println("Found " + subtypes.size() + " subtype(s) under " + classesRoot.toAbsolutePath());
+		System.out.println("Subtype(s): " + subtypes);
+		System.out.println("Newable (public no-arg ctor): " + newables);
+
+		return newables;
+	}
+
+	private boolean isSubtypeOf(String name, String superTypeName, Map<String, ClassHeader> headers,
+			Map<String, Boolean> subtypesCache) {
+		if (name == null || JAVA_LANG_OBJECT.equals(name)) {
+			return false;
+		}
+		if (superTypeName.equals(name)) {
+			return true;
+		}
+		Boolean cached = subtypesCache.get(name);
+		if (cached != null) {
+			return cached;
+		}
+		// avoid infinite loops in case of (erroneous) cyclic hierarchies
+		subtypesCache.put(name, false);
+		boolean result;
+		ClassHeader header = headers.get(name);
+		if (header != null) {
+			result = isSubtypeOf(header.superName(), superTypeName, headers, subtypesCache);
+		} else {
+			result = isSubtypeInClasspath(name, superTypeName);
+		}
+		subtypesCache.put(name, result);
+		return result;
+	}
+
+	private boolean isSubtypeInClasspath(String name, String superTypeName) {
+		return classpathSubtypes.computeIfAbsent(name, n -> {
+			String current = n;
+			while (current != null && !JAVA_LANG_OBJECT.equals(current)) {
+				if (superTypeName.equals(current)) {
+					return true;
+				}
+				current = readSuperNameFromClasspath(current);
+			}
+			return false;
+		});
+	}
+
+	private static String readSuperNameFromClasspath(String name) {
+		try (InputStream in = ClassLoader.getSystemResourceAsStream(name + CLASS_FILE_EXTENSION)) {
+			if (in == null) {
+				return null;
+			}
+			return read(in).superName();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static boolean isNewableNoArgPublicCtor(ClassHeader h) {
+		int flags = h.accessFlags();
+		if ((flags & ACC_PUBLIC) == 0 || (flags & (ACC_ABSTRACT | ACC_INTERFACE)) != 0) {
+			return false;
+		}
+		if (h.isMember() && (flags & ACC_STATIC) == 0) {
+			return false;
+		}
+		return h.hasPublicNoArgConstructor();
+	}
+
+	private static String canonicalName(ClassHeader h, Map<String, ClassHeader> headers) {
+		if (h.isMember()) {
+			ClassHeader outer = headers.get(h.outerName());
+			String outerName = outer != null ? canonicalName(outer, headers) : h.outerName().replace('/', '.');
+			return outerName + "." + h.simpleName();
+		}
+		return h.name().replace('/', '.');
+	}
+
+	private static ClassHeader read(Path classFile) {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(classFile))) {
+			return read(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read " + classFile, e);
+		}
+	}
+
+	/**
+	 * Reads the header of a class file, see the JVM specification, Chapter 4
+	 * "The class File Format"; the bodies of fields, methods and attributes that
+	 * are not relevant are skipped.
+	 */
+	private static ClassHeader read(InputStream inputStream) throws IOException {
+		var in = new DataInputStream(inputStream);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a class file");
+		}
+		in.readUnsignedShort(); // minor_version
+		in.readUnsignedShort(); // major_version
+
+		int constantPoolCount = in.readUnsignedShort();
+		var utf8s = new String[constantPoolCount];
+		var classNameIndexes = new int[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; i++) {
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+				case 1 -> utf8s[i] = in.readUTF(); // Utf8
+				case 7 -> classNameIndexes[i] = in.readUnsignedShort(); // Class
+				case 8, 16, 19, 20 -> in.skipNBytes(2); // String, MethodType, Module, Package
+				case 15 -> in.skipNBytes(3); // MethodHandle
+				case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipNBytes(4); // Integer, Float, refs, NameAndType, Dynamic
+				case 5, 6 -> { // Long, Double take two entries
+					in.skipNBytes(8);
+					i++;
+				}
+				default -> throw new IOException("Unknown constant pool tag " + tag);
+			}
+		}
+
+		int accessFlags = in.readUnsignedShort();
+		String name = utf8s[classNameIndexes[in.readUnsignedShort()]];
+		int superClass = in.readUnsignedShort();
+		String superName = superClass != 0 ? utf8s[classNameIndexes[superClass]] : null;
+		in.skipNBytes(2L * in.readUnsignedShort()); // interfaces
+
+		int fieldsCount = in.readUnsignedShort();
+		for (int i = 0; i < fieldsCount; i++) {
+			in.skipNBytes(6); // access_flags, name_index, descriptor_index
+			skipAttributes(in);
+		}
+
+		boolean hasPublicNoArgConstructor = false;
+		int methodsCount = in.readUnsignedShort();
+		for (int i = 0; i < methodsCount; i++) {
+			int methodAccessFlags = in.readUnsignedShort();
+			String methodName = utf8s[in.readUnsignedShort()];
+			String descriptor = utf8s[in.readUnsignedShort()];
+			if ("<init>".equals(methodName) && "()V".equals(descriptor) && (methodAccessFlags & ACC_PUBLIC) != 0) {
+				hasPublicNoArgConstructor = true;
+			}
+			skipAttributes(in);
+		}
+
+		String outerName = null;
+		String simpleName = null;
+		boolean localOrAnonymous = false;
+		int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; i++) {
+			String attributeName = utf8s[in.readUnsignedShort()];
+			long length = in.readInt() & 0xFFFFFFFFL;
+			if (!"InnerClasses".equals(attributeName)) {
+				in.skipNBytes(length);
+				continue;
+			}
+			int classesCount = in.readUnsignedShort();
+			for (int j = 0; j < classesCount; j++) {
+				int innerClass = in.readUnsignedShort();
+				int outerClass = in.readUnsignedShort();
+				int innerName = in.readUnsignedShort();
+				int innerAccessFlags = in.readUnsignedShort();
+				if (innerClass == 0 || !name.equals(utf8s[classNameIndexes[innerClass]])) {
+					continue;
+				}
+				// the inner class access flags are the ones declared in the source
+				// (e.g., private and static are not recorded in the class access flags)
+				accessFlags = innerAccessFlags;
+				if (outerClass == 0 || innerName == 0) {
+					localOrAnonymous = true;
+				} else {
+					outerName = utf8s[classNameIndexes[outerClass]];
+					simpleName = utf8s[innerName];
+				}
+			}
+		}
+
+		return new ClassHeader(name, superName, accessFlags, hasPublicNoArgConstructor,
+				outerName, simpleName, localOrAnonymous);
+	}
+
+	private static void skipAttributes(DataInputStream in) throws IOException {
+		int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; i++) {
+			in.skipNBytes(2); // attribute_name_index
+			in.skipNBytes(in.readInt() & 0xFFFFFFFFL);
+		}
+	}
+
+	/**
+	 * The relevant information of a class file.
+	 *
+	 * @param name the internal name, e.g., "com/example/Outer$Inner"
+	 * @param superName the internal name of the superclass, {@code null} for java.lang.Object
+	 * @param accessFlags the access flags (from the InnerClasses attribute for nested classes)
+	 * @param hasPublicNoArgConstructor whether there's a public constructor without arguments
+	 * @param outerName for member classes, the internal name of the enclosing class
+	 * @param simpleName for member classes, the simple name
+	 * @param isLocalOrAnonymous whether it's a local or anonymous class
+	 */
+	private static record ClassHeader(String name, String superName, int accessFlags,
+			boolean hasPublicNoArgConstructor, String outerName, String simpleName, boolean isLocalOrAnonymous) {
+
+		boolean isMember() {
+			return outerName != null;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An optional Java agent that instruments the production classes with
+ * class-level probes (see {@link JnrTestCoverageProbes}), so that
+ * {@link JnrTestCoverageIndex} can record, for each test, the classes it
+ * loaded or executed.
+ * <p>
+ * The jar of this module is the agent; its options are the comma-separated
+ * prefixes of the names of the classes to instrument; without options, all
+ * the classes loaded from directories (e.g., "target/classes" and
+ * "target/test-classes") are instrumented, except the ones of JnrTest:
+ * {@snippet lang = sh :
+ * java -javaagent:io.github.lorenzobettini.jnrtest.tools.jar=com.example. \
+ *     -cp <test classpath> com.example.JnrTestMain
+ * }
+ * <p>
+ * Only the classes loaded after the agent has been installed are
+ * instrumented, so the agent should be given on the command line, rather
+ * than attached to a running JVM.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class JnrTestCoverageAgent {
+
+	private static final String JNRTEST_PACKAGE = "io/github/lorenzobettini/jnrtest/";
+	private static final String TOOLS_PACKAGE = JNRTEST_PACKAGE + "tools/";
+
+	private static volatile boolean installed = false;
+
+	private JnrTestCoverageAgent() {
+		// only static methods
+	}
+
+	/**
+	 * Installs the agent when given on the command line.
+	 *
+	 * @param options the comma-separated prefixes of the classes to instrument, may be null
+	 * @param instrumentation the instrumentation of the JVM
+	 */
+	public static void premain(String options, Instrumentation instrumentation) {
+		instrumentation.addTransformer(transformer(options));
+		installed = true;
+	}
+
+	/**
+	 * Installs the agent when attached to a running JVM.
+	 *
+	 * @param options the comma-separated prefixes of the classes to instrument, may be null
+	 * @param instrumentation the instrumentation of the JVM
+	 */
+	public static void agentmain(String options, Instrumentation instrumentation) {
+		premain(options, instrumentation);
+	}
+
+	/**
+	 * Whether the agent has been installed in this JVM.
+	 *
+	 * @return true if the agent is installed
+	 */
+	public static boolean isInstalled() {
+		return installed;
+	}
+
+	/**
+	 * Creates the transformer instrumenting the classes selected by the given
+	 * options.
+	 */
+	static ClassFileTransformer transformer(String options) {
+		var prefixes = options == null ? List.<String>of() : Arrays.stream(options.split(","))
+			.map(String::strip)
+			.filter(prefix -> !prefix.isEmpty())
+			.map(prefix -> prefix.replace('.', '/'))
+			.toList();
+		return new ClassFileTransformer() {
+			@Override
+			public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+					ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+				if (loader == null || className == null || classBeingRedefined != null
+						|| className.startsWith(TOOLS_PACKAGE)
+						|| !isInstrumented(className, protectionDomain, prefixes)) {
+					return null;
+				}
+				var id = JnrTestCoverageProbes.register(className.replace('/', '.'), loader);
+				JnrTestCoverageProbes.hit(id);
+				try {
+					return JnrTestCoverageInstrumenter.instrument(classfileBuffer, id);
+				} catch (IOException | RuntimeException e) {
+					// the class is still recorded when loaded
+					return null;
+				}
+			}
+		};
+	}
+
+	private static boolean isInstrumented(String className, ProtectionDomain protectionDomain,
+			List<String> prefixes) {
+		if (!prefixes.isEmpty()) {
+			return prefixes.stream().anyMatch(className::startsWith);
+		}
+		if (className.startsWith(JNRTEST_PACKAGE) || protectionDomain == null
+				|| protectionDomain.getCodeSource() == null) {
+			return false;
+		}
+		var location = protectionDomain.getCodeSource().getLocation();
+		return location != null && "file".equals(location.getProtocol()) && location.getPath().endsWith("/");
+	}
+}
@@ -0,0 +1,391 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+import io.github.lorenzobettini.jnrtest.core.JnrTestLifecycleEvent;
+import io.github.lorenzobettini.jnrtest.core.JnrTestListener;
+import io.github.lorenzobettini.jnrtest.core.JnrTestParallelRunner;
+import io.github.lorenzobettini.jnrtest.core.JnrTestResult;
+import io.github.lorenzobettini.jnrtest.core.JnrTestResultStatus;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableKind;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableLifecycleEvent;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableSpecification;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableStatus;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
+import io.github.lorenzobettini.jnrtest.core.JnrTestStatus;
+import io.github.lorenzobettini.jnrtest.core.JnrTestVirtualThreadRunner;
+
+/**
+ * A persistent index of the classes covered by each test, recorded with
+ * {@link JnrTestCoverageAgent}, to execute only the tests affected by the
+ * changes since the previous execution.
+ * <p>
+ * For each test that succeeded, identified by the descriptions of its test
+ * class and of its specification, the index stores the classes loaded or
+ * executed by the test, by the hooks of its test class, and by the test
+ * class itself; for each such class, the index stores the hash of its class
+ * file. A test is affected if it is not in the index (e.g., it is new, or
+ * it did not succeed), or if one of its classes changed or disappeared.
+ * <p>
+ * Coverage can only be recorded by a sequential {@link JnrTestRunner}, since
+ * the probes are not attributed to threads; the code executed outside test
+ * classes (e.g., in the constructors of test classes) is not recorded.
+ * <p>
+ * The index is stored as a simple tab-separated text file: the class files,
+ * each with its hash, followed by the tests, each with the positions of its
+ * classes; it is discarded as a whole when it cannot be read.
+ * <p>
+ * Example usage, in the main of the test suite, launched with the agent:
+ * {@snippet :
+ * var indexFile = Path.of("target/jnrtest-coverage.idx");
+ * var index = JnrTestCoverageIndex.load(indexFile);
+ * try {
+ *     JnrTestCommandLine.execute(args, runner -> {
+ *         JnrTestMainGenerated.fillTestRunner(runner);
+ *         index.configure(runner);
+ *     });
+ * } finally {
+ *     index.save(indexFile);
+ * }
+ * }
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestCoverageIndex {
+
+	private static final String HEADER = "jnrtest-coverage-index\t1";
+	private static final String CLASS_LINE = "C";
+	private static final String TEST_LINE = "T";
+	private static final String SEPARATOR = "\t";
+	private static final String IDS_SEPARATOR = ",";
+	private static final String MISSING = "";
+
+	/**
+	 * For each test class description, the classes covered by each of its tests.
+	 */
+	private final Map<String, Map<String, Set<String>>> tests;
+	/**
+	 * The hashes of the covered classes when they were recorded.
+	 */
+	private final Map<String, String> hashes;
+	/**
+	 * The current hashes of the classes, computed once.
+	 */
+	private final Map<String, String> currentHashes = new ConcurrentHashMap<>();
+	/**
+	 * The classes whose hash changed while recording, and the recorded tests,
+	 * which are up to date with such changes.
+	 */
+	private final Set<String> changedClasses = new HashSet<>();
+	private final Map<String, Set<String>> recordedTests = new HashMap<>();
+
+	private JnrTestCoverageIndex(Map<String, Map<String, Set<String>>> tests, Map<String, String> hashes) {
+		this.tests = tests;
+		this.hashes = hashes;
+	}
+
+	/**
+	 * Loads the index from the given file; if the file does not exist, or it
+	 * cannot be read, an empty index is returned, so that all the tests are
+	 * affected, and, in the latter case, the reason is printed to System.err.
+	 *
+	 * @param indexFile the file of the index
+	 * @return the loaded index
+	 */
+	public static JnrTestCoverageIndex load(Path indexFile) {
+		var tests = new HashMap<String, Map<String, Set<String>>>();
+		var hashes = new HashMap<String, String>();
+		if (!Files.isRegularFile(indexFile)) {
+			return new JnrTestCoverageIndex(tests, hashes);
+		}
+		try {
+			List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+			if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+				throw new IllegalArgumentException("Unexpected header");
+			}
+			var classNames = new ArrayList<String>();
+			for (String line : lines.subList(1, lines.size())) {
+				String[] fields = line.split(SEPARATOR, -1);
+				if (CLASS_LINE.equals(fields[0]) && fields.length == 3) {
+					classNames.add(fields[1]);
+					hashes.put(fields[1], fields[2]);
+				} else if (TEST_LINE.equals(fields[0]) && fields.length == 4) {
+					var classes = new HashSet<String>();
+					for (var id : fields[3].split(IDS_SEPARATOR)) {
+						if (!id.isEmpty()) {
+							classes.add(classNames.get(Integer.parseInt(id)));
+						}
+					}
+					tests.computeIfAbsent(unescape(fields[1]), k -> new HashMap<>())
+						.put(unescape(fields[2]), classes);
+				} else {
+					throw new IllegalArgumentException("Unexpected line: " + line);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Ignoring coverage index " + indexFile + ": " + e.getMessage());
+			tests.clear();
+			hashes.clear();
+		}
+		return new JnrTestCoverageIndex(tests, hashes);
+	}
+
+	/**
+	 * Only executes the affected tests with the given runner, and, if
+	 * {@link JnrTestCoverageAgent} is installed and the runner is sequential,
+	 * records their coverage; otherwise, the reason why coverage is not recorded
+	 * is printed to System.err.
+	 *
+	 * @param runner the runner
+	 * @return the runner, for method chaining
+	 */
+	public JnrTestRunner configure(JnrTestRunner runner) {
+		runner.testFilter(this::isAffected);
+		if (!JnrTestCoverageAgent.isInstalled()) {
+			System.err.println("Not recording coverage: the coverage agent is not installed");
+		} else if (runner instanceof JnrTestParallelRunner || runner instanceof JnrTestVirtualThreadRunner) {
+			System.err.println("Not recording coverage: the test runner is not sequential");
+		} else {
+			runner.testListener(new Recorder());
+		}
+		return runner;
+	}
+
+	/**
+	 * Creates a listener recording the coverage of the executed tests in this
+	 * index; it must be added to a sequential runner.
+	 *
+	 * @return the listener
+	 * @throws IllegalStateException if {@link JnrTestCoverageAgent} is not installed
+	 */
+	public JnrTestListener recorder() {
+		if (!JnrTestCoverageAgent.isInstalled()) {
+			throw new IllegalStateException("The coverage agent is not installed");
+		}
+		return new Recorder();
+	}
+
+	/**
+	 * Whether the given test must be executed, since it is not in the index,
+	 * or one of its classes changed since it was recorded; the current class
+	 * files are looked up through the class loader of the test class.
+	 *
+	 * @param testClass the test class
+	 * @param specification the test
+	 * @return true if the test is affected
+	 */
+	public synchronized boolean isAffected(JnrTest testClass, JnrTestRunnableSpecification specification) {
+		var classes = tests.getOrDefault(testClass.getDescription(), Map.of()).get(specification.description());
+		if (classes == null) {
+			return true;
+		}
+		var classLoader = testClass.getClass().getClassLoader();
+		return classes.stream()
+			.anyMatch(name -> !Objects.equals(hashes.get(name), currentHash(name, classLoader)));
+	}
+
+	/**
+	 * Saves the index, replacing the previous contents of the file; the tests
+	 * that have not been recorded again, and that cover a class that changed,
+	 * are removed, so that they are affected.
+	 *
+	 * @param indexFile the file of the index
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void save(Path indexFile) throws IOException {
+		tests.forEach((testClass, classTests) -> classTests.entrySet().removeIf(test ->
+			!recordedTests.getOrDefault(testClass, Set.of()).contains(test.getKey())
+				&& test.getValue().stream().anyMatch(changedClasses::contains)));
+		var ids = new LinkedHashMap<String, Integer>();
+		var testLines = new ArrayList<String>();
+		for (var testClass : new TreeMap<>(tests).entrySet()) {
+			for (var test : new TreeMap<>(testClass.getValue()).entrySet()) {
+				var testIds = new TreeSet<Integer>();
+				for (var name : test.getValue()) {
+					testIds.add(ids.computeIfAbsent(name, k -> ids.size()));
+				}
+				testLines.add(String.join(SEPARATOR, TEST_LINE, escape(testClass.getKey()), escape(test.getKey()),
+					testIds.stream().map(String::valueOf).collect(Collectors.joining(IDS_SEPARATOR))));
+			}
+		}
+		var lines = new ArrayList<String>();
+		lines.add(HEADER);
+		ids.keySet().forEach(name -> lines.add(String.join(SEPARATOR, CLASS_LINE, name, hashes.get(name))));
+		lines.addAll(testLines);
+		Path parent = indexFile.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Files.write(indexFile, lines, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Records the classes covered by the tests of a test class.
+	 */
+	private synchronized void record(String testClass, Map<String, Set<String>> succeeded, Set<String> executed) {
+		var classTests = tests.computeIfAbsent(testClass, k -> new HashMap<>());
+		var recorded = recordedTests.computeIfAbsent(testClass, k -> new HashSet<>());
+		for (var test : executed) {
+			var classes = succeeded.get(test);
+			if (classes == null) {
+				classTests.remove(test);
+				recorded.remove(test);
+				continue;
+			}
+			classes.forEach(name -> {
+				var previous = hashes.put(name, currentHashes.get(name));
+				if (previous != null && !previous.equals(currentHashes.get(name))) {
+					changedClasses.add(name);
+				}
+			});
+			classTests.put(test, classes);
+			recorded.add(test);
+		}
+	}
+
+	private String currentHash(String className, ClassLoader classLoader) {
+		return currentHashes.computeIfAbsent(className, name -> {
+			if (classLoader == null) {
+				return MISSING;
+			}
+			try (InputStream classFile = classLoader.getResourceAsStream(name.replace('.', '/') + ".class")) {
+				return classFile == null ? MISSING : JnrTestDiscoveryCache.hash(classFile.readAllBytes());
+			} catch (IOException e) {
+				return MISSING;
+			}
+		});
+	}
+
+	private static String escape(String description) {
+		return description.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private static String unescape(String field) {
+		var result = new StringBuilder(field.length());
+		for (int i = 0; i < field.length(); i++) {
+			var c = field.charAt(i);
+			if (c == '\\' && i + 1 < field.length()) {
+				c = switch (field.charAt(++i)) {
+					case 't' -> '\t';
+					case 'n' -> '\n';
+					case 'r' -> '\r';
+					default -> field.charAt(i);
+				};
+			}
+			result.append(c);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Attributes the classes hit by the probes to the test, or, outside
+	 * tests, to the test class, at each boundary of hooks and tests.
+	 */
+	final class Recorder implements JnrTestListener {
+
+		private String testClass = null;
+		private String test = null;
+		private JnrTestRunnableKind lastKind = null;
+		private boolean failedHook = false;
+		private final Set<Integer> classHits = new HashSet<>();
+		private final Map<String, Set<Integer>> testHits = new LinkedHashMap<>();
+		private final Set<String> succeeded = new HashSet<>();
+
+		@Override
+		public void notify(JnrTestLifecycleEvent event) {
+			if (event.status() == JnrTestStatus.START) {
+				if (testClass != null) {
+					throw new IllegalStateException("Coverage can only be recorded by a sequential test runner");
+				}
+				JnrTestCoverageProbes.drain();
+				testClass = event.description();
+			} else {
+				drainInto(classHits);
+				record(testClass, coveredClasses(), testHits.keySet());
+				testClass = null;
+				failedHook = false;
+				classHits.clear();
+				testHits.clear();
+				succeeded.clear();
+			}
+		}
+
+		@Override
+		public void notify(JnrTestRunnableLifecycleEvent event) {
+			drainInto(test != null ? testHits.get(test) : classHits);
+			lastKind = event.kind();
+			if (lastKind == JnrTestRunnableKind.TEST) {
+				test = event.status() == JnrTestRunnableStatus.START ? event.description() : null;
+				if (test != null) {
+					testHits.computeIfAbsent(test, k -> new HashSet<>());
+				}
+			}
+		}
+
+		@Override
+		public void notify(JnrTestResult result) {
+			if (lastKind == JnrTestRunnableKind.TEST) {
+				if (result.status() == JnrTestResultStatus.SUCCESS) {
+					succeeded.add(result.description());
+				}
+			} else if (result.status() != JnrTestResultStatus.SUCCESS) {
+				failedHook = true;
+			}
+		}
+
+		private void drainInto(Set<Integer> hits) {
+			for (int id : JnrTestCoverageProbes.drain()) {
+				hits.add(id);
+			}
+		}
+
+		/**
+		 * The classes covered by the tests that succeeded, which also include
+		 * the ones of the test class; the classes whose class file cannot be
+		 * found (e.g., generated at run time) are ignored.
+		 */
+		private Map<String, Set<String>> coveredClasses() {
+			var covered = new HashMap<String, Set<String>>();
+			if (failedHook) {
+				return covered;
+			}
+			var classes = classNames(classHits);
+			testHits.forEach((description, hits) -> {
+				if (succeeded.contains(description)) {
+					var testClasses = classNames(hits);
+					testClasses.addAll(classes);
+					covered.put(description, testClasses);
+				}
+			});
+			return covered;
+		}
+
+		private Set<String> classNames(Set<Integer> hits) {
+			var names = new HashSet<String>();
+			for (int id : hits) {
+				var name = JnrTestCoverageProbes.className(id);
+				if (!MISSING.equals(currentHash(name, JnrTestCoverageProbes.classLoader(id)))) {
+					names.add(name);
+				}
+			}
+			return names;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Inserts the class-level probe of {@link JnrTestCoverageProbes} at the
+ * beginning of each method of a class file, without any bytecode library;
+ * see the JVM specification, Chapter 4 "The class File Format".
+ * <p>
+ * The probe is {@code ldc_w <id>; invokestatic hit(I)V}, padded with two
+ * {@code nop} to 8 bytes, so that the alignment of {@code tableswitch} and
+ * {@code lookupswitch} does not change. Since branch offsets are relative,
+ * the original code is kept as it is, and only the absolute offsets are
+ * shifted: the exception table, the line and local variable tables, the
+ * first frame and the uninitialized types of the stack map table. The type
+ * annotations of the code, which are only read by tools, are dropped.
+ *
+ * @author Lorenzo Bettini
+ */
+final class JnrTestCoverageInstrumenter {
+
+	private static final String PROBES = JnrTestCoverageProbes.class.getName().replace('.', '/');
+	private static final int PROBE_LENGTH = 8;
+	private static final int MAX_CODE_LENGTH = 65535;
+	private static final int ADDED_CONSTANTS = 7;
+
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private String[] utf8;
+	private int integerIndex;
+	private int methodrefIndex;
+
+	private JnrTestCoverageInstrumenter(byte[] classFile) {
+		this.in = new DataInputStream(new ByteArrayInputStream(classFile));
+		this.out = new DataOutputStream(bytes);
+	}
+
+	/**
+	 * Instruments the given class file.
+	 *
+	 * @param classFile the contents of the class file
+	 * @param id the id of the class, passed to {@link JnrTestCoverageProbes#hit(int)}
+	 * @return the instrumented class file, or null if the constant pool is full
+	 * @throws IOException if the class file is malformed
+	 */
+	static byte[] instrument(byte[] classFile, int id) throws IOException {
+		return new JnrTestCoverageInstrumenter(classFile).instrument(id);
+	}
+
+	private byte[] instrument(int id) throws IOException {
+		out.writeInt(in.readInt()); // magic
+		out.writeShort(in.readUnsignedShort()); // minor version
+		out.writeShort(in.readUnsignedShort()); // major version
+		var count = in.readUnsignedShort();
+		if (count + ADDED_CONSTANTS > 0xFFFF) {
+			return null;
+		}
+		out.writeShort(count + ADDED_CONSTANTS);
+		copyConstantPool(count);
+		addProbeConstants(count, id);
+		copy(6); // access flags, this class, super class
+		copy(2 * copyShort()); // interfaces
+		var fields = copyShort();
+		for (int i = 0; i < fields; i++) {
+			copy(6); // access flags, name, descriptor
+			copyAttributes();
+		}
+		var methods = copyShort();
+		for (int i = 0; i < methods; i++) {
+			copy(6); // access flags, name, descriptor
+			var attributes = copyShort();
+			for (int j = 0; j < attributes; j++) {
+				var name = in.readUnsignedShort();
+				var length = in.readInt();
+				var info = in.readNBytes(length);
+				out.writeShort(name);
+				if ("Code".equals(utf8[name])) {
+					info = instrumentCode(info);
+				}
+				out.writeInt(info.length);
+				out.write(info);
+			}
+		}
+		in.transferTo(out); // attributes of the class
+		return bytes.toByteArray();
+	}
+
+	private void copyConstantPool(int count) throws IOException {
+		utf8 = new String[count];
+		for (int i = 1; i < count; i++) {
+			var tag = in.readUnsignedByte();
+			out.writeByte(tag);
+			switch (tag) {
+				case 1 -> {
+					var contents = in.readNBytes(copyShort());
+					// only ASCII names are looked up
+					utf8[i] = new String(contents, StandardCharsets.ISO_8859_1);
+					out.write(contents);
+				}
+				case 7, 8, 16, 19, 20 -> copy(2);
+				case 15 -> copy(3);
+				case 3, 4, 9, 10, 11, 12, 17, 18 -> copy(4);
+				case 5, 6 -> {
+					copy(8);
+					i++; // takes two entries
+				}
+				default -> throw new IOException("Unknown constant pool tag " + tag);
+			}
+		}
+	}
+
+	private void addProbeConstants(int first, int id) throws IOException {
+		writeUtf8(PROBES);
+		out.writeByte(7); // Class
+		out.writeShort(first);
+		writeUtf8("hit");
+		writeUtf8("(I)V");
+		out.writeByte(12); // NameAndType
+		out.writeShort(first + 2);
+		out.writeShort(first + 3);
+		out.writeByte(10); // Methodref
+		out.writeShort(first + 1);
+		out.writeShort(first + 4);
+		out.writeByte(3); // Integer
+		out.writeInt(id);
+		methodrefIndex = first + 5;
+		integerIndex = first + 6;
+	}
+
+	private void writeUtf8(String value) throws IOException {
+		out.writeByte(1);
+		out.writeUTF(value);
+	}
+
+	private byte[] instrumentCode(byte[] info) throws IOException {
+		var code = new DataInputStream(new ByteArrayInputStream(info));
+		var maxStack = code.readUnsignedShort();
+		var maxLocals = code.readUnsignedShort();
+		var codeLength = code.readInt();
+		if (codeLength + PROBE_LENGTH > MAX_CODE_LENGTH) {
+			return info;
+		}
+		var result = new ByteArrayOutputStream(info.length + PROBE_LENGTH);
+		var instrumented = new DataOutputStream(result);
+		instrumented.writeShort(Math.max(maxStack, 1));
+		instrumented.writeShort(maxLocals);
+		instrumented.writeInt(codeLength + PROBE_LENGTH);
+		instrumented.writeByte(0x13); // ldc_w
+		instrumented.writeShort(integerIndex);
+		instrumented.writeByte(0xb8); // invokestatic
+		instrumented.writeShort(methodrefIndex);
+		instrumented.writeByte(0x00); // nop
+		instrumented.writeByte(0x00); // nop
+		instrumented.write(code.readNBytes(codeLength));
+		var exceptions = code.readUnsignedShort();
+		instrumented.writeShort(exceptions);
+		for (int i = 0; i < exceptions; i++) {
+			instrumented.writeShort(code.readUnsignedShort() + PROBE_LENGTH); // start
+			instrumented.writeShort(code.readUnsignedShort() + PROBE_LENGTH); // end
+			instrumented.writeShort(code.readUnsignedShort() + PROBE_LENGTH); // handler
+			instrumented.writeShort(code.readUnsignedShort()); // catch type
+		}
+		var attributes = new ByteArrayOutputStream();
+		var attributesOut = new DataOutputStream(attributes);
+		var count = code.readUnsignedShort();
+		var kept = 0;
+		for (int i = 0; i < count; i++) {
+			var name = code.readUnsignedShort();
+			var attribute = code.readNBytes(code.readInt());
+			var shifted = switch (utf8[name]) {
+				case "LineNumberTable" -> shiftTable(attribute, 4);
+				case "LocalVariableTable", "LocalVariableTypeTable" -> shiftTable(attribute, 10);
+				case "StackMapTable" -> shiftStackMapTable(attribute);
+				case "RuntimeVisibleTypeAnnotations", "RuntimeInvisibleTypeAnnotations" -> null;
+				default -> attribute;
+			};
+			if (shifted != null) {
+				attributesOut.writeShort(name);
+				attributesOut.writeInt(shifted.length);
+				attributesOut.write(shifted);
+				kept++;
+			}
+		}
+		instrumented.writeShort(kept);
+		instrumented.write(attributes.toByteArray());
+		return result.toByteArray();
+	}
+
+	/**
+	 * Shifts the start offsets of a table whose entries start with a
+	 * {@code start_pc}, e.g., the line number table.
+	 */
+	private static byte[] shiftTable(byte[] attribute, int entryLength) throws IOException {
+		var table = new DataInputStream(new ByteArrayInputStream(attribute));
+		var result = new ByteArrayOutputStream(attribute.length);
+		var shifted = new DataOutputStream(result);
+		var entries = table.readUnsignedShort();
+		shifted.writeShort(entries);
+		for (int i = 0; i < entries; i++) {
+			shifted.writeShort(table.readUnsignedShort() + PROBE_LENGTH);
+			shifted.write(table.readNBytes(entryLength - 2));
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Shifts the offset of the first frame, since the offsets of the other
+	 * frames are relative to the previous one, and the offsets of the
+	 * {@code new} instructions of the uninitialized types.
+	 */
+	private static byte[] shiftStackMapTable(byte[] attribute) throws IOException {
+		var table = new DataInputStream(new ByteArrayInputStream(attribute));
+		var result = new ByteArrayOutputStream(attribute.length + 2);
+		var shifted = new DataOutputStream(result);
+		var frames = table.readUnsignedShort();
+		shifted.writeShort(frames);
+		for (int i = 0; i < frames; i++) {
+			var shift = i == 0 ? PROBE_LENGTH : 0;
+			var type = table.readUnsignedByte();
+			if (type < 64) { // same_frame
+				writeFrameType(shifted, type + shift, 0, 251);
+			} else if (type < 128) { // same_locals_1_stack_item_frame
+				writeFrameType(shifted, type - 64 + shift, 64, 247);
+				shiftVerificationTypes(table, shifted, 1);
+			} else if (type < 247) {
+				throw new IOException("Unknown frame type " + type);
+			} else {
+				shifted.writeByte(type);
+				shifted.writeShort(table.readUnsignedShort() + shift);
+				if (type == 247) { // same_locals_1_stack_item_frame_extended
+					shiftVerificationTypes(table, shifted, 1);
+				} else if (type > 251 && type < 255) { // append_frame
+					shiftVerificationTypes(table, shifted, type - 251);
+				} else if (type == 255) { // full_frame
+					shiftVerificationTypes(table, shifted, copyShort(table, shifted));
+					shiftVerificationTypes(table, shifted, copyShort(table, shifted));
+				}
+			}
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Writes the type of a frame whose offset delta is encoded in the type,
+	 * switching to the extended type if the delta does not fit.
+	 */
+	private static void writeFrameType(DataOutputStream shifted, int delta, int base, int extendedType)
+			throws IOException {
+		if (delta < 64) {
+			shifted.writeByte(base + delta);
+		} else {
+			shifted.writeByte(extendedType);
+			shifted.writeShort(delta);
+		}
+	}
+
+	private static void shiftVerificationTypes(DataInputStream table, DataOutputStream shifted, int count)
+			throws IOException {
+		for (int i = 0; i < count; i++) {
+			var tag = table.readUnsignedByte();
+			shifted.writeByte(tag);
+			if (tag == 7) { // Object
+				shifted.writeShort(table.readUnsignedShort());
+			} else if (tag == 8) { // Uninitialized
+				shifted.writeShort(table.readUnsignedShort() + PROBE_LENGTH);
+			}
+		}
+	}
+
+	private static int copyShort(DataInputStream from, DataOutputStream to) throws IOException {
+		var value = from.readUnsignedShort();
+		to.writeShort(value);
+		return value;
+	}
+
+	private int copyShort() throws IOException {
+		return copyShort(in, out);
+	}
+
+	private void copy(int length) throws IOException {
+		out.write(in.readNBytes(length));
+	}
+
+	private void copyAttributes() throws IOException {
+		var attributes = copyShort();
+		for (int i = 0; i < attributes; i++) {
+			copy(2);
+			var length = in.readInt();
+			out.writeInt(length);
+			copy(length);
+		}
+	}
+}
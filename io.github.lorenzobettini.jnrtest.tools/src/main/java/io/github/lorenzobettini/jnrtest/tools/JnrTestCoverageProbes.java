@@ -0,0 +1,113 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The class-level probes of {@link JnrTestCoverageAgent}: each instrumented
+ * class has an id, and each of its methods starts by calling {@link #hit(int)}
+ * with such id; the ids of the classes hit since the last {@link #drain()}
+ * are collected by {@link JnrTestCoverageIndex} at the boundaries of hooks
+ * and tests.
+ * <p>
+ * Once a class has been hit, further hits only read an element of an array,
+ * until the next drain, so the overhead is negligible.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class JnrTestCoverageProbes {
+
+	private static final Object LOCK = new Object();
+	private static volatile boolean[] hits = new boolean[1024]; // NOSONAR only replaced while holding the lock
+	private static final List<String> classNames = new ArrayList<>();
+	private static final List<WeakReference<ClassLoader>> classLoaders = new ArrayList<>();
+	private static int[] touched = new int[64];
+	private static int touchedCount = 0;
+
+	private JnrTestCoverageProbes() {
+		// only static methods
+	}
+
+	/**
+	 * Records that the class with the given id has been loaded or executed;
+	 * called by the instrumented classes.
+	 *
+	 * @param id the id of the class
+	 */
+	public static void hit(int id) {
+		if (!hits[id]) {
+			record(id);
+		}
+	}
+
+	private static void record(int id) {
+		synchronized (LOCK) {
+			var current = hits;
+			if (!current[id]) {
+				current[id] = true;
+				if (touchedCount == touched.length) {
+					touched = Arrays.copyOf(touched, touchedCount * 2);
+				}
+				touched[touchedCount++] = id;
+			}
+		}
+	}
+
+	/**
+	 * Assigns an id to a class that is about to be defined.
+	 *
+	 * @param className the binary name of the class
+	 * @param classLoader the class loader defining the class
+	 * @return the id of the class
+	 */
+	static int register(String className, ClassLoader classLoader) {
+		synchronized (LOCK) {
+			var id = classNames.size();
+			classNames.add(className);
+			classLoaders.add(new WeakReference<>(classLoader));
+			if (id == hits.length) {
+				hits = Arrays.copyOf(hits, id * 2);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * Returns the ids of the classes hit since the previous call, and resets them.
+	 *
+	 * @return the ids of the hit classes, in the order of their first hit
+	 */
+	static int[] drain() {
+		synchronized (LOCK) {
+			var current = hits;
+			var ids = Arrays.copyOf(touched, touchedCount);
+			for (int id : ids) {
+				current[id] = false;
+			}
+			touchedCount = 0;
+			return ids;
+		}
+	}
+
+	/**
+	 * @param id the id of a class
+	 * @return the binary name of the class
+	 */
+	static String className(int id) {
+		synchronized (LOCK) {
+			return classNames.get(id);
+		}
+	}
+
+	/**
+	 * @param id the id of a class
+	 * @return the class loader of the class, or null if it has been garbage collected
+	 */
+	static ClassLoader classLoader(int id) {
+		synchronized (LOCK) {
+			return classLoaders.get(id).get();
+		}
+	}
+}
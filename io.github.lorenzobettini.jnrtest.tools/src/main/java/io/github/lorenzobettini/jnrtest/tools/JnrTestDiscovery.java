@@ -2,13 +2,19 @@ package io.github.lorenzobettini.jnrtest.tools;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import org.eclipse.jdt.core.JavaCore;
@@ -18,11 +24,14 @@ import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.AnnotationTypeDeclaration;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.EnumDeclaration;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 import io.github.lorenzobettini.jnrtest.core.JnrTest;
+import io.github.lorenzobettini.jnrtest.tools.JnrTestDiscoveryCache.DeclaredType;
+import io.github.lorenzobettini.jnrtest.tools.JnrTestDiscoveryCache.SourceFile;
 
 /**
  * Discovers JnrTest subclasses in a Java source directory by parsing source files
@@ -35,22 +44,48 @@ import io.github.lorenzobettini.jnrtest.core.JnrTest;
  * {@snippet :
  * JnrTestDiscovery discovery = new JnrTestDiscovery();
  * List<String> testClasses = discovery.discover("src/test/java");
- * 
+ *
  * // testClasses contains fully qualified names of instantiable JnrTest subclasses
  * for (String className : testClasses) {
  *     System.out.println("Found test class: " + className);
  * }
  * }
+ * <p>
+ * With {@link #withCache(Path)}, the results of the analysis of each source file
+ * are stored on disk, so that subsequent discoveries only parse the files that
+ * changed in the meantime.
  *
  * @author Lorenzo Bettini
  */
-public final class JnrTestDiscovery {
+public final class JnrTestDiscovery implements JnrTestDiscoveryInterface {
+
+	private Path cacheFile = null;
+
+	/**
+	 * Enables the persistent incremental cache, stored in the given file.
+	 * <p>
+	 * A source file is parsed again only if its size, last modified time and
+	 * content hash changed since the previous discovery; type hierarchies are
+	 * always re-resolved, so that changes in a supertype are correctly taken into
+	 * consideration also for unchanged subtypes. The whole cache is discarded when
+	 * the classpath changes, i.e., its entries or their size and last modified time
+	 * (for a directory, of its files), since the subtypes of classpath types are
+	 * resolved against it.
+	 *
+	 * @param cacheFile the file where to store the cache (created if it doesn't exist)
+	 * @return this instance for method chaining
+	 */
+	public JnrTestDiscovery withCache(Path cacheFile) {
+		this.cacheFile = cacheFile;
+		return this;
+	}
 
 	/**
 	 * Discovers all instantiable JnrTest subclasses in the specified source directory.
 	 * <p>
-	 * This method walks the source directory tree, parses all Java files, and identifies
-	 * classes that:
+	 * This method walks the source directory tree, textually pre-filters the Java files
+	 * that might declare a subtype of {@link JnrTest}, parses them in a single batch
+	 * (sharing the same compiler environment), and identifies classes that:
 	 * <ul>
 	 * <li>Extend {@link JnrTest} (directly or indirectly)</li>
 	 * <li>Are public and not abstract</li>
@@ -66,6 +101,7 @@ public final class JnrTestDiscovery {
 	 * @throws IOException if there is an error reading the source directory or files
 	 * @throws IllegalArgumentException if srcDir is not a valid directory
 	 */
+	@Override
 	public List<String> discover(String srcDir) throws IOException {
 		String superTypeFqn = JnrTest.class.getCanonicalName();
 		Path projectRoot = Path.of("").toAbsolutePath();
@@ -75,18 +111,257 @@ public final class JnrTestDiscovery {
 			throw new IllegalArgumentException("Not found: " + srcRoot.toAbsolutePath());
 		}
 
-		ParserConfig cfg = ParserConfig.from(projectRoot, srcRoot);
+		List<String> classpathEntries = ParserConfig.classpathEntries(projectRoot);
 
-		List<TypeHit> hits = new ArrayList<>();
+		JnrTestDiscoveryCache cache = cacheFile != null ?
+				JnrTestDiscoveryCache.load(cacheFile,
+					String.join(File.pathSeparator, superTypeFqn, srcRoot.toString(),
+						JnrTestDiscoveryCache.hash(classpathStamp(classpathEntries)
+							.getBytes(StandardCharsets.UTF_8)))) :
+				null;
 
+		List<Path> javaFiles;
 		try (Stream<Path> s = Files.walk(srcRoot)) {
-			List<Path> javaFiles = s
+			javaFiles = s
 					.filter(p -> p.toString().endsWith(".java"))
 					.toList();
+		}
+
+		Map<Path, SourceFile> sourceFiles = scan(srcRoot, javaFiles, cache);
+
+		List<Path> candidateFiles = candidateFiles(sourceFiles, JnrTest.class.getSimpleName());
+
+		List<Path> toParse = candidateFiles.stream()
+				.filter(f -> !sourceFiles.get(f).isParsed())
+				.toList();
+
+		if (!toParse.isEmpty()) {
+			ParserConfig cfg = ParserConfig.from(classpathEntries, srcRoot);
+			Map<String, List<DeclaredType>> parsed = parse(cfg, toParse, superTypeFqn);
+			for (Path f : toParse) {
+				sourceFiles.computeIfPresent(f,
+					(k, sourceFile) -> sourceFile.withTypes(parsed.getOrDefault(k.toString(), List.of())));
+			}
+		}
+		if (cache != null) {
+			System.out.println("Parsed " + toParse.size() + " of " + candidateFiles.size() +
+					" candidate file(s), cache: " + cacheFile.toAbsolutePath());
+			cache.save(cacheFile, sourceFiles.values());
+		}
+
+		Map<String, DeclaredType> declaredTypes = new HashMap<>();
+		for (Path f : candidateFiles) {
+			for (DeclaredType t : sourceFiles.get(f).types()) {
+				declaredTypes.put(t.qualifiedName(), t);
+			}
+		}
+
+		List<DeclaredType> hits = declaredTypes.values().stream()
+				.filter(t -> isSubtypeOf(t, declaredTypes, superTypeFqn, new HashSet<>()))
+				.toList();
+
+		List<String> subtypes = hits.stream()
+				.map(DeclaredType::qualifiedName)
+				.distinct()
+				.sorted()
+				.toList();
+
+		List<String> newables = hits.stream()
+				.filter(DeclaredType::newable)
+				.map(DeclaredType::qualifiedName)
+				.distinct()
+				.sorted()
+				.toList();
+
+		System.out.println("Supertype: " + superTypeFqn);
+		System.out.println("Found " + subtypes.size() + " subtype(s) under " + srcRoot.toAbsolutePath());
+		System.out.println("Subtype(s): " + subtypes);
+		System.out.println("Newable (public no-arg ctor): " + newables);
+
+		return newables;
+	}
+
+	/**
+	 * The entries of the classpath, each one with its size and last modified time;
+	 * for a directory, the total size of its files and the most recent modification
+	 * time of its files and directories, which also changes when a file is deleted.
+	 */
+	private static String classpathStamp(List<String> classpathEntries) throws IOException {
+		List<String> stamps = new ArrayList<>();
+		for (String entry : classpathEntries) {
+			Path path = Path.of(entry);
+			long size = -1;
+			long lastModified = -1;
+			if (Files.isDirectory(path)) {
+				size = 0;
+				try (Stream<Path> walk = Files.walk(path)) {
+					for (Path p : walk.toList()) {
+						lastModified = Math.max(lastModified, Files.getLastModifiedTime(p).toMillis());
+						size += Files.isRegularFile(p) ? Files.size(p) : 0;
+					}
+				}
+			} else if (Files.isRegularFile(path)) {
+				size = Files.size(path);
+				lastModified = Files.getLastModifiedTime(path).toMillis();
+			}
+			stamps.add(entry + "|" + size + "|" + lastModified);
+		}
+		return String.join(File.pathSeparator, stamps);
+	}
+
+	/**
+	 * Collects the information about the given files, reusing the cached one
+	 * for the files that did not change.
+	 */
+	private static Map<Path, SourceFile> scan(Path srcRoot, List<Path> javaFiles, JnrTestDiscoveryCache cache)
+			throws IOException {
+		try {
+			var scanned = javaFiles.parallelStream()
+					.map(f -> scan(srcRoot, f, cache))
+					.toList();
+			Map<Path, SourceFile> sourceFiles = new HashMap<>();
+			for (int i = 0; i < javaFiles.size(); i++) {
+				sourceFiles.put(javaFiles.get(i).toAbsolutePath(), scanned.get(i));
+			}
+			return sourceFiles;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static SourceFile scan(Path srcRoot, Path javaFile, JnrTestDiscoveryCache cache) {
+		try {
+			String relativePath = srcRoot.relativize(javaFile).toString().replace(File.separatorChar, '/');
+			long size = Files.size(javaFile);
+			long lastModified = Files.getLastModifiedTime(javaFile).toMillis();
+			SourceFile cached = cache != null ? cache.get(relativePath) : null;
+			if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+				return cached;
+			}
+			byte[] contents = Files.readAllBytes(javaFile);
+			String hash = cache != null ? JnrTestDiscoveryCache.hash(contents) : "";
+			if (cached != null && cached.hash().equals(hash)) {
+				// e.g., only touched
+				return cached.withStat(size, lastModified);
+			}
+			String source = SourceNames.strip(new String(contents, StandardCharsets.UTF_8));
+			return new SourceFile(relativePath, size, lastModified, hash,
+					SourceNames.packageName(source),
+					SourceNames.matches(SourceNames.IMPORTED_TYPE, source),
+					SourceNames.matches(SourceNames.DECLARED_TYPE, source),
+					SourceNames.matches(SourceNames.EXTENDED_TYPE, source),
+					null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * A fast textual pre-filter that avoids parsing files that cannot declare a
+	 * subtype of the given class.
+	 * <p>
+	 * Starting from the simple name of the supertype, and from the names that do
+	 * not refer to types declared in the sources, which might be subtypes in the
+	 * classpath (unless they are JDK types), it computes a fixed point: a file is a
+	 * candidate if one of its {@code extends} clauses mentions a simple name already
+	 * known to be (possibly) a subtype; then, the types declared in that file become
+	 * known as well. Whether a name refers to a type declared in the sources is
+	 * decided as the compiler would, from the qualified name, the imports and the
+	 * package of the file, so that a classpath type is not mistaken for a type
+	 * declared in the sources with the same simple name. This over-approximates the
+	 * actual subtypes (e.g., in case of simple name clashes among the candidates),
+	 * which is fine, since the candidates are then analyzed with resolved bindings.
+	 */
+	private static List<Path> candidateFiles(Map<Path, SourceFile> sourceFiles, String superTypeSimpleName) {
+		Set<String> knownNames = new HashSet<>();
+		knownNames.add(superTypeSimpleName);
+		Map<String, Set<String>> declaringPackages = new HashMap<>();
+		sourceFiles.values().forEach(s -> s.declaredNames().forEach(
+			n -> declaringPackages.computeIfAbsent(n, k -> new HashSet<>()).add(s.packageName())));
+		for (SourceFile s : sourceFiles.values()) {
+			s.extendedNames().stream()
+					.filter(n -> !isSourceOrJdkType(s, n, declaringPackages))
+					.map(SourceNames::simpleName)
+					.forEach(knownNames::add);
+		}
+		List<Map.Entry<Path, SourceFile>> remaining = new ArrayList<>(sourceFiles.entrySet());
+		List<Path> candidates = new ArrayList<>();
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (var it = remaining.iterator(); it.hasNext();) {
+				var source = it.next();
+				if (source.getValue().extendedNames().stream().map(SourceNames::simpleName)
+						.anyMatch(knownNames::contains)) {
+					candidates.add(source.getKey());
+					knownNames.addAll(source.getValue().declaredNames());
+					it.remove();
+					changed = true;
+				}
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Whether the given name, in an {@code extends} clause of the given file,
+	 * surely refers to a type declared in the sources, or to a JDK type; when
+	 * unsure, e.g., for a type imported on demand from the classpath, it returns
+	 * false.
+	 */
+	private static boolean isSourceOrJdkType(SourceFile file, String name,
+			Map<String, Set<String>> declaringPackages) {
+		String simpleName = SourceNames.simpleName(name);
+		if (!simpleName.equals(name)) {
+			return isSourceOrJdkQualifiedType(name, declaringPackages);
+		}
+		for (String imported : file.importedNames()) {
+			if (imported.endsWith("." + name)) {
+				return isSourceOrJdkQualifiedType(imported, declaringPackages);
+			}
+		}
+		Set<String> packages = declaringPackages.getOrDefault(name, Set.of());
+		return file.declaredNames().contains(name) || packages.contains(file.packageName())
+				|| file.importedNames().stream()
+					.anyMatch(i -> i.endsWith(".*") && packages.contains(i.substring(0, i.length() - 2)))
+				|| SourceNames.JAVA_LANG_TYPES.contains(name);
+	}
+
+	/**
+	 * Whether the given qualified name surely refers to a type declared in the
+	 * sources, possibly a member type, or to a JDK type.
+	 */
+	private static boolean isSourceOrJdkQualifiedType(String qualifiedName, Map<String, Set<String>> declaringPackages) {
+		if (qualifiedName.startsWith("java.") || qualifiedName.startsWith("javax.")) {
+			return true;
+		}
+		String qualifier = qualifiedName.substring(0, qualifiedName.lastIndexOf('.'));
+		return declaringPackages.getOrDefault(SourceNames.simpleName(qualifiedName), Set.of()).stream()
+				.anyMatch(p -> qualifier.equals(p) || qualifier.startsWith(p + "."));
+	}
 
-			for (Path f : javaFiles) {
-				CompilationUnit cu = parseCompilationUnit(cfg, srcRoot, f);
+	/**
+	 * Parses the given files in a single batch, which shares the lookup environment
+	 * among all files, so that bindings of common types (e.g., JnrTest) are resolved
+	 * only once.
+	 *
+	 * @return the declared types indexed by the absolute path of the file
+	 */
+	private static Map<String, List<DeclaredType>> parse(ParserConfig cfg, List<Path> javaFiles, String superTypeFqn) {
+		Map<String, List<DeclaredType>> declaredTypes = new HashMap<>();
 
+		ASTParser p = cfg.newParser();
+		String[] sourceFilePaths = javaFiles.stream()
+				.map(f -> f.toAbsolutePath().toString())
+				.toArray(String[]::new);
+		String[] encodings = new String[sourceFilePaths.length];
+		Arrays.fill(encodings, StandardCharsets.UTF_8.name());
+
+		p.createASTs(sourceFilePaths, encodings, new String[0], new FileASTRequestor() {
+			@Override
+			public void acceptAST(String sourceFilePath, CompilationUnit cu) {
+				List<DeclaredType> types = new ArrayList<>();
+				declaredTypes.put(sourceFilePath, types);
 				cu.accept(new ASTVisitor() {
 					@Override
 					public boolean visit(TypeDeclaration node) {
@@ -114,45 +389,39 @@ public final class JnrTestDiscovery {
 						if (qn == null || qn.isEmpty()) {
 							return;
 						}
-						if (!isSubtypeOf(tb, superTypeFqn)) {
-							return;
-						}
-						boolean newable = isNewableNoArgPublicCtor(tb);
-						hits.add(new TypeHit(qn, newable));
+						ITypeBinding sc = tb.getSuperclass();
+						String superclassName = sc != null ? sc.getErasure().getQualifiedName() : "";
+						boolean superclassFromSource = sc != null && sc.getErasure().isFromSource();
+						types.add(new DeclaredType(qn, superclassName, superclassFromSource,
+								!superclassFromSource && isSubtypeOf(tb, superTypeFqn),
+								isNewableNoArgPublicCtor(tb)));
 					}
 				});
 			}
-		}
+		}, null);
 
-		List<String> subtypes = hits.stream()
-				.map(h -> h.qualifiedName)
-				.distinct()
-				.sorted()
-				.toList();
-
-		List<String> newables = hits.stream()
-				.filter(h -> h.newable)
-				.map(h -> h.qualifiedName)
-				.distinct()
-				.sorted()
-				.toList();
-
-		System.out.println("Supertype: " + superTypeFqn);
-		System.out.println("Found " + subtypes.size() + " subtype(s) under " + srcRoot.toAbsolutePath());
-		System.out.println("Subtype(s): " + subtypes);
-		System.out.println("Newable (public no-arg ctor): " + newables);
-
-		return newables;
+		return declaredTypes;
 	}
 
-	private static CompilationUnit parseCompilationUnit(ParserConfig cfg, Path srcRoot, Path javaFile) throws IOException {
-		ASTParser p = cfg.newParser();
-
-		String unitName = srcRoot.relativize(javaFile).toString().replace(File.separatorChar, '/');
-		p.setUnitName(unitName); // required for bindings when using char[] source
-		p.setSource(Files.readString(javaFile, StandardCharsets.UTF_8).toCharArray());
-
-		return (CompilationUnit) p.createAST(null);
+	/**
+	 * Resolves the hierarchy by following superclass edges among the types
+	 * declared in the sources; for supertypes in the classpath, the subtype
+	 * relation computed when the type was parsed is used.
+	 */
+	private static boolean isSubtypeOf(DeclaredType t, Map<String, DeclaredType> declaredTypes, String superTypeFqn,
+			Set<String> visited) {
+		if (superTypeFqn.equals(t.qualifiedName()) || superTypeFqn.equals(t.superclassName())) {
+			return true;
+		}
+		if (!t.superclassFromSource()) {
+			return t.subtypeInClasspath();
+		}
+		DeclaredType superclass = declaredTypes.get(t.superclassName());
+		// avoid infinite loops in case of (erroneous) cyclic hierarchies
+		if (superclass == null || !visited.add(superclass.qualifiedName())) {
+			return false;
+		}
+		return isSubtypeOf(superclass, declaredTypes, superTypeFqn, visited);
 	}
 
 	private static boolean isSubtypeOf(ITypeBinding tb, String superTypeFqn) {
@@ -207,12 +476,106 @@ public final class JnrTestDiscovery {
 		return false;
 	}
 
-	private static record TypeHit(String qualifiedName, boolean newable) {}
+	private static final class SourceNames {
+
+		// not after a '.', e.g., in "Foo.class"
+		static final Pattern DECLARED_TYPE = Pattern.compile("(?<!\\.)\\b(?:class|interface|enum|record)\\s+([\\w$]+)");
+
+		// possibly qualified names, e.g., "io.github...JnrTest" in "io.github...JnrTest<T>"
+		static final Pattern EXTENDED_TYPE = Pattern.compile("\\bextends\\s+((?:[\\w$]+\\s*\\.\\s*)*[\\w$]+)");
+
+		// single-type and on-demand imports, e.g., "java.util.List" and "java.util.*"
+		static final Pattern IMPORTED_TYPE = Pattern.compile("\\bimport\\s+(?!static\\b)((?:[\\w$]+\\s*\\.\\s*)+(?:[\\w$]+|\\*))\\s*;");
+
+		static final Pattern PACKAGE = Pattern.compile("\\bpackage\\s+((?:[\\w$]+\\s*\\.\\s*)*[\\w$]+)\\s*;");
+
+		static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+		// common types of java.lang, implicitly imported, which are surely not subtypes
+		// of JnrTest, also in generic bounds; other names are only parsed needlessly
+		static final Set<String> JAVA_LANG_TYPES = Set.of("Object", "Enum", "Record", "Throwable", "Exception",
+				"RuntimeException", "Error", "Thread", "Number", "Comparable", "Iterable", "Runnable",
+				"AutoCloseable", "Cloneable");
+
+		private SourceNames() {
+			// only static members
+		}
+
+		static Set<String> matches(Pattern pattern, String content) {
+			Set<String> names = new HashSet<>();
+			Matcher m = pattern.matcher(content);
+			while (m.find()) {
+				names.add(WHITESPACE.matcher(m.group(1)).replaceAll(""));
+			}
+			return names;
+		}
+
+		static String packageName(String content) {
+			Matcher m = PACKAGE.matcher(content);
+			return m.find() ? WHITESPACE.matcher(m.group(1)).replaceAll("") : "";
+		}
+
+		static String simpleName(String name) {
+			return name.substring(name.lastIndexOf('.') + 1);
+		}
+
+		/**
+		 * Replaces comments, string and character literals and text blocks with
+		 * spaces (keeping line breaks), so that the words in them are not matched.
+		 */
+		static String strip(String content) {
+			StringBuilder stripped = new StringBuilder(content);
+			int i = 0;
+			int length = content.length();
+			while (i < length) {
+				int end;
+				if (content.startsWith("//", i)) {
+					end = content.indexOf('\n', i);
+					end = end < 0 ? length : end;
+				} else if (content.startsWith("/*", i)) {
+					end = content.indexOf("*/", i + 2);
+					end = end < 0 ? length : end + 2;
+				} else if (content.startsWith("\"\"\"", i)) {
+					end = literalEnd(content, i + 3, "\"\"\"");
+				} else if (content.charAt(i) == '"' || content.charAt(i) == '\'') {
+					end = literalEnd(content, i + 1, String.valueOf(content.charAt(i)));
+				} else {
+					i++;
+					continue;
+				}
+				for (int j = i; j < end; j++) {
+					if (stripped.charAt(j) != '\n') {
+						stripped.setCharAt(j, ' ');
+					}
+				}
+				i = end;
+			}
+			return stripped.toString();
+		}
+
+		/**
+		 * The index after the given delimiter closing a literal, skipping escaped
+		 * characters, or the length of the content, if the literal is not closed.
+		 */
+		private static int literalEnd(String content, int from, String delimiter) {
+			int i = from;
+			while (i < content.length()) {
+				if (content.charAt(i) == '\\') {
+					i += 2;
+				} else if (content.startsWith(delimiter, i)) {
+					return i + delimiter.length();
+				} else {
+					i++;
+				}
+			}
+			return content.length();
+		}
+	}
 
 	private static record ParserConfig(String[] classpathEntries, String[] sourcepathEntries, // NOSONAR we don't need equals/hashCode
 			Map<String, String> compilerOptions) {
 
-		static ParserConfig from(Path projectRoot, Path srcRoot) {
+		static List<String> classpathEntries(Path projectRoot) {
 			List<String> cp = new ArrayList<>();
 
 			Path targetClasses = projectRoot.resolve("target/classes");
@@ -222,18 +585,22 @@ public final class JnrTestDiscovery {
 
 			String runtimeCp = System.getProperty("java.class.path", "");
 			if (!runtimeCp.isBlank()) {
-				for (String e : runtimeCp.split(java.util.regex.Pattern.quote(File.pathSeparator))) {
+				for (String e : runtimeCp.split(Pattern.quote(File.pathSeparator))) {
 					if (!e.isBlank()) {
 						cp.add(Path.of(e).toAbsolutePath().toString());
 					}
 				}
 			}
 
+			return cp;
+		}
+
+		static ParserConfig from(List<String> classpathEntries, Path srcRoot) {
 			Map<String, String> opts = new HashMap<>(JavaCore.getOptions());
 			JavaCore.setComplianceOptions(JavaCore.VERSION_17, opts);
 
 			return new ParserConfig(
-					cp.toArray(new String[0]),
+					classpathEntries.toArray(new String[0]),
 					new String[] { srcRoot.toAbsolutePath().toString() },
 					opts
 			);
@@ -0,0 +1,202 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A persistent cache for {@link JnrTestDiscovery}, so that only the source files
+ * that changed since the previous discovery have to be parsed again.
+ * <p>
+ * For each source file, the cache stores its size, last modified time and
+ * content hash, together with the names used by the textual pre-filter and, for parsed files, the declared types with their superclass edges.
+ * Storing the edges (instead of the final "is a subtype" answer) makes it
+ * possible to re-resolve type hierarchies when only a supertype changed.
+ * <p>
+ * The cache is stored as a simple tab-separated text file; it is discarded
+ * as a whole when its header does not match (e.g., a different source
+ * directory or classpath), or when it cannot be read.
+ *
+ * @author Lorenzo Bettini
+ */
+final class JnrTestDiscoveryCache {
+
+	private static final String HEADER = "jnrtest-discovery-cache\t2";
+	private static final String FILE_LINE = "F";
+	private static final String TYPE_LINE = "T";
+	private static final String SEPARATOR = "\t";
+	private static final String NAMES_SEPARATOR = ",";
+
+	/**
+	 * A declared type with the edge to its superclass.
+	 *
+	 * @param qualifiedName the fully qualified name of the type
+	 * @param superclassName the fully qualified name of the (erased) superclass, empty if none
+	 * @param superclassFromSource whether the superclass is declared in the scanned sources
+	 * @param subtypeInClasspath when the superclass is not from source, whether the type
+	 *                           is a subtype of the searched supertype, as resolved in the classpath
+	 * @param newable whether the type can be instantiated with a public no-arg constructor
+	 */
+	record DeclaredType(String qualifiedName, String superclassName, boolean superclassFromSource,
+			boolean subtypeInClasspath, boolean newable) {
+	}
+
+	/**
+	 * The cached information about a source file.
+	 *
+	 * @param relativePath the path relative to the source directory, with '/' separators
+	 * @param size the size of the file
+	 * @param lastModified the last modified time in milliseconds
+	 * @param hash the hash of the contents of the file
+	 * @param packageName the name of the package, empty for the default package
+	 * @param importedNames the single-type and on-demand ({@code .*}) imports
+	 * @param declaredNames the simple names of the declared types
+	 * @param extendedNames the possibly qualified names in {@code extends} clauses
+	 * @param types the declared types with their superclass edges, {@code null} if the file has not been parsed
+	 */
+	record SourceFile(String relativePath, long size, long lastModified, String hash, // NOSONAR we don't need equals/hashCode
+			String packageName, Set<String> importedNames, Set<String> declaredNames, Set<String> extendedNames,
+			List<DeclaredType> types) {
+
+		boolean isParsed() {
+			return types != null;
+		}
+
+		SourceFile withStat(long size, long lastModified) {
+			return new SourceFile(relativePath, size, lastModified, hash, packageName, importedNames, declaredNames,
+					extendedNames, types);
+		}
+
+		SourceFile withTypes(List<DeclaredType> types) {
+			return new SourceFile(relativePath, size, lastModified, hash, packageName, importedNames, declaredNames,
+					extendedNames, types);
+		}
+	}
+
+	private final String key;
+	private final Map<String, SourceFile> files;
+
+	private JnrTestDiscoveryCache(String key, Map<String, SourceFile> files) {
+		this.key = key;
+		this.files = files;
+	}
+
+	/**
+	 * Loads the cache from the given file; if the file does not exist, or it has
+	 * been saved with a different key, or it cannot be read, an empty cache is
+	 * returned.
+	 *
+	 * @param cacheFile the file of the cache
+	 * @param key identifies the discovery environment (e.g., source directory and classpath)
+	 * @return the loaded cache
+	 */
+	static JnrTestDiscoveryCache load(Path cacheFile, String key) {
+		var files = new HashMap<String, SourceFile>();
+		if (!Files.isRegularFile(cacheFile)) {
+			return new JnrTestDiscoveryCache(key, files);
+		}
+		try {
+			List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+			if (lines.size() < 2 || !HEADER.equals(lines.get(0)) || !key.equals(lines.get(1))) {
+				return new JnrTestDiscoveryCache(key, new HashMap<>());
+			}
+			SourceFile current = null;
+			for (String line : lines.subList(2, lines.size())) {
+				String[] fields = line.split(SEPARATOR, -1);
+				if (FILE_LINE.equals(fields[0])) {
+					current = new SourceFile(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+							fields[4], fields[5], names(fields[6]), names(fields[7]), names(fields[8]),
+							Boolean.parseBoolean(fields[9]) ? new ArrayList<>() : null);
+					files.put(current.relativePath(), current);
+				} else if (TYPE_LINE.equals(fields[0]) && current != null && current.isParsed()) {
+					current.types().add(new DeclaredType(fields[1], fields[2], Boolean.parseBoolean(fields[3]),
+							Boolean.parseBoolean(fields[4]), Boolean.parseBoolean(fields[5])));
+				} else {
+					throw new IllegalArgumentException("Unexpected line: " + line);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Ignoring discovery cache " + cacheFile + ": " + e.getMessage());
+			files.clear();
+		}
+		return new JnrTestDiscoveryCache(key, files);
+	}
+
+	/**
+	 * Returns the cached information for the given source file, or {@code null}.
+	 *
+	 * @param relativePath the path relative to the source directory
+	 * @return the cached information or {@code null}
+	 */
+	SourceFile get(String relativePath) {
+		return files.get(relativePath);
+	}
+
+	/**
+	 * Saves the given source files, replacing the previous contents of the cache file.
+	 *
+	 * @param cacheFile the file of the cache
+	 * @param sourceFiles the information to store
+	 * @throws IOException if the cache file cannot be written
+	 */
+	void save(Path cacheFile, Collection<SourceFile> sourceFiles) throws IOException {
+		var lines = new ArrayList<String>();
+		lines.add(HEADER);
+		lines.add(key);
+		for (SourceFile f : sourceFiles) {
+			lines.add(String.join(SEPARATOR, FILE_LINE, f.relativePath(), Long.toString(f.size()),
+					Long.toString(f.lastModified()), f.hash(), f.packageName(), names(f.importedNames()),
+					names(f.declaredNames()), names(f.extendedNames()), Boolean.toString(f.isParsed())));
+			if (f.isParsed()) {
+				for (DeclaredType t : f.types()) {
+					lines.add(String.join(SEPARATOR, TYPE_LINE, t.qualifiedName(), t.superclassName(),
+							Boolean.toString(t.superclassFromSource()), Boolean.toString(t.subtypeInClasspath()),
+							Boolean.toString(t.newable())));
+				}
+			}
+		}
+		Path parent = cacheFile.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Files.write(cacheFile, lines, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Computes the hash of the given contents.
+	 *
+	 * @param contents the contents to hash
+	 * @return the hexadecimal representation of the hash
+	 */
+	static String hash(byte[] contents) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contents));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // SHA-256 is always available
+		}
+	}
+
+	private static Set<String> names(String field) {
+		return Arrays.stream(field.split(NAMES_SEPARATOR))
+				.filter(s -> !s.isEmpty())
+				.collect(Collectors.toSet());
+	}
+
+	private static String names(Set<String> names) {
+		return names.stream()
+				.sorted()
+				.collect(Collectors.joining(NAMES_SEPARATOR));
+	}
+}
@@ -0,0 +1,27 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+/**
+ * Interface for the discovery of {@link JnrTest} subclasses that can be
+ * instantiated with a public no-argument constructor.
+ *
+ * @author Lorenzo Bettini
+ * @see JnrTestDiscovery
+ * @see JnrTestClassFileDiscovery
+ */
+public interface JnrTestDiscoveryInterface {
+
+	/**
+	 * Discovers all instantiable JnrTest subclasses in the specified directory.
+	 *
+	 * @param dir the directory to scan (relative to current working directory)
+	 * @return a sorted list of fully qualified class names that can be instantiated
+	 * @throws IOException if there is an error reading the directory or files
+	 * @throws IllegalArgumentException if dir is not a valid directory
+	 */
+	List<String> discover(String dir) throws IOException;
+}
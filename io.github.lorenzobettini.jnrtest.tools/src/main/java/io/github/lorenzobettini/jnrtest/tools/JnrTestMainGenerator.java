@@ -1,7 +1,10 @@
 package io.github.lorenzobettini.jnrtest.tools;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import javax.lang.model.element.Modifier;
 
@@ -11,6 +14,7 @@ import com.palantir.javapoet.JavaFile;
 import com.palantir.javapoet.MethodSpec;
 import com.palantir.javapoet.TypeSpec;
 
+import io.github.lorenzobettini.jnrtest.core.JnrTestCommandLine;
 import io.github.lorenzobettini.jnrtest.core.JnrTestConsoleExecutor;
 import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
 
@@ -22,7 +26,9 @@ import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
  * <ul>
  * <li>Creates instances of all discovered JnrTest subclasses</li>
  * <li>Adds them to a {@link JnrTestRunner}</li>
- * <li>Executes them via a {@link JnrTestConsoleExecutor}</li>
+ * <li>Executes them via a {@link JnrTestConsoleExecutor} configured by the
+ * command-line options parsed by {@link JnrTestCommandLine} (e.g., parallel
+ * execution, sharding and filters)</li>
  * </ul>
  * <p>
  * Example usage:
@@ -46,15 +52,7 @@ import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
  *     }
  *     
  *     public static void main(String[] args) {
- *         var executor = new JnrTestConsoleExecutor() {
- *             @Override
- *             protected JnrTestRunner createTestRunner() {
- *                 var runner = new JnrTestRunner();
- *                 GeneratedTestRunner.fillTestRunner(runner);
- *                 return runner;
- *             }
- *         };
- *         executor.execute();
+ *         JnrTestCommandLine.execute(args, GeneratedTestRunner::fillTestRunner);
  *     }
  * }
  * }
@@ -63,6 +61,53 @@ import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
  */
 public class JnrTestMainGenerator {
 
+	private Path discoveryCache = null;
+	private boolean classFileDiscovery = false;
+
+	/**
+	 * Enables the persistent incremental cache of {@link JnrTestDiscovery}, so
+	 * that only the source files changed since the previous generation are parsed
+	 * again.
+	 *
+	 * @param cacheFile the file where to store the discovery cache
+	 * @return this instance for method chaining
+	 * @see JnrTestDiscovery#withCache(Path)
+	 */
+	public JnrTestMainGenerator withDiscoveryCache(Path cacheFile) {
+		this.discoveryCache = cacheFile;
+		return this;
+	}
+
+	/**
+	 * Uses {@link JnrTestClassFileDiscovery} instead of {@link JnrTestDiscovery},
+	 * so that the directory passed to {@link #generateMain(String, String, String)}
+	 * is a directory of compiled classes (e.g., "target/test-classes") instead of
+	 * a source directory.
+	 *
+	 * @return this instance for method chaining
+	 */
+	public JnrTestMainGenerator withClassFileDiscovery() {
+		this.classFileDiscovery = true;
+		return this;
+	}
+
+	/**
+	 * Factory method to create the {@link JnrTestDiscoveryInterface}.
+	 *
+	 * @return a new instance of JnrTestDiscovery, or of JnrTestClassFileDiscovery
+	 * @see #withClassFileDiscovery()
+	 */
+	protected JnrTestDiscoveryInterface createDiscovery() {
+		if (classFileDiscovery) {
+			return new JnrTestClassFileDiscovery();
+		}
+		var discovery = new JnrTestDiscovery();
+		if (discoveryCache != null) {
+			discovery.withCache(discoveryCache);
+		}
+		return discovery;
+	}
+
 	/**
 	 * Generates a main class that runs all discovered JnrTest subclasses.
 	 * <p>
@@ -72,9 +117,13 @@ public class JnrTestMainGenerator {
 	 * <li>A {@code fillTestRunner} method that adds all test instances</li>
 	 * <li>A {@code main} method that creates and executes a test runner</li>
 	 * </ul>
+	 * <p>
+	 * The output file is rewritten only if its contents change, so that, for
+	 * example, no-op builds do not trigger the recompilation of the main class.
 	 *
 	 * @param srcDir the source directory where to find the JnrTest subclasses
-	 *               (relative to current working directory)
+	 *               (relative to current working directory), or the directory of
+	 *               compiled classes if {@link #withClassFileDiscovery()} is enabled
 	 * @param outputDir the output directory where to generate the main class
 	 *                  (will be created if it doesn't exist)
 	 * @param outputClass the fully qualified name of the output main class to generate
@@ -83,8 +132,29 @@ public class JnrTestMainGenerator {
 	 * @throws IllegalArgumentException if srcDir is not a valid directory
 	 */
 	public void generateMain(String srcDir, String outputDir, String outputClass) throws IOException {
-		var jnrTestInstnatiableClasses = new JnrTestDiscovery().discover(srcDir);
+		var jnrTestInstnatiableClasses = createDiscovery().discover(srcDir);
+		var javaFile = generateJavaFile(jnrTestInstnatiableClasses, outputClass);
 		
+		// Write to the output directory, unless it's already up to date
+		var outputFile = Path.of(outputDir, javaFile.packageName().split("\\."))
+				.resolve(javaFile.typeSpec().name() + ".java");
+		if (Files.isRegularFile(outputFile) &&
+				Files.readString(outputFile, StandardCharsets.UTF_8).equals(javaFile.toString())) {
+			System.out.println("Up to date: " + outputFile);
+			return;
+		}
+		javaFile.writeTo(Path.of(outputDir));
+	}
+
+	/**
+	 * Generates the main class for the given JnrTest subclasses; this is shared
+	 * with {@link JnrTestMainProcessor}.
+	 *
+	 * @param jnrTestInstnatiableClasses the fully qualified names of the classes to instantiate
+	 * @param outputClass the fully qualified name of the main class to generate
+	 * @return the generated Java file
+	 */
+	static JavaFile generateJavaFile(List<String> jnrTestInstnatiableClasses, String outputClass) {
 		// Extract package and class name from outputClass
 		var lastDot = outputClass.lastIndexOf('.');
 		var packageName = outputClass.substring(0, lastDot);
@@ -100,21 +170,9 @@ public class JnrTestMainGenerator {
 			fillTestRunnerMethod.addStatement("runner.add(new $T())", ClassName.bestGuess(testClass));
 		}
 		
-		// Build the main method with anonymous class
+		// Build the main method, which parses the command-line options
 		var mainMethodCode = CodeBlock.builder()
-				.add("var executor = new $T() {\n", JnrTestConsoleExecutor.class)
-				.indent()
-				.add("@Override\n")
-				.add("protected $T createTestRunner() {\n", JnrTestRunner.class)
-				.indent()
-				.addStatement("var runner = new $T()", JnrTestRunner.class)
-				.addStatement("$L.fillTestRunner(runner)", className)
-				.addStatement("return runner")
-				.unindent()
-				.add("}\n")
-				.unindent()
-				.add("};\n")
-				.addStatement("executor.execute()")
+				.addStatement("$T.execute(args, $L::fillTestRunner)", JnrTestCommandLine.class, className)
 				.build();
 		
 		var mainMethod = MethodSpec.methodBuilder("main")
@@ -133,13 +191,10 @@ public class JnrTestMainGenerator {
 				.build();
 		
 		// Generate the Java file
-		var javaFile = JavaFile.builder(packageName, generatedClass)
+		return JavaFile.builder(packageName, generatedClass)
 				.indent("\t")
 				.skipJavaLangImports(true)
 				.build();
-		
-		// Write to the output directory
-		javaFile.writeTo(Path.of(outputDir));
 	}
 
 }
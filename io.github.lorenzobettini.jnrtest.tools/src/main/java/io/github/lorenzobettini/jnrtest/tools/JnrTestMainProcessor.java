@@ -0,0 +1,143 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+/**
+ * An annotation processor that generates, during compilation, the same main
+ * class generated by {@link JnrTestMainGenerator}, for all the instantiable
+ * {@link JnrTest} subclasses being compiled.
+ * <p>
+ * Differently from {@link JnrTestMainGenerator}, there's no separate step that
+ * parses the sources again: the types are the ones javac has already
+ * attributed, and the main class is generated in the same javac invocation.
+ * <p>
+ * The fully qualified name of the class to generate must be specified with the
+ * option {@value #MAIN_CLASS_OPTION}; for example, with Maven:
+ * {@snippet lang = xml :
+ * <plugin>
+ *   <artifactId>maven-compiler-plugin</artifactId>
+ *   <configuration>
+ *     <annotationProcessorPaths>
+ *       <path>
+ *         <groupId>io.github.lorenzobettini.jnrtest</groupId>
+ *         <artifactId>io.github.lorenzobettini.jnrtest.tools</artifactId>
+ *         <version>${project.version}</version>
+ *       </path>
+ *     </annotationProcessorPaths>
+ *     <annotationProcessors>
+ *       <annotationProcessor>io.github.lorenzobettini.jnrtest.tools.JnrTestMainProcessor</annotationProcessor>
+ *     </annotationProcessors>
+ *     <compilerArgs>
+ *       <arg>-Ajnrtest.mainClass=com.example.JnrTestMain</arg>
+ *     </compilerArgs>
+ *   </configuration>
+ * </plugin>
+ * }
+ * <p>
+ * Only the classes of the current compilation are considered, so the processor
+ * is meant for full (non incremental) compilations of the test sources.
+ * <p>
+ * The main class is generated in the first round, where all the {@link JnrTest}
+ * subclasses of the sources are known, so that javac processes and compiles it
+ * as any other generated source; {@link JnrTest} subclasses generated by other
+ * annotation processors in later rounds cannot be added anymore, and they are
+ * reported with a warning.
+ *
+ * @author Lorenzo Bettini
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(JnrTestMainProcessor.MAIN_CLASS_OPTION)
+public class JnrTestMainProcessor extends AbstractProcessor {
+
+	/**
+	 * The option with the fully qualified name of the main class to generate.
+	 */
+	public static final String MAIN_CLASS_OPTION = "jnrtest.mainClass";
+
+	private boolean generated = false;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		var jnrTestType = processingEnv.getElementUtils().getTypeElement(JnrTest.class.getCanonicalName());
+		if (jnrTestType == null || roundEnv.processingOver()) {
+			return false;
+		}
+		var jnrTestErasure = processingEnv.getTypeUtils().erasure(jnrTestType.asType());
+		Set<String> found = new TreeSet<>();
+		collectInstantiableClasses(ElementFilter.typesIn(roundEnv.getRootElements()), jnrTestErasure, found);
+		if (generated) {
+			if (!found.isEmpty()) {
+				processingEnv.getMessager().printMessage(Kind.WARNING,
+					"JnrTest subclasses generated after the main class are not included: " + found);
+			}
+			return false;
+		}
+		generated = true;
+		var outputClass = processingEnv.getOptions().get(MAIN_CLASS_OPTION);
+		if (outputClass == null || outputClass.lastIndexOf('.') < 0) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+				"Missing or invalid option -A" + MAIN_CLASS_OPTION + "=<fully qualified name of the main class>");
+			return false;
+		}
+		try {
+			JnrTestMainGenerator.generateJavaFile(found.stream().toList(), outputClass)
+				.writeTo(processingEnv.getFiler());
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+				"Cannot generate " + outputClass + ": " + e.getMessage());
+		}
+		return false;
+	}
+
+	private void collectInstantiableClasses(Iterable<TypeElement> types, TypeMirror jnrTestErasure,
+			Set<String> found) {
+		for (TypeElement type : types) {
+			if (isNewableNoArgPublicCtor(type) &&
+					processingEnv.getTypeUtils().isSubtype(
+						processingEnv.getTypeUtils().erasure(type.asType()), jnrTestErasure)) {
+				found.add(type.getQualifiedName().toString());
+			}
+			collectInstantiableClasses(ElementFilter.typesIn(type.getEnclosedElements()), jnrTestErasure, found);
+		}
+	}
+
+	private static boolean isNewableNoArgPublicCtor(TypeElement type) {
+		if (type.getKind() != ElementKind.CLASS) {
+			return false;
+		}
+		Set<Modifier> modifiers = type.getModifiers();
+		if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+			return false;
+		}
+		if (type.getNestingKind() != NestingKind.TOP_LEVEL &&
+				!(type.getNestingKind() == NestingKind.MEMBER && modifiers.contains(Modifier.STATIC))) {
+			return false;
+		}
+		return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+				.filter(c -> c.getModifiers().contains(Modifier.PUBLIC))
+				.anyMatch(c -> c.getParameters().isEmpty());
+	}
+
+}
@@ -0,0 +1,464 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+import io.github.lorenzobettini.jnrtest.core.JnrTestCommandLine;
+
+/**
+ * Watches directories of compiled classes (e.g., "target/test-classes" and
+ * "target/classes") and, when class files change, executes again the
+ * {@link JnrTest} classes affected by the change, in the same JVM, so that
+ * the JVM and the JIT stay warm between executions.
+ * <p>
+ * A test class is affected if it refers, directly or indirectly, to a changed
+ * class of the watched directories (the references are read from the constant
+ * pool of the class files, without loading any class). The test classes are
+ * discovered with {@link JnrTestClassFileDiscovery}, and, at each execution,
+ * all the classes of the watched directories are loaded by a fresh class loader,
+ * so that the changed classes are loaded again; the other classes are loaded
+ * by the class loader of this class, which must be able to load JnrTest and
+ * the dependencies of the tests.
+ * <p>
+ * Test classes are executed according to a {@link JnrTestCommandLine}, so all
+ * its options (e.g., filters and parallel execution) are available.
+ * <p>
+ * Example usage, from the command line, with the test classpath:
+ * {@snippet lang = sh :
+ * java -cp <test classpath> io.github.lorenzobettini.jnrtest.tools.JnrTestWatcher \
+ *     target/test-classes target/classes --only-summaries
+ * }
+ *
+ * @author Lorenzo Bettini
+ */
+public class JnrTestWatcher {
+
+	private static final String CLASS_FILE_EXTENSION = ".class";
+	private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([^;<>\\[]+)[;<]");
+
+	/**
+	 * The result of an execution.
+	 *
+	 * @param executedTestClasses the executed test classes, loaded by a fresh class loader
+	 * @param success whether all the tests passed and all the test classes could be instantiated
+	 */
+	public record Round(List<JnrTest> executedTestClasses, boolean success) {
+	}
+
+	/**
+	 * The binary names of the classes referred by a class file.
+	 */
+	private record ClassFileInfo(FileTime lastModified, String name, Set<String> references) {
+	}
+
+	private final List<Path> classesDirs;
+	private final JnrTestCommandLine commandLine;
+	private Duration quietPeriod = Duration.ofMillis(100);
+	private final Map<Path, ClassFileInfo> classFiles = new HashMap<>();
+
+	/**
+	 * Creates a watcher for the given directories of compiled classes.
+	 *
+	 * @param classesDirs the directories of compiled classes
+	 * @param commandLine the options for executing the tests
+	 */
+	public JnrTestWatcher(List<Path> classesDirs, JnrTestCommandLine commandLine) {
+		this.classesDirs = classesDirs.stream().map(Path::toAbsolutePath).toList();
+		this.commandLine = commandLine;
+	}
+
+	/**
+	 * After a change, the time to wait for further changes before executing
+	 * the tests, so that all the class files written by a compilation are
+	 * considered together; default 100 milliseconds.
+	 *
+	 * @param quietPeriod the time to wait for further changes
+	 * @return this instance for method chaining
+	 */
+	public JnrTestWatcher withQuietPeriod(Duration quietPeriod) {
+		this.quietPeriod = quietPeriod;
+		return this;
+	}
+
+	/**
+	 * Executes all the test classes of the watched directories.
+	 *
+	 * @return the result of the execution
+	 * @throws IOException if the class files cannot be read
+	 */
+	public Round executeAll() throws IOException {
+		return execute(references(), name -> true);
+	}
+
+	/**
+	 * Executes the test classes of the watched directories affected by the
+	 * changes of the given classes.
+	 *
+	 * @param changedClasses the binary names of the changed classes (e.g.,
+	 * "com.example.Outer$Inner"), including the deleted ones
+	 * @return the result of the execution
+	 * @throws IOException if the class files cannot be read
+	 */
+	public Round executeAffected(Set<String> changedClasses) throws IOException {
+		var references = references();
+		return execute(references, name -> refersTo(name, changedClasses, references));
+	}
+
+	/**
+	 * Executes all the test classes, and then, until the current thread is
+	 * interrupted, waits for changes in the watched directories and executes
+	 * the affected test classes.
+	 *
+	 * @param roundConsumer called after each execution
+	 * @throws IOException if the directories cannot be watched or the class files cannot be read
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	public void watch(Consumer<Round> roundConsumer) throws IOException, InterruptedException {
+		try (var watchService = FileSystems.getDefault().newWatchService()) {
+			var watchedDirs = new HashMap<WatchKey, Path>();
+			for (var classesDir : classesDirs) {
+				register(classesDir, watchService, watchedDirs);
+			}
+			execute(roundConsumer, Set.of());
+			while (true) {
+				printWatching();
+				var key = watchService.take();
+				var changedClasses = new HashSet<String>();
+				var overflow = false;
+				do {
+					overflow |= collectChanges(key, watchedDirs, watchService, changedClasses);
+					key.reset();
+					key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS);
+				} while (key != null);
+				if (overflow) {
+					execute(roundConsumer, Set.of());
+				} else if (!changedClasses.isEmpty()) {
+					System.out.println("Changed: " + changedClasses.stream().sorted().toList());
+					execute(roundConsumer, changedClasses);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Executes all the test classes, if no changed class is given, or the
+	 * affected ones; a failure in reading class files (e.g., while they are
+	 * still being written) does not stop watching.
+	 */
+	private void execute(Consumer<Round> roundConsumer, Set<String> changedClasses) {
+		try {
+			roundConsumer.accept(changedClasses.isEmpty() ? executeAll() : executeAffected(changedClasses));
+		} catch (IOException e) {
+			System.out.println("Cannot execute the tests: " + e);
+		}
+	}
+
+	private void printWatching() {
+		System.out.println("Watching " + classesDirs + " for changes (interrupt to stop)...");
+	}
+
+	private static void register(Path dir, WatchService watchService, Map<WatchKey, Path> watchedDirs)
+			throws IOException {
+		try (Stream<Path> walk = Files.walk(dir)) {
+			for (var subdir : walk.filter(Files::isDirectory).toList()) {
+				watchedDirs.put(subdir.register(watchService,
+					StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE), subdir);
+			}
+		}
+	}
+
+	/**
+	 * Collects the binary names of the changed classes and registers the new
+	 * directories, returning true if some events have been lost.
+	 */
+	private boolean collectChanges(WatchKey key, Map<WatchKey, Path> watchedDirs, WatchService watchService,
+			Set<String> changedClasses) throws IOException {
+		var dir = watchedDirs.get(key);
+		var overflow = false;
+		for (var event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+				overflow = true;
+				continue;
+			}
+			var path = dir.resolve((Path) event.context());
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+				register(path, watchService, watchedDirs);
+				// the class files created before the registration
+				try (Stream<Path> walk = Files.walk(path)) {
+					walk.forEach(p -> addBinaryName(p, changedClasses));
+				}
+			} else {
+				addBinaryName(path, changedClasses);
+			}
+		}
+		return overflow;
+	}
+
+	private void addBinaryName(Path path, Set<String> changedClasses) {
+		if (!path.toString().endsWith(CLASS_FILE_EXTENSION)) {
+			return;
+		}
+		classesDirs.stream()
+			.filter(path::startsWith)
+			.findFirst()
+			.ifPresent(root -> changedClasses.add(binaryName(root.relativize(path))));
+	}
+
+	private static String binaryName(Path relativeClassFile) {
+		var name = relativeClassFile.toString();
+		return name.substring(0, name.length() - CLASS_FILE_EXTENSION.length())
+			.replace(relativeClassFile.getFileSystem().getSeparator(), ".");
+	}
+
+	private Round execute(Map<String, Set<String>> references, Predicate<String> selected) throws IOException {
+		var binaryNames = new HashMap<String, String>();
+		for (var name : references.keySet()) {
+			binaryNames.put(name.replace('$', '.'), name);
+		}
+		var discovery = new JnrTestClassFileDiscovery();
+		var testClassNames = new ArrayList<String>();
+		for (var classesDir : classesDirs) {
+			for (var canonicalName : discovery.discover(classesDir.toString())) {
+				var binaryName = binaryNames.get(canonicalName);
+				if (binaryName != null && selected.test(binaryName)) {
+					testClassNames.add(binaryName);
+				}
+			}
+		}
+		var classLoader = new ReloadingClassLoader(classesDirs, JnrTestWatcher.class.getClassLoader());
+		var testClasses = new ArrayList<JnrTest>();
+		var success = true;
+		for (var name : testClassNames) {
+			try {
+				testClasses.add(classLoader.loadClass(name)
+					.asSubclass(JnrTest.class)
+					.getConstructor()
+					.newInstance());
+			} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+				System.out.println("Cannot instantiate " + name + ": " + e);
+				success = false;
+			}
+		}
+		if (!testClasses.isEmpty()) {
+			success &= commandLine.executeWithoutThrowing(runner -> testClasses.forEach(runner::add));
+		} else {
+			System.out.println("No test class to execute");
+		}
+		return new Round(List.copyOf(testClasses), success);
+	}
+
+	private static boolean refersTo(String name, Set<String> changedClasses, Map<String, Set<String>> references) {
+		var visited = new HashSet<String>();
+		var toVisit = new ArrayDeque<String>();
+		toVisit.add(name);
+		while (!toVisit.isEmpty()) {
+			var current = toVisit.poll();
+			if (changedClasses.contains(current)) {
+				return true;
+			}
+			if (visited.add(current)) {
+				toVisit.addAll(references.getOrDefault(current, Set.of()));
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The references of all the classes of the watched directories; the class
+	 * files that did not change since the previous call are not read again.
+	 */
+	private Map<String, Set<String>> references() throws IOException {
+		var current = new HashMap<Path, ClassFileInfo>();
+		for (var classesDir : classesDirs) {
+			try (Stream<Path> walk = Files.walk(classesDir)) {
+				for (var classFile : walk.filter(p -> p.toString().endsWith(CLASS_FILE_EXTENSION)).toList()) {
+					var lastModified = Files.getLastModifiedTime(classFile);
+					var info = classFiles.get(classFile);
+					if (info == null || !info.lastModified().equals(lastModified)) {
+						info = new ClassFileInfo(lastModified, binaryName(classesDir.relativize(classFile)),
+							readReferences(Files.readAllBytes(classFile)));
+					}
+					current.put(classFile, info);
+				}
+			}
+		}
+		classFiles.clear();
+		classFiles.putAll(current);
+		var references = new HashMap<String, Set<String>>();
+		for (var info : current.values()) {
+			references.put(info.name(), info.references());
+		}
+		return references;
+	}
+
+	/**
+	 * Reads the binary names of the classes referred in the constant pool of a
+	 * class file, both as class entries and in descriptors and signatures; see
+	 * the JVM specification, Section 4.4 "The Constant Pool".
+	 */
+	static Set<String> readReferences(byte[] classFile) throws IOException {
+		var in = new DataInputStream(new ByteArrayInputStream(classFile));
+		in.readInt(); // magic
+		in.readUnsignedShort(); // minor version
+		in.readUnsignedShort(); // major version
+		var count = in.readUnsignedShort();
+		var utf8 = new String[count];
+		var classIndexes = new ArrayList<Integer>();
+		for (int i = 1; i < count; i++) {
+			var tag = in.readUnsignedByte();
+			switch (tag) {
+				case 1 -> utf8[i] = in.readUTF();
+				case 7 -> classIndexes.add(in.readUnsignedShort());
+				case 8, 16, 19, 20 -> in.skipBytes(2);
+				case 15 -> in.skipBytes(3);
+				case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);
+				case 5, 6 -> {
+					in.skipBytes(8);
+					i++; // takes two entries
+				}
+				default -> throw new IOException("Unknown constant pool tag " + tag);
+			}
+		}
+		var references = new HashSet<String>();
+		for (var index : classIndexes) {
+			var name = utf8[index];
+			if (name.startsWith("[")) {
+				addDescriptorReferences(name, references);
+			} else {
+				references.add(name.replace('/', '.'));
+			}
+		}
+		Arrays.stream(utf8)
+			.filter(s -> s != null && s.indexOf(';') > 0)
+			.forEach(s -> addDescriptorReferences(s, references));
+		return references;
+	}
+
+	private static void addDescriptorReferences(String descriptor, Set<String> references) {
+		var matcher = DESCRIPTOR_CLASS.matcher(descriptor);
+		while (matcher.find()) {
+			references.add(matcher.group(1).replace('/', '.'));
+		}
+	}
+
+	/**
+	 * Loads the classes of the watched directories, instead of delegating to
+	 * the parent first, so that the classes of the watched directories are
+	 * loaded again, even if they are also in the classpath of the parent.
+	 */
+	private static final class ReloadingClassLoader extends ClassLoader {
+
+		static {
+			registerAsParallelCapable();
+		}
+
+		private final List<Path> classesDirs;
+
+		ReloadingClassLoader(List<Path> classesDirs, ClassLoader parent) {
+			super("jnrtest-watcher", parent);
+			this.classesDirs = classesDirs;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			synchronized (getClassLoadingLock(name)) {
+				var loaded = findLoadedClass(name);
+				if (loaded == null) {
+					var classFile = find(name.replace('.', '/') + CLASS_FILE_EXTENSION);
+					if (classFile == null) {
+						return super.loadClass(name, resolve);
+					}
+					try {
+						var bytes = Files.readAllBytes(classFile);
+						loaded = defineClass(name, bytes, 0, bytes.length);
+					} catch (IOException e) {
+						throw new ClassNotFoundException(name, e);
+					}
+				}
+				if (resolve) {
+					resolveClass(loaded);
+				}
+				return loaded;
+			}
+		}
+
+		@Override
+		public URL getResource(String name) {
+			var resource = find(name);
+			if (resource == null) {
+				return super.getResource(name);
+			}
+			try {
+				return resource.toUri().toURL();
+			} catch (MalformedURLException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private Path find(String relativePath) {
+			return classesDirs.stream()
+				.map(dir -> dir.resolve(relativePath))
+				.filter(Files::isRegularFile)
+				.findFirst()
+				.orElse(null);
+		}
+	}
+
+	/**
+	 * Watches the directories given as arguments, up to the first option
+	 * starting with "--"; the remaining arguments are the options of
+	 * {@link JnrTestCommandLine}.
+	 *
+	 * @param args the directories of compiled classes, followed by the options
+	 * @throws IOException if the directories cannot be watched or the class files cannot be read
+	 * @throws InterruptedException if interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		var dirs = new ArrayList<Path>();
+		var i = 0;
+		for (; i < args.length && !args[i].startsWith("--"); i++) {
+			dirs.add(Path.of(args[i]));
+		}
+		if (dirs.isEmpty()) {
+			System.out.println("Usage: JnrTestWatcher <classes dir>... [options]\n" + JnrTestCommandLine.USAGE);
+			return;
+		}
+		var commandLine = JnrTestCommandLine.parse(Arrays.copyOfRange(args, i, args.length));
+		if (commandLine.isHelp()) {
+			System.out.println("Usage: JnrTestWatcher <classes dir>... [options]\n" + JnrTestCommandLine.USAGE);
+			return;
+		}
+		new JnrTestWatcher(dirs, commandLine).watch(round -> {
+			// results are reported by the executor
+		});
+	}
+
+}
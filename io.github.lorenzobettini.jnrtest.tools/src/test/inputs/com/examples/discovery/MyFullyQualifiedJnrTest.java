@@ -0,0 +1,14 @@
+package com.examples.discovery;
+
+public class MyFullyQualifiedJnrTest extends io.github.lorenzobettini.jnrtest.core.JnrTest {
+
+	public MyFullyQualifiedJnrTest() {
+		super("MyFullyQualifiedJnrTest");
+	}
+
+	@Override
+	protected void specify() {
+		// nothing for the moment
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.examples.discovery;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+public class MyJnrTestWithNestedClasses {
+
+	public static class MyNestedJnrTest extends JnrTest {
+
+		public MyNestedJnrTest() {
+			super("MyNestedJnrTest");
+		}
+
+		@Override
+		protected void specify() {
+			// nothing for the moment
+		}
+
+	}
+
+	public class MyInnerJnrTest extends JnrTest {
+
+		public MyInnerJnrTest() {
+			super("MyInnerJnrTest");
+		}
+
+		@Override
+		protected void specify() {
+			// nothing for the moment
+		}
+
+	}
+
+	private static class MyPrivateNestedJnrTest extends JnrTest {
+
+		public MyPrivateNestedJnrTest() {
+			super("MyPrivateNestedJnrTest");
+		}
+
+		@Override
+		protected void specify() {
+			// nothing for the moment
+		}
+
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.examples.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ExampleNestedTestClass {
+
+	List<String> list;
+
+	@BeforeEach
+	void setUp() {
+		list = new ArrayList<>();
+	}
+
+	@Test
+	void isEmpty() {
+		assertTrue(list.isEmpty());
+	}
+
+	@Nested
+	@DisplayName("when an element is added")
+	class WhenAdded {
+
+		String added = "an element";
+
+		@BeforeEach
+		void addElement() {
+			list.add(added);
+		}
+
+		@AfterEach
+		void tearDown() {
+			System.out.println("after adding " + added);
+		}
+
+		@Test
+		void isNotEmpty() {
+			assertFalse(list.isEmpty());
+		}
+
+		@ParameterizedTest
+		@ValueSource(strings = { "another", "one more" })
+		void canAddMore(String element) {
+			list.add(element);
+			assertTrue(list.contains(added));
+		}
+
+		@Nested
+		class AndRemoved {
+
+			@BeforeEach
+			void removeElement() {
+				list.remove(added);
+			}
+
+			@Test
+			@DisplayName("is empty again")
+			void isEmptyAgain() {
+				assertTrue(list.isEmpty());
+			}
+		}
+	}
+
+	@Nested
+	@Disabled
+	class DisabledTests {
+
+		@Test
+		void neverRun() {
+			assertTrue(false);
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.examples.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ExampleParameterizedTestClass {
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3 })
+	void isPositive(int number) {
+		assertTrue(number > 0);
+	}
+
+	@ParameterizedTest
+	@ValueSource(longs = { 1, 2L })
+	void longIsPositive(long number) {
+		assertTrue(number > 0);
+	}
+
+	@DisplayName("string is not empty")
+	@ParameterizedTest
+	@ValueSource(strings = { "a", "b" })
+	void stringIsNotEmpty(String s) {
+		assertTrue(!s.isEmpty());
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "1, 1, 2", "2, 3, 5" })
+	void sum(int a, int b, int expected) {
+		// a comment in a parameterized test
+		assertEquals(expected, a + b);
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', textBlock = """
+			# a comment
+			'hello, world' | 12
+			''             | 0
+			""")
+	void length(String s, long length) {
+		assertEquals(length, s.length());
+	}
+
+	@ParameterizedTest
+	@MethodSource("words")
+	void wordIsLowerCase(String word) {
+		assertEquals(word.toLowerCase(), word);
+	}
+
+	@ParameterizedTest
+	@MethodSource
+	void sumFromArguments(int a, int b, int expected) {
+		assertEquals(expected, a + b);
+	}
+
+	@ParameterizedTest
+	@MethodSource("numbers")
+	void numberIsPositive(int n) {
+		assertTrue(n > 0);
+	}
+
+	@Test
+	@Timeout(5)
+	void withTimeoutInSeconds() {
+		assertTrue(true);
+	}
+
+	@Test
+	@Timeout(value = 500, unit = TimeUnit.MILLISECONDS)
+	void withTimeoutInMilliseconds() throws InterruptedException {
+		Thread.sleep(10);
+	}
+
+	@ParameterizedTest
+	@Timeout(1)
+	@CsvSource({ "1, 2", "3, 4" })
+	void parameterizedWithTimeout(int a, int b) {
+		assertTrue(a < b);
+	}
+
+	@Test
+	@Disabled("not ready yet")
+	void disabledTest() {
+		fail("Not yet implemented");
+	}
+
+	static Stream<String> words() {
+		return Stream.of("hello", "world");
+	}
+
+	static Stream<Arguments> sumFromArguments() {
+		return Stream.of(
+			Arguments.of(1, 1, 2),
+			Arguments.of(2, 3, 5));
+	}
+
+	static IntStream numbers() {
+		return IntStream.rangeClosed(1, 3);
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.examples.tests;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ExampleUnsupportedTestClass {
+
+	@Test
+	void aTest() {
+		assertTrue(true);
+	}
+
+	@ParameterizedTest
+	@EnumSource(TimeUnit.class)
+	void enumSource(TimeUnit unit) {
+		assertTrue(unit.toNanos(1) > 0);
+	}
+
+}
@@ -7,11 +7,20 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.Comparator;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.examples.tests.ExampleNestedTestClassJnrTest;
+import com.examples.tests.ExampleParameterizedTestClassJnrTest;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTestRecorder;
+import io.github.lorenzobettini.jnrtest.core.JnrTestResult;
+import io.github.lorenzobettini.jnrtest.core.JnrTestResultStatus;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
+
 class JUnit5ToJnrTestGeneratorTest {
 
 	private static final String OUTPUT = "target/output-junit2jnrtest-generator";
@@ -40,8 +49,109 @@ class JUnit5ToJnrTestGeneratorTest {
 		var inputDir = "src/test/inputs";
 
 		// Generate the JnrTest subclasses
-		new JUnit5ToJnrTestGenerator().generate(inputDir, OUTPUT);
+		var summary = new JUnit5ToJnrTestGenerator().generate(inputDir, OUTPUT);
+		assertThat(summary.generated()).hasSize(4);
+		assertThat(summary.upToDate()).isEmpty();
+		assertThat(summary.notConverted())
+			.containsExactly(Path.of(inputDir, "com/examples/tests/ExampleUnsupportedTestClass.java")
+				.toAbsolutePath().normalize());
+
+		assertSameAsExpected();
+	}
+
+	@Test
+	void testGeneratedJnrTestsInParallel() throws IOException {
+		var summary = new JUnit5ToJnrTestGenerator()
+			.withParallelism(4)
+			.generate("src/test/inputs", OUTPUT);
+		assertThat(summary.generated()).hasSize(4);
+
+		assertSameAsExpected();
+	}
+
+	/**
+	 * Generates in incremental mode: a second generation does not generate
+	 * anything, while a changed source file is generated again.
+	 */
+	@Test
+	void testIncrementalGeneration() throws IOException {
+		var srcDir = Path.of(OUTPUT, "src");
+		var inputDir = Path.of("src/test/inputs/com/examples/tests");
+		Files.createDirectories(srcDir.resolve("com/examples/tests"));
+		try (var walk = Files.list(inputDir)) {
+			for (var p : walk.toList()) {
+				Files.copy(p, srcDir.resolve("com/examples/tests").resolve(p.getFileName().toString()));
+			}
+		}
+		var outputDir = Path.of(OUTPUT).toAbsolutePath().normalize();
+
+		var summary = new JUnit5ToJnrTestGenerator().withIncremental()
+			.generate(srcDir.toString(), OUTPUT);
+		assertThat(summary.generated()).containsExactlyInAnyOrder(
+			outputDir.resolve("com/examples/tests/ExampleNestedTestClassJnrTest.java"),
+			outputDir.resolve("com/examples/tests/ExampleParameterizedTestClassJnrTest.java"),
+			outputDir.resolve("com/examples/tests/ExampleTest2ClassJnrTest.java"),
+			outputDir.resolve("com/examples/tests/ExampleTestClassJnrTest.java"));
+		assertThat(summary.upToDate()).isEmpty();
+		assertThat(summary.withoutJUnitTests()).isEqualTo(1);
+		assertThat(summary.notConverted()).hasSize(1);
+
+		// nothing changed
+		summary = new JUnit5ToJnrTestGenerator().withIncremental()
+			.generate(srcDir.toString(), OUTPUT);
+		assertThat(summary.generated()).isEmpty();
+		assertThat(summary.upToDate()).hasSize(4);
+		// the non-test file is checked anyway, without parsing it
+		assertThat(summary.withoutJUnitTests()).isEqualTo(1);
+
+		// make a source file newer than its generated file
+		var changedSource = srcDir.resolve("com/examples/tests/ExampleTestClass.java");
+		var generated = outputDir.resolve("com/examples/tests/ExampleTestClassJnrTest.java");
+		Files.setLastModifiedTime(changedSource,
+			FileTime.fromMillis(Files.getLastModifiedTime(generated).toMillis() + 1000));
+		summary = new JUnit5ToJnrTestGenerator().withIncremental()
+			.withParallelism(2)
+			.generate(srcDir.toString(), OUTPUT);
+		assertThat(summary.generated()).containsExactly(generated);
+		assertThat(summary.upToDate()).containsExactlyInAnyOrder(
+			outputDir.resolve("com/examples/tests/ExampleNestedTestClassJnrTest.java"),
+			outputDir.resolve("com/examples/tests/ExampleParameterizedTestClassJnrTest.java"),
+			outputDir.resolve("com/examples/tests/ExampleTest2ClassJnrTest.java"));
+		assertThat(generated).hasSameTextualContentAs(
+			Path.of("src/test/outputs/com/examples/tests/ExampleTestClassJnrTest.java"));
+	}
+
+	/**
+	 * The expected outputs in "src/test/outputs" are compiled, so we can also
+	 * run them and verify that the converted features behave as in JUnit.
+	 */
+	@Test
+	void testConvertedJnrTestsRun() {
+		var recorder = new JnrTestRecorder();
+		new JnrTestRunner()
+			.add(new ExampleParameterizedTestClassJnrTest())
+			.add(new ExampleNestedTestClassJnrTest())
+			.testListener(recorder)
+			.execute();
+		var results = recorder.getResults();
+		assertThat(results.get("ExampleParameterizedTestClass in JnrTest"))
+			.allSatisfy(r -> assertThat(r.status()).isEqualTo(JnrTestResultStatus.SUCCESS))
+			.extracting(JnrTestResult::description)
+			.contains("isPositive 1", "string is not empty b", "sum [2, 3, 5]", "length [hello, world, 12]",
+				"numberIsPositive 3", "withTimeoutInMilliseconds", "parameterizedWithTimeout [3, 4]")
+			.doesNotContain("disabledTest")
+			.hasSize(22);
+		assertThat(results.get("ExampleNestedTestClass in JnrTest"))
+			.allSatisfy(r -> assertThat(r.status()).isEqualTo(JnrTestResultStatus.SUCCESS))
+			.extracting(JnrTestResult::description)
+			.containsExactly("isEmpty",
+				"when an element is added: isNotEmpty",
+				"when an element is added: canAddMore another",
+				"when an element is added: canAddMore one more",
+				"when an element is added: AndRemoved: is empty again");
+	}
 
+	private void assertSameAsExpected() throws IOException {
 		// Read the expected output directory
 		var expectedOutputDir = Path.of("src/test/outputs/com/examples/tests");
 		// Read the actual output directory
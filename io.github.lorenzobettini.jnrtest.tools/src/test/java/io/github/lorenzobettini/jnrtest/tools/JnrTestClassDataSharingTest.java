@@ -0,0 +1,89 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+class JnrTestClassDataSharingTest {
+
+	private static final String OUTPUT = "target/output-class-data-sharing";
+	private static final String MAIN = "com.examples.discovery.main.JnrTestMainGenerated";
+
+	private Path classesDir;
+	private String classpath;
+
+	/**
+	 * Copies the compiled discovery inputs, with their generated main, into
+	 * "target/output-class-data-sharing/classes", so that they can be changed.
+	 */
+	@BeforeEach
+	void setUp() throws IOException, URISyntaxException {
+		classesDir = JnrTestToolsTestUtils.copyDiscoveryClasses(OUTPUT);
+		var core = Path.of(JnrTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		classpath = classesDir + File.pathSeparator + core;
+	}
+
+	@Test
+	void testArchiveIsCreatedAndUsed() throws IOException, InterruptedException {
+		var classDataSharing = new JnrTestClassDataSharing(Path.of(OUTPUT, "cds"));
+		var jvmOptions = classDataSharing.jvmOptions(classpath, MAIN);
+
+		var archive = classDataSharing.getArchive();
+		assertThat(archive).isRegularFile();
+		assertThat(jvmOptions.get(0)).endsWith("=" + archive);
+		assertThat(jvmOptions.get(1)).isEqualTo("-cp");
+		// the directories are replaced by jars
+		assertThat(jvmOptions.get(2).split(File.pathSeparator)).allMatch(e -> e.endsWith(".jar"));
+
+		var command = new ArrayList<String>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmOptions);
+		command.add("-Xlog:class+load=info");
+		command.add(MAIN);
+		var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		var output = new String(process.getInputStream().readAllBytes());
+		assertThat(process.waitFor()).as(output).isZero();
+		assertThat(output)
+			.contains("com.examples.discovery.MyJnrTest source: shared objects file")
+			.contains("io.github.lorenzobettini.jnrtest.core.JnrTestRunner source: shared objects file");
+	}
+
+	@Test
+	void testArchiveIsRecreatedOnlyWhenNeeded() throws IOException, InterruptedException {
+		var classDataSharing = new JnrTestClassDataSharing(Path.of(OUTPUT, "cds"));
+		var jvmOptions = classDataSharing.jvmOptions(classpath, MAIN);
+		var archive = classDataSharing.getArchive();
+		var archiveTime = Files.getLastModifiedTime(archive);
+
+		// nothing changed
+		assertThat(classDataSharing.jvmOptions(classpath, MAIN)).isEqualTo(jvmOptions);
+		assertThat(Files.getLastModifiedTime(archive)).isEqualTo(archiveTime);
+
+		// a class changed
+		Files.setLastModifiedTime(classesDir.resolve("com/examples/discovery/MyJnrTest.class"),
+			FileTime.fromMillis(archiveTime.toMillis() + 10000));
+		assertThat(classDataSharing.jvmOptions(classpath, MAIN)).isEqualTo(jvmOptions);
+		var newArchiveTime = Files.getLastModifiedTime(archive);
+		assertThat(newArchiveTime).isGreaterThan(archiveTime);
+
+		// different training arguments
+		classDataSharing.withTrainingArguments("--only-summaries");
+		assertThat(classDataSharing.jvmOptions(classpath, MAIN)).isEqualTo(jvmOptions);
+		assertThat(Files.getLastModifiedTime(archive)).isGreaterThan(newArchiveTime);
+		assertThat(Files.readAllLines(Path.of(OUTPUT, "cds", "training-command.txt")))
+			.endsWith(MAIN, "--only-summaries");
+	}
+
+}
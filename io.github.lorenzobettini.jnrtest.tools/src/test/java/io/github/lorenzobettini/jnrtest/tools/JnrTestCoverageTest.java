@@ -0,0 +1,308 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRecorder;
+import io.github.lorenzobettini.jnrtest.core.JnrTestResult;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunnableSpecification;
+import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
+
+class JnrTestCoverageTest {
+
+	private static final String OUTPUT = "target/output-coverage";
+
+	private static final String CALCULATOR = """
+		package com.examples.coverage;
+
+		public class Calculator {
+			private final Object base;
+
+			public Calculator(boolean number) {
+				base = number ? Integer.valueOf(1) : new StringBuilder("1");
+			}
+
+			public int add(int a, int b) {
+				int result = 0;
+				for (int i = 0; i < a; i++) {
+					result++;
+				}
+				switch (b) {
+					case 1 -> result += 1;
+					case 1000 -> result += 1000;
+					default -> result += b;
+				}
+				try {
+					return Integer.parseInt(base.toString()) * result;
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+			}
+		}
+		""";
+
+	private static final String OTHER = """
+		package com.examples.coverage;
+
+		public record Other(int value) {
+			public int twice() {
+				return value * 2;
+			}
+		}
+		""";
+
+	private static final String TEST_CLASS = """
+		package com.examples.coverage;
+
+		import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+		public class CoverageJnrTest extends JnrTest {
+
+			public CoverageJnrTest() {
+				super("coverage");
+			}
+
+			@Override
+			protected void specify() {
+				test("add", () -> {
+					if (new Calculator(true).add(2, 3) != 5) {
+						throw new AssertionError("add");
+					}
+				});
+				test("twice", () -> {
+					if (new Other(2).twice() != 4) {
+						throw new AssertionError("twice");
+					}
+				});
+				test("failing", () -> {
+					throw new AssertionError("failing");
+				});
+			}
+		}
+		""";
+
+	private Path classesDir;
+	private Path indexFile;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		var outputPath = Paths.get(OUTPUT);
+		if (Files.exists(outputPath)) {
+			try (var walk = Files.walk(outputPath)) {
+				walk.sorted(Comparator.reverseOrder())
+					.map(Path::toFile)
+					.forEach(File::delete);
+			}
+		}
+		classesDir = outputPath.resolve("classes");
+		indexFile = outputPath.resolve("coverage.idx");
+		compile("Calculator", CALCULATOR);
+		compile("Other", OTHER);
+		compile("CoverageJnrTest", TEST_CLASS);
+	}
+
+	@Test
+	void testInstrumentedClassesHitTheProbes() throws Exception {
+		JnrTestCoverageProbes.drain();
+		try (var classLoader = new InstrumentingClassLoader()) {
+			var calculatorClass = classLoader.loadClass("com.examples.coverage.Calculator");
+			// loaded, but not executed
+			assertThat(JnrTestCoverageProbes.drain()).isEmpty();
+			var calculator = calculatorClass.getConstructor(boolean.class).newInstance(true);
+			assertThat(classNames(JnrTestCoverageProbes.drain()))
+				.containsExactly("com.examples.coverage.Calculator");
+			var add = calculatorClass.getMethod("add", int.class, int.class);
+			assertThat(add.invoke(calculator, 2, 1000)).isEqualTo(1002);
+			assertThat(add.invoke(calculatorClass.getConstructor(boolean.class).newInstance(false), 2, 3))
+				.isEqualTo(5);
+			assertThat(classNames(JnrTestCoverageProbes.drain()))
+				.containsExactly("com.examples.coverage.Calculator");
+			assertThat(JnrTestCoverageProbes.drain()).isEmpty();
+		}
+	}
+
+	@Test
+	void testRecordAndSelectAffectedTests() throws Exception {
+		assertThat(execute(JnrTestCoverageIndex.load(indexFile), ".*"))
+			.containsExactly("[SUCCESS] add", "[SUCCESS] twice", "[ FAILED] failing");
+		assertThat(Files.readAllLines(indexFile))
+			.startsWith("jnrtest-coverage-index\t1")
+			.anyMatch(line -> line.startsWith("C\tcom.examples.coverage.Other\t"))
+			.noneMatch(line -> line.contains("failing"));
+		// the failed test is executed again
+		assertThat(execute(JnrTestCoverageIndex.load(indexFile), ".*"))
+			.containsExactly("[ FAILED] failing");
+		compile("Other", OTHER.replace("value * 2", "value + value"));
+		assertThat(execute(JnrTestCoverageIndex.load(indexFile), ".*"))
+			.containsExactly("[SUCCESS] twice", "[ FAILED] failing");
+		compile("Calculator", CALCULATOR.replace("return -1", "return -2"));
+		var index = JnrTestCoverageIndex.load(indexFile);
+		try (var classLoader = new InstrumentingClassLoader()) {
+			var testClass = testClass(classLoader);
+			assertThat(testClass.getStore().getRunnableSpecifications())
+				.filteredOn(specification -> index.isAffected(testClass, specification))
+				.extracting(JnrTestRunnableSpecification::description)
+				.containsExactly("add", "failing");
+		}
+		// all the tests cover the test class, so the ones that are not executed are removed
+		compile("CoverageJnrTest", TEST_CLASS.replace("AssertionError(\"failing\")", "AssertionError(\"fails\")"));
+		assertThat(execute(JnrTestCoverageIndex.load(indexFile), "twice"))
+			.containsExactly("[SUCCESS] twice");
+		assertThat(Files.readAllLines(indexFile))
+			.filteredOn(line -> line.startsWith("T\t"))
+			.singleElement()
+			.asString()
+			.startsWith("T\tcoverage\ttwice\t");
+	}
+
+	@Test
+	void testIgnoreInvalidIndex() throws Exception {
+		Files.writeString(indexFile, "jnrtest-coverage-index\t1\nT\tcoverage\tadd\t0\n");
+		var err = System.err;
+		var output = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(output, true, StandardCharsets.UTF_8));
+		JnrTestCoverageIndex index;
+		try {
+			index = JnrTestCoverageIndex.load(indexFile);
+		} finally {
+			System.setErr(err);
+		}
+		assertThat(output.toString(StandardCharsets.UTF_8))
+			.startsWith("Ignoring coverage index " + indexFile + ": ");
+		try (var classLoader = new InstrumentingClassLoader()) {
+			var testClass = testClass(classLoader);
+			assertThat(testClass.getStore().getRunnableSpecifications())
+				.allMatch(specification -> index.isAffected(testClass, specification));
+		}
+		assertThatThrownBy(index::recorder)
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("The coverage agent is not installed");
+	}
+
+	@Test
+	void testInstrumentedClasses() throws Exception {
+		var classFile = Files.readAllBytes(classesDir.resolve("com/examples/coverage/Other.class"));
+		var directory = protectionDomain(classesDir.toUri().toURL());
+		var jar = protectionDomain(URI.create("file:/libs/other.jar").toURL());
+		var loader = getClass().getClassLoader();
+		var transformer = JnrTestCoverageAgent.transformer(null);
+		assertThat(transformer.transform(loader, "com/examples/coverage/Other", null, directory, classFile))
+			.isNotNull();
+		assertThat(transformer.transform(loader, "com/examples/coverage/Other", null, jar, classFile))
+			.isNull();
+		assertThat(transformer.transform(loader, "io/github/lorenzobettini/jnrtest/core/JnrTest", null,
+				directory, classFile))
+			.isNull();
+		assertThat(transformer.transform(null, "com/examples/coverage/Other", null, directory, classFile))
+			.isNull();
+		transformer = JnrTestCoverageAgent.transformer("com.other., com.examples.");
+		assertThat(transformer.transform(loader, "com/examples/coverage/Other", null, jar, classFile))
+			.isNotNull();
+		assertThat(transformer.transform(loader, "io/github/lorenzobettini/jnrtest/tools/JnrTestCoverageProbes",
+				null, directory, classFile))
+			.isNull();
+		assertThat(transformer.transform(loader, "com/examples/coverage/Other", null, jar, new byte[] { 1 }))
+			.isNull();
+	}
+
+	private List<String> execute(JnrTestCoverageIndex index, String specificationFilter)
+			throws IOException, ReflectiveOperationException {
+		var recorder = new JnrTestRecorder();
+		try (var classLoader = new InstrumentingClassLoader()) {
+			var runner = new JnrTestRunner()
+				.filterBySpecificationDescription(specificationFilter)
+				.testFilter(index::isAffected)
+				.testListener(index.new Recorder())
+				.testListener(recorder)
+				.add(testClass(classLoader));
+			runner.execute();
+		}
+		index.save(indexFile);
+		return recorder.getResults().get("coverage").stream()
+			.map(JnrTestResult::toString)
+			.toList();
+	}
+
+	private static JnrTest testClass(ClassLoader classLoader) throws ReflectiveOperationException {
+		return classLoader.loadClass("com.examples.coverage.CoverageJnrTest")
+			.asSubclass(JnrTest.class)
+			.getConstructor()
+			.newInstance();
+	}
+
+	private static List<String> classNames(int[] ids) {
+		return Arrays.stream(ids)
+			.mapToObj(JnrTestCoverageProbes::className)
+			.toList();
+	}
+
+	private static ProtectionDomain protectionDomain(URL location) {
+		return new ProtectionDomain(new CodeSource(location, (Certificate[]) null), null);
+	}
+
+	private void compile(String className, String contents) throws IOException {
+		var source = Path.of(OUTPUT, "src/com/examples/coverage", className + ".java");
+		Files.createDirectories(source.getParent());
+		Files.writeString(source, contents);
+		var compiler = ToolProvider.getSystemJavaCompiler();
+		var output = new StringWriter();
+		try (var fileManager = compiler.getStandardFileManager(null, null, null)) {
+			var result = compiler.getTask(output, fileManager, null,
+					List.of("-classpath", System.getProperty("java.class.path") + File.pathSeparator + classesDir,
+						"-d", classesDir.toString()),
+					null, fileManager.getJavaFileObjects(source))
+				.call();
+			assertThat(result).as(output.toString()).isTrue();
+		}
+	}
+
+	/**
+	 * Instruments the compiled classes, as {@link JnrTestCoverageAgent} does
+	 * when it is installed.
+	 */
+	private class InstrumentingClassLoader extends URLClassLoader {
+
+		InstrumentingClassLoader() throws IOException {
+			super(new URL[] { classesDir.toUri().toURL() }, JnrTestCoverageTest.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			try (var classFile = getResourceAsStream(name.replace('.', '/') + ".class")) {
+				if (classFile == null) {
+					throw new ClassNotFoundException(name);
+				}
+				var bytes = JnrTestCoverageInstrumenter.instrument(classFile.readAllBytes(),
+					JnrTestCoverageProbes.register(name, this));
+				return defineClass(name, bytes, 0, bytes.length);
+			} catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+		}
+	}
+}
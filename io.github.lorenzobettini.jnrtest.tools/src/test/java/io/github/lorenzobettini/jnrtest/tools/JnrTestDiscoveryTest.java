@@ -1,22 +1,299 @@
 package io.github.lorenzobettini.jnrtest.tools;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
 
 import org.junit.jupiter.api.Test;
 
 class JnrTestDiscoveryTest {
 
+	private static final String OUTPUT = "target/output-discovery-cache";
+	private static final String OUTPUT_CACHE_HITS = "target/output-discovery-cache-hits";
+	private static final String OUTPUT_CLASSPATH = "target/output-discovery-classpath";
+	private static final String OUTPUT_CLASH = "target/output-discovery-clash";
+
 	@Test
 	void testDiscovery() throws IOException {
 		var discoveredTests = new JnrTestDiscovery().discover("src/test/inputs/com/examples");
 		assertThat(discoveredTests)
 			.containsExactlyInAnyOrder(
+				"com.examples.discovery.MyFullyQualifiedJnrTest",
+				"com.examples.discovery.MyJnrTest",
+				"com.examples.discovery.MyJnrTest2",
+				"com.examples.discovery.MyJnrTestWithNestedClasses.MyNestedJnrTest",
+				"com.examples.discovery.subpackage.MyConcreteJnrTest"
+			);
+	}
+
+	/**
+	 * Copies the discovery inputs into "target/output-discovery-cache/src",
+	 * and discovers them with a cache; then changes some source files and verifies
+	 * that the discovery takes the changes into consideration, also for the
+	 * unchanged subclasses of a changed class.
+	 */
+	@Test
+	void testDiscoveryWithCache() throws IOException {
+		var outputPath = Paths.get(OUTPUT);
+		var srcDir = copyDiscoveryInputs(outputPath);
+		var cacheFile = outputPath.resolve("discovery.cache");
+
+		var discoveredTests = new JnrTestDiscovery().withCache(cacheFile).discover(srcDir.toString());
+		assertThat(discoveredTests)
+			.containsExactlyInAnyOrder(
+				"com.examples.discovery.MyFullyQualifiedJnrTest",
+				"com.examples.discovery.MyJnrTest",
+				"com.examples.discovery.MyJnrTest2",
+				"com.examples.discovery.MyJnrTestWithNestedClasses.MyNestedJnrTest",
+				"com.examples.discovery.subpackage.MyConcreteJnrTest"
+			);
+		assertThat(cacheFile).isRegularFile();
+
+		// nothing changed: the same results from the cache
+		discoveredTests = new JnrTestDiscovery().withCache(cacheFile).discover(srcDir.toString());
+		assertThat(discoveredTests)
+			.containsExactlyInAnyOrder(
+				"com.examples.discovery.MyFullyQualifiedJnrTest",
 				"com.examples.discovery.MyJnrTest",
 				"com.examples.discovery.MyJnrTest2",
+				"com.examples.discovery.MyJnrTestWithNestedClasses.MyNestedJnrTest",
 				"com.examples.discovery.subpackage.MyConcreteJnrTest"
 			);
+
+		// MyConcreteJnrTest is not changed, but its superclass does not extend JnrTest anymore
+		var abstractTest = srcDir.resolve("com/examples/discovery/MyAbstractJnrTest.java");
+		Files.writeString(abstractTest, Files.readString(abstractTest)
+			.replace("extends JnrTest", "")
+			.replace("super(\"MyAbstractJnrTest\");", "")
+			.replace("@Override", ""));
+		var myJnrTest2 = srcDir.resolve("com/examples/discovery/MyJnrTest2.java");
+		Files.writeString(myJnrTest2, Files.readString(myJnrTest2)
+			.replace("public class", "public abstract class"));
+		discoveredTests = new JnrTestDiscovery().withCache(cacheFile).discover(srcDir.toString());
+		assertThat(discoveredTests)
+			.containsExactlyInAnyOrder(
+				"com.examples.discovery.MyFullyQualifiedJnrTest",
+				"com.examples.discovery.MyJnrTest",
+				"com.examples.discovery.MyJnrTestWithNestedClasses.MyNestedJnrTest"
+			);
+	}
+
+	/**
+	 * Copies the discovery inputs into "target/output-discovery-cache-hits/src",
+	 * and verifies, from the output of the discovery, that the cache is hit when
+	 * nothing changed, even if a file has been touched, and that it is missed for
+	 * a changed source file, and for all the files when the classpath changed.
+	 */
+	@Test
+	void testDiscoveryCacheHitsAndMisses() throws IOException {
+		var outputPath = Paths.get(OUTPUT_CACHE_HITS);
+		var srcDir = copyDiscoveryInputs(outputPath);
+		var cacheFile = outputPath.resolve("discovery.cache");
+		assertThat(discoverWithCache(cacheFile, srcDir)).contains("Parsed 8 of 8 candidate file(s)");
+		assertThat(discoverWithCache(cacheFile, srcDir)).contains("Parsed 0 of 8 candidate file(s)");
+
+		var myJnrTest = srcDir.resolve("com/examples/discovery/MyJnrTest.java");
+		Files.setLastModifiedTime(myJnrTest, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+		assertThat(discoverWithCache(cacheFile, srcDir)).contains("Parsed 0 of 8 candidate file(s)");
+		Files.writeString(myJnrTest, Files.readString(myJnrTest) + "\n");
+		assertThat(discoverWithCache(cacheFile, srcDir)).contains("Parsed 1 of 8 candidate file(s)");
+
+		// a class file in "target/classes", which is in the classpath, changed
+		var classFile = Path.of("target/classes/io/github/lorenzobettini/jnrtest/tools/JnrTestDiscovery.class");
+		Files.setLastModifiedTime(classFile, FileTime.fromMillis(System.currentTimeMillis()));
+		assertThat(discoverWithCache(cacheFile, srcDir)).contains("Parsed 8 of 8 candidate file(s)");
+		assertThat(discoverWithCache(cacheFile, srcDir)).contains("Parsed 0 of 8 candidate file(s)");
+	}
+
+	/**
+	 * Writes into "target/output-discovery-classpath/src" subclasses of
+	 * MyAbstractJnrTest, which is not in the scanned sources, but only in the
+	 * classpath (compiled from "src/test/inputs" in "target/test-classes"), and
+	 * verifies that they are discovered.
+	 */
+	@Test
+	void testDiscoveryWithClasspathSuperclass() throws IOException {
+		var packageDir = Paths.get(OUTPUT_CLASSPATH, "src/com/examples/classpath");
+		Files.createDirectories(packageDir);
+		Files.writeString(packageDir.resolve("MyClasspathSubclassJnrTest.java"), """
+			package com.examples.classpath;
+
+			import com.examples.discovery.MyAbstractJnrTest;
+
+			public class MyClasspathSubclassJnrTest extends MyAbstractJnrTest {
+
+			}
+			""");
+		Files.writeString(packageDir.resolve("MyIndirectClasspathSubclassJnrTest.java"), """
+			package com.examples.classpath;
+
+			public class MyIndirectClasspathSubclassJnrTest extends MyClasspathSubclassJnrTest {
+
+			}
+			""");
+		Files.writeString(packageDir.resolve("MyException.java"), """
+			package com.examples.classpath;
+
+			public class MyException extends Exception {
+
+			}
+			""");
+		var discoveredTests = new JnrTestDiscovery().discover(OUTPUT_CLASSPATH + "/src");
+		assertThat(discoveredTests)
+			.containsExactly(
+				"com.examples.classpath.MyClasspathSubclassJnrTest",
+				"com.examples.classpath.MyIndirectClasspathSubclassJnrTest"
+			);
+	}
+
+	/**
+	 * Writes into "target/output-discovery-clash/src" a class with the same simple
+	 * name as MyAbstractJnrTest, which is in the classpath, but not a JnrTest, and
+	 * subclasses of the one in the classpath, referred to with a single-type
+	 * import, an on-demand import and a qualified name, and verifies that only the
+	 * latter are discovered; the words in comments and literals are ignored.
+	 */
+	@Test
+	void testDiscoveryWithClasspathSuperclassNameClash() throws IOException {
+		var packageDir = Paths.get(OUTPUT_CLASH, "src/com/examples/clash");
+		Files.createDirectories(packageDir.resolve("sub"));
+		Files.createDirectories(packageDir.resolve("other"));
+		Files.writeString(packageDir.resolve("MyAbstractJnrTest.java"), """
+			package com.examples.clash;
+
+			public class MyAbstractJnrTest {
+
+			}
+			""");
+		Files.writeString(packageDir.resolve("MyLocalSubclass.java"), """
+			package com.examples.clash;
+
+			// not a JnrTest, even if it extends JnrTest in this comment
+			public class MyLocalSubclass extends MyAbstractJnrTest {
+
+			}
+			""");
+		Files.writeString(packageDir.resolve("MyQualifiedSubclassJnrTest.java"), """
+			package com.examples.clash;
+
+			public class MyQualifiedSubclassJnrTest extends com.examples.discovery.MyAbstractJnrTest {
+
+			}
+			""");
+		Files.writeString(packageDir.resolve("sub/MyImportedSubclassJnrTest.java"), """
+			package com.examples.clash.sub;
+
+			import com.examples.discovery.MyAbstractJnrTest;
+
+			public class MyImportedSubclassJnrTest extends MyAbstractJnrTest {
+
+			}
+			""");
+		Files.writeString(packageDir.resolve("other/MyOnDemandSubclassJnrTest.java"), """
+			package com.examples.clash.other;
+
+			import com.examples.discovery.*;
+
+			/**
+			 * Not the class MyAbstractJnrTest of this package, which does not exist.
+			 */
+			public class MyOnDemandSubclassJnrTest extends MyAbstractJnrTest {
+
+				private static final String DESCRIPTION = "class MyAbstractJnrTest";
+
+				private static final String BLOCK = \"""
+					record MyAbstractJnrTest \\\"""
+					\""";
+			}
+			""");
+		var discoveredTests = new JnrTestDiscovery().discover(OUTPUT_CLASH + "/src");
+		assertThat(discoveredTests)
+			.containsExactly(
+				"com.examples.clash.MyQualifiedSubclassJnrTest",
+				"com.examples.clash.other.MyOnDemandSubclassJnrTest",
+				"com.examples.clash.sub.MyImportedSubclassJnrTest"
+			);
+	}
+
+	/**
+	 * The inputs in "src/test/inputs" are compiled in "target/test-classes", so
+	 * discovering from class files must give the same results as discovering
+	 * from sources.
+	 */
+	@Test
+	void testClassFileDiscovery() throws IOException {
+		var discoveredTests = new JnrTestClassFileDiscovery().discover("target/test-classes/com/examples/discovery");
+		assertThat(discoveredTests)
+			.containsExactly(
+				"com.examples.discovery.MyFullyQualifiedJnrTest",
+				"com.examples.discovery.MyJnrTest",
+				"com.examples.discovery.MyJnrTest2",
+				"com.examples.discovery.MyJnrTestWithNestedClasses.MyNestedJnrTest",
+				"com.examples.discovery.subpackage.MyConcreteJnrTest"
+			)
+			.isEqualTo(new JnrTestDiscovery().discover("src/test/inputs/com/examples/discovery"));
+	}
+
+	@Test
+	void testClassFileDiscoveryNotADirectory() {
+		var discovery = new JnrTestClassFileDiscovery();
+		assertThatThrownBy(() -> discovery.discover("target/test-classes/nonexistent"))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("Not found");
+	}
+
+	/**
+	 * Copies the discovery inputs into the "src" directory of the given output
+	 * directory, after cleaning it.
+	 *
+	 * @return the "src" directory
+	 */
+	private static Path copyDiscoveryInputs(Path outputPath) throws IOException {
+		if (Files.exists(outputPath)) {
+			try (var walk = Files.walk(outputPath)) {
+				walk.sorted(Comparator.reverseOrder())
+					.map(Path::toFile)
+					.forEach(File::delete);
+			}
+		}
+		var srcDir = outputPath.resolve("src");
+		var inputDir = Path.of("src/test/inputs/com/examples/discovery");
+		try (var walk = Files.walk(inputDir)) {
+			for (var p : walk.toList()) {
+				var target = srcDir.resolve("com/examples/discovery").resolve(inputDir.relativize(p).toString());
+				if (Files.isDirectory(p)) {
+					Files.createDirectories(target);
+				} else {
+					Files.copy(p, target);
+				}
+			}
+		}
+		return srcDir;
+	}
+
+	/**
+	 * Discovers with the given cache, returning the output of the discovery.
+	 */
+	private static String discoverWithCache(Path cacheFile, Path srcDir) throws IOException {
+		var out = System.out;
+		var output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+		try {
+			new JnrTestDiscovery().withCache(cacheFile).discover(srcDir.toString());
+		} finally {
+			System.setOut(out);
+		}
+		return output.toString(StandardCharsets.UTF_8);
 	}
 
 }
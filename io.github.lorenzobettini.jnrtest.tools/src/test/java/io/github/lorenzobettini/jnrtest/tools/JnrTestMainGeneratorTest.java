@@ -7,6 +7,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.util.Comparator;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -53,4 +55,47 @@ class JnrTestMainGeneratorTest {
 		assertThat(generatedFile).hasSameTextualContentAs(expectedFile);
 	}
 
+	/**
+	 * Same as above, but discovering the JnrTest subclasses from the compiled classes
+	 * in "target/test-classes".
+	 */
+	@Test
+	void testGeneratedMainWithClassFileDiscovery() throws IOException {
+		var inputDir = "target/test-classes/com/examples/discovery";
+		var outputClass = "com.examples.discovery.main.JnrTestMainGenerated";
+
+		new JnrTestMainGenerator()
+			.withClassFileDiscovery()
+			.generateMain(inputDir, OUTPUT, outputClass);
+
+		var generatedFile = Path.of(OUTPUT, "com/examples/discovery/main/JnrTestMainGenerated.java");
+		var expectedFile = Path.of("src/test/outputs/com/examples/discovery/main/JnrTestMainGenerated.java");
+		assertThat(generatedFile).hasSameTextualContentAs(expectedFile);
+	}
+
+	/**
+	 * Generates the main class again: since the file is up to date, it is not
+	 * rewritten, as its last modified time shows; a file with different contents
+	 * is instead rewritten.
+	 */
+	@Test
+	void testGeneratedMainUpToDate() throws IOException {
+		var inputDir = "src/test/inputs";
+		var outputClass = "com.examples.discovery.main.JnrTestMainGenerated";
+		var generatedFile = Path.of(OUTPUT, "com/examples/discovery/main/JnrTestMainGenerated.java");
+		var expectedFile = Path.of("src/test/outputs/com/examples/discovery/main/JnrTestMainGenerated.java");
+		var past = FileTime.from(Instant.parse("2020-01-01T00:00:00Z"));
+
+		new JnrTestMainGenerator().generateMain(inputDir, OUTPUT, outputClass);
+		Files.setLastModifiedTime(generatedFile, past);
+		new JnrTestMainGenerator().generateMain(inputDir, OUTPUT, outputClass);
+		assertThat(Files.getLastModifiedTime(generatedFile)).isEqualTo(past);
+
+		Files.writeString(generatedFile, "// stale");
+		Files.setLastModifiedTime(generatedFile, past);
+		new JnrTestMainGenerator().generateMain(inputDir, OUTPUT, outputClass);
+		assertThat(generatedFile).hasSameTextualContentAs(expectedFile);
+		assertThat(Files.getLastModifiedTime(generatedFile)).isGreaterThan(past);
+	}
+
 }
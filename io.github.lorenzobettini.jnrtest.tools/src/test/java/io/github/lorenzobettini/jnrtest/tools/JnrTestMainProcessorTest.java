@@ -0,0 +1,161 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JnrTestMainProcessorTest {
+
+	private static final String OUTPUT = "target/output-main-processor";
+
+	@BeforeEach
+	void setUp() throws IOException {
+		// prepare output directory: clean if exists, create otherwise
+		Path outputPath = Paths.get(OUTPUT);
+		if (Files.exists(outputPath)) {
+			try (var walk = Files.walk(outputPath)) {
+				walk.sorted(Comparator.reverseOrder())
+					.map(Path::toFile)
+					.forEach(File::delete);
+			}
+		}
+		Files.createDirectories(outputPath.resolve("generated"));
+		Files.createDirectories(outputPath.resolve("classes"));
+	}
+
+	/**
+	 * Compiles the sources in "src/test/inputs/com/examples/discovery" with the
+	 * annotation processor, and verifies that the generated main class is the same
+	 * as the one generated by {@link JnrTestMainGenerator}.
+	 */
+	@Test
+	void testGeneratedMain() throws IOException {
+		var output = new StringWriter();
+		var result = compile(output, "-Ajnrtest.mainClass=com.examples.discovery.main.JnrTestMainGenerated");
+		assertThat(result).as(output.toString()).isTrue();
+		// generated before the last round, so no warning about it
+		assertThat(output.toString()).doesNotContain("warning");
+
+		var generatedFile = Path.of(OUTPUT, "generated/com/examples/discovery/main/JnrTestMainGenerated.java");
+		var expectedFile = Path.of("src/test/outputs/com/examples/discovery/main/JnrTestMainGenerated.java");
+		assertThat(generatedFile).hasSameTextualContentAs(expectedFile);
+		// the generated main is compiled in the same javac invocation
+		assertThat(Path.of(OUTPUT, "classes/com/examples/discovery/main/JnrTestMainGenerated.class"))
+			.isRegularFile();
+	}
+
+	/**
+	 * A JnrTest subclass generated by another annotation processor in the first
+	 * round is known only after the main class has been generated.
+	 */
+	@Test
+	void testJnrTestGeneratedByAnotherProcessor() throws IOException {
+		var output = new StringWriter();
+		var result = compile(output,
+			JnrTestMainProcessor.class.getName() + "," + JnrTestSourceProcessor.class.getName(),
+			"-Ajnrtest.mainClass=com.examples.discovery.main.JnrTestMainGenerated");
+		assertThat(result).as(output.toString()).isTrue();
+		assertThat(output.toString())
+			.contains("JnrTest subclasses generated after the main class are not included: "
+				+ "[com.examples.discovery.generated.MyGeneratedJnrTest]");
+		assertThat(Path.of(OUTPUT, "generated/com/examples/discovery/main/JnrTestMainGenerated.java"))
+			.hasSameTextualContentAs(Path.of("src/test/outputs/com/examples/discovery/main/JnrTestMainGenerated.java"));
+	}
+
+	@Test
+	void testMissingMainClassOption() throws IOException {
+		var output = new StringWriter();
+		var result = compile(output);
+		assertThat(result).isFalse();
+		assertThat(output.toString()).contains("-Ajnrtest.mainClass");
+	}
+
+	private boolean compile(StringWriter output, String... options) throws IOException {
+		return compile(output, JnrTestMainProcessor.class.getName(), options);
+	}
+
+	private boolean compile(StringWriter output, String processors, String... options) throws IOException {
+		var compiler = ToolProvider.getSystemJavaCompiler();
+		List<File> sources;
+		try (var walk = Files.walk(Path.of("src/test/inputs/com/examples/discovery"))) {
+			sources = walk.filter(p -> p.toString().endsWith(".java"))
+				.map(Path::toFile)
+				.toList();
+		}
+		try (var fileManager = compiler.getStandardFileManager(null, null, null)) {
+			var args = new ArrayList<>(List.of(
+				"-classpath", System.getProperty("java.class.path"),
+				"-processor", processors,
+				"-s", OUTPUT + "/generated",
+				"-d", OUTPUT + "/classes"));
+			args.addAll(List.of(options));
+			return compiler.getTask(output, fileManager, null, args, null,
+					fileManager.getJavaFileObjectsFromFiles(sources))
+				.call();
+		}
+	}
+
+	/**
+	 * Generates a JnrTest subclass in the first round.
+	 */
+	@SupportedAnnotationTypes("*")
+	public static class JnrTestSourceProcessor extends AbstractProcessor {
+
+		private boolean generated = false;
+
+		@Override
+		public SourceVersion getSupportedSourceVersion() {
+			return SourceVersion.latestSupported();
+		}
+
+		@Override
+		public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+			if (generated) {
+				return false;
+			}
+			generated = true;
+			try (var writer = processingEnv.getFiler()
+					.createSourceFile("com.examples.discovery.generated.MyGeneratedJnrTest").openWriter()) {
+				writer.write("""
+					package com.examples.discovery.generated;
+
+					public class MyGeneratedJnrTest extends io.github.lorenzobettini.jnrtest.core.JnrTest {
+
+						public MyGeneratedJnrTest() {
+							super("MyGeneratedJnrTest");
+						}
+
+						@Override
+						protected void specify() {
+							// nothing to do
+						}
+					}
+					""");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return false;
+		}
+	}
+
+}
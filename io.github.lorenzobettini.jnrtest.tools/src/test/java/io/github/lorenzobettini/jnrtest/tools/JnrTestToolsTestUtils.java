@@ -0,0 +1,49 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+
+/**
+ * Fixtures shared by the tests of the tools.
+ */
+final class JnrTestToolsTestUtils {
+
+	private JnrTestToolsTestUtils() {
+		// only static methods
+	}
+
+	/**
+	 * Copies the compiled discovery inputs, with their generated main, into the
+	 * "classes" directory of the given output directory, after cleaning it, so
+	 * that they can be changed.
+	 *
+	 * @return the "classes" directory
+	 */
+	static Path copyDiscoveryClasses(String output) throws IOException {
+		var outputPath = Paths.get(output);
+		if (Files.exists(outputPath)) {
+			try (var walk = Files.walk(outputPath)) {
+				walk.sorted(Comparator.reverseOrder())
+					.map(Path::toFile)
+					.forEach(File::delete);
+			}
+		}
+		var classesDir = outputPath.resolve("classes");
+		var inputDir = Path.of("target/test-classes/com/examples/discovery");
+		try (var walk = Files.walk(inputDir)) {
+			for (var p : walk.toList()) {
+				var target = classesDir.resolve("com/examples/discovery").resolve(inputDir.relativize(p).toString());
+				if (Files.isDirectory(p)) {
+					Files.createDirectories(target);
+				} else {
+					Files.copy(p, target);
+				}
+			}
+		}
+		return classesDir;
+	}
+}
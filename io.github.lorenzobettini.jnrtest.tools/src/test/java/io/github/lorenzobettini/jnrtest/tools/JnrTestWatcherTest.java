@@ -0,0 +1,157 @@
+package io.github.lorenzobettini.jnrtest.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTestCommandLine;
+import io.github.lorenzobettini.jnrtest.tools.JnrTestWatcher.Round;
+
+class JnrTestWatcherTest {
+
+	private static final String OUTPUT = "target/output-watcher";
+
+	private Path classesDir;
+
+	/**
+	 * Copies the compiled discovery inputs into "target/output-watcher/classes",
+	 * so that they can be changed.
+	 */
+	@BeforeEach
+	void setUp() throws IOException {
+		classesDir = JnrTestToolsTestUtils.copyDiscoveryClasses(OUTPUT);
+	}
+
+	@Test
+	void testExecuteAll() throws IOException {
+		var round = createWatcher().executeAll();
+		assertThat(round.success()).isTrue();
+		assertThat(classNames(round))
+			.containsExactlyInAnyOrder(
+				"com.examples.discovery.MyFullyQualifiedJnrTest",
+				"com.examples.discovery.MyJnrTest",
+				"com.examples.discovery.MyJnrTest2",
+				"com.examples.discovery.MyJnrTestWithNestedClasses$MyNestedJnrTest",
+				"com.examples.discovery.subpackage.MyConcreteJnrTest"
+			);
+		// loaded by a fresh class loader, even if they are also in the classpath
+		assertThat(round.executedTestClasses())
+			.allMatch(t -> t.getClass().getClassLoader() != getClass().getClassLoader());
+	}
+
+	@Test
+	void testExecuteAffected() throws IOException {
+		var watcher = createWatcher();
+		var round = watcher.executeAffected(Set.of("com.examples.discovery.MyAbstractJnrTest"));
+		assertThat(classNames(round))
+			.containsExactly("com.examples.discovery.subpackage.MyConcreteJnrTest");
+		round = watcher.executeAffected(Set.of("com.examples.discovery.MyStandardClass"));
+		assertThat(round.executedTestClasses()).isEmpty();
+		assertThat(round.success()).isTrue();
+
+		round = watcher.executeAffected(Set.of("com.examples.discovery.MyJnrTest2"));
+		assertThat(classNames(round))
+			.containsExactly("com.examples.discovery.MyJnrTest2");
+		assertThat(round.success()).isTrue();
+		var previousClass = round.executedTestClasses().get(0).getClass();
+
+		// recompile MyJnrTest2 with a failing test
+		compileFailingMyJnrTest2();
+		round = watcher.executeAffected(Set.of("com.examples.discovery.MyJnrTest2"));
+		assertThat(classNames(round))
+			.containsExactly("com.examples.discovery.MyJnrTest2");
+		assertThat(round.executedTestClasses().get(0).getClass()).isNotSameAs(previousClass);
+		assertThat(round.success()).isFalse();
+	}
+
+	@Test
+	void testWatch() throws Exception {
+		var watcher = createWatcher();
+		var rounds = new LinkedBlockingQueue<Round>();
+		var thread = new Thread(() -> {
+			try {
+				watcher.watch(rounds::add);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		thread.start();
+		try {
+			// first all the test classes
+			var round = rounds.poll(30, TimeUnit.SECONDS);
+			assertThat(round.executedTestClasses()).hasSize(5);
+
+			compileFailingMyJnrTest2();
+			round = rounds.poll(30, TimeUnit.SECONDS);
+			assertThat(round).isNotNull();
+			assertThat(classNames(round))
+				.containsExactly("com.examples.discovery.MyJnrTest2");
+			assertThat(round.success()).isFalse();
+		} finally {
+			thread.interrupt();
+			thread.join(10000);
+		}
+		assertThat(thread.isAlive()).isFalse();
+	}
+
+	private JnrTestWatcher createWatcher() {
+		return new JnrTestWatcher(List.of(classesDir), JnrTestCommandLine.parse("--only-summaries"))
+			.withQuietPeriod(Duration.ofMillis(50));
+	}
+
+	private static List<String> classNames(Round round) {
+		return round.executedTestClasses().stream()
+			.map(t -> t.getClass().getName())
+			.toList();
+	}
+
+	private void compileFailingMyJnrTest2() throws IOException {
+		var source = Path.of(OUTPUT, "src/com/examples/discovery/MyJnrTest2.java");
+		Files.createDirectories(source.getParent());
+		Files.writeString(source, """
+			package com.examples.discovery;
+
+			import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+			public class MyJnrTest2 extends JnrTest {
+
+				public MyJnrTest2() {
+					super("MyJnrTest2");
+				}
+
+				@Override
+				protected void specify() {
+					test("failing test", () -> {
+						throw new AssertionError("failure");
+					});
+				}
+
+			}
+			""");
+		var compiler = ToolProvider.getSystemJavaCompiler();
+		var output = new StringWriter();
+		try (var fileManager = compiler.getStandardFileManager(null, null, null)) {
+			var result = compiler.getTask(output, fileManager, null,
+					List.of("-classpath", System.getProperty("java.class.path"), "-d", classesDir.toString()),
+					null, fileManager.getJavaFileObjects(source))
+				.call();
+			assertThat(result).as(output.toString()).isTrue();
+		}
+	}
+
+}
@@ -1,9 +1,11 @@
 package com.examples.discovery.main;
 
+import com.examples.discovery.MyFullyQualifiedJnrTest;
 import com.examples.discovery.MyJnrTest;
 import com.examples.discovery.MyJnrTest2;
+import com.examples.discovery.MyJnrTestWithNestedClasses;
 import com.examples.discovery.subpackage.MyConcreteJnrTest;
-import io.github.lorenzobettini.jnrtest.core.JnrTestConsoleExecutor;
+import io.github.lorenzobettini.jnrtest.core.JnrTestCommandLine;
 import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
 
 /**
@@ -11,20 +13,14 @@ import io.github.lorenzobettini.jnrtest.core.JnrTestRunner;
  */
 public class JnrTestMainGenerated {
 	public static void fillTestRunner(JnrTestRunner runner) {
+		runner.add(new MyFullyQualifiedJnrTest());
 		runner.add(new MyJnrTest());
 		runner.add(new MyJnrTest2());
+		runner.add(new MyJnrTestWithNestedClasses.MyNestedJnrTest());
 		runner.add(new MyConcreteJnrTest());
 	}
 
 	public static void main(String[] args) {
-		var executor = new JnrTestConsoleExecutor() {
-			@Override
-			protected JnrTestRunner createTestRunner() {
-				var runner = new JnrTestRunner();
-				JnrTestMainGenerated.fillTestRunner(runner);
-				return runner;
-			}
-		};
-		executor.execute();
+		JnrTestCommandLine.execute(args, JnrTestMainGenerated::fillTestRunner);
 	}
 }
@@ -0,0 +1,92 @@
+package com.examples.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+public class ExampleNestedTestClassJnrTest extends JnrTest { // NOSONAR
+
+	public ExampleNestedTestClassJnrTest() {
+		super("ExampleNestedTestClass in JnrTest");
+	}
+
+	protected @Override void specify() {
+		beforeEach("call setUp", () -> {
+			list = new ArrayList<>();
+		});
+		test("isEmpty", () -> {
+			assertTrue(list.isEmpty());
+		});
+		test("when an element is added: isNotEmpty", () -> {
+			var whenAdded = new WhenAdded();
+			whenAdded.addElement();
+			try {
+				whenAdded.isNotEmpty();
+			} finally {
+				whenAdded.tearDown();
+			}
+		});
+		testWithParameters("when an element is added: canAddMore", () -> List.of("another", "one more"),
+				element -> " " + element, element -> {
+					var whenAdded = new WhenAdded();
+					whenAdded.addElement();
+					try {
+						whenAdded.canAddMore(element);
+					} finally {
+						whenAdded.tearDown();
+					}
+				});
+		test("when an element is added: AndRemoved: is empty again", () -> {
+			var whenAdded = new WhenAdded();
+			whenAdded.addElement();
+			try {
+				var andRemoved = whenAdded.new AndRemoved();
+				andRemoved.removeElement();
+				andRemoved.isEmptyAgain();
+			} finally {
+				whenAdded.tearDown();
+			}
+		});
+		// disabled: DisabledTests
+	}
+
+	List<String> list;
+
+	class WhenAdded {
+
+		String added = "an element";
+
+		void addElement() {
+			list.add(added);
+		}
+
+		void tearDown() {
+			System.out.println("after adding " + added);
+		}
+
+		void isNotEmpty() {
+			assertFalse(list.isEmpty());
+		}
+
+		void canAddMore(String element) {
+			list.add(element);
+			assertTrue(list.contains(added));
+		}
+
+		class AndRemoved {
+
+			void removeElement() {
+				list.remove(added);
+			}
+
+			void isEmptyAgain() {
+				assertTrue(list.isEmpty());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.examples.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import io.github.lorenzobettini.jnrtest.core.JnrTest;
+
+public class ExampleParameterizedTestClassJnrTest extends JnrTest { // NOSONAR
+
+	public ExampleParameterizedTestClassJnrTest() {
+		super("ExampleParameterizedTestClass in JnrTest");
+	}
+
+	protected @Override void specify() {
+		testWithParameters("isPositive", () -> List.of(1, 2, 3), number -> " " + number, number -> {
+			assertTrue(number > 0);
+		});
+		testWithParameters("longIsPositive", () -> List.of(1L, 2L), number -> " " + number, number -> {
+			assertTrue(number > 0);
+		});
+		testWithParameters("string is not empty", () -> List.of("a", "b"), s -> " " + s, s -> {
+			assertTrue(!s.isEmpty());
+		});
+		testWithParameters("sum", () -> List.of(List.<Object>of(1, 1, 2), List.<Object>of(2, 3, 5)),
+				arguments -> " " + arguments, arguments -> {
+					int a = (int) arguments.get(0);
+					int b = (int) arguments.get(1);
+					int expected = (int) arguments.get(2);
+					// a comment in a parameterized test
+					assertEquals(expected, a + b);
+				});
+		testWithParameters("length", () -> List.of(List.<Object>of("hello, world", 12L), List.<Object>of("", 0L)),
+				arguments -> " " + arguments, arguments -> {
+					String s = (String) arguments.get(0);
+					long length = (long) arguments.get(1);
+					assertEquals(length, s.length());
+				});
+		testWithParameters("wordIsLowerCase", () -> words().toList(), word -> " " + word, word -> {
+			assertEquals(word.toLowerCase(), word);
+		});
+		testWithParameters("sumFromArguments", () -> sumFromArguments().map(a -> Arrays.asList(a.get())).toList(),
+				arguments -> " " + arguments, arguments -> {
+					int a = (int) arguments.get(0);
+					int b = (int) arguments.get(1);
+					int expected = (int) arguments.get(2);
+					assertEquals(expected, a + b);
+				});
+		testWithParameters("numberIsPositive", () -> numbers().boxed().toList(), n -> " " + n, n -> {
+			assertTrue(n > 0);
+		});
+		test("withTimeoutInSeconds", withTimeout(5, () -> {
+			assertTrue(true);
+		}));
+		test("withTimeoutInMilliseconds", withTimeout(500, TimeUnit.MILLISECONDS, () -> {
+			Thread.sleep(10);
+		}));
+		testWithParameters("parameterizedWithTimeout", () -> List.of(List.<Object>of(1, 2), List.<Object>of(3, 4)),
+				arguments -> " " + arguments, arguments -> {
+					int a = (int) arguments.get(0);
+					int b = (int) arguments.get(1);
+					withTimeout(1, () -> {
+						assertTrue(a < b);
+					}).run();
+				});
+		// disabled: disabledTest (not ready yet)
+	}
+
+	static Stream<String> words() {
+		return Stream.of("hello", "world");
+	}
+
+	static Stream<Arguments> sumFromArguments() {
+		return Stream.of(Arguments.of(1, 1, 2), Arguments.of(2, 3, 5));
+	}
+
+	static IntStream numbers() {
+		return IntStream.rangeClosed(1, 3);
+	}
+
+}